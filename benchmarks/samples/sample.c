@@ -0,0 +1,95 @@
+/* Sample program for the CodeParser benchmark: sorting, searching, and statistics */
+#define SIZE 100
+
+struct Stats {
+	int min;
+	int max;
+	double mean;
+};
+
+void bubbleSort(int values[], int count)
+{
+	int i, j;
+	for (i = 0; i < count - 1; i++) {
+		for (j = 0; j < count - 1 - i; j++) {
+			if (values[j] > values[j + 1]) {
+				int tmp = values[j];
+				values[j] = values[j + 1];
+				values[j + 1] = tmp;
+			}
+		}
+	}
+}
+
+int binarySearch(int values[], int count, int key)
+{
+	int low = 0;
+	int high = count - 1;
+	while (low <= high) {
+		int mid = (low + high) / 2;
+		if (values[mid] == key) {
+			return mid;
+		}
+		else if (values[mid] < key) {
+			low = mid + 1;
+		}
+		else {
+			high = mid - 1;
+		}
+	}
+	return -1;
+}
+
+struct Stats computeStats(int values[], int count)
+{
+	struct Stats stats;
+	int sum = 0;
+	int i;
+	stats.min = values[0];
+	stats.max = values[0];
+	for (i = 0; i < count; i++) {
+		sum += values[i];
+		if (values[i] < stats.min) stats.min = values[i];
+		if (values[i] > stats.max) stats.max = values[i];
+	}
+	stats.mean = (double)sum / count;
+	return stats;
+}
+
+int classify(int value)
+{
+	int category;
+	switch (value % 4) {
+	case 0:
+		category = 10;
+		break;
+	case 1:
+	case 2:
+		category = 20;
+		break;
+	default:
+		category = 30;
+	}
+	return category;
+}
+
+int main(void)
+{
+	int values[SIZE];
+	int i;
+	int seed = 17;
+	struct Stats stats;
+	for (i = 0; i < SIZE; i++) {
+		seed = (seed * 73 + 11) % 1009;
+		values[i] = seed;
+	}
+	bubbleSort(values, SIZE);
+	stats = computeStats(values, SIZE);
+	printf("min %d, max %d, mean %f\n", stats.min, stats.max, stats.mean);
+	i = 0;
+	do {
+		printf("%d: %d (%d)\n", i, binarySearch(values, SIZE, values[i]), classify(values[i]));
+		i += 10;
+	} while (i < SIZE);
+	return 0;
+}
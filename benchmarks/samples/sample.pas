@@ -0,0 +1,83 @@
+{ Sample program for the CodeParser benchmark: sorting, searching, and statistics }
+program Sample;
+
+const
+  SIZE = 100;
+
+type
+  TValues = array [0..99] of Integer;
+
+var
+  values: TValues;
+  i, seed, minVal, maxVal: Integer;
+  mean: Real;
+
+procedure BubbleSort(var values: TValues; count: Integer);
+var
+  i, j, tmp: Integer;
+begin
+  for i := 0 to count - 2 do
+    for j := 0 to count - 2 - i do
+      if values[j] > values[j + 1] then
+      begin
+        tmp := values[j];
+        values[j] := values[j + 1];
+        values[j + 1] := tmp
+      end
+end;
+
+function BinarySearch(var values: TValues; count, key: Integer): Integer;
+var
+  low, high, mid, found: Integer;
+begin
+  low := 0;
+  high := count - 1;
+  found := -1;
+  while (low <= high) and (found < 0) do
+  begin
+    mid := (low + high) div 2;
+    if values[mid] = key then
+      found := mid
+    else if values[mid] < key then
+      low := mid + 1
+    else
+      high := mid - 1
+  end;
+  BinarySearch := found
+end;
+
+function Classify(value: Integer): Integer;
+begin
+  case value mod 4 of
+    0: Classify := 10;
+    1, 2: Classify := 20;
+  else
+    Classify := 30
+  end
+end;
+
+begin
+  seed := 17;
+  for i := 0 to SIZE - 1 do
+  begin
+    seed := (seed * 73 + 11) mod 1009;
+    values[i] := seed
+  end;
+  BubbleSort(values, SIZE);
+  minVal := values[0];
+  maxVal := values[0];
+  mean := 0;
+  for i := 0 to SIZE - 1 do
+  begin
+    mean := mean + values[i];
+    if values[i] < minVal then minVal := values[i];
+    if values[i] > maxVal then maxVal := values[i]
+  end;
+  mean := mean / SIZE;
+  writeln('min ', minVal, ', max ', maxVal, ', mean ', mean);
+  i := 0;
+  repeat
+    writeln(i, ': ', BinarySearch(values, SIZE, values[i]), ' (', Classify(values[i]), ')');
+    i := i + 10
+  until i >= SIZE
+end.
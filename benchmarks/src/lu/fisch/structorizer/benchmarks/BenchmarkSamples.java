@@ -0,0 +1,147 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package lu.fisch.structorizer.benchmarks;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Access to the sample files the benchmarks operate on
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The samples are looked up in the directory given by system property
+ *      structorizer.benchmarks.samples (set by the Ant target "benchmarks", default benchmarks/samples
+ *      relative to the working directory). NSD files not found there (e.g. the INSPECT_*.nsd diagrams
+ *      shipped with the COBOL parser) are retrieved as resources of the parsers package.
+ *
+ ******************************************************************************************************///
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import lu.fisch.graphics.Canvas;
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.structorizer.parsers.NSDParser;
+
+/**
+ * Static helpers providing the sample files for the benchmarks.
+ * @author agent
+ */
+public class BenchmarkSamples {
+
+	/** Name of the system property specifying the samples directory */
+	public static final String SAMPLES_PROPERTY = "structorizer.benchmarks.samples";
+
+	/**
+	 * @return the directory containing the benchmark samples
+	 */
+	public static File getSamplesDir()
+	{
+		return new File(System.getProperty(SAMPLES_PROPERTY, "benchmarks" + File.separator + "samples"));
+	}
+
+	/**
+	 * @param _name - file name of a sample
+	 * @return the sample file (which need not exist)
+	 */
+	public static File getFile(String _name)
+	{
+		return new File(getSamplesDir(), _name);
+	}
+
+	/**
+	 * Reads the content of the NSD file {@code _name} from the samples directory or, if
+	 * not there, from the resources of the parsers package.
+	 * @param _name - file name of the diagram
+	 * @return the file content
+	 * @throws IOException if the diagram can't be found or read
+	 */
+	public static byte[] readNSD(String _name) throws IOException
+	{
+		File file = getFile(_name);
+		if (file.isFile()) {
+			return Files.readAllBytes(file.toPath());
+		}
+		InputStream is = NSDParser.class.getResourceAsStream(_name);
+		if (is == null) {
+			throw new IOException("Benchmark sample " + _name + " not found in " + getSamplesDir());
+		}
+		try {
+			byte[] buffer = new byte[8192];
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			int count;
+			while ((count = is.read(buffer)) != -1) {
+				bos.write(buffer, 0, count);
+			}
+			return bos.toByteArray();
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Parses the diagram {@code _name} (see {@link #readNSD(String)}).
+	 * @param _name - file name of the diagram
+	 * @return the parsed diagram
+	 * @throws Exception if the diagram can't be read or parsed
+	 */
+	public static Root loadRoot(String _name) throws Exception
+	{
+		return new NSDParser().parse(new ByteArrayInputStream(readNSD(_name)));
+	}
+
+	/**
+	 * Draws the given diagram once onto a scratch image, such that all elements hold
+	 * their drawing rectangles as after display in the GUI (some generators rely on them).
+	 * @param _root - the diagram
+	 */
+	public static void drawOffscreen(Root _root)
+	{
+		BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = scratch.createGraphics();
+		try {
+			Canvas canvas = new Canvas(g2d);
+			_root.draw(canvas, _root.prepareDraw(canvas));
+		}
+		finally {
+			g2d.dispose();
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package lu.fisch.structorizer.benchmarks;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    JMH benchmarks of the code import (CodeParser subclasses)
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The source files (sample.c, sample.pas, sample.cob) reside in the samples directory. CodeParser
+ *      instances aren't reusable, so every invocation creates a new one (as the batch import does).
+ *      The parsers report their progress via their loggers at level INFO, which is raised to WARNING
+ *      here such that console output doesn't dominate the measurements.
+ *
+ ******************************************************************************************************///
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.structorizer.parsers.CodeParser;
+
+/**
+ * Benchmarks for {@link CodeParser#parse(String, String, String)} with the C, Pascal,
+ * and COBOL parsers.
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CodeParserBenchmark {
+
+	@Param({"C", "C99", "Pascal", "COBOL"})
+	public String language;
+
+	/** Keeps the configured logger alive (the LogManager only holds weak references) */
+	private Logger parserLogger;
+	private Class<? extends CodeParser> parserClass;
+	private String sourcePath;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		String className;
+		String fileName;
+		if (language.equals("C")) {
+			className = "CParser";
+			fileName = "sample.c";
+		}
+		else if (language.equals("C99")) {
+			className = "C99Parser";
+			fileName = "sample.c";
+		}
+		else if (language.equals("Pascal")) {
+			className = "D7Parser";
+			fileName = "sample.pas";
+		}
+		else if (language.equals("COBOL")) {
+			className = "COBOLParser";
+			fileName = "sample.cob";
+		}
+		else {
+			throw new IllegalArgumentException("Unknown language " + language);
+		}
+		parserClass = Class.forName("lu.fisch.structorizer.parsers." + className).asSubclass(CodeParser.class);
+		sourcePath = BenchmarkSamples.getFile(fileName).getAbsolutePath();
+		parserLogger = Logger.getLogger("lu.fisch.structorizer.parsers");
+		parserLogger.setLevel(Level.WARNING);
+		// Make sure the sample is parsable at all
+		List<Root> roots = parse();
+		if (roots == null || roots.isEmpty()) {
+			throw new IllegalStateException("Sample " + sourcePath + " couldn't be parsed by " + className);
+		}
+	}
+
+	@Benchmark
+	public List<Root> parse() throws Exception
+	{
+		CodeParser parser = parserClass.newInstance();
+		List<Root> roots = parser.parse(sourcePath, "UTF-8", null);
+		if (!parser.error.isEmpty()) {
+			throw new IllegalStateException(parser.error);
+		}
+		return roots;
+	}
+
+}
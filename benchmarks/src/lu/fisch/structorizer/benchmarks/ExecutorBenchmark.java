@@ -0,0 +1,102 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package lu.fisch.structorizer.benchmarks;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    JMH benchmark of the Executor running a loop-heavy diagram
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The Executor owns its Control frame and output console, so it can't be instantiated in
+ *      java.awt.headless mode. This benchmark therefore needs a display (e.g. a virtual one via
+ *      Xvfb on a build server); the frames are created but never shown. The diagram runs with
+ *      delay 0, without step mode and without input or output instructions, so no dialog
+ *      interrupts the execution.
+ *
+ ******************************************************************************************************///
+
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.structorizer.executor.Executor;
+import lu.fisch.structorizer.gui.Diagram;
+
+/**
+ * Benchmark for {@link Executor#execute()} on the sample diagram LoopBench.nsd
+ * (nested loops over an array, about 12000 assignments per run).
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutorBenchmark {
+
+	private Executor executor;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		if (GraphicsEnvironment.isHeadless()) {
+			throw new IllegalStateException("ExecutorBenchmark requires a display (the Executor owns GUI components).");
+		}
+		Root root = BenchmarkSamples.loadRoot("LoopBench.nsd");
+		Diagram diagram = new Diagram(null, "");
+		diagram.setRoot(root, false, false);
+		executor = Executor.getInstance(diagram, null);
+		executor.setDelay(0);
+	}
+
+	@Benchmark
+	public Executor execute()
+	{
+		executor.execute();
+		return executor;
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package lu.fisch.structorizer.benchmarks;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    JMH benchmarks of the code export of all code generators
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      Each invocation exports all sample diagrams in one go via the batch method exportCode(Vector,
+ *      String, String, String), like "Structorizer -x" with several files. No target file is given,
+ *      so the code is only produced in memory and the file system doesn't distort the results.
+ *      Generators accumulate the code in a field, hence a new instance is used per invocation (as
+ *      in batch mode). The diagrams are drawn offscreen in advance, since the TexGenerator derives
+ *      the proportions of alternatives from the element rectangles (as set by display in the GUI).
+ *
+ ******************************************************************************************************///
+
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.structorizer.generators.Generator;
+
+/**
+ * Benchmarks for {@link Generator#exportCode(Vector, String, String, String)} of every
+ * code generator class.
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GeneratorBenchmark {
+
+	/** The diagrams exported together */
+	private static final String[] DIAGRAMS = {
+			"INSPECT_CONVERTING-5.nsd", "INSPECT_REPLACING-6.nsd", "INSPECT_TALLYING-6.nsd", "LoopBench.nsd"
+	};
+
+	@Param({"PasGenerator", "OberonGenerator", "TexGenerator", "PerlGenerator", "KSHGenerator",
+		"BASHGenerator", "CGenerator", "CSharpGenerator", "CPlusPlusGenerator", "JavaGenerator",
+		"PHPGenerator", "PythonGenerator", "BasGenerator", "COBOLGenerator"})
+	public String generator;
+
+	private Class<? extends Generator> genClass;
+	private final Vector<Root> roots = new Vector<Root>();
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		genClass = Class.forName("lu.fisch.structorizer.generators." + generator).asSubclass(Generator.class);
+		roots.clear();
+		for (String name: DIAGRAMS) {
+			Root root = BenchmarkSamples.loadRoot(name);
+			BenchmarkSamples.drawOffscreen(root);
+			roots.add(root);
+		}
+	}
+
+	@Benchmark
+	public Generator exportCode() throws Exception
+	{
+		Generator gen = genClass.newInstance();
+		gen.exportCode(roots, null, "", "UTF-8");
+		return gen;
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package lu.fisch.structorizer.benchmarks;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    JMH benchmarks of NSD file loading (NSDParser) and saving (XmlGenerator)
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      Both directions work in memory (byte arrays) in order to measure parsing and serialization
+ *      rather than the file system.
+ *
+ ******************************************************************************************************///
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.structorizer.generators.XmlGenerator;
+import lu.fisch.structorizer.parsers.NSDParser;
+
+/**
+ * Benchmarks for {@link NSDParser#parse(java.io.InputStream)},
+ * {@link XmlGenerator#writeNSD(Root, String, java.io.OutputStream)} and their combination.
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class NSDRoundTripBenchmark {
+
+	@Param({"INSPECT_CONVERTING-5.nsd", "INSPECT_REPLACING-6.nsd", "INSPECT_TALLYING-6.nsd", "LoopBench.nsd"})
+	public String diagram;
+
+	private byte[] content;
+	private Root root;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		content = BenchmarkSamples.readNSD(diagram);
+		root = BenchmarkSamples.loadRoot(diagram);
+	}
+
+	@Benchmark
+	public Root parse() throws Exception
+	{
+		return new NSDParser().parse(new ByteArrayInputStream(content));
+	}
+
+	@Benchmark
+	public int write() throws Exception
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(content.length);
+		new XmlGenerator().writeNSD(root, "", bos);
+		return bos.size();
+	}
+
+	/** Loads the diagram and saves it again */
+	@Benchmark
+	public int roundTrip() throws Exception
+	{
+		Root parsed = new NSDParser().parse(new ByteArrayInputStream(content));
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(content.length);
+		new XmlGenerator().writeNSD(parsed, "", bos);
+		return bos.size();
+	}
+
+}
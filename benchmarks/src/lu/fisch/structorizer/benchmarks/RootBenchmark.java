@@ -0,0 +1,101 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package lu.fisch.structorizer.benchmarks;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    JMH benchmarks of the Analyser and the variable retrieval of Root
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The INSPECT_*.nsd diagrams are the largest diagrams shipped with Structorizer (used by the
+ *      COBOL import), LoopBench.nsd is a compact loop-heavy program from the samples directory.
+ *
+ ******************************************************************************************************///
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.fisch.structorizer.elements.Element;
+import lu.fisch.structorizer.elements.Root;
+
+/**
+ * Benchmarks for {@link Root#analyse()} and {@link Root#getVarNames()}.
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RootBenchmark {
+
+	@Param({"INSPECT_CONVERTING-5.nsd", "INSPECT_REPLACING-6.nsd", "INSPECT_TALLYING-6.nsd", "LoopBench.nsd"})
+	public String diagram;
+
+	private Root root;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		Element.loadFromINI();
+		root = BenchmarkSamples.loadRoot(diagram);
+	}
+
+	/** Full analysis with the configured Analyser checks */
+	@Benchmark
+	public int analyse()
+	{
+		return root.analyse().size();
+	}
+
+	/** Retrieval of all variable names (not cached) */
+	@Benchmark
+	public int getVarNames()
+	{
+		return root.getVarNames().count();
+	}
+
+}
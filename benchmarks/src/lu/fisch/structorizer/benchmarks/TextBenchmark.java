@@ -0,0 +1,179 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package lu.fisch.structorizer.benchmarks;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    JMH benchmarks of the lexical helpers (Element.splitLexically, StringList)
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The workload consists of the element text lines of the sample diagrams, i.e. realistic
+ *      instruction, condition, and declaration lines. The token lists produced by splitLexically
+ *      are then used for the StringList operations typical for the analyser and the generators
+ *      (token search, splicing, and concatenation).
+ *
+ ******************************************************************************************************///
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.fisch.structorizer.elements.Element;
+import lu.fisch.structorizer.elements.IElementVisitor;
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.utils.StringList;
+
+/**
+ * Benchmarks for {@link Element#splitLexically(String, boolean)} and the token list
+ * operations of {@link StringList}, applied to all text lines of the sample diagrams.
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TextBenchmark {
+
+	/** The diagrams the text lines are taken from */
+	private static final String[] DIAGRAMS = {
+			"INSPECT_CONVERTING-5.nsd", "INSPECT_REPLACING-6.nsd", "INSPECT_TALLYING-6.nsd", "LoopBench.nsd"
+	};
+
+	private String[] lines;
+	private StringList[] tokenLists;
+	private StringList replacement;
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		final ArrayList<String> collected = new ArrayList<String>();
+		for (String name: DIAGRAMS) {
+			Root root = BenchmarkSamples.loadRoot(name);
+			root.traverse(new IElementVisitor() {
+				@Override
+				public boolean visitPreOrder(Element _ele) {
+					StringList text = _ele.getUnbrokenText();
+					for (int i = 0; i < text.count(); i++) {
+						if (!text.get(i).trim().isEmpty()) {
+							collected.add(text.get(i));
+						}
+					}
+					return true;
+				}
+				@Override
+				public boolean visitPostOrder(Element _ele) {
+					return true;
+				}
+			});
+		}
+		lines = collected.toArray(new String[collected.size()]);
+		tokenLists = new StringList[lines.length];
+		for (int i = 0; i < lines.length; i++) {
+			tokenLists[i] = Element.splitLexically(lines[i], true);
+		}
+		replacement = StringList.explode("( , )", " ");
+	}
+
+	/** Tokenizes all lines (with string literals restored) */
+	@Benchmark
+	public int splitLexically()
+	{
+		int count = 0;
+		for (String line: lines) {
+			count += Element.splitLexically(line, true).count();
+		}
+		return count;
+	}
+
+	/** Tokenizes all lines without restoring string literals (as the analyser does for syntax checks) */
+	@Benchmark
+	public int splitLexicallyRaw()
+	{
+		int count = 0;
+		for (String line: lines) {
+			count += Element.splitLexically(line, false).count();
+		}
+		return count;
+	}
+
+	/** Searches each token list for typical operator and keyword tokens */
+	@Benchmark
+	public int tokenSearch()
+	{
+		int found = 0;
+		for (StringList tokens: tokenLists) {
+			found += tokens.indexOf("<-") + tokens.indexOf(":=") + tokens.indexOf("[")
+					+ tokens.indexOf("div", false);
+		}
+		return found;
+	}
+
+	/** Splices a token sequence into copies of the token lists and concatenates them again */
+	@Benchmark
+	public int spliceAndConcatenate()
+	{
+		int length = 0;
+		for (StringList tokens: tokenLists) {
+			StringList copy = tokens.copy();
+			copy.splice(copy.count() / 2, copy.count() / 2, replacement);
+			copy.removeAll(" ");
+			length += copy.concatenate().length();
+		}
+		return length;
+	}
+
+	/** Re-explodes the lines by blanks and joins them with a separator */
+	@Benchmark
+	public int explodeAndJoin()
+	{
+		int length = 0;
+		for (String line: lines) {
+			length += StringList.explode(line, " ").concatenate(" ").length();
+		}
+		return length;
+	}
+
+}
@@ -59,6 +59,8 @@
  *      Kay Gürtzig     2018-10-08      Bugfix #620: Logging path setup revised
  *      Kay Gürtzig     2018-10-25      Enh. #416: New option -l maxlen for command line parsing, signatures of
  *                                      export(...) and parse(...) modified.
+ *      agent           2026-10-19      New batch mode -g png|svg|pdf|emf for parallel headless image export
+ *      agent           2026-10-19      Non-numeric, NaN or infinite -scale arguments rejected with exit code 1
  *
  ******************************************************************************************************
  *
@@ -89,6 +91,10 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Scanner;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -97,11 +103,13 @@ import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 
 import lu.fisch.structorizer.application.ApplicationFactory;
+import lu.fisch.structorizer.elements.Element;
 import lu.fisch.structorizer.elements.Root;
 import lu.fisch.structorizer.generators.Generator;
 import lu.fisch.structorizer.generators.XmlGenerator;
 import lu.fisch.structorizer.gui.Mainform;
 import lu.fisch.structorizer.helpers.GENPlugin;
+import lu.fisch.structorizer.io.ImageExporter;
 import lu.fisch.structorizer.io.Ini;
 import lu.fisch.structorizer.parsers.CodeParser;
 import lu.fisch.structorizer.parsers.GENParser;
@@ -121,6 +129,7 @@ public class Structorizer
 		Vector<String> fileNames = new Vector<String>();
 		String generator = null;
 		String parser = null;
+		String imageFormat = null;
 		String switches = "";
 		//String outFileName = null;
 		//String charSet = "UTF-8";
@@ -144,6 +153,10 @@ public class Structorizer
 			{
 				generator = args[++i];
 			}
+			else if (i == 0 && args[i].equals("-g") && args.length > 1)
+			{
+				imageFormat = args[++i];
+			}
 			else if (i == 0 && args[i].equals("-p") && args.length > 1)
 			{
 				parser = "*";
@@ -199,6 +212,10 @@ public class Structorizer
 				// END KGU#354 2018-09-27
 			}
 			// END KGU#354 2017-04-27
+			else if (args[i].equals("-scale") && imageFormat != null && i+1 < args.length)
+			{
+				options.put("scale", args[++i]);
+			}
 			// START KGU#538 2018-07-01: Issue #554 - new option for a settings file
 			else if (args[i].equals("-s") && i+1 < args.length)
 			{
@@ -230,7 +247,12 @@ public class Structorizer
 				fileNames.add(args[i]);
 			}
 		}
-		if (generator != null)
+		if (imageFormat != null)
+		{
+			Structorizer.exportImages(imageFormat, fileNames, options);
+			return;
+		}
+		else if (generator != null)
 		{
 			//Structorizer.export(generator, fileNames, outFileName, switches, charSet, null);
 			Structorizer.export(generator, fileNames, options, switches);
@@ -415,6 +437,7 @@ public class Structorizer
 		"Structorizer [NSDFILE|ARRFILE|ARRZFILE]",
 		"Structorizer -x GENERATOR [-a] [-b] [-c] [-f] [-l] [-t] [-e CHARSET] [-] [-o OUTFILE] NSDFILE...",
 		"Structorizer -p [PARSER] [-f] [-v [LOGPATH]] [-l MAXLINELEN] [-e CHARSET] [-s SETTINGSFILE] [-o OUTFILE] SOURCEFILE...",
+		"Structorizer -g png|svg|pdf|emf [-scale FACTOR] [-o OUTDIR] NSDFILE...",
 		"Structorizer -h"
 	};
 	// END KGU#187 2016-05-02
@@ -532,6 +555,96 @@ public class Structorizer
 	}
 	// END KGU#187 2016-04-28
 	
+	/*****************************************
+	 * batch image export method
+	 * Renders each of the given diagram files into an image file of the same base name
+	 * (in the directory of the diagram file or in the given output directory). The files
+	 * are processed in parallel.
+	 * @param _format - the image format (one of {@link ImageExporter#FORMATS})
+	 * @param _nsdFileNames - vector of the diagram file names
+	 * @param _options - map of non-binary command line options ("outFileName" is
+	 * interpreted as output directory here, "scale" as magnification factor)
+	 *****************************************/
+	private static void exportImages(final String _format, Vector<String> _nsdFileNames, HashMap<String, String> _options)
+	{
+		// No window will be opened, so AWT must not require a display
+		System.setProperty("java.awt.headless", "true");
+		if (!ImageExporter.isSupportedFormat(_format)) {
+			System.err.println("*** Unsupported image format " + _format);
+			System.err.println("Usage: " + synopsis[3]);
+			System.exit(1);
+		}
+		if (_nsdFileNames.isEmpty()) {
+			System.err.println("*** No NSD files for image export.");
+			System.exit(2);
+		}
+		double scale = 1.0;
+		try {
+			scale = Double.parseDouble(_options.getOrDefault("scale", "1"));
+		}
+		catch (NumberFormatException ex) {
+			// Reported below
+			scale = -1;
+		}
+		if (!(scale > 0) || Double.isInfinite(scale)) {
+			System.err.println("*** Illegal scale factor " + _options.get("scale"));
+			System.exit(1);
+		}
+		String outDirName = _options.get("outFileName");
+		File outDir = null;
+		if (outDirName != null) {
+			outDir = new File(outDirName);
+			if (!outDir.isDirectory() && !outDir.mkdirs()) {
+				System.err.println("*** Cannot create output directory " + outDirName);
+				System.exit(1);
+			}
+		}
+		// Use the configured font, colours, and element designations
+		Element.loadFromINI();
+
+		final double factor = scale;
+		final File targetDir = outDir;
+		final AtomicInteger failures = new AtomicInteger(0);
+		ExecutorService pool = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(_nsdFileNames.size(), Runtime.getRuntime().availableProcessors())));
+		for (final String fName: _nsdFileNames) {
+			pool.execute(new Runnable() {
+				@Override
+				public void run() {
+					File file = new File(fName);
+					try {
+						if (!file.exists()) {
+							System.err.println("*** File " + fName + " not found. Skipped.");
+							failures.incrementAndGet();
+							return;
+						}
+						Root root = new NSDParser().parse(file);
+						String baseName = file.getName();
+						if (baseName.contains(".")) {
+							baseName = baseName.substring(0, baseName.lastIndexOf('.'));
+						}
+						File dir = (targetDir != null) ? targetDir : file.getAbsoluteFile().getParentFile();
+						ImageExporter.export(root, _format, factor, new File(dir, baseName + "." + _format.toLowerCase()));
+					}
+					catch (Exception ex) {
+						System.err.println("*** Error while trying to export " + fName + ": " + ex.getMessage());
+						failures.incrementAndGet();
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		try {
+			while (!pool.awaitTermination(1, TimeUnit.MINUTES));
+		}
+		catch (InterruptedException ex) {
+			System.exit(4);
+		}
+		if (failures.get() > 0) {
+			System.exit(3);
+		}
+	}
+
 	// START KGU#187 2016-04-29: Enh. #179 - for symmetry reasons also allow a parsing in batch mode
 	/*****************************************
 	 * batch code import method
@@ -773,14 +886,12 @@ public class Structorizer
 			//System.out.println("Writing to " + filename);
 			try {
 				FileOutputStream fos = new FileOutputStream(filenameToUse);
-				Writer out = null;
-				out = new OutputStreamWriter(fos, "UTF8");
 				try {
 					XmlGenerator xmlgen = new XmlGenerator();
-					out.write(xmlgen.generateCode(rootNew,"\t"));
+					xmlgen.writeNSD(rootNew, "\t", fos);
 				}
 				finally {
-					out.close();
+					fos.close();
 				}
 			}
 			catch (UnsupportedEncodingException e) {
@@ -0,0 +1,287 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.diagrcontrol;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    A DiagramController routine bound once for repeated invocation
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      DiagramController.execute(String, Object[]) has to compose the signature key, look up the
+ *      procedure and function maps, find out the argument conversions by the names of the parameter
+ *      classes and finally call Method.invoke() - on every single call. A ControllerRoutine does all
+ *      of this once (see DiagramController.bindRoutine(String, int)) and then invokes a MethodHandle
+ *      bound to the controller with pre-computed argument conversions.
+ *      The behaviour is the same as with execute(): conversion failures raise a FunctionException,
+ *      exceptions of the routine itself are logged and yield null. If the controller class overrides
+ *      execute(String, Object[]) or castArgument(Object, Class) then these overrides are respected.
+ *
+ ******************************************************************************************************/
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import lu.fisch.diagrcontrol.DiagramController.FunctionException;
+import lu.fisch.utils.StringList;
+
+/**
+ * Represents a procedure or function of a {@link DiagramController} resolved once for
+ * a given name and number of arguments, such that repeated invocations avoid the map
+ * look-ups and the reflective call of {@link DiagramController#execute(String, Object[])}.
+ * @author agent
+ * @see DiagramController#bindRoutine(String, int)
+ */
+public final class ControllerRoutine {
+
+	// Argument conversions for Number arguments (see DiagramController.castArgument())
+	private static final int CONV_NONE = 0;
+	private static final int CONV_INT = 1;
+	private static final int CONV_DOUBLE = 2;
+	private static final int CONV_FLOAT = 3;
+	private static final int CONV_SHORT = 4;
+	private static final int CONV_LONG = 5;
+	private static final int CONV_BYTE = 6;
+
+	private static final MethodType GENERIC_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+	private final DiagramController controller;
+	private final String name;
+	private final String category;
+	private final Method method;
+	private final Class<?>[] paramTypes;
+	private final int[] conversions;
+	/** Bound and spread method handle of type (Object[])Object, null if the reflective way is to be used */
+	private final MethodHandle handle;
+	/** Whether the controller overrides {@link DiagramController#castArgument(Object, Class)} */
+	private final boolean customCast;
+	/** Whether the controller overrides {@link DiagramController#execute(String, Object[])} */
+	private final boolean customExecute;
+	private final Logger logger;
+
+	/**
+	 * Binds the given {@code method} of {@code controller}
+	 * @param controller - the controller instance
+	 * @param name - the routine name as used in the procedure or function map
+	 * @param method - the method found in one of the maps
+	 * @param isFunction - whether the method was found in the function map
+	 */
+	ControllerRoutine(DiagramController controller, String name, Method method, boolean isFunction)
+	{
+		this.controller = controller;
+		this.name = name;
+		this.category = isFunction ? "Function" : "Procedure";
+		this.method = method;
+		this.paramTypes = method.getParameterTypes();
+		this.conversions = new int[paramTypes.length];
+		for (int i = 0; i < paramTypes.length; i++) {
+			String clName = paramTypes[i].getSimpleName();
+			if (clName.equals("Integer")) {
+				conversions[i] = CONV_INT;
+			}
+			else if (clName.equals("Double")) {
+				conversions[i] = CONV_DOUBLE;
+			}
+			else if (clName.equals("Float")) {
+				conversions[i] = CONV_FLOAT;
+			}
+			else if (clName.equals("Short")) {
+				conversions[i] = CONV_SHORT;
+			}
+			else if (clName.equals("Long")) {
+				conversions[i] = CONV_LONG;
+			}
+			else if (clName.equals("Byte")) {
+				conversions[i] = CONV_BYTE;
+			}
+		}
+		Class<?> ctrlClass = controller.getClass();
+		this.customCast = isOverridden(ctrlClass, "castArgument", Object.class, Class.class);
+		this.customExecute = isOverridden(ctrlClass, "execute", String.class, Object[].class);
+		MethodHandle mh = null;
+		try {
+			mh = MethodHandles.publicLookup().unreflect(method)
+					.bindTo(controller)
+					.asSpreader(Object[].class, paramTypes.length)
+					.asType(GENERIC_TYPE);
+		}
+		catch (IllegalAccessException | IllegalArgumentException ex) {
+			// Then we will have to go the reflective way
+		}
+		this.handle = mh;
+		this.logger = Logger.getLogger(ctrlClass.getName());
+	}
+
+	private static boolean isOverridden(Class<?> ctrlClass, String methodName, Class<?>... paramTypes)
+	{
+		try {
+			return !ctrlClass.getMethod(methodName, paramTypes).getDeclaringClass().isInterface();
+		}
+		catch (NoSuchMethodException | SecurityException ex) {
+			return true;
+		}
+	}
+
+	/**
+	 * @return the controller this routine is bound to
+	 */
+	public DiagramController getController()
+	{
+		return controller;
+	}
+
+	/**
+	 * @return the name of the routine (as used in the procedure or function map)
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return true if the routine was found in the function map, false if in the procedure map
+	 */
+	public boolean isFunction()
+	{
+		return category.equals("Function");
+	}
+
+	/**
+	 * @return the underlying method
+	 */
+	public Method getMethod()
+	{
+		return method;
+	}
+
+	/**
+	 * @return the number of parameters
+	 */
+	public int getParameterCount()
+	{
+		return paramTypes.length;
+	}
+
+	/**
+	 * Executes the routine with the given {@code arguments} in the same way as
+	 * {@link DiagramController#execute(String, Object[])} would do. The arguments
+	 * are converted in place.
+	 * @param arguments - array of the argument values (must have {@link #getParameterCount()} elements)
+	 * @return the obtained result value (null for procedures or if the routine failed)
+	 * @throws FunctionException if an argument could not be converted
+	 */
+	public Object invoke(Object[] arguments) throws FunctionException
+	{
+		if (customExecute) {
+			return controller.execute(name, arguments);
+		}
+		for (int i = 0; i < arguments.length; i++) {
+			try {
+				arguments[i] = convert(arguments[i], i);
+			}
+			catch (Exception ex) {
+				FunctionException err = new FunctionException(
+						controller.getClass().getSimpleName() + ": "
+						+ category + " <" + name + "> argument " + (i+1)
+						+ ": <" + arguments[i] + "> could not be converted to "
+						+ paramTypes[i].getSimpleName());
+				err.setStackTrace(ex.getStackTrace());
+				throw err;
+			}
+		}
+		Object result = null;
+		try {
+			if (logger.isLoggable(Level.CONFIG)) {
+				StringList argStrings = new StringList();
+				for (Object arg: arguments) {
+					argStrings.add(String.valueOf(arg));
+				}
+				logger.config("Executing " + name + "(" + argStrings.concatenate(",") + ")");
+			}
+			if (handle != null) {
+				result = (Object)handle.invokeExact(arguments);
+			}
+			else {
+				result = method.invoke(controller, arguments);
+			}
+		}
+		catch (Throwable e) {
+			logger.log(Level.SEVERE, "Defective DiagramControl class " + method + ": " + e.toString(), e);
+		}
+		return result;
+	}
+
+	/** Equivalent of {@link DiagramController#castArgument(Object, Class)} with pre-computed conversion */
+	private Object convert(Object argument, int index)
+	{
+		Class<?> argClass = paramTypes[index];
+		if (customCast) {
+			return controller.castArgument(argument, argClass);
+		}
+		if (!argClass.isInstance(argument) && argument instanceof Number) {
+			Number number = (Number)argument;
+			switch (conversions[index]) {
+			case CONV_INT:
+				argument = number.intValue();
+				break;
+			case CONV_DOUBLE:
+				argument = number.doubleValue();
+				break;
+			case CONV_FLOAT:
+				argument = number.floatValue();
+				break;
+			case CONV_SHORT:
+				argument = number.shortValue();
+				break;
+			case CONV_LONG:
+				argument = number.longValue();
+				break;
+			case CONV_BYTE:
+				argument = number.byteValue();
+				break;
+			default:
+				break;
+			}
+		}
+		return argClass.cast(argument);
+	}
+
+	@Override
+	public String toString()
+	{
+		return controller.getName() + "." + name + "#" + paramTypes.length;
+	}
+}
@@ -37,6 +37,7 @@ package lu.fisch.diagrcontrol;
  *      Kay Gürtzig     2018.01.21      Enh. #443, #490: Additional method for retrieval of Java adapter class
  *      Kay Gürtzig     2018.03.21      Issue #463: console output replaced by standard JDK4 (= j.u.l.) logging
  *      Kay Gürtzig     2018.10.12      Issue #622: Logging of API calls introduced (level CONFIG)
+ *      agent           2026.10.19      Method bindRoutine(String, int) for repeated invocations
  *
  ******************************************************************************************************
  *
@@ -269,6 +270,31 @@ public interface DiagramController
     	return result;
     }
 
+	/**
+	 * Resolves the function or procedure with the given {@code name} and number of arguments
+	 * once (with the same look-up order as {@link #execute(String, Object[])}), such that it
+	 * can be invoked repeatedly via {@link ControllerRoutine#invoke(Object[])} without the
+	 * look-up and reflection costs of {@link #execute(String, Object[])}.
+	 * @param name - the routine name (lower-case)
+	 * @param nArguments - the number of arguments
+	 * @return the bound routine or null if there is no such routine
+	 * @see #execute(String, Object[])
+	 */
+	public default ControllerRoutine bindRoutine(String name, int nArguments)
+	{
+		String key = name + "#" + nArguments;
+		Method method = this.getProcedureMap().get(key);
+		boolean isFunction = false;
+		if (method == null) {
+			isFunction = true;
+			method = this.getFunctionMap().get(key);
+		}
+		if (method == null) {
+			return null;
+		}
+		return new ControllerRoutine(this, name, method, isFunction);
+	}
+
 	/**
 	 * Helper method trying to convert the argument type to the declared parameter type
 	 * (particularly in case of numbers, since casting between different Number classes
@@ -0,0 +1,164 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.graphics;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Reusable offscreen buffer for double-buffered drawing of dirty regions
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date			Description
+ *      ------			----			-----------
+ *      agent           2026.10.19      First Issue
+ *      agent           2026.10.19      Buffer sized in device space (zoom/HiDPI scale of the target), getPixelCount()
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The buffer only has to cover the region to be repainted (i.e. the clip bounds of the target,
+ *      which Swing restricts to the dirty region and the visible part of the viewport), not the
+ *      whole diagram. The image is kept and only reallocated if a larger region is requested (with
+ *      some granularity to avoid reallocation on every slight growth). The image is sized in device
+ *      space, i.e. the region is scaled by the scale factors of the target transform (zoom, HiDPI),
+ *      such that the copy onto the target is not blurred. Where possible the image is created
+ *      compatible with the device configuration of the target, such that Java2D may cache it in
+ *      video memory.
+ *      Like Swing painting, this class is not thread-safe and meant for the event dispatch thread.
+ *
+ ******************************************************************************************************/
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Offscreen image reused across paint calls: {@link #begin(Graphics2D, Rectangle)} provides
+ * a cleared graphics for a region of the target, {@link #end(Graphics2D, Graphics2D)} copies
+ * the region onto the target.
+ * @author agent
+ */
+public class BackBuffer {
+
+	/** Buffer dimensions are rounded up to multiples of this */
+	private static final int GRANULARITY = 64;
+
+	private BufferedImage image = null;
+	private Rectangle region = null;
+	/** Size of {@link #region} in device pixels */
+	private int deviceWidth = 0, deviceHeight = 0;
+
+	/**
+	 * Prepares the buffer for drawing the region {@code _region} of {@code _target} (given in
+	 * user coordinates of the target), possibly enlarging the buffer image.
+	 * @param _target - the graphics the buffer is to be copied to
+	 * @param _region - the region to be drawn (usually the clip bounds of {@code _target})
+	 * @return a graphics with transparent content, translated and clipped to {@code _region};
+	 * to be passed to {@link #end(Graphics2D, Graphics2D)} afterwards
+	 */
+	public Graphics2D begin(Graphics2D _target, Rectangle _region)
+	{
+		int width = Math.max(1, _region.width);
+		int height = Math.max(1, _region.height);
+		// Scale factors of the target transform (ignoring rotation and shear)
+		AffineTransform tx = _target.getTransform();
+		double scaleX = Math.hypot(tx.getScaleX(), tx.getShearY());
+		double scaleY = Math.hypot(tx.getShearX(), tx.getScaleY());
+		if (scaleX <= 0 || scaleY <= 0) {
+			scaleX = scaleY = 1;
+		}
+		deviceWidth = Math.max(1, (int)Math.ceil(width * scaleX));
+		deviceHeight = Math.max(1, (int)Math.ceil(height * scaleY));
+		if (image == null || image.getWidth() < deviceWidth || image.getHeight() < deviceHeight) {
+			int newWidth = roundUp(Math.max(deviceWidth, image == null ? 0 : image.getWidth()));
+			int newHeight = roundUp(Math.max(deviceHeight, image == null ? 0 : image.getHeight()));
+			if (image != null) {
+				image.flush();
+			}
+			GraphicsConfiguration gc = _target.getDeviceConfiguration();
+			if (gc != null) {
+				image = gc.createCompatibleImage(newWidth, newHeight, Transparency.TRANSLUCENT);
+			}
+			else {
+				image = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB);
+			}
+		}
+		region = new Rectangle(_region.x, _region.y, width, height);
+		Graphics2D g2d = image.createGraphics();
+		g2d.setComposite(AlphaComposite.Clear);
+		g2d.fillRect(0, 0, deviceWidth, deviceHeight);
+		g2d.setComposite(AlphaComposite.SrcOver);
+		g2d.setRenderingHints(_target.getRenderingHints());
+		g2d.setFont(_target.getFont());
+		g2d.scale(deviceWidth / (double)width, deviceHeight / (double)height);
+		g2d.translate(-region.x, -region.y);
+		g2d.clipRect(region.x, region.y, width, height);
+		return g2d;
+	}
+
+	/**
+	 * Copies the region drawn since {@link #begin(Graphics2D, Rectangle)} onto {@code _target}
+	 * and disposes {@code _buffered}.
+	 * @param _target - the target graphics as passed to {@link #begin(Graphics2D, Rectangle)}
+	 * @param _buffered - the graphics obtained from {@link #begin(Graphics2D, Rectangle)}
+	 */
+	public void end(Graphics2D _target, Graphics2D _buffered)
+	{
+		_buffered.dispose();
+		_target.drawImage(image,
+				region.x, region.y, region.x + region.width, region.y + region.height,
+				0, 0, deviceWidth, deviceHeight,
+				null);
+	}
+
+	/**
+	 * @return the number of pixels of the currently held buffer image (0 if there is none)
+	 */
+	public long getPixelCount()
+	{
+		return image == null ? 0 : (long)image.getWidth() * image.getHeight();
+	}
+
+	/**
+	 * Drops the buffer image (e.g. after the drawing of a huge region).
+	 */
+	public void release()
+	{
+		if (image != null) {
+			image.flush();
+			image = null;
+		}
+	}
+
+	private static int roundUp(int _size)
+	{
+		return (_size + GRANULARITY - 1) / GRANULARITY * GRANULARITY;
+	}
+
+}
@@ -38,6 +38,7 @@ package lu.fisch.graphics;
  *      Kay Gürtzig     2016.10.13      Enh. #270: Method hatchedRect() added to overlay a hatched pattern
  *      Kay Gürtzig     2017.05.16      Enh. #389: New methods for polygons, API changes
  *      Kay Gürtzig     2017.05.17      Issue #405: API enhancement for rotated drawing
+ *      agent           2026.10.19      Accessor getGraphics() added (for BackBuffer use)
  *
  ******************************************************************************************************
  *
@@ -76,6 +77,14 @@ public class Canvas  {
 		}
 	}
 	
+	/**
+	 * @return the underlying graphics of this canvas
+	 */
+	public Graphics2D getGraphics()
+	{
+		return canvas;
+	}
+
 	public void draw(Image _img, int _x, int _y)
 	{
 		canvas.drawImage(_img,_x,_y,null);
@@ -36,6 +36,7 @@ package lu.fisch.structorizer.arranger;
  *      Kay Gürtzig     2019-01-17      Enhancements (group nodes for external references) and corrections
  *      Kay Gürtzig     2019-01-25      Bugfix #670: Attempt to fix the scaling deficiency w.r.t. to the info trees
  *      Kay Gürtzig     2019-01-28      Issue #670: Update of the info box components on look & feel change
+ *      agent           2026-10-19      update() modifies the index tree incrementally instead of rebuilding it
  *
  ******************************************************************************************************
  *
@@ -61,6 +62,7 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.io.File;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Vector;
 
@@ -82,8 +84,6 @@ import javax.swing.JScrollPane;
 import javax.swing.JToggleButton;
 import javax.swing.JTree;
 import javax.swing.KeyStroke;
-import javax.swing.event.TreeExpansionEvent;
-import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.DefaultTreeModel;
@@ -112,7 +112,8 @@ public class ArrangerIndex extends LangTree implements MouseListener {
 	private Diagram diagram = null;
 	private final DefaultMutableTreeNode arrangerIndexTop;
 	//protected final JTree arrangerIndex = new JTree(arrangerIndexTop);
-	private final HashSet<DefaultMutableTreeNode> expandedGroupNodes = new HashSet<DefaultMutableTreeNode>();
+	/** Maps the held {@link Group}s to their nodes in the index tree (see {@link #update(Vector)}) */
+	private final HashMap<Group, DefaultMutableTreeNode> groupNodes = new HashMap<Group, DefaultMutableTreeNode>();
 	/** Original (standard) Arranger index background color  - may get wrong with an L&F change! */
 	private Color arrangerIndexBackground = null;
 	private static final Color ARRANGER_INDEX_UNFOCUSSED_BACKGROUND = Color.LIGHT_GRAY;
@@ -420,23 +421,6 @@ public class ArrangerIndex extends LangTree implements MouseListener {
 		this.getSelectionModel().setSelectionMode(TreeSelectionModel.DISCONTIGUOUS_TREE_SELECTION);		
 		this.addMouseListener(this);
 		this.addMouseListener(new PopupListener());
-		this.addTreeExpansionListener(new TreeExpansionListener() {
-			@Override
-			public void treeExpanded(TreeExpansionEvent event) {
-				TreePath path = event.getPath();
-				// Make sure it is at group level (just in case...)
-				if (path.getPathCount() == 2) {
-					expandedGroupNodes.add((DefaultMutableTreeNode)path.getLastPathComponent());
-				}
-			}
-			@Override
-			public void treeCollapsed(TreeExpansionEvent event) {
-				TreePath path = event.getPath();
-				// Make sure it is at group level (just in case...)
-				if (path.getPathCount() == 2) {
-					expandedGroupNodes.remove((DefaultMutableTreeNode)path.getLastPathComponent());
-				}
-			}});
 		this.addFocusListener(new FocusListener() {
 			@Override
 			public void focusGained(FocusEvent event) {
@@ -590,45 +574,100 @@ public class ArrangerIndex extends LangTree implements MouseListener {
 	}
 	
 	/**
-	 * Rebuilds the Arranger index from scratch according to the group information give
-	 * with {@code _groups}.
+	 * Updates the Arranger index according to the group information given with {@code _groups}.
+	 * The existing tree nodes are retained where possible, only the differences are applied to
+	 * the tree model (such that the expansion state of the group nodes is preserved).
 	 * @param _groups - sorted list of all currently held {@link Group} objects
 	 */
 	public void update(Vector<Group> _groups)
 	{
-		// Attempt to maintain expansions - the nodes will be replaced, so identify the associated groups
-		HashSet<Group> expandedGroups = new HashSet<Group>();
-		for (DefaultMutableTreeNode node: expandedGroupNodes) {
-			expandedGroups.add((Group)node.getUserObject());
+		DefaultTreeModel model = (DefaultTreeModel)getModel();
+		if (_groups == null) {
+			_groups = new Vector<Group>();
 		}
-		expandedGroupNodes.clear();
-		
-		// Now rebuild the tree from scratch 
-		Vector<Integer> rowsToExpand = new Vector<Integer>(expandedGroups.size());
-		arrangerIndexTop.removeAllChildren();
-		if (_groups != null) {
-			for (int i = 0; i < _groups.size(); i++) {
-				Group group = _groups.get(i);
-				if (expandedGroups.contains(group)) {
-					rowsToExpand.add(i);
-				}
-				DefaultMutableTreeNode groupNode = new DefaultMutableTreeNode(group);
-				for (Root aRoot: group.getSortedRoots()) {
-					groupNode.add(new DefaultMutableTreeNode(aRoot));
-				}
-				arrangerIndexTop.add(groupNode);
+		// Drop the nodes of vanished groups
+		HashSet<Group> groupSet = new HashSet<Group>(_groups);
+		for (int i = arrangerIndexTop.getChildCount() - 1; i >= 0; i--) {
+			DefaultMutableTreeNode groupNode = (DefaultMutableTreeNode)arrangerIndexTop.getChildAt(i);
+			Object group = groupNode.getUserObject();
+			if (!groupSet.contains(group)) {
+				groupNodes.remove(group);
+				model.removeNodeFromParent(groupNode);
 			}
 		}
-		((DefaultTreeModel)getModel()).reload();
-		if (!this.arrangerIndexTop.isLeaf()) {
-			/* Try to restore the original expansion (in backward direction, otherwise we
-			 * would invalidate the subsequent row numbers) */
-			for (int i = rowsToExpand.size() - 1; i >= 0; i--) {
-				this.expandRow(rowsToExpand.get(i));
+		// Insert new groups and move renamed ones to their new position
+		for (int i = 0; i < _groups.size(); i++) {
+			Group group = _groups.get(i);
+			DefaultMutableTreeNode groupNode = groupNodes.get(group);
+			boolean expanded = false;
+			if (groupNode == null) {
+				groupNode = new DefaultMutableTreeNode(group);
+				groupNodes.put(group, groupNode);
+				model.insertNodeInto(groupNode, arrangerIndexTop, i);
+			}
+			else if (arrangerIndexTop.getChildAt(i) != groupNode) {
+				expanded = this.isExpanded(new TreePath(groupNode.getPath()));
+				model.removeNodeFromParent(groupNode);
+				model.insertNodeInto(groupNode, arrangerIndexTop, i);
+			}
+			else {
+				model.nodeChanged(groupNode);
 			}
+			updateGroupNode(model, groupNode, group.getSortedRoots());
+			if (expanded) {
+				this.expandPath(new TreePath(groupNode.getPath()));
+			}
+		}
+		// The (invisible) top node gets collapsed whenever it runs empty
+		if (!arrangerIndexTop.isLeaf()) {
+			this.expandPath(new TreePath(arrangerIndexTop));
 		}
 		this.doButtonsLocal();
 	}
+
+	/**
+	 * Adapts the children of {@code _groupNode} to the list of member diagrams {@code _roots}
+	 * @param _model - the tree model to be notified
+	 * @param _groupNode - the tree node of the group
+	 * @param _roots - sorted list of the member diagrams of the group
+	 */
+	private void updateGroupNode(DefaultTreeModel _model, DefaultMutableTreeNode _groupNode, Vector<Root> _roots)
+	{
+		HashMap<Object, DefaultMutableTreeNode> rootNodes = new HashMap<Object, DefaultMutableTreeNode>();
+		HashSet<Root> rootSet = new HashSet<Root>(_roots);
+		for (int i = _groupNode.getChildCount() - 1; i >= 0; i--) {
+			DefaultMutableTreeNode rootNode = (DefaultMutableTreeNode)_groupNode.getChildAt(i);
+			Object root = rootNode.getUserObject();
+			if (!rootSet.contains(root)) {
+				_model.removeNodeFromParent(rootNode);
+			}
+			else {
+				rootNodes.put(root, rootNode);
+			}
+		}
+		int[] retained = new int[_roots.size()];
+		int nRetained = 0;
+		for (int i = 0; i < _roots.size(); i++) {
+			Root root = _roots.get(i);
+			DefaultMutableTreeNode rootNode = rootNodes.get(root);
+			if (rootNode == null) {
+				_model.insertNodeInto(new DefaultMutableTreeNode(root), _groupNode, i);
+			}
+			else if (_groupNode.getChildAt(i) != rootNode) {
+				_model.removeNodeFromParent(rootNode);
+				_model.insertNodeInto(rootNode, _groupNode, i);
+			}
+			else {
+				retained[nRetained++] = i;
+			}
+		}
+		// Retained diagram nodes may have to be rendered anew (signature, change marker) if visible
+		if (nRetained > 0 && this.isExpanded(new TreePath(_groupNode.getPath()))) {
+			int[] indices = new int[nRetained];
+			System.arraycopy(retained, 0, indices, 0, nRetained);
+			_model.nodesChanged(_groupNode, indices);
+		}
+	}
 	// END KGU#626 2019-01-01
 
 	// START KGU#626 2019-01-04: Enh. #657
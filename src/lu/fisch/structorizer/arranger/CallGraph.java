@@ -0,0 +1,273 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Shneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package lu.fisch.structorizer.arranger;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Call and include dependency graph over the diagrams held by the Arranger.
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026-10-19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      For every registered Root, the signatures of the called subroutines and the names of the
+ *      included diagrams are gathered once and kept together with the Root's own signature. Both
+ *      directions are indexed by signature (or include name, respectively), such that the diagrams
+ *      referenced by a Root as well as the diagrams referring to it can be found without traversing
+ *      any diagram. A Root reported as modified (via Surface.update(Root)) is only marked dirty; its
+ *      edges are recomputed on the next query.
+ *      Like Surface itself, this class is not thread-safe and is meant to be used on the event
+ *      dispatch thread.
+ *
+ ******************************************************************************************************///
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+import lu.fisch.structorizer.elements.Call;
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.structorizer.executor.Function;
+
+/**
+ * Dependency graph (subroutine calls and includes) among the diagrams of the Arranger,
+ * maintained incrementally on diagram changes.
+ * @author agent
+ */
+public class CallGraph {
+
+	/** Cached dependency information of a single {@link Root} */
+	private static final class Node {
+		/** Own signature ({@code name(nArgs)}) if the diagram is a subroutine, null otherwise */
+		String routineSignature = null;
+		/** Own name if the diagram is an includable, null otherwise */
+		String includeName = null;
+		/** Signatures of the called routines (in order of occurrence) */
+		final LinkedHashSet<String> calledSignatures = new LinkedHashSet<String>();
+		/** Names of the included diagrams (in order of the include list) */
+		final LinkedHashSet<String> includedNames = new LinkedHashSet<String>();
+	}
+
+	private final HashMap<Root, Node> nodes = new HashMap<Root, Node>();
+	/** Roots the edges of which are to be recomputed before the next query */
+	private final Set<Root> dirtyRoots = new HashSet<Root>();
+	/** Maps routine signatures to the subroutine diagrams providing them */
+	private final HashMap<String, LinkedHashSet<Root>> routines = new HashMap<String, LinkedHashSet<Root>>();
+	/** Maps names to the includable diagrams */
+	private final HashMap<String, LinkedHashSet<Root>> includables = new HashMap<String, LinkedHashSet<Root>>();
+	/** Reverse edges: maps routine signatures to the diagrams calling them */
+	private final HashMap<String, LinkedHashSet<Root>> callers = new HashMap<String, LinkedHashSet<Root>>();
+	/** Reverse edges: maps includable names to the diagrams including them */
+	private final HashMap<String, LinkedHashSet<Root>> includers = new HashMap<String, LinkedHashSet<Root>>();
+
+	/**
+	 * Registers the given {@link Root} with the graph
+	 * @param root - a diagram newly held by the Arranger
+	 */
+	public void addRoot(Root root)
+	{
+		if (!nodes.containsKey(root)) {
+			nodes.put(root, new Node());
+			dirtyRoots.add(root);
+		}
+	}
+
+	/**
+	 * Removes the given {@link Root} and all its edges from the graph
+	 * @param root - a diagram no longer held by the Arranger
+	 */
+	public void removeRoot(Root root)
+	{
+		Node node = nodes.remove(root);
+		if (node != null) {
+			unindex(root, node);
+		}
+		dirtyRoots.remove(root);
+	}
+
+	/**
+	 * Marks the given {@link Root} as modified, such that its edges will be recomputed
+	 * on the next query.
+	 * @param root - a registered diagram
+	 */
+	public void invalidate(Root root)
+	{
+		if (nodes.containsKey(root)) {
+			dirtyRoots.add(root);
+		}
+	}
+
+	/**
+	 * Removes all diagrams from the graph
+	 */
+	public void clear()
+	{
+		nodes.clear();
+		dirtyRoots.clear();
+		routines.clear();
+		includables.clear();
+		callers.clear();
+		includers.clear();
+	}
+
+	/**
+	 * Returns the references of the given {@link Root}: The signatures of the called
+	 * routines and the names of the included diagrams, each mapped to the vector of
+	 * registered diagrams matching it (possibly empty or with more than one element).
+	 * @param root - a registered diagram
+	 * @return map from reference signatures to matching diagrams (in order of occurrence),
+	 * empty if {@code root} isn't registered
+	 */
+	public LinkedHashMap<String, Vector<Root>> getReferences(Root root)
+	{
+		refresh();
+		LinkedHashMap<String, Vector<Root>> references = new LinkedHashMap<String, Vector<Root>>();
+		Node node = nodes.get(root);
+		if (node != null) {
+			for (String signature: node.calledSignatures) {
+				references.put(signature, getMembers(routines, signature));
+			}
+			for (String name: node.includedNames) {
+				references.put(name, getMembers(includables, name));
+			}
+		}
+		return references;
+	}
+
+	/**
+	 * Returns the registered diagrams calling or including the given {@link Root}
+	 * @param root - a registered diagram
+	 * @return the set of referring diagrams (may contain {@code root} itself if recursive)
+	 */
+	public Set<Root> getReferringRoots(Root root)
+	{
+		refresh();
+		Set<Root> referring = new LinkedHashSet<Root>();
+		Node node = nodes.get(root);
+		if (node != null) {
+			if (node.routineSignature != null) {
+				referring.addAll(getMembers(callers, node.routineSignature));
+			}
+			if (node.includeName != null) {
+				referring.addAll(getMembers(includers, node.includeName));
+			}
+		}
+		return referring;
+	}
+
+	/**
+	 * Recomputes the edges of all diagrams marked as modified
+	 */
+	private void refresh()
+	{
+		if (dirtyRoots.isEmpty()) {
+			return;
+		}
+		for (Root root: dirtyRoots) {
+			Node node = nodes.get(root);
+			unindex(root, node);
+			node.routineSignature = null;
+			node.includeName = null;
+			node.calledSignatures.clear();
+			node.includedNames.clear();
+			if (root.isSubroutine()) {
+				node.routineSignature = root.getMethodName() + "(" + root.getParameterNames().count() + ")";
+				addMember(routines, node.routineSignature, root);
+			}
+			else if (root.isInclude()) {
+				node.includeName = root.getMethodName();
+				addMember(includables, node.includeName, root);
+			}
+			for (Call call: root.collectCalls()) {
+				Function fct = call.getCalledRoutine();
+				if (fct != null && fct.isFunction() && node.calledSignatures.add(fct.getSignatureString())) {
+					addMember(callers, fct.getSignatureString(), root);
+				}
+			}
+			if (root.includeList != null) {
+				for (int i = 0; i < root.includeList.count(); i++) {
+					String name = root.includeList.get(i);
+					if (node.includedNames.add(name)) {
+						addMember(includers, name, root);
+					}
+				}
+			}
+		}
+		dirtyRoots.clear();
+	}
+
+	/** Removes all index entries of {@code root} according to the cached {@code node} */
+	private void unindex(Root root, Node node)
+	{
+		if (node.routineSignature != null) {
+			removeMember(routines, node.routineSignature, root);
+		}
+		if (node.includeName != null) {
+			removeMember(includables, node.includeName, root);
+		}
+		for (String signature: node.calledSignatures) {
+			removeMember(callers, signature, root);
+		}
+		for (String name: node.includedNames) {
+			removeMember(includers, name, root);
+		}
+	}
+
+	private static void addMember(Map<String, LinkedHashSet<Root>> index, String key, Root root)
+	{
+		LinkedHashSet<Root> members = index.get(key);
+		if (members == null) {
+			members = new LinkedHashSet<Root>();
+			index.put(key, members);
+		}
+		members.add(root);
+	}
+
+	private static void removeMember(Map<String, LinkedHashSet<Root>> index, String key, Root root)
+	{
+		LinkedHashSet<Root> members = index.get(key);
+		if (members != null && members.remove(root) && members.isEmpty()) {
+			index.remove(key);
+		}
+	}
+
+	private static Vector<Root> getMembers(Map<String, LinkedHashSet<Root>> index, String key)
+	{
+		LinkedHashSet<Root> members = index.get(key);
+		if (members == null) {
+			return new Vector<Root>();
+		}
+		return new Vector<Root>(members);
+	}
+
+}
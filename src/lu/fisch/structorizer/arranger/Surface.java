@@ -97,6 +97,15 @@ package lu.fisch.structorizer.arranger;
  *      Kay Gürtzig     2019-01-12      Enh. #662/3: New method to rearrange all diagrams by groups
  *      Kay Gürtzig     2019-01-13      Enh. #662/4: enabled to save arrangements with relative coordinates
  *      Kay Gürtzig     2019-01-16      Enh. #662/2: Coloured group name popup
+ *      agent           2026-10-19      loadArrangement() parses the referenced NSD files concurrently
+ *      agent           2026-10-19      Dependency queries (expandRootSet(), uniquelyHoldsDependents()) based on
+ *                                      an incrementally maintained CallGraph
+ *      agent           2026-10-19      arrz files are read and written in place (no temp directory extraction)
+ *      agent           2026-10-19      exportPNG() renders and streams the image in bands, paintComponent()
+ *                                      skips diagrams outside the clip bounds
+ *      agent           2026-10-19      resetDrawingInfo() advances the global layout epoch instead of traversing
+ *      agent           2026-10-19      Clip culling restricted to the PNG export (interactive painting must keep
+ *                                      drawing all diagrams, Root.draw() notifies the updaters)
  *
  ******************************************************************************************************
  *
@@ -176,28 +185,27 @@ import java.awt.event.MouseWheelListener;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowFocusListener;
 import java.awt.event.WindowListener;
-import java.awt.image.BufferedImage;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.attribute.FileTime;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
@@ -209,9 +217,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
-import javax.imageio.ImageIO;
 import javax.swing.JComponent;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
@@ -236,6 +242,8 @@ import lu.fisch.structorizer.gui.Mainform;
 import lu.fisch.structorizer.gui.Menu;
 import lu.fisch.structorizer.io.ArrFilter;
 import lu.fisch.structorizer.io.ArrZipFilter;
+import lu.fisch.structorizer.io.ArrzArchive;
+import lu.fisch.structorizer.io.ImageExporter;
 import lu.fisch.structorizer.io.Ini;
 import lu.fisch.structorizer.io.PNGFilter;
 import lu.fisch.structorizer.locales.LangPanel;
@@ -266,6 +274,8 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 	private final HashMap<String, Vector<Diagram>> nameMap = new HashMap<String, Vector<Diagram>>();
 	private final HashMap<Root, Diagram> rootMap = new HashMap<Root, Diagram>();
 	// END KGU#624 2018-12-26
+	/** Call and include dependencies among the held diagrams */
+	private final CallGraph callGraph = new CallGraph();
 	// START KGU#626 2018-12-23: Enh. #657
 	private final HashMap<String, Group> groups = new HashMap<String, Group>();
 	// END KGU#626 2018-12-23
@@ -399,6 +409,20 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 	public void paintComponent(Graphics g, boolean compensateZoom, boolean onlySelected, int offsetX, int offsetY)
 	// END KGU#624 2018-12-24
 	// END KGU#497 2018-03-19
+	{
+		this.paintComponent(g, compensateZoom, onlySelected, offsetX, offsetY, false);
+	}
+
+	/**
+	 * Variant of {@link #paintComponent(Graphics, boolean, boolean, int, int)} that may skip
+	 * diagrams lying entirely outside the clip bounds of {@code g}. This is only meant for
+	 * the tiled image export: {@link Root#draw(Graphics, Point, Updater,
+	 * Element.DrawingContext)} also notifies the updaters of a diagram, which must not be
+	 * suppressed in interactive painting.
+	 * @param cullToClip - whether diagrams outside the clip bounds are to be skipped
+	 * @see #paintComponent(Graphics, boolean, boolean, int, int)
+	 */
+	private void paintComponent(Graphics g, boolean compensateZoom, boolean onlySelected, int offsetX, int offsetY, boolean cullToClip)
 	{
 		//System.out.println("Surface: " + System.currentTimeMillis());
 		// Region occupied by diagrams
@@ -451,6 +475,8 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 			// END KGU#630 2019-01-19
 				
 //			System.out.println("Surface.paintComponent()");
+			// Diagrams outside the clip (i.e. a band of the PNG export) need not be drawn
+			Rectangle clip = cullToClip ? g2d.getClipBounds() : null;
 			for(int d=0; d<diagrams.size(); d++)
 			{
 				Diagram diagram = diagrams.get(d);
@@ -468,6 +494,12 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 					point = new Point(point.x - offsetX, point.y - offsetY);
 				}
 				// END KGU#624 2018-12-24
+				if (clip != null && !diagram.isPinned && root.width > 0
+						&& !clip.intersects(point.x, point.y, root.width + 1, root.height + 1)) {
+					if (point.x + root.width > area.width) area.width = point.x + root.width;
+					if (point.y + root.height > area.height) area.height = point.y + root.height;
+					continue;
+				}
 				// START KGU#88 2015-11-24
 				//root.draw(g, point, this);
 				Rect rect = root.draw(g2d, point, this, Element.DrawingContext.DC_ARRANGER);
@@ -625,7 +657,13 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 		// END KGU#363 2018-09-11
 		String errorMessage = "";
 		String ext = filename.substring(Math.max(filename.lastIndexOf("."),0));
-		if (ext.equalsIgnoreCase(".nsd"))
+		File arrzFile = null;
+		if (ext.equalsIgnoreCase(".nsd") && unzippedFrom == null && (arrzFile = ArrzArchive.getArchiveFile(filename)) != null)
+		{
+			// Virtual path of a diagram residing in an arrz file
+			errorMessage = loadArchivedFile(form, filename, arrzFile, point, group);
+		}
+		else if (ext.equalsIgnoreCase(".nsd"))
 		{
 			// open an existing file
 			NSDParser parser = new NSDParser();
@@ -641,21 +679,7 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 				// END KGU#363 2018-09-11
 				// END KGU#363 2017-05-21
 
-				root.filename = filename;
-				// START KGU#316 2016-12-28: Enh. #318 Allow nsd files to "reside" in arrz files
-				if (unzippedFrom != null) {
-					root.filename = unzippedFrom + File.separator + (new File(filename)).getName();
-					root.shadowFilepath = filename;
-				}
-				// END KGU#316 2016-12-28
-				// START KGU#382 2017-04-15: Ensure highlighting mode has effect
-				//root.highlightVars = Element.E_VARHIGHLIGHT;
-				root.getVarNames();	// Initialise the variable table, otherwise the highlighting won't work
-				// END KGU#382 2017-04-15
-				// START KGU#289 2016-11-15: Enh. #290 (load from Mainform)
-				//addDiagram(root, point);
-				addDiagram(root, form, point, group);
-				// END KGU#289 2016-11-15
+				addLoadedDiagram(root, form, filename, point, unzippedFrom, group);
 				// START KGU#111 2015-12-17: Bugfix #63: We must now handle a possible exception
 			}
 			catch (Exception ex) {
@@ -672,6 +696,71 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 		return errorMessage;
 	}
 
+	/**
+	 * Loads the diagram residing in arrz file {@code arrzFile} under virtual path {@code filename}
+	 * directly from the archive.
+	 * @param form - the commanding Mainform if any
+	 * @param filename - virtual path of the NSD file (arrz file path + entry name)
+	 * @param arrzFile - the arrz file {@code filename} points into
+	 * @param point - target position, or null
+	 * @param group - the group the diagram is to be added to, or null
+	 * @return an error message if something went wrong, otherwise an empty string
+	 */
+	private String loadArchivedFile(Mainform form, String filename, File arrzFile, Point point, Group group)
+	{
+		String errorMessage = "";
+		try {
+			ZipFile zipFile = new ZipFile(arrzFile);
+			try {
+				ZipEntry entry = ArrzArchive.findEntry(zipFile, ArrzArchive.getEntryName(filename, arrzFile));
+				if (entry == null) {
+					throw new FileNotFoundException(filename);
+				}
+				Root root = new NSDParser().parse(zipFile, entry);
+				addLoadedDiagram(root, form, filename, point, null, group);
+			}
+			finally {
+				zipFile.close();
+			}
+		}
+		catch (Exception ex) {
+			errorMessage = ex.getLocalizedMessage();
+			if (errorMessage == null) {
+				errorMessage = ex.toString();
+			}
+		}
+		return errorMessage;
+	}
+
+	/**
+	 * Places the diagram {@code root} freshly parsed from NSD file {@code filename} on the
+	 * surface at {@code point}.
+	 * @param root - the loaded diagram
+	 * @param form - the commanding Mainform if any
+	 * @param filename - path of the (possibly temporary) NSD file
+	 * @param point - target position, or null
+	 * @param unzippedFrom - path of the arrz file {@code filename} was extracted from, or null
+	 * @param group - the group the diagram is to be added to, or null
+	 */
+	private void addLoadedDiagram(Root root, Mainform form, String filename, Point point, String unzippedFrom, Group group)
+	{
+		root.filename = filename;
+		// START KGU#316 2016-12-28: Enh. #318 Allow nsd files to "reside" in arrz files
+		if (unzippedFrom != null) {
+			root.filename = unzippedFrom + File.separator + (new File(filename)).getName();
+			root.shadowFilepath = filename;
+		}
+		// END KGU#316 2016-12-28
+		// START KGU#382 2017-04-15: Ensure highlighting mode has effect
+		//root.highlightVars = Element.E_VARHIGHLIGHT;
+		root.getVarNames();	// Initialise the variable table, otherwise the highlighting won't work
+		// END KGU#382 2017-04-15
+		// START KGU#289 2016-11-15: Enh. #290 (load from Mainform)
+		//addDiagram(root, point);
+		addDiagram(root, form, point, group);
+		// END KGU#289 2016-11-15
+	}
+
 	/**
 	 * Stores the current diagram arrangement (new with version 3.28-13: only selected diagrams)
 	 * to a file.<br/>
@@ -958,55 +1047,54 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 		String outFilename = filename + "." + extension;		// Name of the actually written file
 		String tmpFilename = null;
 
-		// Find a suited temporary directory to store the output file(s) if needed
-		String tempDir = findTempDir();
-		if ((tempDir == null || tempDir.isEmpty()))
-		{
-			File dir = new File(".");
-			if (dir.isFile())
-			{
-				tempDir = dir.getParent();
-			}
-			else
-			{
-				tempDir = dir.getAbsolutePath();
-			}
-		}
-
 		try
 		{
-			// Prepare to save the arr file (if portable is false then this is the outfile)
-			String arrFilename = outFilename;
 			File file = new File(outFilename);
 			// START KGU#110 2016-06-29: Enh. #62
-			// Check whether the target file already exists
-			//boolean fileExisted = file.exits();
-			//if (fileExisted)
 			if (portable)
 			{
-				// name for the arr file to be zipped into the target file
-				arrFilename = tempDir + File.separator + (new File(filename)).getName() + ".arr";
+				// The arr file is composed in memory and zipped together with the nsd files
+				String arrName = (new File(filename)).getName() + ".arr";
+				ByteArrayOutputStream arrContent = new ByteArrayOutputStream();
+				saveArrFile(group, arrContent, true);
+				zipAllFiles(group, file, arrName, arrContent.toByteArray());
+				// START KGU#626 2019-01-02: Enh. #657
+				group.setFile(new File(arrName), file);
+				// END KGU#626 2019-01-02
+				return true;
 			}
-			else if (file.exists())
-				// END KGU#110 2016-06-29
+			// END KGU#110 2016-06-29
+			// Prepare to save the arr file
+			String arrFilename = outFilename;
+			// Check whether the target file already exists
+			if (file.exists())
 			{
+				// Find a suited temporary directory to store the output file
+				String tempDir = findTempDir();
+				if ((tempDir == null || tempDir.isEmpty()))
+				{
+					File dir = new File(".");
+					if (dir.isFile())
+					{
+						tempDir = dir.getParent();
+					}
+					else
+					{
+						tempDir = dir.getAbsolutePath();
+					}
+				}
 				// name for a temporary arr file
 				arrFilename = tempDir + File.separator + "Temp." + extension;
 				tmpFilename = arrFilename;
 			}
 			// Now actually save the arr file
-			saveArrFile(group, arrFilename, portable);
-
-			// START KGU#110 2016-06-29: Enh. #62
-			// Now zip all files together if a portable file is requested
-			if (portable)
-			{
-				// Create a zip file from the nsd files and the arr file
-				// (returns the name of the zip file if it was placed in
-				// a temp directory, otherwise null).
-				tmpFilename = zipAllFiles(group, outFilename, arrFilename, tempDir);
+			FileOutputStream fos = new FileOutputStream(arrFilename);
+			try {
+				saveArrFile(group, fos, false);
+			}
+			finally {
+				fos.close();
 			}
-
 
 			// If the target file had existed then replace it by the output file after having created a backup
 			if (tmpFilename != null)
@@ -1020,22 +1108,9 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 				file = new File(outFilename);
 				File tmpFile = new File(tmpFilename);
 				tmpFile.renameTo(file);
-				// START KGU#626 2019-01-02: Enh. #657
-				if (portable) {
-					group.setFile(new File(arrFilename), file);
-				}
-				else {
-					group.setFile(new File(outFilename), null);					
-				}
-				// END KGU#626 2019-01-02
 			}
 			// START KGU#626 2019-01-02: Enh. #657
-			else if (portable) {
-				group.setFile(new File(arrFilename), new File(outFilename));
-			}
-			else {
-				group.setFile(new File(outFilename), null);
-			}
+			group.setFile(new File(outFilename), null);
 			// END KGU#626 2019-01-02
 
 			done = true;
@@ -1050,19 +1125,18 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 
 
 	/**
-	 * Creates the Arranger file with path {@code arrFilename} for all diagrams held
-	 * by {@code group}. If the Arranger file is used for an arrangement archive then
-	 * the paths are to be shortened to the pure names.
+	 * Writes the Arranger file content for all diagrams held by {@code group} to the
+	 * given output stream {@code os}. If the Arranger file is used for an arrangement
+	 * archive then the paths are to be shortened to the pure names.
 	 * @param group - the {@link Group} holding the diagrams belonging to the arrangement
-	 * @param arrFilename - target path of the Arranger file
+	 * @param os - the output stream to write the Arranger file content to (won't be closed)
 	 * @param pureNames - if true then only the pure file names (instead of the entire
 	 * paths) will be listed in the arr file.
 	 * @throws IOException
 	 */
-	private void saveArrFile(Group group, String arrFilename, boolean pureNames) throws IOException
+	private void saveArrFile(Group group, OutputStream os, boolean pureNames) throws IOException
 	{
-		FileOutputStream fos = new FileOutputStream(arrFilename);
-		Writer out = new OutputStreamWriter(fos, "UTF8");
+		Writer out = new OutputStreamWriter(os, "UTF8");
 		int offsetX = 0, offsetY = 0;
 		// START KGU#630 2019-01-13: Enh. #662/4
 		if (Arranger.A_STORE_RELATIVE_COORDS) {
@@ -1099,40 +1173,23 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 			}
 		}
 
-		out.close();
+		out.flush();
 	}
 
 	/**
 	 * Compresses the diagrams of the given {@link Group} {@code group} and the describing
-	 * arr file ({@code arrFilename}) into file {@code zipFilename} (which is essentially an ordinary
-	 * zip file but named as given).
+	 * arr file content ({@code arrContent}) into file {@code zipFile} (which is essentially
+	 * an ordinary zip file but named as given). Diagrams residing in arrz files (possibly
+	 * {@code zipFile} itself) are transferred from there without extraction. If {@code zipFile}
+	 * had existed then it is kept as backup file.
 	 * @param group - the {@link Group} defining what diagrams are members of the arrangement
-	 * @param zipFilename - path of the arrz file (zip file) to be created
-	 * @param arrFilename - path of the existing arr file holding the positions
-	 * @param tmpPath - path of a temporary directory for the case the target
-	 * file already exists
-	 * @return the path of the created temporary file if the target file `zipFilename´ had
-	 * existed (otherwise null)
+	 * @param zipFile - the arrz file (zip file) to be created
+	 * @param arrName - the name of the arr file entry
+	 * @param arrContent - the content of the arr file holding the positions
 	 */
-	private String zipAllFiles(Group group, String zipFilename, String arrFilename, String tmpPath) throws IOException
+	private void zipAllFiles(Group group, File zipFile, String arrName, byte[] arrContent) throws IOException
 	{
-		final int BUFSIZE = 2048;
-
-		String tmpFilename = zipFilename + "";
-		// set up the file (and check whether it has existed already)
-		File file = new File(zipFilename);
-		boolean fileExisted = file.exists(); 
-		if (fileExisted)
-		{
-			tmpFilename = tmpPath + File.separator + "Arranger.zip";
-		}
-
-		BufferedInputStream origin = null;
-		FileOutputStream dest = new	FileOutputStream(tmpFilename);
-		ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(dest));
-		//out.setMethod(ZipOutputStream.DEFLATED);
-		byte buffer[] = new byte[BUFSIZE];
-		StringList filePaths = new StringList();
+		Vector<String> filePaths = new Vector<String>();
 		// Add the diagram file names
 		for (Diagram diagr: group.getDiagrams())
 		{
@@ -1148,42 +1205,9 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 				filePaths.add(path);
 			}
 		}
-		filePaths.add(arrFilename);
-
-		int count;
-		for (int i = 0; i < filePaths.count(); i++)
-		{
-			FileInputStream fis = new FileInputStream(filePaths.get(i));
-			origin = new BufferedInputStream(fis, BUFSIZE);
-			ZipEntry entry = new ZipEntry(new File(filePaths.get(i)).getName());
-			// START KGU 2018-09-12: Preserve time attributes if possible
-			Path srcPath = (new File(filePaths.get(i))).toPath();
-			try {
-				BasicFileAttributes attrs = Files.readAttributes(srcPath, BasicFileAttributes.class);
-				FileTime modTime = attrs.lastModifiedTime();
-				FileTime creTime = attrs.creationTime();
-				if (modTime.toMillis() > 0) {
-					entry.setLastModifiedTime(modTime);
-				}
-				if (creTime.toMillis() > 0) {
-					entry.setCreationTime(creTime);
-				}
-			} catch (IOException e) {}
-			// END KGU 2018-09-12
-			out.putNextEntry(entry);
-			while((count = origin.read(buffer, 0, BUFSIZE)) != -1)
-			{
-				out.write(buffer, 0, count);
-			}
-			origin.close();
-		}
-
-		out.close();
-		if (!fileExisted)
-		{
-			tmpFilename = null;
-		}
-		return tmpFilename;
+		HashMap<String, byte[]> arrEntry = new HashMap<String, byte[]>();
+		arrEntry.put(arrName, arrContent);
+		ArrzArchive.write(zipFile, filePaths, arrEntry, true);
 	}
 
 	/**
@@ -1241,10 +1265,10 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 						//extractTo = dlgOpen.getCurrentDirectory().getAbsolutePath();
 						extractTo = dlgOpen.getSelectedFile().getAbsolutePath();
 					}
-					else {
-						unzippedFrom = filename;
+					// Without explicit target directory, the archive is loaded in place
+					if (extractTo != null) {
+						filename = unzipArrangement(filename, extractTo);
 					}
-					filename = unzipArrangement(filename, extractTo);
 					if (filename != null)
 					{
 						currentDirectory = new File(filename);
@@ -1267,9 +1291,11 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 
 	/**
 	 * Restores the diagram arrangement stored in arr file `filename´ if possible
-	 * (i.e. given the referred nsd file paths exist and the nsd files may be parsed)
+	 * (i.e. given the referred nsd file paths exist and the nsd files may be parsed).
+	 * If `filename´ is an arrz file then the arr file and the diagrams are read directly
+	 * from the archive.
 	 * @param frame - owning frame component
-	 * @param filename - path of the arr file to be reloaded
+	 * @param filename - path of the arr file (or arrz file) to be reloaded
 	 * @param unzippedFrom - path of the arrz file if shadowed to temporary directory, null otherwise
 	 * @return true if at lest some of the referred diagrams could be arranged again.
 	 */
@@ -1292,6 +1318,8 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 		// END KGU#626 2018-12-28 
 
 		String errorMessage = null;
+		// The arrz file if the arrangement is read directly from it
+		ZipFile archive = null;
 		try
 		{
 			// START KGU#316 2016-12-28: Enh. #318 don't get confused by the loading of some files
@@ -1299,11 +1327,27 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 			// END KGU#316 2016-12-28
 			// set up the file
 			File arrFile = new File(filename);
+			ZipEntry arrEntry = null;
+			if (ArrZipFilter.isArr(filename)) {
+				archive = new ZipFile(arrFile);
+				arrEntry = ArrzArchive.findArrEntry(archive);
+				if (arrEntry == null) {
+					throw new IOException(msgDefectiveArrz.getText());
+				}
+				unzippedFrom = null;
+			}
 			
 			// START KGU#626 2018-12-28: Enh. #657 - group management
 			File arrzFile = null;
 			String groupName = arrFile.getName();
-			if (unzippedFrom != null) {
+			String arrzPath = unzippedFrom;
+			String arrName = arrFile.getName();
+			if (archive != null) {
+				arrzFile = arrFile.getAbsoluteFile();
+				arrzPath = arrzFile.getAbsolutePath();
+				arrName = new File(arrEntry.getName()).getName();
+			}
+			else if (unzippedFrom != null) {
 				arrzFile = new File(unzippedFrom);
 				groupName = arrzFile.getName();
 			}
@@ -1326,87 +1370,139 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 				while (groups.containsKey(groupName + "(" + trial +")")) trial++;
 				groupName = groupName + "(" + trial +")";
 			}
-			group = new Group(groupName, unzippedFrom == null ? filename : unzippedFrom + File.separator + arrFile.getName());
+			group = new Group(groupName, arrzPath == null ? filename : arrzPath + File.separator + arrName);
 			groups.put(groupName, group);
 			// END KGU#626 2018-12-28
 			
-			Scanner in = new Scanner(arrFile, "UTF8");
-			while (in.hasNextLine())
-			{
-				String line = in.nextLine();
-				StringList fields = StringList.explode(line, ",");
-				if (fields.count() >= 3)
+			// Gather the entries first such that the NSD files may be parsed concurrently
+			Vector<Point> points = new Vector<Point>();
+			Vector<String> nsdFileNames = new Vector<String>();
+			Scanner in = (archive != null)
+					? new Scanner(archive.getInputStream(arrEntry), "UTF8")
+					: new Scanner(arrFile, "UTF8");
+			try {
+				while (in.hasNextLine())
 				{
-					Point point = new Point();
-					point.x = Integer.parseInt(fields.get(0));
-					point.y = Integer.parseInt(fields.get(1));
-					String nsdFileName = fields.get(2);
-					if (nsdFileName.startsWith("\""))
-						nsdFileName = nsdFileName.substring(1);
-					if (nsdFileName.endsWith("\""))
-						nsdFileName = nsdFileName.substring(0, nsdFileName.length() - 1);
-					File nsd = new File(nsdFileName);
-					if (!nsd.exists() && !nsd.isAbsolute())
+					String line = in.nextLine();
+					StringList fields = StringList.explode(line, ",");
+					if (fields.count() >= 3)
 					{
-						// START KGU#316 2016-12-28: Enh. #318 don't get confused by the loading of some files
-						//nsdFileName = currentDirectory.getAbsolutePath() + File.separator + nsdFileName;
-						nsdFileName = prevCurDirPath + File.separator + nsdFileName;
-						// END KGU#316 2016-12-28
+						Point point = new Point();
+						point.x = Integer.parseInt(fields.get(0));
+						point.y = Integer.parseInt(fields.get(1));
+						String nsdFileName = fields.get(2);
+						if (nsdFileName.startsWith("\""))
+							nsdFileName = nsdFileName.substring(1);
+						if (nsdFileName.endsWith("\""))
+							nsdFileName = nsdFileName.substring(0, nsdFileName.length() - 1);
+						File nsd = new File(nsdFileName);
+						if (archive != null) {
+							// Within an archive only the pure file names matter
+							nsdFileName = arrzPath + File.separator + nsd.getName();
+						}
+						else if (!nsd.exists() && !nsd.isAbsolute())
+						{
+							// START KGU#316 2016-12-28: Enh. #318 don't get confused by the loading of some files
+							//nsdFileName = currentDirectory.getAbsolutePath() + File.separator + nsdFileName;
+							nsdFileName = prevCurDirPath + File.separator + nsdFileName;
+							// END KGU#316 2016-12-28
+						}
+						points.add(point);
+						nsdFileNames.add(nsdFileName);
+					}
+				}
+			}
+			finally {
+				in.close();
+			}
+			
+			int nEntries = nsdFileNames.size();
+			Root[] roots = null;
+			Exception[] errors = new Exception[nEntries];
+			if (archive != null) {
+				// Parse the NSD entries directly from the archive
+				ZipEntry[] nsdEntries = new ZipEntry[nEntries];
+				for (int i = 0; i < nEntries; i++) {
+					String entryName = new File(nsdFileNames.get(i)).getName();
+					if ((nsdEntries[i] = ArrzArchive.findEntry(archive, entryName)) == null) {
+						errors[i] = new FileNotFoundException(nsdFileNames.get(i));
+					}
+				}
+				roots = NSDParser.parseAll(archive, nsdEntries, errors);
+			}
+			else {
+				File[] nsdFiles = new File[nEntries];
+				for (int i = 0; i < nEntries; i++) {
+					String nsdFileName = nsdFileNames.get(i);
+					if (nsdFileName.toLowerCase().endsWith(".nsd")) {
+						nsdFiles[i] = new File(nsdFileName);
 					}
+				}
+				roots = parseNSDFiles(nsdFiles, unzippedFrom);
+			}
+			
+			for (int i = 0; i < nEntries; i++)
+			{
+				Point point = points.get(i);
+				String nsdFileName = nsdFileNames.get(i);
+				File nsd = new File(nsdFileName);
+				String trouble = "";
+				if (roots[i] != null) {
+					addLoadedDiagram(roots[i], (frame instanceof Mainform) ? (Mainform)frame : null,
+							nsdFileName, point, unzippedFrom, group);
+				}
+				else if (archive != null) {
+					Exception ex = errors[i];
+					trouble = nsdFileName + ": " + (ex == null ? msgDefectiveArrz.getText()
+							: ex.getLocalizedMessage() != null ? ex.getLocalizedMessage() : ex.toString());
+				}
+				else {
+					// Either no NSD file or the parsing failed - the ordinary way will tell us why
 					// START KGU#289 2016-11-15: Enh. #290 (Arrangements loaded from Mainform)
 					//String trouble = loadFile(nsdFileName, point);
-					String trouble = loadFile((frame instanceof Mainform) ? (Mainform)frame : null,
+					trouble = loadFile((frame instanceof Mainform) ? (Mainform)frame : null,
 							nsdFileName, point, unzippedFrom, group);
 					// END KGU#289 2016-11-15
-					// START KGU#625 2018-12-22: Bugfix #656 - It might be that the arr file refers to virtual arrz paths
-					if (!trouble.isEmpty() && !nsd.exists() && unzippedFrom == null && nsdFileName.contains(".arrz")) {
-						try {
-							// Might be a path into an arrz file from which the referred diagram had originally been loaded
-							arrzFile = nsd.getParentFile();
-							String pureName = nsd.getName();
-							if (arrzFile.exists()) {
-								String extractedArrPath = unzipArrangement(arrzFile.getAbsolutePath(), null);
-								if (extractedArrPath != null) {
-									File targetDir = (new File(extractedArrPath)).getParentFile(); 
-									if (targetDir.exists() && (nsd = new File(targetDir.getAbsolutePath() + File.separator + pureName)).exists()) {
-										// Now let's try again
-										String newTrouble = loadFile((frame instanceof Mainform) ? (Mainform)frame : null,
-												nsd.getAbsolutePath(), point, arrzFile.getAbsolutePath(), group);
-										if (newTrouble.isEmpty()) {
-											trouble = "";
-										}
-										else {
-											trouble += "\n   " + newTrouble;
-										}
-									}
-								}
+				}
+				// START KGU#625 2018-12-22: Bugfix #656 - It might be that the arr file refers to virtual arrz paths
+				if (!trouble.isEmpty() && !nsd.exists() && archive == null && unzippedFrom == null && nsdFileName.contains(".arrz")) {
+					try {
+						// Might be a path into an arrz file from which the referred diagram had originally been loaded
+						File nsdArrzFile = ArrzArchive.getArchiveFile(nsdFileName);
+						if (nsdArrzFile != null) {
+							// Now let's try again
+							String newTrouble = loadArchivedFile((frame instanceof Mainform) ? (Mainform)frame : null,
+									nsdFileName, nsdArrzFile, point, group);
+							if (newTrouble.isEmpty()) {
+								trouble = "";
+							}
+							else {
+								trouble += "\n   " + newTrouble;
 							}
-						}
-						catch (Exception ex) {
-							trouble += "\n    " + ex.toString();
 						}
 					}
-					// END KGU#625 2018-12-22
-					if (!trouble.isEmpty())
+					catch (Exception ex) {
+						trouble += "\n    " + ex.toString();
+					}
+				}
+				// END KGU#625 2018-12-22
+				if (!trouble.isEmpty())
+				{
+					if (errorMessage != null)
 					{
-						if (errorMessage != null)
-						{
-							errorMessage += "\n" + trouble;
-						}
-						else {
-							errorMessage = trouble;
-						}
+						errorMessage += "\n" + trouble;
 					}
-					// START KGU#278 2016-10-11: Enh. #267
 					else {
-						nLoaded++;
+						errorMessage = trouble;
 					}
-					// END KGU#278 2016-10-11
 				}
+				// START KGU#278 2016-10-11: Enh. #267
+				else {
+					nLoaded++;
+				}
+				// END KGU#278 2016-10-11
 			}
 
-			in.close();
-
 			done = true;
 		}
 		catch (Exception ex)
@@ -1425,6 +1521,11 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 			}
 		}
 		finally {
+			if (archive != null) {
+				try {
+					archive.close();
+				} catch (IOException ex) {}
+			}
 			if (group != null) {
 				if (group.isEmpty()) {
 					groups.remove(group.getName());
@@ -1449,6 +1550,33 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 	}
 	// END KGU#110 2015-12-17
 
+	/**
+	 * Parses the given NSD files concurrently and returns the resulting diagrams in the same
+	 * order. Null elements of {@code nsdFiles} as well as files that failed to parse lead to
+	 * null elements in the result.
+	 * @param nsdFiles - the NSD files to be parsed (may contain null elements)
+	 * @param unzippedFrom - path of the arrz file the files were extracted from, or null
+	 * @return the array of parsed diagrams, index-aligned with {@code nsdFiles}
+	 */
+	private Root[] parseNSDFiles(File[] nsdFiles, String unzippedFrom)
+	{
+		Vector<File> toParse = new Vector<File>();
+		for (File nsd: nsdFiles) {
+			if (nsd != null && nsd.canRead()) {
+				toParse.add(nsd);
+			}
+		}
+		Root[] parsed = NSDParser.parseAll(toParse.toArray(new File[toParse.size()]),
+				unzippedFrom == null ? null : new File(unzippedFrom), null);
+		Root[] roots = new Root[nsdFiles.length];
+		for (int i = 0, j = 0; i < nsdFiles.length; i++) {
+			if (nsdFiles[i] != null && j < toParse.size() && nsdFiles[i] == toParse.get(j)) {
+				roots[i] = parsed[j++];
+			}
+		}
+		return roots;
+	}
+
 	// START KGU#289 2016-11-15: Enh. #289/#290
 	/**
 	 * Loads an .arr or .arrz file, associating the loaded diagrams with the given
@@ -1461,35 +1589,19 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 	{
 		String errorMessage = "";
 		File oldCurrDir = currentDirectory;
-		// START KGU#316 2016-12-28: Enh. #318 Keep track of the original arrz path
-		String arrzPath = null;
-		// END KGU#316 2016-12-28
-		if (filename.toLowerCase().endsWith(".arrz")) {
-			arrzPath = filename;
-			filename = unzipArrangement(filename, null);
-		}
-		if (filename != null)
-		{
-			try {
-				currentDirectory = new File(filename);
-				while (currentDirectory != null && !currentDirectory.isDirectory())
-				{
-					currentDirectory = currentDirectory.getParentFile();
-				}
-				// START KGU#316 2016-12-28: Enh. #318
-				//if (!loadArrangement(form, filename)) {
-				if (!loadArrangement(form, filename, arrzPath)) {
-					// END KGU#316 2016-12-28
-					errorMessage = msgDefectiveArr.getText();
-				}
+		// An arrz file is read in place (see loadArrangement(Frame, String, String))
+		try {
+			currentDirectory = new File(filename);
+			while (currentDirectory != null && !currentDirectory.isDirectory())
+			{
+				currentDirectory = currentDirectory.getParentFile();
 			}
-			finally {
-				currentDirectory = oldCurrDir;
+			if (!loadArrangement(form, filename, null)) {
+				errorMessage = ArrZipFilter.isArr(filename) ? msgDefectiveArrz.getText() : msgDefectiveArr.getText();
 			}
 		}
-		else
-		{
-			errorMessage = msgDefectiveArrz.getText();
+		finally {
+			currentDirectory = oldCurrDir;
 		}
 		return errorMessage;
 	}
@@ -1498,68 +1610,47 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 	// START KGU#110 2016-07-01: Enh. 62
 	/**
 	 * Extracts the files contained in the zip file given by `filename´ into the
-	 * directory `targetDir´ or a temporary directory (if not given).
+	 * directory `targetDir´ (on explicit user request - arrz files are otherwise
+	 * read in place).
 	 * @param filename - path of the arrz file
-	 * @param targetDir - target directory path for the unzipping (may be null)
+	 * @param targetDir - target directory path for the unzipping
 	 * @return the path of the arr file found in the extracted archive (or otherwise null) 
 	 */
 	private String unzipArrangement(String filename, String targetDir)
 	{
-		final int BUFSIZE = 2048;
 		String arrFilename = null;
-		if (targetDir == null)
-		{
-			// START KGU#316 2016-12-28: Enh. #318
-			//targetDir = findTempDir();
-			boolean tmpDirCreated = false;
-			try {
-				// We just force the existence of the folder hierarchy in the temp directory
-				File tempFile = File.createTempFile("arr", null);
-				tempFile.delete();	// We don't need the file itself
-				targetDir = tempFile.getParent() + File.separator + (new File(filename)).getName();
-				tmpDirCreated = (new File(targetDir)).mkdirs();
-			} catch (IOException ex) {
-				logger.log(Level.WARNING, "Failed to unzip the arrangement archive: {0}", ex.getLocalizedMessage());
-			}
-			if (!tmpDirCreated) {
-				targetDir = findTempDir();
-			}
-			// END KGU#316 2016-12-28
-		}
 		try {
-			BufferedOutputStream dest = null;
-			BufferedInputStream bistr = null;
-			ZipEntry entry;
 			ZipFile zipfile = new ZipFile(filename);
-			Enumeration<? extends ZipEntry> entries = zipfile.entries();
-			while(entries.hasMoreElements()) {
-				entry = (ZipEntry) entries.nextElement();
-				String targetName = targetDir + File.separator + entry.getName();
-				bistr = new BufferedInputStream
-						(zipfile.getInputStream(entry));
-				int count;
-				byte buffer[] = new byte[BUFSIZE];
-				FileOutputStream fostr = new FileOutputStream(targetName);
-				dest = new BufferedOutputStream(fostr, BUFSIZE);
-				while ((count = bistr.read(buffer, 0, BUFSIZE))	!= -1)
-				{
-					dest.write(buffer, 0, count);
-				}
-				dest.flush();
-				dest.close();
-				bistr.close();
-				// START KGU 2018-09-12: Preserve at least the modification time if possible
-				Path destPath = (new File(targetName)).toPath();
-				try {
-					Files.setLastModifiedTime(destPath, entry.getLastModifiedTime());
-				} catch (IOException e) {}
-				// END KGU 2018-09-12
-				if (ArrFilter.isArr(entry.getName()))
-				{
-					arrFilename = targetName;
+			try {
+				Enumeration<? extends ZipEntry> entries = zipfile.entries();
+				while(entries.hasMoreElements()) {
+					ZipEntry entry = entries.nextElement();
+					if (entry.isDirectory()) {
+						continue;
+					}
+					String targetName = targetDir + File.separator + new File(entry.getName()).getName();
+					Path destPath = (new File(targetName)).toPath();
+					InputStream istr = zipfile.getInputStream(entry);
+					try {
+						Files.copy(istr, destPath, StandardCopyOption.REPLACE_EXISTING);
+					}
+					finally {
+						istr.close();
+					}
+					// START KGU 2018-09-12: Preserve at least the modification time if possible
+					try {
+						Files.setLastModifiedTime(destPath, entry.getLastModifiedTime());
+					} catch (IOException e) {}
+					// END KGU 2018-09-12
+					if (ArrFilter.isArr(entry.getName()))
+					{
+						arrFilename = targetName;
+					}
 				}
 			}
-			zipfile.close();
+			finally {
+				zipfile.close();
+			}
 		} catch(Exception ex) {
 			// START KGU#484 2018-04-05: Issue #463
 			//ex.printStackTrace();
@@ -1649,11 +1740,25 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 				logger.log(Level.CONFIG, "Drawing Rect: {0}", rect);
 				logger.log(Level.CONFIG, "zoomed: {0} x {1}", new Object[]{width*this.zoomFactor, height*this.zoomFactor});
 			}
-			BufferedImage bi = new BufferedImage(
-					Math.round(width * this.zoomFactor),
-					Math.round(height * this.zoomFactor),
-					BufferedImage.TYPE_4BYTE_ABGR);
-			paintComponent(bi.getGraphics(), true, !this.diagramsSelected.isEmpty(), offsetX, offsetY);
+			// The image is rendered and written band by band (large arrangements would exceed the heap otherwise)
+			final boolean onlySelected = !this.diagramsSelected.isEmpty();
+			final int offsX = offsetX, offsY = offsetY;
+			try
+			{
+				ImageExporter.exportTiledPNG(new ImageExporter.Painter() {
+					@Override
+					public void paint(Graphics2D _g2d) {
+						paintComponent(_g2d, true, onlySelected, offsX, offsY, true);
+					}
+				},
+				Math.round(width * this.zoomFactor),
+				Math.round(height * this.zoomFactor),
+				1.0, file);
+			}
+			catch(Exception e)
+			{
+				JOptionPane.showOptionDialog(frame, msgExportError.getText(), "Error",JOptionPane.OK_OPTION,JOptionPane.ERROR_MESSAGE,null,null,null);
+			}
 			// END KGU#497 2018-03-19
 			// START KGU#624 2018-12-24: Enh. #655 - support multiole selection / restore selection
 			for (Diagram diagr: this.diagramsSelected) {
@@ -1662,15 +1767,6 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 				}
 			}
 			// END KGU624 2018-12-24
-			// save the file
-			try
-			{
-				ImageIO.write(bi, "png", file);
-			}
-			catch(Exception e)
-			{
-				JOptionPane.showOptionDialog(frame, msgExportError.getText(), "Error",JOptionPane.OK_OPTION,JOptionPane.ERROR_MESSAGE,null,null,null);
-			}
 		}
 	}
 
@@ -2088,6 +2184,7 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 			rootMap.put(root, diagram);
 			String rootName = root.getMethodName();
 			addToNameMap(rootName, diagram);
+			callGraph.addRoot(root);
 			// END KGU#624 2018-12-26
 			// START KGU 2015-11-30
 			// START KGU#136 2016-03-01: Bugfix #97 - here we need the actual position
@@ -2355,6 +2452,7 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 		// START KGU#624 2018-12-26: Enh. #655 - Attempt to make search faster
 		rootMap.remove(diagr.root, diagr);
 		removeFromNameMap(diagr.getName(), diagr);
+		callGraph.removeRoot(diagr.root);
 		// END KGU#624 2018-12-26
 		// START KGU#626 2018-12-30: Enh. #657
 		for (String groupName: diagr.getGroupNames()) {
@@ -2781,6 +2879,7 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 					// START KGU#624 2018-12-26: Enh. #655
 					this.rootMap.remove(diagr.root);
 					this.removeFromNameMap(diagr.root.getMethodName(), diagr);
+					this.callGraph.removeRoot(diagr.root);
 					// END KGU#624 2018-12-26
 					diagrams.remove(diagr);
 				}
@@ -3388,6 +3487,7 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 		//	this.notifyChangeListeners(IRoutinePoolListener.RPC_POOL_CHANGED);
 		//}
 		if (diagr != null) {
+			callGraph.invalidate(source);
 			String oldRootName = diagr.getName();
 			if (diagr.checkSignatureChange()) {
 				String newRootName = source.getMethodName();
@@ -3412,21 +3512,16 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 
 	// START KGU#155 2016-03-08: Bugfix #97 extension
 	/**
-	 * Invalidates the cached prepareDraw info of all diagrams residing here
-	 * (to be called on events with heavy impact on the size or shape of some
-	 * Elements)
+	 * Invalidates the cached prepareDraw info of all diagrams (to be called on
+	 * events with heavy impact on the size or shape of some Elements). Since the
+	 * layout settings are global, this affects the diagrams outside, too.
 	 * @param _exceptDiagr the hash code of a lu.fisch.structorizer.gui.Diagram
 	 * that is not to be invoked (to avoid recursion)
 	 */
 	public void resetDrawingInfo(int _exceptDiagr)
 	{
-		if (this.diagrams != null)
-		{
-			for (int d = 0; d < this.diagrams.size(); d++)
-			{
-				this.diagrams.get(d).resetDrawingInfo(_exceptDiagr);
-			}
-		}
+		// The diagrams will lazily re-layout on their next drawing
+		Element.invalidateLayouts();
 	}
 	// END KGU#155 2016-03-08
 
@@ -3545,6 +3640,12 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 				owner.root = newRoot;
 				owner.root.addUpdater(this);
 			}
+			if (owner.root != oldRoot) {
+				rootMap.remove(oldRoot, owner);
+				rootMap.put(owner.root, owner);
+				callGraph.removeRoot(oldRoot);
+				callGraph.addRoot(owner.root);
+			}
 			// START KGU#85 2015-11-18
 			adaptLayout();
 			// END KGU#85 2015-11-18
@@ -3956,29 +4057,53 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 		Set<Diagram> addedDiagrams = new HashSet<Diagram>();
 		while (!rootQueue.isEmpty()) {
 			Root root = rootQueue.removeFirst();
-			// First look for called routines
-			Vector<Call> calls = root.collectCalls();
-			for (Call call: calls) {
-				Function fct = call.getCalledRoutine();
-				if (fct != null) {
-					Vector<Root> candidates = this.findRoutinesBySignature(fct.getName(), fct.paramCount());
-					handleReferenceCandidates(selectedRoots, missingSignatures, duplicateSignatures, rootQueue, addedDiagrams,
-							fct.getSignatureString(), candidates);
-				}
-			}
-			// Then look for referenced includables
-			if (root.includeList != null) {
-				for (int i = 0; i < root.includeList.count(); i++) {
-					String inclName = root.includeList.get(i);
-					Vector<Root> candidates = this.findIncludesByName(inclName);
-					handleReferenceCandidates(selectedRoots, missingSignatures, duplicateSignatures, rootQueue, addedDiagrams,
-							inclName, candidates);
-				}
+			// Called routines first, then referenced includables
+			for (Entry<String, Vector<Root>> reference: getReferences(root).entrySet()) {
+				handleReferenceCandidates(selectedRoots, missingSignatures, duplicateSignatures, rootQueue, addedDiagrams,
+						reference.getKey(), reference.getValue());
 			}
 		}
 		return addedDiagrams;
 	}
 
+	/**
+	 * Returns the subroutine calls and includes of the given {@link Root} with the respective
+	 * matching diagrams. For diagrams held here the information is retrieved from the {@link CallGraph},
+	 * otherwise {@code root} is analysed.
+	 * @param root - a diagram (usually held by this surface)
+	 * @return map from call signatures and include names to the vectors of matching {@link Root}s 
+	 */
+	private LinkedHashMap<String, Vector<Root>> getReferences(Root root)
+	{
+		if (rootMap.containsKey(root)) {
+			return callGraph.getReferences(root);
+		}
+		LinkedHashMap<String, Vector<Root>> references = new LinkedHashMap<String, Vector<Root>>();
+		for (Call call: root.collectCalls()) {
+			Function fct = call.getCalledRoutine();
+			if (fct != null && fct.isFunction()) {
+				references.put(fct.getSignatureString(), this.findRoutinesBySignature(fct.getName(), fct.paramCount()));
+			}
+		}
+		if (root.includeList != null) {
+			for (int i = 0; i < root.includeList.count(); i++) {
+				String inclName = root.includeList.get(i);
+				references.put(inclName, this.findIncludesByName(inclName));
+			}
+		}
+		return references;
+	}
+
+	/**
+	 * Returns the held diagrams calling or including the given {@link Root}
+	 * @param root - a diagram held by this surface
+	 * @return the set of referring {@link Root}s (may contain {@code root} itself if recursive)
+	 */
+	public Set<Root> getReferringRoots(Root root)
+	{
+		return callGraph.getReferringRoots(root);
+	}
+
 	/**
 	 * Checks for each {@link Root} object in {@code candidates} whether it is to be added to
 	 * {@code rootSet}, {@code rootQueue}, and {@code addedDiagrams} or if the {@code signature}
@@ -4555,23 +4680,9 @@ public class Surface extends LangPanel implements MouseListener, MouseMotionList
 		Set<Diagram> members = group.getDiagrams();
 		for (Diagram diagr: members) {
 			StringList groupNames = new StringList(diagr.getGroupNames());
-			Vector<Call> containedCalls = diagr.root.collectCalls();
-			for (Call call: containedCalls) {
-				Function fct = call.getCalledRoutine();
-				if (fct != null && fct.isFunction()) {
-					Vector<Root> candidates = this.findRoutinesBySignature(fct.getName(), fct.paramCount());
-					if (containsUnsharedPartner(candidates, diagr, members, group.getName(), groupNames)) {
-						return true;
-					}
-				}
-			}
-			StringList includeNames = diagr.root.includeList;
-			if (includeNames != null) {
-				for (int i = 0; i < includeNames.count(); i++) {
-					Vector<Root> candidates = this.findIncludesByName(includeNames.get(i));
-					if (containsUnsharedPartner(candidates, diagr, members, group.getName(), groupNames)) {
-						return true;
-					}
+			for (Vector<Root> candidates: callGraph.getReferences(diagr.root).values()) {
+				if (containsUnsharedPartner(candidates, diagr, members, group.getName(), groupNames)) {
+					return true;
 				}
 			}
 		}
@@ -99,6 +99,12 @@ package lu.fisch.structorizer.elements;
  *      Kay Gürtzig     2018-09-24      Bugfix #605: Handling of const modifiers in declaration lists fixed
  *      Kay Gürtzig     2018-10-05      Bugfix #619: Declaration status of function result variable fixed
  *      Kay Gürtzig     2018-10-25      Enh. #419: New method breakTextLines(...)
+ *      agent           2026-10-19      refactorLine() now uses a cached TokenSequenceMatcher (single pass)
+ *      agent           2026-10-19      Shared RECORD_MATCHER replaced by RECORD_PATTERN (thread safety)
+ *      agent           2026-10-19      Global layout epoch (invalidateLayouts()) for lazy re-layout on setting changes
+ *      agent           2026-10-19      Profiling data (execution time, allocation) per execution counter index
+ *      agent           2026-10-19      Runtime counters and maxima updated under the lock of execCounts (Parallel
+ *                                      branches may be executed by concurrent threads)
  *
  ******************************************************************************************************
  *
@@ -189,6 +195,7 @@ import java.awt.FontMetrics;
 import lu.fisch.utils.*;
 import lu.fisch.graphics.*;
 import lu.fisch.structorizer.parsers.*;
+import lu.fisch.structorizer.executor.ExecutionProfiler;
 import lu.fisch.structorizer.executor.Executor;
 import lu.fisch.structorizer.executor.Function;
 import lu.fisch.structorizer.gui.FindAndReplace;
@@ -477,7 +484,7 @@ public abstract class Element {
 	private static final Pattern HEX_PATTERN = Pattern.compile("0x[0-9A-Fa-f]+");
 	private static final Pattern SIGN_PATTERN = Pattern.compile("[+-]");
 	//private static final java.util.regex.Pattern ARRAY_PATTERN = java.util.regex.Pattern.compile("(\\w.*)(\\[.*\\])$"); // seems to have been wrong
-	private static final Matcher RECORD_MATCHER = java.util.regex.Pattern.compile("([A-Za-z]\\w*)\\s*\\{.*\\}").matcher("");
+	private static final Pattern RECORD_PATTERN = Pattern.compile("([A-Za-z]\\w*)\\s*\\{.*\\}");
 	// END KGU 2017-09-19
 	// START KGU#575 2018-09-17: Issue #594 - replace an obsolete 3rd-party Regex library
 	// Remark: It would not be a good idea to define the Matchers here because these aren't really constant but must be
@@ -539,8 +546,19 @@ public abstract class Element {
 	protected static int maxExecStepsEclCount = 0; 
 	// END KGU#477 2017-12-10
 	// START KGU#225 2016-07-28: Bugfix #210
+	/**
+	 * Execution counts per counter index (shared by an element and its clones). Also serves as
+	 * lock for all runtime data counters and maxima, since Parallel branches may be executed by
+	 * concurrent threads.
+	 */
 	protected static Vector<Integer> execCounts = new Vector<Integer>();
 	// END KGU#225 2016-07-28
+	/** Consumed time [ns] and allocated bytes per index into execCounts (see ExecutionProfiler) */
+	protected static Vector<long[]> execProfiles = new Vector<long[]>();
+	/** Maximum consumed time [ns] of any element while runtime data collection has been on */
+	protected static long maxExecTime = 0;
+	/** Maximum number of bytes allocated by any element while runtime data collection has been on */
+	protected static long maxExecAlloc = 0;
 	// START KGU#213 2016-08-02: Enh. #215
 	/**
 	 *  Container for temporarily (i.e. during execution) modified breakpoint count triggers
@@ -621,6 +639,11 @@ public abstract class Element {
 	// START KGU#64 2015-11-03: Is to improve drawing performance
 	/** Will be set and used by prepareDraw() (avoids repeated evaluation) - to be reset on changes */
 	protected boolean isRectUpToDate = false;
+	/**
+	 * Counter of global changes affecting the layout of all diagrams (font, DIN, comment mode etc.).
+	 * Roots compare it with the epoch of their cached layout in prepareDraw()
+	 */
+	private static volatile int layoutEpoch = 0;
 	/** Strings to be highlighted in the element text (lazy initialisation) */
 	private static StringList specialSigns = null;
 
@@ -632,7 +655,12 @@ public abstract class Element {
 	private long id = 0;
 	private void makeNewId()
 	{
-		id = ++lastId;
+		id = nextId();
+	}
+	/** Provides a new unique id (synchronized since diagrams may be loaded concurrently) */
+	private static synchronized long nextId()
+	{
+		return ++lastId;
 	}
 	public long getId()
 	{
@@ -671,6 +699,24 @@ public abstract class Element {
 	// END KGU#261 2017-01-19
 
 
+	/**
+	 * Invalidates the cached layout of all diagrams (e.g. after a font or style change).
+	 * In contrast to {@link #resetDrawingInfoDown()} on all diagrams, this doesn't traverse
+	 * anything: Every {@link Root} will recompute its layout on its next prepareDraw().
+	 */
+	public static void invalidateLayouts()
+	{
+		layoutEpoch++;
+	}
+
+	/**
+	 * @return the current global layout epoch (see {@link #invalidateLayouts()})
+	 */
+	protected static int getLayoutEpoch()
+	{
+		return layoutEpoch;
+	}
+
 	/**
 	 * Resets my cached drawing info
 	 */
@@ -1392,16 +1438,21 @@ public abstract class Element {
 	 */
 	public static void resetMaxExecCount()
 	{
-		Element.maxExecTotalCount = Element.maxExecStepCount = Element.maxExecCount = 0;
-		// START KGU#477 2017-12-10: Enh. #487 - consider maximum steps of eclipsed declarations
-		Element.maxExecStepsEclCount = 0;
-		// END KGU#477 2017-12-10
-		// START KGU#225 2016-07-28: Bugfix #210
-		Element.execCounts.clear();
-		// END KGU#225 2016-07-28
-		// START KGU#213 2016-08-02: Enh. #215
-		Element.breakTriggersTemp.clear();
-		// END KGU#213 2016-08-02
+		synchronized (Element.execCounts)
+		{
+			Element.maxExecTotalCount = Element.maxExecStepCount = Element.maxExecCount = 0;
+			// START KGU#477 2017-12-10: Enh. #487 - consider maximum steps of eclipsed declarations
+			Element.maxExecStepsEclCount = 0;
+			// END KGU#477 2017-12-10
+			// START KGU#225 2016-07-28: Bugfix #210
+			Element.execCounts.clear();
+			// END KGU#225 2016-07-28
+			Element.execProfiles.clear();
+			Element.maxExecTime = Element.maxExecAlloc = 0;
+			// START KGU#213 2016-08-02: Enh. #215
+			Element.breakTriggersTemp.clear();
+			// END KGU#213 2016-08-02
+		}
 	}
 
 	// START KGU#225 2016-07-28: Bugfix #210
@@ -1410,15 +1461,19 @@ public abstract class Element {
 	 */
 	protected void resetExecCount()
 	{
-		if (this.execCountIndex >= 0)
+		synchronized (Element.execCounts)
 		{
-			if (this.execCountIndex < Element.execCounts.size())
+			if (this.execCountIndex >= 0)
 			{
-				Element.execCounts.set(this.execCountIndex, 0);
-			}
-			else
-			{
-				this.execCountIndex = -1;
+				if (this.execCountIndex < Element.execCounts.size())
+				{
+					Element.execCounts.set(this.execCountIndex, 0);
+					Element.execProfiles.set(this.execCountIndex, new long[2]);
+				}
+				else
+				{
+					this.execCountIndex = -1;
+				}
 			}
 		}
 	}
@@ -1430,10 +1485,14 @@ public abstract class Element {
 	 */
 	protected void makeExecutionCount()
 	{
-		if (this.execCountIndex < 0 || this.execCountIndex >= Element.execCounts.size())
+		synchronized (Element.execCounts)
 		{
-			this.execCountIndex = Element.execCounts.size();
-			Element.execCounts.add(0);
+			if (this.execCountIndex < 0 || this.execCountIndex >= Element.execCounts.size())
+			{
+				this.execCountIndex = Element.execCounts.size();
+				Element.execCounts.add(0);
+				Element.execProfiles.add(new long[2]);
+			}
 		}
 	}
 	
@@ -1485,17 +1544,75 @@ public abstract class Element {
 		//}
 		if (Element.E_COLLECTRUNTIMEDATA)
 		{
-			this.makeExecutionCount();
-			int execCount = this.getExecCount() + 1;
-			Element.execCounts.set(this.execCountIndex, execCount);
-			if (execCount > Element.maxExecCount)
+			synchronized (Element.execCounts)
 			{
-				Element.maxExecCount = execCount;
+				this.makeExecutionCount();
+				int execCount = this.getExecCount() + 1;
+				Element.execCounts.set(this.execCountIndex, execCount);
+				if (execCount > Element.maxExecCount)
+				{
+					Element.maxExecCount = execCount;
+				}
 			}
 		}
 		// END KGU#225 2016-07-28
 	}
 	
+	/**
+	 * Adds the given consumed time and allocated memory of an execution of this element
+	 * (including its substructure) to the profiling data shared with all its clones, provided
+	 * that {@link #E_COLLECTRUNTIMEDATA} is enabled.
+	 * @param _nanos - the consumed wall time in nanoseconds
+	 * @param _bytes - the number of allocated bytes
+	 * @see lu.fisch.structorizer.executor.ExecutionProfiler
+	 */
+	public final void addToExecProfile(long _nanos, long _bytes)
+	{
+		if (Element.E_COLLECTRUNTIMEDATA)
+		{
+			synchronized (Element.execCounts)
+			{
+				this.makeExecutionCount();
+				long[] profile = Element.execProfiles.get(this.execCountIndex);
+				profile[0] += _nanos;
+				profile[1] += _bytes;
+				Element.maxExecTime = Math.max(profile[0], Element.maxExecTime);
+				Element.maxExecAlloc = Math.max(profile[1], Element.maxExecAlloc);
+			}
+		}
+	}
+	
+	/**
+	 * @return the wall time in nanoseconds consumed by this element (and all its clones) including
+	 * its substructure, as far as collected by the profiler
+	 */
+	public long getExecTime()
+	{
+		return getExecProfileValue(0);
+	}
+	
+	/**
+	 * @return the number of bytes allocated during the execution of this element (and all its clones)
+	 * including its substructure, as far as collected by the profiler
+	 */
+	public long getExecAlloc()
+	{
+		return getExecProfileValue(1);
+	}
+	
+	private long getExecProfileValue(int _index)
+	{
+		long value = 0;
+		synchronized (Element.execCounts)
+		{
+			if (this.execCountIndex >= 0 && this.execCountIndex < Element.execProfiles.size())
+			{
+				value = Element.execProfiles.get(this.execCountIndex)[_index];
+			}
+		}
+		return value;
+	}
+	
 	/**
 	 * Updates the own or substructure instruction counter by adding the {@code _growth} value.
 	 * @param _growth - the amount by which the counter is to be increased
@@ -1505,20 +1622,23 @@ public abstract class Element {
 	{
 		if (Element.E_COLLECTRUNTIMEDATA)
 		{
-			if (_directly)
+			synchronized (Element.execCounts)
 			{
-				this.execStepCount += _growth;
-				if (this.execStepCount > Element.maxExecStepCount)
+				if (_directly)
 				{
-					Element.maxExecStepCount = this.execStepCount;
+					this.execStepCount += _growth;
+					if (this.execStepCount > Element.maxExecStepCount)
+					{
+						Element.maxExecStepCount = this.execStepCount;
+					}
+				}
+				else
+				{
+					this.execSubCount += _growth;
+					Element.maxExecTotalCount = 
+							Math.max(this.getExecStepCount(true),
+									Element.maxExecTotalCount);			
 				}
-			}
-			else
-			{
-				this.execSubCount += _growth;
-				Element.maxExecTotalCount = 
-						Math.max(this.getExecStepCount(true),
-								Element.maxExecTotalCount);			
 			}
 		}
 	}
@@ -1701,6 +1821,12 @@ public abstract class Element {
 			maxValue = Element.maxExecCount;
 			value = this.getExecCount();
 			break;
+		case EXECTIME_LOG:
+		case ALLOCATION_LOG:
+			logarithmic = true;
+		case EXECTIME_LIN:
+		case ALLOCATION_LIN:
+			return getScaleColorForProfile(logarithmic);
 		case EXECSTEPS_LOG:
 			logarithmic = true;
 		case EXECSTEPS_LIN:
@@ -1735,6 +1861,29 @@ public abstract class Element {
 		return getScaleColor(value, maxValue);
 	}
 	
+	/**
+	 * Returns the heat map colour for the profiling data (consumed time or allocated memory,
+	 * depending on {@link #E_RUNTIMEDATAPRESENTMODE}) of this element.
+	 * @param _logarithmic - whether the values are to be scaled logarithmically
+	 * @return the corresponding spectral colour
+	 */
+	protected final Color getScaleColorForProfile(boolean _logarithmic)
+	{
+		boolean allocation = Element.E_RUNTIMEDATAPRESENTMODE == RuntimeDataPresentMode.ALLOCATION_LIN
+				|| Element.E_RUNTIMEDATAPRESENTMODE == RuntimeDataPresentMode.ALLOCATION_LOG;
+		long maxValue = allocation ? Element.maxExecAlloc : Element.maxExecTime;
+		long value = allocation ? this.getExecAlloc() : this.getExecTime();
+		if (maxValue <= 0) {
+			return getScaleColor(0, 0);
+		}
+		if (_logarithmic) {
+			return getScaleColor(value > 0 ? (int) Math.round(25 * Math.log(value)) : 0,
+					(int) Math.round(25 * Math.log(maxValue)));
+		}
+		// The long values are mapped to a range of 1000 steps
+		return getScaleColor((int) (value * 1000.0 / maxValue), 1000);
+	}
+	
 	/**
 	 * Converts the value in the range 0 ... maxValue in the a colour
 	 * from deep blue to hot red.
@@ -1985,6 +2134,7 @@ public abstract class Element {
 		else if (this.execCountIndex >= 0)
 		{
 			Element.execCounts.set(this.execCountIndex, 0);
+			Element.execProfiles.set(this.execCountIndex, new long[2]);
 		}
 		// END KGU#225 2016-07-28
 		// END KGU#156 2016-03-11
@@ -2257,7 +2407,7 @@ public abstract class Element {
 			sl.setCommaText(ini.getProperty("Case","\"(?)\",\"!\",\"!\",\"default\""));
 			preCase=sl.getText();
 			// START KGU#401 2017-05-18: Issue #405 - allow to reduce CASE width by branch element rotation
-			caseShrinkByRot = Integer.parseInt(ini.getProperty("CaseShrinkRot", "8"));
+			caseShrinkByRot = ini.getIntProperty("CaseShrinkRot", 8);
 			// END KGU#401 2017-05-18
 			preFor=ini.getProperty("For","for ? <- ? to ?");
 			preWhile=ini.getProperty("While","while (?)");
@@ -2342,7 +2492,7 @@ public abstract class Element {
 			}
 			// END KGU#245 2018-07-02
 
-			ini.save();
+			ini.requestSave();
 		}
 		catch (Exception e)
 		{
@@ -3055,6 +3205,7 @@ public abstract class Element {
 	public static String identifyExprType(HashMap<String, TypeMapEntry> typeMap, String expr, boolean canonicalizeTypeNames)
 	{
 		String typeSpec = "";	// This means no info
+		Matcher recordMatcher = null;
 		// 1. Check whether it's a known typed variable
 		TypeMapEntry typeEntry = null;
 		if (typeMap != null) {
@@ -3077,8 +3228,8 @@ public abstract class Element {
 			typeSpec = "String";
 		}
 		// START KGU#388 2017-09-12: Enh. #423: Record initializer support (name-prefixed!)
-		else if ((RECORD_MATCHER.reset(expr)).matches() && typeMap != null){
-			typeSpec = RECORD_MATCHER.group(1);
+		else if ((recordMatcher = RECORD_PATTERN.matcher(expr)).matches() && typeMap != null){
+			typeSpec = recordMatcher.group(1);
 			if (!typeMap.containsKey(":" + typeSpec)) {
 				// It's hardly a valid prefixed record initializer...
 				typeSpec = "";
@@ -3447,7 +3598,8 @@ public abstract class Element {
 			FontMetrics fm = _canvas.getFontMetrics(smallFont);
 			// backup the original font
 			Font backupFont = _canvas.getFont();
-			String info = this.getRuntimeInfoString();
+			String info = Element.E_RUNTIMEDATAPRESENTMODE.isProfileMode()
+					? this.getProfileInfoString() : this.getRuntimeInfoString();
 			int yOffs = fm.getHeight() + (this.isBreakpoint() ? 4 : 0); 
 			_canvas.setFont(smallFont);
 			int width = _canvas.stringWidth(info);
@@ -3477,6 +3629,22 @@ public abstract class Element {
 	{
 		return this.getExecCount() + " / " + this.getExecStepCount(this.isCollapsed(true));
 	}
+	
+	/**
+	 * Returns a runtime info string for the profiling modes, composed from execution
+	 * count and the consumed time or allocated memory (including the substructure).
+	 * @return the decoration string for profiling data visualisation
+	 */
+	protected String getProfileInfoString()
+	{
+		switch (Element.E_RUNTIMEDATAPRESENTMODE) {
+		case ALLOCATION_LIN:
+		case ALLOCATION_LOG:
+			return this.getExecCount() + " / " + ExecutionProfiler.formatBytes(this.getExecAlloc());
+		default:
+			return this.getExecCount() + " / " + ExecutionProfiler.formatNanos(this.getExecTime());
+		}
+	}
 	// END KGU#156 2016-03-11
 	
     /**
@@ -3814,14 +3982,58 @@ public abstract class Element {
 	protected final String refactorLine(String _line, HashMap<String, StringList> _splitOldKeys, String[] _prefNames, boolean _ignoreCase)
 	{
 		StringList tokens = Element.splitLexically(_line, true);
-		boolean isModified = false;
-		// FIXME: We should order the keys by decreasing length first!
-		for (int i = 0; i < _prefNames.length; i++)
+		// All relevant old keywords are sought in a single pass, longer ones taking precedence
+		TokenSequenceMatcher matcher = getRefactoringMatcher(_splitOldKeys, _ignoreCase);
+		StringList result = matcher.replaceAll(tokens, matcher.maskFor(_prefNames));
+		if (result != tokens)
+		{
+			_line = result.concatenate().trim();
+		}
+		return _line;
+	}
+
+	/** Cached matcher for refactorLine(), see {@link #getRefactoringMatcher(HashMap, boolean)} */
+	private static volatile RefactoringMatcher refactoringMatcher = null;
+
+	/** Immutable association of a refactoring matcher with the conditions it was built for */
+	private static final class RefactoringMatcher {
+		final HashMap<String, StringList> splitOldKeys;
+		final TokenSequenceMatcher currentKeys;
+		final TokenSequenceMatcher matcher;
+		RefactoringMatcher(HashMap<String, StringList> _splitOldKeys, TokenSequenceMatcher _currentKeys, TokenSequenceMatcher _matcher)
+		{
+			splitOldKeys = _splitOldKeys;
+			currentKeys = _currentKeys;
+			matcher = _matcher;
+		}
+	}
+
+	/**
+	 * Provides a matcher replacing the old keyword token sequences from _splitOldKeys (tagged
+	 * with the parser preference names) by the respective current parser preferences. The
+	 * matcher is cached as long as the same map is passed in and the current keywords don't
+	 * change, such that refactoring of an entire diagram builds it only once.
+	 * @param _splitOldKeys - a map of tokenized former non-empty parser preference keywords to be replaced
+	 * @param _ignoreCase - whether case is to be ignored on comparison
+	 * @return the matcher
+	 */
+	private static TokenSequenceMatcher getRefactoringMatcher(HashMap<String, StringList> _splitOldKeys, boolean _ignoreCase)
+	{
+		TokenSequenceMatcher currentKeys = CodeParser.getKeywordMatcher();
+		RefactoringMatcher cached = refactoringMatcher;
+		if (cached != null && cached.splitOldKeys == _splitOldKeys && cached.currentKeys == currentKeys
+				&& cached.matcher.isIgnoringCase() == _ignoreCase)
+		{
+			return cached.matcher;
+		}
+		TokenSequenceMatcher matcher = new TokenSequenceMatcher(_ignoreCase);
+		// Register in the canonical order of the parser preferences (decides among equal keys)
+		for (String prefName: CodeParser.keywordSet())
 		{
-			StringList splitKey = _splitOldKeys.get(_prefNames[i]);
-			if (splitKey != null)
+			StringList splitKey = _splitOldKeys.get(prefName);
+			if (splitKey != null && splitKey.count() > 0)
 			{
-				String subst = CodeParser.getKeyword(_prefNames[i]);
+				String subst = CodeParser.getKeyword(prefName);
 				// line shouldn't be inflated ...
 				if (!splitKey.get(0).equals(" ")) {
 					while (subst.startsWith(" ")) subst = subst.substring(1); 
@@ -3836,26 +4048,11 @@ public abstract class Element {
 				if (splitKey.count() > 1 && splitKey.get(splitKey.count()-1).equals(" ") && !subst.endsWith(" ")) {
 					subst += " ";
 				}
-				// Now seek old keyword and replace it where found
-				int pos = -1;
-				while ((pos = tokens.indexOf(splitKey, pos+1, !_ignoreCase)) >= 0)
-				{
-					// Replace the first part of the saved keyword by the entire current keyword... 
-					tokens.set(pos, subst);
-					// ... and remove the remaining parts of the saved key
-					for (int j = 1; j < splitKey.count(); j++)
-					{
-						tokens.delete(pos+1);
-					}
-					isModified = true;
-				}
+				matcher.addPattern(prefName, splitKey, subst);
 			}
 		}
-		if (isModified)
-		{
-			_line = tokens.concatenate().trim();
-		}
-		return _line;
+		refactoringMatcher = new RefactoringMatcher(_splitOldKeys, currentKeys, matcher);
+		return matcher;
 	}
 	// END KGU#258 2016-09-25
 
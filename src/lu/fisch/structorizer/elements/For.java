@@ -65,6 +65,7 @@ package lu.fisch.structorizer.elements;
  *      Kay Gürtzig     2018.04.04      Issue #529: Critical section in prepareDraw() reduced.
  *      Kay Gürtzig     2018.07.12      Separator bug in For(String,String,String,int) fixed.
  *      Kay Gürtzig     2018.10.26      Enh. #619: Method getMaxLineLength() implemented
+ *      agent           2026.10.19      Cached loop descriptor (getLoopDescriptor()) for the Executor
  *
  ******************************************************************************************************
  *
@@ -137,6 +138,64 @@ public class For extends Element implements ILoop {
 	public ForLoopStyle style = ForLoopStyle.FREETEXT;
 	// END KGU#61 2016-03-20
 	
+	/**
+	 * Immutable snapshot of the loop parameters as derived from the header (see
+	 * {@link For#getLoopDescriptor()}), such that repeated executions of the loop
+	 * needn't split the FOR clause again.
+	 */
+	public static final class LoopDescriptor {
+		/** The style of the loop the descriptor was made for */
+		public final ForLoopStyle style;
+		/** Name of the counter (or iteration) variable */
+		public final String counterVar;
+		/** Start value expression (counting loops) */
+		public final String startValue;
+		/** End value expression (counting loops) */
+		public final String endValue;
+		/** The constant increment (counting loops) */
+		public final int stepConst;
+		/** The value list expression (traversing loops), may be null */
+		public final String valueList;
+		/** Whether {@link #counterVar} is a plain identifier (i.e. neither indexed nor qualified) */
+		public final boolean isSimpleCounter;
+		// Validity criteria
+		private final String text;
+		private final Object keywordState;
+
+		private LoopDescriptor(For _for, String _text, Object _keywordState)
+		{
+			text = _text;
+			keywordState = _keywordState;
+			style = _for.style;
+			if (style == ForLoopStyle.FREETEXT) {
+				String[] forParts = _for.splitForClause();
+				counterVar = forParts[0];
+				startValue = forParts[1];
+				endValue = forParts[2];
+				valueList = forParts[5];
+				// There is no step in a FOR-IN loop
+				stepConst = valueList != null ? 1 : Integer.valueOf(forParts[3]);
+			}
+			else if (style == ForLoopStyle.COUNTER) {
+				counterVar = _for.counterVar;
+				startValue = _for.startValue;
+				endValue = _for.endValue;
+				stepConst = _for.stepConst;
+				valueList = null;
+			}
+			else {
+				counterVar = _for.counterVar;
+				startValue = null;
+				endValue = null;
+				stepConst = 1;
+				valueList = _for.getValueList();
+			}
+			isSimpleCounter = Function.testIdentifier(counterVar, null);
+		}
+	}
+	/** Cached loop descriptor (null or possibly outdated), see {@link #getLoopDescriptor()} */
+	private LoopDescriptor loopDescriptor = null;
+	
 	/**
 	 * Standard constructor producing an empty element.
 	 */
@@ -594,6 +653,23 @@ public class For extends Element implements ILoop {
 	}
 	// END KGU#61 2016-03-22
 	
+	/**
+	 * Returns the loop parameters (counter variable, start and end value, step, value list)
+	 * as an immutable descriptor. The descriptor is cached and only rebuilt if the header
+	 * text, the loop style, the structured parameter fields, or the parser keywords changed.
+	 * @return the current loop descriptor
+	 */
+	public LoopDescriptor getLoopDescriptor()
+	{
+		String text = this.getUnbrokenText().getLongString();
+		Object keywordState = CodeParser.getKeywordMatcher();
+		LoopDescriptor desc = this.loopDescriptor;
+		if (desc == null || desc.style != this.style || desc.keywordState != keywordState || !desc.text.equals(text)) {
+			this.loopDescriptor = desc = new LoopDescriptor(this, text, keywordState);
+		}
+		return desc;
+	}
+
 	// START KGU 2017-04-14
 	/**
 	 * Tries to identify  the string representing the set or list of values to be traversed (For-In style)
@@ -637,6 +713,7 @@ public class For extends Element implements ILoop {
 	 */
 	public void setCounterVar(String counterVar) {
 		this.counterVar = counterVar;
+		this.loopDescriptor = null;
 	}
 
 	/**
@@ -644,6 +721,7 @@ public class For extends Element implements ILoop {
 	 */
 	public void setStartValue(String startValue) {
 		this.startValue = startValue;
+		this.loopDescriptor = null;
 	}
 
 	/**
@@ -651,6 +729,7 @@ public class For extends Element implements ILoop {
 	 */
 	public void setEndValue(String endValue) {
 		this.endValue = endValue;
+		this.loopDescriptor = null;
 	}
 
 	/**
@@ -658,6 +737,7 @@ public class For extends Element implements ILoop {
 	 */
 	public void setStepConst(int stepConst) {
 		this.stepConst = stepConst;
+		this.loopDescriptor = null;
 	}
 
 	public void setStepConst(String stepConst) {
@@ -673,6 +753,7 @@ public class For extends Element implements ILoop {
 			}
 			catch (Exception ex) {}
 		}
+		this.loopDescriptor = null;
 	}
 	// END KGU#3 2015-10-24
 
@@ -682,6 +763,7 @@ public class For extends Element implements ILoop {
 	 */
 	public void setValueList(String valueList) {
 		this.valueList = valueList;
+		this.loopDescriptor = null;
 		// START KGU#453 2017-11-02: Issue #447 - consider line continuation backslashes
 		//if (this.getText().getLongString().trim().equals(this.composeForInClause()))
 		if (this.getUnbrokenText().getLongString().trim().equals(this.composeForInClause()))
@@ -65,6 +65,8 @@ package lu.fisch.structorizer.elements;
  *      Kay Gürtzig     2018.07.12      Bugfix #557: potential endless loop in isDeclaration(String)
  *      Bob Fisch       2018.09.08      Issue #508: Reducing top padding from E_PADDING/2 to E_PADDING/3
  *      Kay Gürtzig     2018.09.11      Issue #508: Font height retrieval concentrated to one method on Element
+ *      agent           2026.10.19      getScaleColorForRTDPM() delegates the profiling modes to Element
+ *      agent           2026.10.19      addToExecTotalCount() synchronized like in Element (Parallel branch threads)
  *
  ******************************************************************************************************
  *
@@ -1295,6 +1297,12 @@ public class Instruction extends Element {
 			maxValue = Element.maxExecCount;
 			value = this.getMinExecCount();
 			break;
+		case EXECTIME_LOG:
+		case ALLOCATION_LOG:
+			logarithmic = true;
+		case EXECTIME_LIN:
+		case ALLOCATION_LIN:
+			return getScaleColorForProfile(logarithmic);
 		case EXECSTEPS_LOG:
 			logarithmic = true;
 		case EXECSTEPS_LIN:
@@ -1340,10 +1348,13 @@ public class Instruction extends Element {
 		{
 			if (!_directly && this.eclipsesDeclarations(true))
 			{
-				this.execSubCount += _growth;
-				Element.maxExecStepsEclCount = 
-						Math.max(this.execStepCount + this.execSubCount,
-								Element.maxExecStepsEclCount);			
+				synchronized (Element.execCounts)
+				{
+					this.execSubCount += _growth;
+					Element.maxExecStepsEclCount = 
+							Math.max(this.execStepCount + this.execSubCount,
+									Element.maxExecStepsEclCount);			
+				}
 			}
 			else {
 				super.addToExecTotalCount(_growth, _directly);
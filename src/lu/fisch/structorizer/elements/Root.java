@@ -138,6 +138,15 @@ package lu.fisch.structorizer.elements;
  *      Kay Gürtzig     2018-12-19      Bugfix #652: Drawing preparation and actual drawing were inconsistent
  *                                      w.r.t. the "Included Diagrams" box, such that ugly discrepancies appeared.
  *      Kay Gürtzig     2018-12-26      Method collectCalls(Element) moved hitherto from class Generator
+ *      agent           2026-10-19      Keyword unification in getVarNames() and getUsedVarNames() via
+ *                                      the precompiled keyword matcher of CodeParser
+ *      agent           2026-10-19      fetchAuthorDates(ZipEntry, File) for diagrams read directly from arrz
+ *                                      files, getPath(true) also resolves virtual paths without shadow file
+ *      agent           2026-10-19      drawBuffered() uses a reusable BackBuffer over the dirty region, no System.gc()
+ *      agent           2026-10-19      Layout validated against the global layout epoch; updater notifications
+ *                                      from draw() coalesced on the event queue
+ *      agent           2026-10-19      Modification counter (getModificationCount()) for external caches
+ *      agent           2026-10-19      drawBuffered() releases the BackBuffer after large regions
  *      
  ******************************************************************************************************
  *
@@ -172,6 +181,7 @@ import java.util.Hashtable;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -186,9 +196,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileOwnerAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.awt.Color;
+import java.awt.EventQueue;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -266,6 +279,8 @@ public class Root extends Element {
 	private boolean hasChanged = false;		// Now only for global, not undoable changes
 	private int undoLevelOfLastSave = 0;	// Undo stack level recorded on saving
 	// END KGU#137 2016-01-11
+	/** Incremented on every registered modification (undo entry, undo, redo, global change) */
+	private int modificationCount = 0;
 	//public boolean highlightVars = false;
 	// START KGU#2 (#9) 2015-11-13:
 	/** Executor: Is this routine currently waiting for a called subroutine? */
@@ -284,6 +299,11 @@ public class Root extends Element {
 
 	public int height = 0;
 	public int width = 0;
+
+	/** Offscreen buffer for {@link #drawBuffered(Canvas, Rect)}, shared by all diagrams */
+	private static final BackBuffer backBuffer = new BackBuffer();
+	/** Buffer size (in device pixels) beyond which {@link #backBuffer} is released after use */
+	private static final long BACK_BUFFER_KEEP_PIXELS = 4L * 1024 * 1024;
 	
 	// START KGU#136 2016-03-01: Bugfix #97 - sensibly, we cache the subqueue extensions
 	private Point pt0Sub = new Point(0,0);
@@ -546,6 +566,41 @@ public class Root extends Element {
 	}
 	// END KGU#363 2017-05-21
 
+	/**
+	 * Initializes the author attributes from the entry data of the arrz file member this
+	 * diagram is going to be read from (analogous to {@link #fetchAuthorDates(File, File)},
+	 * i.e. before {@link #fetchAuthorDates(Attributes)} is called).
+	 * @param _entry - the zip entry of the NSD file within {@code _arrzFile}
+	 * @param _arrzFile - the arrz file containing the entry
+	 * @see #fetchAuthorDates(Attributes)
+	 */
+	public void fetchAuthorDates(ZipEntry _entry, File _arrzFile) {
+		this.created = null;
+		this.author = "???";
+		this.licenseName = null;
+		long modTime = _entry.getTime();
+		if (modTime > 0) {
+			this.modified = new Date(modTime);
+		}
+		try {
+			Path ownerPath = _arrzFile.toPath();
+			// The creation time of the arrz file is more sensible than that of the entry
+			long createTime = Files.readAttributes(ownerPath, BasicFileAttributes.class).creationTime().toMillis();
+			FileTime entryCreateTime = _entry.getCreationTime();
+			if (entryCreateTime != null && entryCreateTime.toMillis() > 0) {
+				createTime = entryCreateTime.toMillis();
+			}
+			FileOwnerAttributeView view = Files.getFileAttributeView(ownerPath, FileOwnerAttributeView.class);
+			if (createTime > 0 && (this.modified == null || createTime < modTime)) {
+				this.created = new Date(createTime);
+				this.author = view.getOwner().getName();
+			}
+			else {
+				this.modifiedby = view.getOwner().getName();
+			}
+		} catch (IOException e) {}
+	}
+
 	/**
 	 * Names of variables defined within this diagram (may be null after changes!)
 	 * @see #getVariables()
@@ -586,8 +641,6 @@ public class Root extends Element {
 	// END KGU#502 2018-03-12
 	// END KGU#261 2017-01-19
 	// START KGU#163 2016-03-25: Added to solve the complete detection of unknown/uninitialised identifiers
-	// Pre-processed parser preference keywords to match them against tokenized strings
-	private static Vector<StringList> splitKeywords = new Vector<StringList>();
 	private String[] operatorsAndLiterals = {"false", "true", "div"};
 	// END KGU#163 2016-03-25
 
@@ -753,6 +806,11 @@ public class Root extends Element {
 	// END KGU#239 2017-04-11
 
 	private Vector<Updater> updaters = new Vector<Updater>();
+	/** Updaters to be notified of the latest drawing(s), collected until the next flush on the event queue */
+	private final LinkedHashSet<Updater> pendingUpdaters = new LinkedHashSet<Updater>();
+	private boolean isUpdateScheduled = false;
+	/** The global layout epoch the cached layout is based on (see {@link Element#invalidateLayouts()}) */
+	private int layoutEpoch = -1;
 
 	// KGU#91 2015-12-04: No longer needed
 	//private boolean switchTextAndComments = false;
@@ -845,6 +903,7 @@ public class Root extends Element {
     public void setChanged(boolean setModifiedAttrs)
     {
     	this.hasChanged = true;
+    	this.modificationCount++;
     	// START KGU#363 2017-03-10: Enh. #372, KGU#363 2018-09-12 made dependent on argument
     	if (setModifiedAttrs) {
     		// END KGU#363 2018-09-12
@@ -869,6 +928,18 @@ public class Root extends Element {
     }
     // END KGU#137 2016-01-11
 
+    /**
+     * Returns a counter incremented on every modification registered via {@link #addUndo()},
+     * {@link #undo()}, {@link #redo()}, or {@link #setChanged(boolean)}, i.e. independent of
+     * whether the diagram is ever drawn. Allows external caches (e.g. a search index) to
+     * detect that data derived from this diagram may be outdated.
+     * @return the current modification count
+     */
+    public int getModificationCount()
+    {
+    	return this.modificationCount;
+    }
+
 	// START KGU 2015-10-13: This follows a code snippet found in Root.draw(Canvas, Rect), which had been ineffective though
 	@Override
 	public Color getColor()
@@ -903,7 +974,7 @@ public class Root extends Element {
 	public Rect prepareDraw(Canvas _canvas)
 	{
 		// START KGU#136 2016-03-01: Bugfix #97 (prepared)
-		if (this.isRectUpToDate) return rect0.copy();
+		if (this.isLayoutUpToDate()) return rect0.copy();
 		// START KGU#516 2018-04-04: Directly to work on field rect0 was not so good an idea for re-entrance
 		//pt0Sub.x = 0;
 		// END KGU#516 2018-04-04
@@ -1002,24 +1073,38 @@ public class Root extends Element {
 		return rect0.copy();
 	}
 
+	/**
+	 * Draws the diagram via an offscreen buffer onto {@code _canvas}. Only the part within
+	 * the clip bounds of the canvas (i.e. the dirty region when called from a paint method)
+	 * is drawn. The buffer is shared among all diagrams and reused across calls (unless it grew
+	 * beyond {@link #BACK_BUFFER_KEEP_PIXELS}), so this must only be called on the event dispatch
+	 * thread.<br/>
+	 * NOTE: There is currently no caller - the GUI components draw via {@link #draw(Graphics, Point,
+	 * Updater, DrawingContext)} and rely on the double buffering of Swing.
+	 * @param _canvas - the target canvas
+	 * @param _top_left - the diagram bounds as obtained from {@link #prepareDraw(Canvas)}
+	 */
 	public void drawBuffered(Canvas _canvas, Rect _top_left)
 	{
-		// save reference to output canvas
-		Canvas origCanvas = _canvas;
-		// create a new image (buffer) to draw on
-		BufferedImage bufferImg = new BufferedImage(_top_left.right+1, _top_left.bottom+1, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D bufferGraphics = (Graphics2D) bufferImg.getGraphics();
-		_canvas = new Canvas(bufferGraphics);
-
-
-		draw(_canvas, _top_left);
-
-		// draw buffer to output canvas
-		origCanvas.draw(bufferImg,0,0);
-
-		// free up the buffer and clean memory
-		bufferImg = null;
-		System.gc();
+		Graphics2D target = _canvas.getGraphics();
+		java.awt.Rectangle region = new java.awt.Rectangle(0, 0, _top_left.right+1, _top_left.bottom+1);
+		java.awt.Rectangle clip = target.getClipBounds();
+		if (clip != null) {
+			region = region.intersection(clip);
+		}
+		if (region.isEmpty()) {
+			return;
+		}
+		Graphics2D bufferGraphics = backBuffer.begin(target, region);
+		try {
+			draw(new Canvas(bufferGraphics), _top_left);
+		}
+		finally {
+			backBuffer.end(target, bufferGraphics);
+			if (backBuffer.getPixelCount() > BACK_BUFFER_KEEP_PIXELS) {
+				backBuffer.release();
+			}
+		}
 	}
 
 	public void draw(Canvas _canvas, Rect _top_left)
@@ -1553,6 +1638,8 @@ public class Root extends Element {
 
     public Rect prepareDraw(Graphics _g)
     {
+        // Avoid the Canvas creation if the layout is cached
+        if (this.isLayoutUpToDate()) return rect0.copy();
         Canvas canvas = new Canvas((Graphics2D) _g);
         canvas.setFont(Element.getFont()); //?
         return this.prepareDraw(canvas);
@@ -1591,14 +1678,8 @@ public class Root extends Element {
             }
         ).start();/**/
 
-        // inform updaters
-        for (int u = 0; u < updaters.size(); u++)
-        {
-            if (updaters.get(u) != _prohibitedUpdater)
-            {
-                updaters.get(u).update(this);
-            }
-        }
+        // inform updaters (once for all drawings up to the next event queue turn)
+        scheduleUpdaterNotification(_prohibitedUpdater);
 
         Canvas canvas = new Canvas((Graphics2D) _g);
         canvas.setFont(Element.getFont()); //?
@@ -1612,6 +1693,62 @@ public class Root extends Element {
         return myrect;
     }
 
+    /**
+     * Checks whether the cached layout is valid, i.e. up to date and based on the current
+     * global layout epoch. Otherwise the drawing info of the entire diagram is reset.
+     * @return true if the cached layout ({@link #rect0}) may be used
+     */
+    private boolean isLayoutUpToDate()
+    {
+        int epoch = Element.getLayoutEpoch();
+        if (this.layoutEpoch != epoch) {
+            this.resetDrawingInfoDown();
+            this.layoutEpoch = epoch;
+        }
+        return this.isRectUpToDate;
+    }
+
+    /**
+     * Registers the updaters except {@code _prohibitedUpdater} for notification and, unless already
+     * done, schedules the notification on the event queue. Thus several drawings (e.g. a paint in the
+     * editor and a paint in the Arranger) result in a single {@link Updater#update(Root)} call each.
+     * @param _prohibitedUpdater - an updater not to be informed (may be null)
+     */
+    private void scheduleUpdaterNotification(Updater _prohibitedUpdater)
+    {
+        synchronized (pendingUpdaters) {
+            for (int u = 0; u < updaters.size(); u++)
+            {
+                Updater updater = updaters.get(u);
+                if (updater != _prohibitedUpdater)
+                {
+                    pendingUpdaters.add(updater);
+                }
+            }
+            if (pendingUpdaters.isEmpty() || isUpdateScheduled) {
+                return;
+            }
+            isUpdateScheduled = true;
+        }
+        EventQueue.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                Updater[] dueUpdaters;
+                synchronized (pendingUpdaters) {
+                    dueUpdaters = pendingUpdaters.toArray(new Updater[pendingUpdaters.size()]);
+                    pendingUpdaters.clear();
+                    isUpdateScheduled = false;
+                }
+                for (Updater updater: dueUpdaters) {
+                    // The updater may have unregistered meanwhile
+                    if (updaters.contains(updater)) {
+                        updater.update(Root.this);
+                    }
+                }
+            }
+        });
+    }
+
     public Rect draw(Graphics _g, Point _point)
     {
         return draw(_g, _point, null, DrawingContext.DC_STRUCTORIZER);
@@ -1807,6 +1944,7 @@ public class Root extends Element {
 		// END KGU#376 2017-07-01
 		undoList.add(oldChildren);
 		clearRedo();
+		this.modificationCount++;
 		// START KGU#137 2016-01-11: Bugfix #103
 		// If stack was lower than when last saved, then related info is going lost
 		if (undoList.size() <= this.undoLevelOfLastSave)
@@ -1922,6 +2060,7 @@ public class Root extends Element {
             // START KGU#137 2016-01-11: Bugfix #103 - rely on undoList level comparison 
             //this.hasChanged=true;
             // END KGU#137 2016-01-11
+            this.modificationCount++;
             // START KGU#365 2017-03-19: Enh. #380
             if (redoable) {
             // END KGU#365 2017-03-19
@@ -2017,6 +2156,7 @@ public class Root extends Element {
                     // START KGU#137 2016-01-11: Bugfix #103 - rely on undoList level comparison 
                     //this.hasChanged=true;
                     // END KGU#137 2016-01-11
+                    this.modificationCount++;
                     undoList.add((Subqueue)children.copy());
                     // START KGU#120 2016-01-02: Bugfix #85 - park my StringList attributes on the stack top
                     undoList.peek().setText(this.text.copy());
@@ -2205,7 +2345,7 @@ public class Root extends Element {
     	{
     		File f = new File(filename);
     		// START KGU#316 2016-12-28: Enh. #318 Consider unzipped file
-    		if (pathOfOrigin && this.shadowFilepath != null) {
+    		if (pathOfOrigin && (this.shadowFilepath != null || !f.exists())) {
     			while(f != null && !f.isFile()) {
     				f = f.getParentFile();
     			}
@@ -2441,23 +2581,7 @@ public class Root extends Element {
 
 		// Replace all split keywords by the respective configured strings
 		// This replacement will be aware of the case sensitivity preference
-		for (int kw = 0; kw < _keywords.length; kw++)
-		{    				
-			if (_keywords[kw].trim().length() > 0)
-			{
-				StringList keyTokens = splitKeywords.elementAt(kw);
-    			int keyLength = keyTokens.count();
-				int pos = -1;
-				while ((pos = tokens.indexOf(keyTokens, pos + 1, !CodeParser.ignoreCase)) >= 0)
-				{
-					tokens.set(pos, _keywords[kw]);
-					for (int j=1; j < keyLength; j++)
-					{
-						tokens.delete(pos+1);
-					}
-				}
-			}
-		}
+		tokens = CodeParser.getKeywordMatcher().replaceAll(tokens, null);
 		
 		// Unify FOR-IN loops and FOR loops for the purpose of variable analysis
 		if (!CodeParser.getKeyword("postForIn").trim().isEmpty())
@@ -2618,14 +2742,8 @@ public class Root extends Element {
     {
     	StringList varNames = new StringList();
 
-    	// START KGU#163 2016-03-25: Pre-processed match patterns for identifier search
-    	splitKeywords.clear();
-    	String[] keywords = CodeParser.getAllProperties();
-    	for (int k = 0; k < keywords.length; k++)
-    	{
-    		splitKeywords.add(Element.splitLexically(keywords[k], false));
-    	}
-    	// END KGU#163 2016-03-25
+    	// Pre-processed match patterns for identifier search (rebuilt only on keyword changes)
+    	TokenSequenceMatcher keywordMatcher = CodeParser.getKeywordMatcher();
 
     	for(int i=0; i<lines.count(); i++)
     	{
@@ -2646,23 +2764,7 @@ public class Root extends Element {
 
     		// Replace all split keywords by the respective configured strings
     		// This replacement will be aware of the case sensitivity preference
-    		for (int kw = 0; kw < keywords.length; kw++)
-    		{    				
-    			if (keywords[kw].trim().length() > 0)
-    			{
-    				StringList keyTokens = splitKeywords.elementAt(kw);
-    				int keyLength = keyTokens.count();
-    				int pos = -1;
-    				while ((pos = tokens.indexOf(keyTokens, pos + 1, !CodeParser.ignoreCase)) >= 0)
-    				{
-    					tokens.set(pos, keywords[kw]);
-    					for (int j=1; j < keyLength; j++)
-    					{
-    						tokens.delete(pos+1);
-    					}
-    				}
-    			}
-    		}
+    		tokens = keywordMatcher.replaceAll(tokens, null);
 
     		// Unify FOR-IN loops and FOR loops for the purpose of variable analysis
     		if (!CodeParser.getKeyword("postForIn").trim().isEmpty())
@@ -5383,7 +5485,7 @@ public class Root extends Element {
                 ini.setProperty("check" + (i+1), (check(i+1) ? "1" : "0"));
             }
             // END KGU#239 2016-08-12
-            ini.save();
+            ini.requestSave();
         }
         catch (Exception e)
         {
@@ -33,6 +33,7 @@ package lu.fisch.structorizer.elements;
  *      Author          Date			Description
  *      ------			----			-----------
  *      Kay Gürtzig     2016.03.12      First Issue
+ *      agent           2026.10.19      Profiling modes EXECTIME_LIN/LOG, ALLOCATION_LIN/LOG added
  *
  ******************************************************************************************************
  *
@@ -50,7 +51,11 @@ public enum RuntimeDataPresentMode {
 	EXECSTEPS_LIN("done operations, lin."),
 	EXECSTEPS_LOG("done operations, logar."),
 	TOTALSTEPS_LIN("total operations, lin."),
-	TOTALSTEPS_LOG("total operations, logar.");
+	TOTALSTEPS_LOG("total operations, logar."),
+	EXECTIME_LIN("consumed time, lin."),
+	EXECTIME_LOG("consumed time, logar."),
+	ALLOCATION_LIN("allocated memory, lin."),
+	ALLOCATION_LOG("allocated memory, logar.");
 	
 	private String text;
 	private RuntimeDataPresentMode(String _caption)
@@ -65,4 +70,11 @@ public enum RuntimeDataPresentMode {
 	{
 		text = _caption;
 	}
+	/**
+	 * @return true if this mode presents profiling data (time or memory) rather than counts
+	 */
+	public boolean isProfileMode()
+	{
+		return this.compareTo(EXECTIME_LIN) >= 0;
+	}
 }
@@ -66,6 +66,7 @@ package lu.fisch.structorizer.executor;
  *      Kay Gürtzig     2017-10-31      Enh. #439: Internal class ValueEditor outsourced as ValuePresenter
  *      Kay Gürtzig     2018-12-03      Bugfix #641: Display of updated variable values forced
  *      Kay Gürtzig     2018-12-16      Issue #644: New message msgInitializerAsArgument
+ *      agent           2026-10-19      Button btnExportProfile to export the profiling data (CSV, collapsed stacks)
  *
  ******************************************************************************************************
  *
@@ -86,6 +87,11 @@ import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Vector;
@@ -96,12 +102,14 @@ import javax.swing.AbstractCellEditor;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JTable;
 import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 
@@ -213,6 +221,7 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
         txtCallLevel = new javax.swing.JTextField("0");
         txtCallLevel.setEditable(false);
         // END KGU#2 (#9) 2015-11-14
+        btnExportProfile = new javax.swing.JButton("Export profile...");
 
         // START KGU#89/KGU#157 2016-03-18: Bugfix #131 - Prevent interference or take-over
         // These fields are just a translation support for Executor
@@ -331,6 +340,12 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
         });
         // END KGU#159 2016-03-17
 
+        btnExportProfile.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnExportProfileActionPerformed(evt);
+            }
+        });
+
         tblVar.setModel(new javax.swing.table.DefaultTableModel(
             new Object [][] {
 
@@ -524,6 +539,16 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
         gbc.gridx = 1;
         gbc.gridy = 6;
         gbc.gridwidth = GridBagConstraints.REMAINDER;
+        gbc.gridheight = 1;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 0;
+        gbc.weighty = 0;
+        gbl.setConstraints(btnExportProfile, gbc);
+        ctnr.add(btnExportProfile);
+        
+        gbc.gridx = 1;
+        gbc.gridy = 7;
+        gbc.gridwidth = GridBagConstraints.REMAINDER;
         gbc.fill = GridBagConstraints.BOTH;
         gbc.weightx = 0;
         gbc.weighty = 1;
@@ -576,6 +601,7 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
         // START KGU#117 2016-03-06: Enh. #77
         chkCollectRuntimeData.setEnabled(true);
         this.cbRunDataDisplay.setEnabled(chkCollectRuntimeData.isSelected());
+        this.btnExportProfile.setEnabled(chkCollectRuntimeData.isSelected());
         // END KGU#117 2016-03-06
         // empty table
         DefaultTableModel tm = (DefaultTableModel) tblVar.getModel();
@@ -770,6 +796,59 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
     // END KGU#210 2016-07-25
     // END KGU#159 2016-03-17
     
+    /**
+     * Lets the user choose a file and a format (CSV table or collapsed stacks of time or
+     * allocation for flame graph tools) and exports the collected profiling data.
+     */
+    private void btnExportProfileActionPerformed(java.awt.event.ActionEvent evt)
+    {
+    	ExecutionProfiler profiler = Executor.getInstance().getProfiler();
+    	if (profiler.isEmpty()) {
+    		JOptionPane.showMessageDialog(this, msgNoProfileData.getText(),
+    				btnExportProfile.getText(), JOptionPane.INFORMATION_MESSAGE);
+    		return;
+    	}
+    	JFileChooser dlgSave = new JFileChooser(profileDir);
+    	dlgSave.setDialogTitle(btnExportProfile.getText());
+    	FileNameExtensionFilter csvFilter = new FileNameExtensionFilter(lbProfileCSV.getText(), "csv");
+    	FileNameExtensionFilter timeFilter = new FileNameExtensionFilter(lbProfileTimeStacks.getText(), "folded", "txt");
+    	FileNameExtensionFilter allocFilter = new FileNameExtensionFilter(lbProfileAllocStacks.getText(), "folded", "txt");
+    	dlgSave.addChoosableFileFilter(csvFilter);
+    	dlgSave.addChoosableFileFilter(timeFilter);
+    	if (ExecutionProfiler.isAllocationSupported()) {
+    		dlgSave.addChoosableFileFilter(allocFilter);
+    	}
+    	dlgSave.setAcceptAllFileFilterUsed(false);
+    	dlgSave.setFileFilter(csvFilter);
+    	if (dlgSave.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+    		return;
+    	}
+    	FileNameExtensionFilter filter = (FileNameExtensionFilter)dlgSave.getFileFilter();
+    	File file = dlgSave.getSelectedFile();
+    	profileDir = file.getParentFile();
+    	if (!filter.accept(file)) {
+    		file = new File(file.getPath() + "." + filter.getExtensions()[0]);
+    	}
+    	try {
+    		Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    		try {
+    			if (filter == csvFilter) {
+    				profiler.writeCSV(out);
+    			}
+    			else {
+    				profiler.writeCollapsedStacks(out, filter == allocFilter);
+    			}
+    		}
+    		finally {
+    			out.close();
+    		}
+    	}
+    	catch (IOException ex) {
+    		JOptionPane.showMessageDialog(this, ex.getLocalizedMessage(),
+    				msgTitleError.getText(), JOptionPane.ERROR_MESSAGE);
+    	}
+    }
+    
 	// START KGU#443 2017-10-16: Enh. #439 - new pulldown buttons near compound values
 	private void btnPullDownActionPerformed(java.awt.event.ActionEvent evt)
 	{
@@ -928,6 +1007,9 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
     public javax.swing.JLabel lblCallLevel;
     public javax.swing.JTextField txtCallLevel;
     // END KGU#2 (#9) 2015-11-14
+    public javax.swing.JButton btnExportProfile;
+    /** Directory of the most recent profile export */
+    private File profileDir = null;
     // START KGU#442 2017-10-14: Issue #438 - prevent continuation while a cell editor is active
     /** Normative visibility for play and step button (to be restored when cell editor is released) */
     private boolean startButtonsEnabled = true;
@@ -1065,6 +1147,10 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
     public static final LangTextHolder ttlContent = new LangTextHolder("Content");
     public static final LangTextHolder lbCommit = new LangTextHolder("Commit changes");
     public static final LangTextHolder lbDiscard = new LangTextHolder("Discard changes");
+    public static final LangTextHolder lbProfileCSV = new LangTextHolder("Element profile table (CSV)");
+    public static final LangTextHolder lbProfileTimeStacks = new LangTextHolder("Collapsed stacks for flame graphs, time");
+    public static final LangTextHolder lbProfileAllocStacks = new LangTextHolder("Collapsed stacks for flame graphs, memory");
+    public static final LangTextHolder msgNoProfileData = new LangTextHolder("No profiling data collected yet. Execute a diagram with \"Collect Runtime Data\" enabled.");
     // END KGU#443 2017-10-16
     // START KGU#448 2017-10-28: Enh. #443
     public static final LangTextHolder msgFunctionConflict = new LangTextHolder("\nFunction «%1(%2)» of %3 overridden by %4");
@@ -1135,6 +1221,7 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
     		{
     			Element.E_COLLECTRUNTIMEDATA = true;
     			this.cbRunDataDisplay.setEnabled(this.chkCollectRuntimeData.isEnabled());
+    			this.btnExportProfile.setEnabled(true);
     			if (Arranger.hasInstance())
     			{
     				Arranger.getInstance().redraw();
@@ -1146,6 +1233,7 @@ public class Control extends LangFrame implements PropertyChangeListener, ItemLi
     			boolean wipeTestStatus = Element.E_COLLECTRUNTIMEDATA;
     			Element.E_COLLECTRUNTIMEDATA = false;
     			this.cbRunDataDisplay.setEnabled(false);
+    			this.btnExportProfile.setEnabled(false);
     			if (wipeTestStatus) 
     			{
     				Executor.getInstance().clearPoolExecutionStatus();
@@ -37,6 +37,8 @@ package lu.fisch.structorizer.executor;
  *      Kay Gürtzig     2016.12.12      Issue #307: Extended by forLoopVars
  *      Kay Gürtzig     2017.04.21      Enh. #389: Extensions for import calls, conversion into a context cartridge
  *      Kay Gürtzig     2018.03.19      Enh. #389: Renamed in ExecutionContext
+ *      agent           2026.10.19      Field leave moved hitherto from Executor (needed per parallel branch), returned volatile
+ *      agent           2026.10.19      Field lastDeclarationSurrogate moved hitherto from Executor (same reason)
  *
  ******************************************************************************************************
  *
@@ -51,6 +53,7 @@ package lu.fisch.structorizer.executor;
 import java.util.HashMap;
 
 import bsh.Interpreter;
+import lu.fisch.structorizer.elements.Instruction;
 import lu.fisch.structorizer.elements.Root;
 import lu.fisch.structorizer.elements.TypeMapEntry;
 import lu.fisch.utils.StringList;
@@ -90,6 +93,10 @@ public class ExecutionContext {
 	/** The current nesting level of loops */
 	public int loopDepth = 0;
 	// END KGU#78 2015-11-25
+	/** Number of loop levels to unwind (set by leave jumps, formerly held by the Executor) */
+	public int leave = 0;
+	/** The first element of a currently executed mere declaration sequence (formerly held by the Executor) */
+	public Instruction lastDeclarationSurrogate = null;
 	// START KGU#376 2017-04-21: Enh. #389
 	/**
 	 * Lists the names of those Root that have directly or indirectly been imported
@@ -106,7 +113,7 @@ public class ExecutionContext {
 	 * Signals whether a return instruction has been carried out 
 	 * @see #returnedValue
 	 */
-	public boolean returned;
+	public volatile boolean returned;
 	
 	/** Holds the prepared return value (if any) */
 	public Object returnedValue = null;
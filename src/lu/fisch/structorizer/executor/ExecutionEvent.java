@@ -0,0 +1,112 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.executor;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Event published by the Executor thread for the GUI (see ExecutionEventBus)
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026-10-19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      Instances are immutable and therefore may be passed between threads without synchronization.
+ *
+ ******************************************************************************************************///
+
+import java.util.Vector;
+
+import lu.fisch.structorizer.elements.Element;
+
+/**
+ * Immutable notification about a change of the execution state that is to be reflected
+ * in the GUI (diagram, Control panel). Published by the {@link Executor} into an
+ * {@link ExecutionEventBus}.
+ * @author agent
+ */
+public final class ExecutionEvent {
+
+	/** The kinds of execution events */
+	public static enum Kind {
+		/** An element is about to be executed and is to gain the focus */
+		ELEMENT_ENTERED,
+		/** The execution of an element has been finished */
+		ELEMENT_LEFT,
+		/** The execution status of some elements changed (diagram is to be redrawn) */
+		STATUS_CHANGED,
+		/** The variable table (and call level) is to be updated */
+		VARIABLES_CHANGED,
+		/** A breakpoint has been hit at the given element */
+		BREAKPOINT_HIT
+	}
+
+	public final Kind kind;
+	/** The element concerned, may be null */
+	public final Element element;
+	/** The variable table (name/value pairs) for {@link Kind#VARIABLES_CHANGED} events, otherwise null */
+	public final Vector<String[]> variables;
+	/** The call level for {@link Kind#VARIABLES_CHANGED} events */
+	public final int callLevel;
+
+	/**
+	 * Creates an event of the given kind concerning the given element
+	 * @param _kind - the event kind
+	 * @param _element - the element concerned (may be null)
+	 */
+	public ExecutionEvent(Kind _kind, Element _element)
+	{
+		this(_kind, _element, null, 0);
+	}
+
+	/**
+	 * Creates a {@link Kind#VARIABLES_CHANGED} event.
+	 * @param _variables - a snapshot of the variable table (name/value pairs), must not be modified afterwards
+	 * @param _callLevel - the current call level
+	 */
+	public ExecutionEvent(Vector<String[]> _variables, int _callLevel)
+	{
+		this(Kind.VARIABLES_CHANGED, null, _variables, _callLevel);
+	}
+
+	private ExecutionEvent(Kind _kind, Element _element, Vector<String[]> _variables, int _callLevel)
+	{
+		kind = _kind;
+		element = _element;
+		variables = _variables;
+		callLevel = _callLevel;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + "(" + kind + (element != null ? ", " + element : "") + ")";
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.executor;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Lock-free queue decoupling the Executor thread from the GUI
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026-10-19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The Executor thread publishes ExecutionEvents without ever blocking or touching Swing.
+ *      While the bus is started, a Swing Timer drains the queue once per display frame on the
+ *      event dispatch thread and hands the collected batch to the Consumer, which is expected
+ *      to coalesce redundant updates (e.g. a single redraw per frame). Events without element
+ *      and payload (STATUS_CHANGED) are already coalesced on publication: as long as such an
+ *      event is pending, further ones of the same kind are dropped.
+ *
+ ******************************************************************************************************///
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import lu.fisch.structorizer.elements.Element;
+
+/**
+ * Lock-free event queue between the {@link Executor} thread (publisher) and the GUI
+ * (consumer, served on the event dispatch thread at display frame rate).
+ * @author agent
+ */
+public class ExecutionEventBus {
+
+	/** Interval between two event deliveries in ms (25 frames per second) */
+	public static final int FRAME_INTERVAL = 40;
+
+	/**
+	 * Receiver of the event batches, always called on the event dispatch thread
+	 */
+	public static interface Consumer {
+		/**
+		 * Is called with all events published since the previous call (in publication order)
+		 * @param _events - the non-empty list of events
+		 */
+		public void consumeEvents(ArrayList<ExecutionEvent> _events);
+	}
+
+	private final ConcurrentLinkedQueue<ExecutionEvent> queue = new ConcurrentLinkedQueue<ExecutionEvent>();
+	/** Bit set (by {@link ExecutionEvent.Kind} ordinal) of pending events without element and payload */
+	private final AtomicInteger pendingKinds = new AtomicInteger(0);
+	/** Whether a delivery has been scheduled via invokeLater (while the timer is not running) */
+	private final AtomicBoolean deliveryScheduled = new AtomicBoolean(false);
+	private final Consumer consumer;
+	private final Timer timer;
+	private final Runnable delivery = new Runnable() {
+		@Override
+		public void run() {
+			deliveryScheduled.set(false);
+			deliver();
+		}
+	};
+
+	/**
+	 * Creates a new event bus delivering to the given {@code _consumer}
+	 * @param _consumer - the receiver of the event batches
+	 */
+	public ExecutionEventBus(Consumer _consumer)
+	{
+		consumer = _consumer;
+		timer = new Timer(FRAME_INTERVAL, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent evt) {
+				deliver();
+			}
+		});
+		timer.setCoalesce(true);
+	}
+
+	/**
+	 * Starts periodic delivery at display frame rate
+	 */
+	public void start()
+	{
+		timer.start();
+	}
+
+	/**
+	 * Stops periodic delivery. Events still pending (or published afterwards) will be
+	 * delivered as soon as possible.
+	 */
+	public void stop()
+	{
+		timer.stop();
+		scheduleDelivery();
+	}
+
+	/**
+	 * @return true if periodic delivery is active
+	 */
+	public boolean isRunning()
+	{
+		return timer.isRunning();
+	}
+
+	/**
+	 * Enqueues the given event for delivery. Never blocks and may be called from any thread.
+	 * @param _event - the event to be published
+	 */
+	public void publish(ExecutionEvent _event)
+	{
+		if (_event.element == null && _event.variables == null)
+		{
+			int bit = 1 << _event.kind.ordinal();
+			int pending;
+			do {
+				pending = pendingKinds.get();
+				if ((pending & bit) != 0) {
+					return;	// Same event is already waiting
+				}
+			} while (!pendingKinds.compareAndSet(pending, pending | bit));
+		}
+		queue.add(_event);
+		if (!timer.isRunning()) {
+			scheduleDelivery();
+		}
+	}
+
+	/**
+	 * Convenience method to publish an event of the given kind
+	 * @param _kind - the event kind
+	 * @param _element - the element concerned or null
+	 * @see #publish(ExecutionEvent)
+	 */
+	public void publish(ExecutionEvent.Kind _kind, Element _element)
+	{
+		publish(new ExecutionEvent(_kind, _element));
+	}
+
+	private void scheduleDelivery()
+	{
+		if (deliveryScheduled.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(delivery);
+		}
+	}
+
+	/** Drains the queue and hands the batch to the consumer (on the event dispatch thread) */
+	private void deliver()
+	{
+		ArrayList<ExecutionEvent> batch = null;
+		ExecutionEvent event;
+		while ((event = queue.poll()) != null)
+		{
+			if (event.element == null && event.variables == null) {
+				int bit = 1 << event.kind.ordinal();
+				int pending;
+				do {
+					pending = pendingKinds.get();
+				} while (!pendingKinds.compareAndSet(pending, pending & ~bit));
+			}
+			if (batch == null) {
+				batch = new ArrayList<ExecutionEvent>();
+			}
+			batch.add(event);
+		}
+		if (batch != null) {
+			consumer.consumeEvents(batch);
+		}
+	}
+
+}
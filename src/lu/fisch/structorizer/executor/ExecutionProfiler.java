@@ -0,0 +1,501 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Shneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.executor;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Attribution of wall time and allocated memory to the executed elements
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026-10-19      First Issue
+ *      agent           2026-10-19      Stack paths interned as a tree of PathNodes (strings only composed on
+ *                                      export), frame names cached per element id, branch threads of
+ *                                      Parallel elements continue the path of the forking thread
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The Executor calls enter() and leave() around the execution of every element while runtime
+ *      data collection is enabled. Each executing thread keeps a stack of frames; on leave() the
+ *      inclusive wall time and the bytes allocated by the thread (as far as the JVM supports
+ *      com.sun.management.ThreadMXBean) are attributed to the element (for the heat map modes of
+ *      RuntimeDataPresentMode), the self values (inclusive minus children) to the stack path.
+ *      Time spent in idle phases (delay, step mode pauses, input and output dialogs) is reported
+ *      via beginIdle()/endIdle() and subtracted from all open frames of the thread.
+ *      With recursive calls, the inclusive values of an element are only recorded for its outermost
+ *      activation, lest they should be counted several times.
+ *      Since enter() runs within the measuring interval of the parent frame, it must be cheap: the
+ *      stack paths are interned as a tree of PathNode objects (keyed by parent and element id), and
+ *      the frame names (cached per element id) are only composed to path strings on export. A branch
+ *      thread of a Parallel element may be seeded with the path of the forking thread.
+ *      The stack paths can be exported in the "collapsed stacks" format understood by flame graph
+ *      tools (one line "frame;frame;...;frame value" per path), the per-element data as CSV.
+ *
+ ******************************************************************************************************///
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import lu.fisch.structorizer.elements.Element;
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.utils.StringList;
+
+/**
+ * Collects per-element and per-call-stack wall time and allocation data during execution.
+ * @author agent
+ */
+public class ExecutionProfiler {
+
+	/** Maximum length of the element text shown in a frame name */
+	private static final int MAX_FRAME_TEXT = 40;
+
+	/** Column headers of the CSV export */
+	private static final String[] CSV_HEADERS = {
+			"Diagram", "Element", "Id", "Count",
+			"Total time [ns]", "Self time [ns]", "Total allocation [bytes]", "Self allocation [bytes]"
+	};
+
+	/** The bean providing the allocated bytes per thread, null if not supported */
+	private static final com.sun.management.ThreadMXBean ALLOC_BEAN = getAllocationBean();
+
+	/**
+	 * An interned call stack path, identified by the parent path and the id of the last element
+	 * (child lookup and accumulation synchronized on the profiler)
+	 */
+	static final class PathNode {
+		final PathNode parent;
+		/** The (first) element executed at the end of this path, null for the root */
+		final Element element;
+		final HashMap<Long, PathNode> children = new HashMap<Long, PathNode>();
+		long selfNanos = 0;
+		long selfBytes = 0;
+		PathNode(PathNode _parent, Element _element)
+		{
+			parent = _parent;
+			element = _element;
+		}
+	}
+
+	/** An activation of an element on the stack of a thread */
+	private static final class Frame {
+		final Element element;
+		final PathNode path;
+		final boolean outermost;
+		final long startNanos;
+		final long startBytes;
+		final long startIdle;
+		long childNanos = 0;
+		long childBytes = 0;
+		Frame(Element _element, PathNode _path, boolean _outermost, long _startIdle)
+		{
+			element = _element;
+			path = _path;
+			outermost = _outermost;
+			startIdle = _startIdle;
+			startBytes = getAllocatedBytes();
+			startNanos = System.nanoTime();
+		}
+	}
+
+	/** The frame stack and idle time accumulator of an executing thread */
+	private static final class ThreadState {
+		final ArrayList<Frame> frames = new ArrayList<Frame>();
+		/** Numbers of open activations per element id (recursion detection) */
+		final HashMap<Long, Integer> activations = new HashMap<Long, Integer>();
+		/** The path the frames of this thread are appended to (null = the root path) */
+		PathNode basePath = null;
+		long idleNanos = 0;
+		long idleStart = -1;
+	}
+
+	/** Accumulated data of an element (all its clones and activations) */
+	private static final class Entry {
+		final String diagram;
+		final String element;
+		final long id;
+		long count = 0;
+		long totalNanos = 0;
+		long selfNanos = 0;
+		long totalBytes = 0;
+		long selfBytes = 0;
+		Entry(String _diagram, String _element, long _id)
+		{
+			diagram = _diagram;
+			element = _element;
+			id = _id;
+		}
+	}
+
+	private final ThreadLocal<ThreadState> threadStates = new ThreadLocal<ThreadState>() {
+		@Override
+		protected ThreadState initialValue() {
+			return new ThreadState();
+		}
+	};
+
+	/** Root of the tree of stack paths with their self time and allocation (access synchronized on this) */
+	private PathNode rootPath = new PathNode(null, null);
+	/**
+	 * Per-element data by element id in order of first execution, also serving as frame name
+	 * cache (access synchronized on this)
+	 */
+	private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>();
+
+	/**
+	 * @return true if the JVM reports the bytes allocated per thread (otherwise all allocation
+	 * values will be 0)
+	 */
+	public static boolean isAllocationSupported()
+	{
+		return ALLOC_BEAN != null;
+	}
+
+	/**
+	 * Opens a frame for element {@code _element} on the stack of the current thread.
+	 * Must be balanced by {@link #leave(Element)}.
+	 * @param _element - the element about to be executed
+	 */
+	public void enter(Element _element)
+	{
+		ThreadState state = threadStates.get();
+		Long id = _element.getId();
+		Integer active = state.activations.get(id);
+		state.activations.put(id, active == null ? 1 : active + 1);
+		int depth = state.frames.size();
+		PathNode path;
+		synchronized (this) {
+			PathNode parent = depth > 0 ? state.frames.get(depth - 1).path
+					: (state.basePath != null ? state.basePath : rootPath);
+			path = parent.children.get(id);
+			if (path == null) {
+				parent.children.put(id, path = new PathNode(parent, _element));
+			}
+		}
+		state.frames.add(new Frame(_element, path, active == null, state.idleNanos));
+	}
+
+	/**
+	 * @return the stack path of the current thread (to be passed to {@link #setBasePath(PathNode)}
+	 * on a thread forked from here)
+	 */
+	PathNode getCurrentPath()
+	{
+		ThreadState state = threadStates.get();
+		int depth = state.frames.size();
+		return depth > 0 ? state.frames.get(depth - 1).path : state.basePath;
+	}
+
+	/**
+	 * Makes the frames of the current thread continue the stack path {@code _path} (e.g. that
+	 * of the thread having forked the current one).
+	 * @param _path - a path obtained from {@link #getCurrentPath()} or null (root path)
+	 */
+	void setBasePath(PathNode _path)
+	{
+		threadStates.get().basePath = _path;
+	}
+
+	/**
+	 * Closes the top frame of the current thread (which must belong to {@code _element})
+	 * and attributes the measured time and allocation.
+	 * @param _element - the element the execution of which has ended
+	 */
+	public void leave(Element _element)
+	{
+		long now = System.nanoTime();
+		long bytes = getAllocatedBytes();
+		ThreadState state = threadStates.get();
+		int depth = state.frames.size();
+		if (depth == 0 || state.frames.get(depth - 1).element != _element) {
+			// Unbalanced call (e.g. profiling switched on amid execution) - nothing to attribute
+			return;
+		}
+		Frame frame = state.frames.remove(depth - 1);
+		Long id = _element.getId();
+		int active = state.activations.get(id);
+		if (active > 1) {
+			state.activations.put(id, active - 1);
+		}
+		else {
+			state.activations.remove(id);
+		}
+		long nanos = Math.max(0, now - frame.startNanos - (state.idleNanos - frame.startIdle));
+		bytes = Math.max(0, bytes - frame.startBytes);
+		if (depth > 1) {
+			Frame parent = state.frames.get(depth - 2);
+			parent.childNanos += nanos;
+			parent.childBytes += bytes;
+		}
+		long selfNanos = Math.max(0, nanos - frame.childNanos);
+		long selfBytes = Math.max(0, bytes - frame.childBytes);
+		synchronized (this) {
+			frame.path.selfNanos += selfNanos;
+			frame.path.selfBytes += selfBytes;
+			Entry entry = entries.get(id);
+			if (entry == null) {
+				Root root = Element.getRoot(_element);
+				entry = new Entry(root == null ? "" : root.getSignatureString(false),
+						getFrameName(_element), id);
+				entries.put(id, entry);
+			}
+			entry.count++;
+			entry.selfNanos += selfNanos;
+			entry.selfBytes += selfBytes;
+			if (frame.outermost) {
+				entry.totalNanos += nanos;
+				entry.totalBytes += bytes;
+			}
+		}
+		if (frame.outermost) {
+			_element.addToExecProfile(nanos, bytes);
+		}
+	}
+
+	/**
+	 * Marks the beginning of an idle phase of the current thread (waiting for the user
+	 * or a delay), which is not to be attributed to the open frames.
+	 * @see #endIdle()
+	 */
+	public void beginIdle()
+	{
+		ThreadState state = threadStates.get();
+		if (state.idleStart < 0) {
+			state.idleStart = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Marks the end of an idle phase started with {@link #beginIdle()}.
+	 */
+	public void endIdle()
+	{
+		ThreadState state = threadStates.get();
+		if (state.idleStart >= 0) {
+			state.idleNanos += System.nanoTime() - state.idleStart;
+			state.idleStart = -1;
+		}
+	}
+
+	/**
+	 * Discards all collected data (the element-held heat map values are reset via
+	 * {@link Element#resetMaxExecCount()}).
+	 */
+	public synchronized void reset()
+	{
+		rootPath = new PathNode(null, null);
+		entries.clear();
+	}
+
+	/**
+	 * @return true if no data have been collected since the last {@link #reset()}
+	 */
+	public synchronized boolean isEmpty()
+	{
+		return entries.isEmpty();
+	}
+
+	/**
+	 * Writes the collected stack paths in the collapsed stacks format of flame graph tools,
+	 * i.e. one line per path with the semicolon-separated frame names and the self value.
+	 * @param _out - the target writer
+	 * @param _allocation - whether allocated bytes (true) or nanoseconds (false) are to be written
+	 * @throws IOException on write errors
+	 */
+	public void writeCollapsedStacks(Writer _out, boolean _allocation) throws IOException
+	{
+		ArrayList<String> lines = new ArrayList<String>();
+		synchronized (this) {
+			collectStacks(rootPath, "", _allocation, new HashMap<Long, String>(), lines);
+		}
+		Collections.sort(lines);
+		for (String line: lines) {
+			_out.write(line + "\n");
+		}
+		_out.flush();
+	}
+
+	/**
+	 * Recursively composes the collapsed stack lines of the paths below {@code _node} with
+	 * non-zero value (to be called while synchronized on this).
+	 * @param _node - the current path node
+	 * @param _prefix - the composed path of {@code _node} (empty for the root)
+	 * @param _allocation - whether allocated bytes or nanoseconds are to be written
+	 * @param _names - cache of the frame names of elements without {@link Entry} (yet)
+	 * @param _lines - collects the lines
+	 */
+	private void collectStacks(PathNode _node, String _prefix, boolean _allocation,
+			HashMap<Long, String> _names, ArrayList<String> _lines)
+	{
+		for (PathNode child: _node.children.values()) {
+			Long id = child.element.getId();
+			Entry entry = entries.get(id);
+			String name = entry != null ? entry.element : _names.get(id);
+			if (name == null) {
+				_names.put(id, name = getFrameName(child.element));
+			}
+			String path = _prefix.isEmpty() ? name : _prefix + ";" + name;
+			long value = _allocation ? child.selfBytes : child.selfNanos;
+			if (value > 0) {
+				_lines.add(path + " " + value);
+			}
+			collectStacks(child, path, _allocation, _names, _lines);
+		}
+	}
+
+	/**
+	 * Writes the per-element data as CSV table (with header line), ordered by descending
+	 * total time.
+	 * @param _out - the target writer
+	 * @throws IOException on write errors
+	 */
+	public void writeCSV(Writer _out) throws IOException
+	{
+		ArrayList<Entry> rows;
+		synchronized (this) {
+			rows = new ArrayList<Entry>(entries.values());
+		}
+		Collections.sort(rows, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry e1, Entry e2) {
+				return Long.compare(e2.totalNanos, e1.totalNanos);
+			}
+		});
+		_out.write(new StringList(CSV_HEADERS).getCommaText() + "\n");
+		for (Entry entry: rows) {
+			StringList row = new StringList();
+			row.add(entry.diagram);
+			row.add(entry.element);
+			row.add(Long.toString(entry.id));
+			row.add(Long.toString(entry.count));
+			row.add(Long.toString(entry.totalNanos));
+			row.add(Long.toString(entry.selfNanos));
+			row.add(Long.toString(entry.totalBytes));
+			row.add(Long.toString(entry.selfBytes));
+			_out.write(row.getCommaText() + "\n");
+		}
+		_out.flush();
+	}
+
+	/**
+	 * Returns a short human-readable representation of a time span
+	 * @param _nanos - the time span in nanoseconds
+	 * @return e.g. "850 µs" or "1.3 s"
+	 */
+	public static String formatNanos(long _nanos)
+	{
+		if (_nanos < 10000L) {
+			return _nanos + " ns";
+		}
+		else if (_nanos < 10000000L) {
+			return (_nanos / 1000) + " µs";
+		}
+		else if (_nanos < 10000000000L) {
+			return (_nanos / 1000000) + " ms";
+		}
+		return String.format("%.1f s", _nanos / 1e9);
+	}
+
+	/**
+	 * Returns a short human-readable representation of a memory amount
+	 * @param _bytes - the number of bytes
+	 * @return e.g. "512 B" or "12 MiB"
+	 */
+	public static String formatBytes(long _bytes)
+	{
+		if (_bytes < 10240L) {
+			return _bytes + " B";
+		}
+		else if (_bytes < 10485760L) {
+			return (_bytes >> 10) + " KiB";
+		}
+		else if (_bytes < 10737418240L) {
+			return (_bytes >> 20) + " MiB";
+		}
+		return String.format("%.1f GiB", _bytes / (double)(1L << 30));
+	}
+
+	/**
+	 * Composes the frame name for the given element: the signature for diagrams, the element
+	 * type followed by the (shortened) first text line otherwise. Semicolons and line breaks are
+	 * replaced, since they would corrupt the collapsed stacks format.
+	 */
+	private static String getFrameName(Element _element)
+	{
+		String name;
+		if (_element instanceof Root) {
+			name = ((Root)_element).getSignatureString(false);
+		}
+		else {
+			StringList text = _element.getUnbrokenText();
+			String line = text.count() > 0 ? text.get(0).trim() : "";
+			if (line.length() > MAX_FRAME_TEXT) {
+				line = line.substring(0, MAX_FRAME_TEXT - 3) + "...";
+			}
+			name = _element.getClass().getSimpleName();
+			if (!line.isEmpty()) {
+				name += ": " + line;
+			}
+		}
+		return name.replace(';', ',').replaceAll("\\s+", " ");
+	}
+
+	private static long getAllocatedBytes()
+	{
+		if (ALLOC_BEAN != null) {
+			return ALLOC_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	private static com.sun.management.ThreadMXBean getAllocationBean()
+	{
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean allocBean = (com.sun.management.ThreadMXBean)bean;
+				if (allocBean.isThreadAllocatedMemorySupported()) {
+					if (!allocBean.isThreadAllocatedMemoryEnabled()) {
+						allocBean.setThreadAllocatedMemoryEnabled(true);
+					}
+					return allocBean;
+				}
+			}
+		}
+		catch (Throwable ex) {
+			// Not a HotSpot-like JVM or not permitted - allocation data won't be available
+		}
+		return null;
+	}
+
+}
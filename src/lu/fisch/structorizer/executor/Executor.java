@@ -167,6 +167,22 @@ package lu.fisch.structorizer.executor;
  *      Kay Gürtzig     2018-12-12      Bugfix #642: Unreliable splitting of comparison expressions
  *      Kay Gürtzig     2018-12-16      Bugfix #644 in tryAssignment()
  *      Kay Gürtzig     2018-12-17      Bugfix #646 in tryOutput()
+ *      agent           2026-10-19      Parser keywords cut out via the precompiled keyword matcher (cutOutKeywords)
+ *      agent           2026-10-19      DiagramController routines bound once per signature (ControllerRoutine)
+ *      agent           2026-10-19      Subroutine resolution cached per Call element (SubroutineCache)
+ *      agent           2026-10-19      GUI updates published via an ExecutionEventBus instead of direct Swing calls
+ *      agent           2026-10-19      stepFor() based on cached loop descriptors, fast path for the counter update
+ *      agent           2026-10-19      Optional threaded execution of Parallel elements (ParallelBranch), shared
+ *                                      Matchers replaced by Patterns, field leave moved to ExecutionContext
+ *      agent           2026-10-19      Element time and allocation profiling (ExecutionProfiler) while
+ *                                      runtime data are collected, idle phases excluded
+ *      agent           2026-10-19      Arrays of int, long, double, or char values now created as TypedArrayList
+ *                                      (backed by primitive arrays) by initializers, element assignments, and copies
+ *      agent           2026-10-19      Field lastDeclarationSurrogate moved to ExecutionContext (parallel branches)
+ *      agent           2026-10-19      FOR loop bounds cached without string comparison conversion (type-dependent)
+ *      agent           2026-10-19      Subroutine resolutions keyed by call site id (copies for recursive calls
+ *                                      share the entry and aren't retained)
+ *      agent           2026-10-19      FOR loop bounds keyed by element id (same reason)
  *
  ******************************************************************************************************
  *
@@ -329,6 +345,7 @@ import lu.fisch.structorizer.gui.IconLoader;
 import lu.fisch.structorizer.parsers.CodeParser;
 import lu.fisch.utils.BString;
 import lu.fisch.utils.StringList;
+import lu.fisch.utils.TokenSequenceMatcher;
 import bsh.EvalError;
 import bsh.Interpreter;
 
@@ -679,7 +696,7 @@ public class Executor implements Runnable
 			"public ArrayList copyArray(ArrayList sourceArray) {"
 					// START KGU#492 2018-02-11: Bugfix #509 - wrong use of arguments
 					//+ "return new ArrayList(targetArray);"
-					+ "return new ArrayList(sourceArray);"
+					+ "return lu.fisch.structorizer.executor.TypedArrayList.copyOf(sourceArray);"
 					// END KGU#492 2018-02-11
 					+ "}",
 			// END KGU#439 2017-10-13
@@ -811,6 +828,7 @@ public class Executor implements Runnable
 		this.controllerFunctions.clear();
 		this.controllerProcedures.clear();
 		this.controllerFunctionNames.clear();
+		this.controllerRoutines.clear();
 		StringBuilder sb = new StringBuilder();
 		for (int i = 0; i < controllers.length; i++) {
 			DiagramController controller = controllers[i];
@@ -857,6 +875,23 @@ public class Executor implements Runnable
 
 	private Diagram diagram = null;
 	
+	/** Attributes time and memory to the executed elements while runtime data are collected */
+	private final ExecutionProfiler profiler = new ExecutionProfiler();
+
+	/**
+	 * Decouples the execution thread from Swing: redraws, variable display and button
+	 * updates are published here and applied on the event dispatch thread once per frame
+	 * @see #consumeExecutionEvents(ArrayList)
+	 */
+	private final ExecutionEventBus eventBus = new ExecutionEventBus(new ExecutionEventBus.Consumer() {
+		@Override
+		public void consumeEvents(ArrayList<ExecutionEvent> _events) {
+			consumeExecutionEvents(_events);
+		}
+	});
+	/** Whether variable changes have not been published because of delay 0 */
+	private boolean variableDisplayStale = false;
+	
 	// START KGU#376 2017-04-20: Enh. #389 - we need info about all imported Roots
 	/**
 	 * Maps all Roots ever called as import during current execution to their
@@ -874,6 +909,19 @@ public class Executor implements Runnable
 	 */
 	private ExecutionContext context;
 	// END KGU#376 2017-04-20
+	/**
+	 * Returns the execution context of the current thread, i.e. the context of the
+	 * {@link ParallelBranch} if called from a branch worker thread, {@link #context}
+	 * otherwise.
+	 */
+	private ExecutionContext context()
+	{
+		Thread thread = Thread.currentThread();
+		if (thread instanceof ParallelBranch) {
+			return ((ParallelBranch)thread).context;
+		}
+		return context;
+	}
 	// START KGU#2 (#9) 2015-11-13: We need a stack of calling parents
 	private Stack<ExecutionContext> callers = new Stack<ExecutionContext>();
 	//private Object returnedValue = null;	// KGU#384 2017-04-22 -> context
@@ -890,6 +938,25 @@ public class Executor implements Runnable
 	private HashMap<String, DiagramController> controllerProcedures = new HashMap<String, DiagramController>();
 	private Set<String> controllerFunctionNames = new HashSet<String>(); 
 	// END KGU#448 2017-10-28
+	/**
+	 * Controller routines bound on first use, mapped by signature key ({@code <name>#<arity>})
+	 * @see #getControllerRoutine(DiagramController, String, int)
+	 */
+	private final HashMap<String, ControllerRoutine> controllerRoutines = new HashMap<String, ControllerRoutine>();
+	/**
+	 * Subroutines resolved per Call element and signature, discarded whenever one of the
+	 * {@link #routinePools} reports a change of its set of diagrams
+	 * @see #findSubroutineWithSignature(Element, String, int)
+	 */
+	private final SubroutineCache subroutineCache = new SubroutineCache();
+	/**
+	 * Start and end value expressions of counting FOR loops and their conversions, i.e.
+	 * {start, end, converted start, converted end}, mapped by element id (which the copies
+	 * of a diagram made for recursive calls share). String comparisons are not converted
+	 * here, since {@link #convertStringComparison(String)} depends on the current variable values.
+	 * @see #stepFor(For)
+	 */
+	private final HashMap<Long, String[]> forBounds = new HashMap<Long, String[]>();
 	// START KGU#384 2017-04-22: Context redesign -> this.context
 	//private Interpreter interpreter;
 	//private boolean returned = false;
@@ -898,10 +965,16 @@ public class Executor implements Runnable
 	private boolean paus = false;
 	private boolean running = false;
 	private boolean step = false;
-	private boolean stop = false;
+	private volatile boolean stop = false;
+	/**
+	 * Whether the branches of Parallel elements are to be executed on worker threads
+	 * (outside step mode) rather than interleaved in random order.
+	 * @see #setParallelThreadsEnabled(boolean)
+	 */
+	private boolean parallelThreads = Boolean.getBoolean("structorizer.parallelThreads");
 	// START KGU#78 2015-11-25: JUMP enhancement (#35)
 	//private int loopDepth = 0;	// Level of nested loops KGU#384 207-04-22 -> context
-	private int leave = 0;		// Number of loop levels to unwind
+	//private int leave = 0;		// Number of loop levels to unwind	KGU 2026-10-19 -> context
 	// END KGU#78 2015-11-25
 	//private StringList variables = new StringList();	// KGU#384 2017-04-22 -> context
 	// START KGU#375 2017-03-30: Enh. #388 Support the concept of variables
@@ -909,6 +982,7 @@ public class Executor implements Runnable
 	// END KGU#375 2017-03-30
 	// START KGU#2 2015-11-24: It is crucial to know whether an error had been reported on a lower level
 	private boolean isErrorReported = false;
+	/** Call trace; only modified by the main execution thread (threaded Parallel branches never contain calls) */
 	private StringList stackTrace = new StringList();
 	// END KGU#2 2015-11-22
 	// START KGU#157 2016-03-16: Bugfix #131 - Precaution against a reopen attempts by different Structorizer instances
@@ -917,31 +991,27 @@ public class Executor implements Runnable
 	// START KGU 2016-12-18: Enh. #314: Stream table for Simple file API
 	private final Vector<Closeable> openFiles = new Vector<Closeable>();
 	// END KGU 2016-12-18
-	// START KGU#477 2017-12-10: Enh. #487
-	/** The first element of a currently executed mere declaration sequence */
-	private Instruction lastDeclarationSurrogate = null;
-	// END KGU#477 2017-12-10
 	
-	// Constant set of matchers for unicode literals that cause harm in interpreter
-	// (Concurrent execution of the using method is rather unlikely, so we dare to reuse the Matchers) 
-	private static final Matcher[] MTCHs_BAD_UNICODE = new Matcher[]{
-			Pattern.compile("(.*)\\\\u000[aA](.*)").matcher(""),
-			Pattern.compile("(.*?)\\\\u000[dD](.*?)").matcher(""),
-			Pattern.compile("(.*?)\\\\u0022(.*?)").matcher(""),
-			Pattern.compile("(.*?)\\\\u005[cC](.*?)").matcher("")
+	// Constant set of patterns for unicode literals that cause harm in interpreter
+	// (Since Parallel branches may be executed concurrently, shared Matchers are no longer an option)
+	private static final Pattern[] PTRNs_BAD_UNICODE = new Pattern[]{
+			Pattern.compile("(.*)\\\\u000[aA](.*)"),
+			Pattern.compile("(.*?)\\\\u000[dD](.*?)"),
+			Pattern.compile("(.*?)\\\\u0022(.*?)"),
+			Pattern.compile("(.*?)\\\\u005[cC](.*?)")
 	};
-	// Replacement patterns for the unicode literals associated with the matchers above
+	// Replacement patterns for the unicode literals associated with the patterns above
 	private static final String[] RPLCs_BAD_UNICODE = new String[]{
 			"$1\\\\012$2",
 			"$1\\\\015$2",
 			"$1\\\\042$2",
 			"$1\\\\134$2"
 	};
-	/** Matcher for binary integer literals, which the interpreter doesn't cope with */
-	private static final Matcher MTCH_BIN_LITERAL = Pattern.compile("0b[01]+").matcher("");
-	/** Matcher for certain interpreter error messages related to array assignment */
+	/** Pattern for binary integer literals, which the interpreter doesn't cope with */
+	private static final Pattern PTRN_BIN_LITERAL = Pattern.compile("0b[01]+");
+	/** Pattern for certain interpreter error messages related to array assignment */
 	// FIXME: Might have to be adapted with a newer version of the bean shell interpreter some day ...
-	private static final Matcher MTCH_EVAL_ERROR_ARRAY = Pattern.compile(".*Can't assign.*to java\\.lang\\.Object \\[\\].*").matcher("");
+	private static final Pattern PTRN_EVAL_ERROR_ARRAY = Pattern.compile(".*Can't assign.*to java\\.lang\\.Object \\[\\].*");
 	/** Matcher for split function */
 	//private static final Matcher MTCH_SPLIT = Pattern.compile("^split\\(.*?[,].*?\\)$").matcher("");
 	// Replacer Regex objects for syntax conversion - if Regex re-use shouldn't work then we may replace it by java.util.regex stuff
@@ -952,8 +1022,8 @@ public class Executor implements Runnable
 	//private static final Regex RPLC_INC1_PROC = new Regex(BString.breakup("inc")+"[(](.*?)[)](.*?)", "$1 <- $1 + 1");
 	//private static final Regex RPLC_DEC2_PROC = new Regex(BString.breakup("dec")+"[(](.*?)[,](.*?)[)](.*?)", "$1 <- $1 - $2");
 	//private static final Regex RPLC_DEC1_PROC = new Regex(BString.breakup("dec")+"[(](.*?)[)](.*?)", "$1 <- $1 - 1");
-	private static final Matcher DELETE_PROC_MATCHER = java.util.regex.Pattern.compile("delete\\((.*),(.*),(.*)\\)").matcher("");
-	private static final Matcher INSERT_PROC_MATCHER = java.util.regex.Pattern.compile("insert\\((.*),(.*),(.*)\\)").matcher("");
+	private static final Pattern DELETE_PROC_PATTERN = Pattern.compile("delete\\((.*),(.*),(.*)\\)");
+	private static final Pattern INSERT_PROC_PATTERN = Pattern.compile("insert\\((.*),(.*),(.*)\\)");
 	private static final String DELETE_PROC_SUBST = "$1 <- delete($1,$2,$3)";
 	private static final String INSERT_PROC_SUBST = "$2 <- insert($1,$2,$3)";
 	// END KGU#575 2018-09-17
@@ -962,10 +1032,10 @@ public class Executor implements Runnable
 	
 	// START KGU#388 2017-10-29: Enh. #423 This EvalError message indicates that the record qualifier conversion may have overdone  
 	private static final String ERROR423MESSAGE = "Error in method invocation: Method get( java.lang.String ) not found in class";
-	private static final Matcher ERROR423MATCHER = Pattern.compile(".*inline evaluation of: ``(.*?\\.)get\\(\\\"(\\w+)\\\"\\)(.*?)'' : Error in method.*").matcher("");
+	private static final Pattern ERROR423PATTERN = Pattern.compile(".*inline evaluation of: ``(.*?\\.)get\\(\\\"(\\w+)\\\"\\)(.*?)'' : Error in method.*");
 	// END KGU#388 2017-10-29
 	// START KGU#510 2018-03-20: Issue ??? Possible pattern for index problem
-	private static final Matcher ERROR527MATCHER = Pattern.compile(".*inline evaluation of: ``(.*?\\.)get\\((.*?)\\)(.*?)'' : Method Invocation (\\w+)\\.get").matcher("");
+	private static final Pattern ERROR527PATTERN = Pattern.compile(".*inline evaluation of: ``(.*?\\.)get\\((.*?)\\)(.*?)'' : Method Invocation (\\w+)\\.get");
 	// END KGU#510 2018-03-20
 	private static final int MAX_STACK_INDENT = 40;
 
@@ -1104,8 +1174,8 @@ public class Executor implements Runnable
 				//		replaceAll("(.*?)\\\\u000[dD](.*?)", "$1\\\\015$2").
 				//		replaceAll("(.*?)\\\\u0022(.*?)", "$1\\\\042$2").
 				//		replaceAll("(.*?)\\\\u005[cC](.*?)", "$1\\\\134$2");
-				for (int mtch = 0; mtch < MTCHs_BAD_UNICODE.length; mtch++) {
-					internal = MTCHs_BAD_UNICODE[mtch].reset(internal).replaceAll(RPLCs_BAD_UNICODE[mtch]);
+				for (int mtch = 0; mtch < PTRNs_BAD_UNICODE.length; mtch++) {
+					internal = PTRNs_BAD_UNICODE[mtch].matcher(internal).replaceAll(RPLCs_BAD_UNICODE[mtch]);
 				}
 				// END KGU#406/KGU#420 2017-05-23/2017-09-09
 				if (!(tokenLen == 3 || tokenLen == 4 && token.charAt(1) == '\\')) {
@@ -1115,7 +1185,7 @@ public class Executor implements Runnable
 			}
 			// END KGU#342 2017-01-08
 			// START KGU#354 2017-05-22: Unfortunately the interpreter doesn't cope with binary integer literals, so convert them
-			else if (MTCH_BIN_LITERAL.reset(token).matches()) {
+			else if (PTRN_BIN_LITERAL.matcher(token).matches()) {
 				tokens.set(i, "" + Integer.parseInt(token.substring(2), 2));
 			}
 			// END KGU#354 2017-05-22
@@ -1154,9 +1224,9 @@ public class Executor implements Runnable
 		//s = RPLC_DELETE_PROC.replaceAll(s);
 		//s = RPLC_INSERT_PROC.replaceAll(s);
 		// pascal: delete
-		s = DELETE_PROC_MATCHER.reset(s).replaceAll(DELETE_PROC_SUBST);
+		s = DELETE_PROC_PATTERN.matcher(s).replaceAll(DELETE_PROC_SUBST);
 		// pascal: insert
-		s = INSERT_PROC_MATCHER.reset(s).replaceAll(INSERT_PROC_SUBST);
+		s = INSERT_PROC_PATTERN.matcher(s).replaceAll(INSERT_PROC_SUBST);
 		// END KGU#575 2018-09-17
 		// START KGU#285 2016-10-16: Bugfix #276 - this spoiled apostrophes because misplaced here
 //		// pascal: quotes
@@ -1372,10 +1442,22 @@ public class Executor implements Runnable
 	// END KGU#342 2017-02-09
 
 	private void delay()
+	{
+		// Neither the delay nor the waiting in step mode is to be attributed to the element
+		profiler.beginIdle();
+		try {
+			delayAndWait();
+		}
+		finally {
+			profiler.endIdle();
+		}
+	}
+
+	private void delayAndWait()
 	{
 		if (delay != 0)
 		{
-			diagram.redraw();
+			eventBus.publish(ExecutionEvent.Kind.STATUS_CHANGED, null);
 			try
 			{
 				Thread.sleep(delay);
@@ -1397,7 +1479,7 @@ public class Executor implements Runnable
 		{
 			paus = false;
 			step = true;
-			this.notify();
+			this.notifyAll();
 		}
 	}
 	
@@ -1418,9 +1500,19 @@ public class Executor implements Runnable
 		if (!Element.E_COLLECTRUNTIMEDATA)
 		{
 			Element.resetMaxExecCount();
+			profiler.reset();
 		}
 		// END KGU#156 2016-03-10
 	}
+	
+	/**
+	 * @return the profiler holding the time and allocation data of the executed elements
+	 * (collected while {@link Element#E_COLLECTRUNTIMEDATA} is enabled)
+	 */
+	public ExecutionProfiler getProfiler()
+	{
+		return this.profiler;
+	}
 	// END KGU#117 2016-03-08
 
 	// METHOD MODIFIED BY GENNARO DONNARUMMA
@@ -1431,7 +1523,7 @@ public class Executor implements Runnable
 		Root root = this.diagram.getRoot();
 		this.callers.clear();
 		this.stackTrace.clear();
-		this.routinePools.clear();
+		this.releaseRoutinePools();
 		// START KGU#376 2017-04-22: Enh. #389
 		this.importMap.clear();
 		// END KGU#376 2017-04-22
@@ -1456,7 +1548,7 @@ public class Executor implements Runnable
 
 		if (Arranger.hasInstance())
 		{
-			this.routinePools.addElement(Arranger.getInstance());
+			this.addRoutinePool(Arranger.getInstance());
 			// START KGU#117 2016-03-08: Enh. #77
 			Arranger.getInstance().clearExecutionStatus();
 			// END KGU#117 2016-03-08
@@ -1489,10 +1581,16 @@ public class Executor implements Runnable
 		/////////////////////////////////////////////////////////
 		this.execute(null);	// The actual top-level execution
 		/////////////////////////////////////////////////////////
+		if (this.variableDisplayStale) {
+			try {
+				this.updateVariableDisplay();
+			} catch (EvalError ex) {}
+		}
 		this.callers.clear();
 		this.stackTrace.clear();
+		this.releaseRoutinePools();
 		// START KGU#307 2016-12-12: Issue #307: Keep track of FOR loop variables
-		this.context.forLoopVars.clear();
+		context().forLoopVars.clear();
 		// END KGU#307 2016-12-12
 		// START KGU 2016-12-18: Enh. #314
 		for (Closeable file: this.openFiles) {
@@ -1528,7 +1626,7 @@ public class Executor implements Runnable
 		
 		// START KGU#384 2017-04-22: execution context redesign
 		//Root root = diagram.getRoot();
-		Root root = context.root;
+		Root root = context().root;
 		// END 2017-04-22
 
 		// START KGU#159 2016-03-17: Now we permanently maintain the stacktrace, not only in case of error
@@ -1542,7 +1640,7 @@ public class Executor implements Runnable
 			Updater pool = iter.next();
 			if (pool instanceof IRoutinePool && !this.routinePools.contains(pool))
 			{
-				this.routinePools.addElement((IRoutinePool)pool);
+				this.addRoutinePool((IRoutinePool)pool);
 			}
 		}
 		// END KGU#2 (#9) 2015-11-14
@@ -1571,7 +1669,7 @@ public class Executor implements Runnable
 		//returned = false;
 		// START KGU#78 2015-11-25
 		//loopDepth = 0;
-		leave = 0;
+		context().leave = 0;
 		// END KGU#78 2015-11-25
 		// END KGU#384 207-04-22
 		
@@ -1610,8 +1708,8 @@ public class Executor implements Runnable
 					if (isConstant) {
 						typeTokens.remove(0);
 					}
-					if (typeTokens.count() == 1 && context.dynTypeMap.containsKey(":" + (type = typeTokens.get(0)))) {
-						context.dynTypeMap.put(in, context.dynTypeMap.get(":" + type));
+					if (typeTokens.count() == 1 && context().dynTypeMap.containsKey(":" + (type = typeTokens.get(0)))) {
+						context().dynTypeMap.put(in, context().dynTypeMap.get(":" + type));
 					}
 				}
 				// END KGU#388 2017-09-18
@@ -1642,17 +1740,17 @@ public class Executor implements Runnable
 						// START KGU#375 2017-03-30: Enh. 388: Support a constant concept (KGU#580 2018-09-24 corrected)
 						String varName = setVarRaw(in, str);
 						if (isConstant) {
-							this.context.constants.put(varName, this.context.interpreter.get(varName));
+							context().constants.put(varName, context().interpreter.get(varName));
 							this.updateVariableDisplay();
 						}
 						// END KGU#375 2017-03-30
 						// END KGU#69 2015-11-08
 						// START KGU#2 2015-11-24: We might need the values for a stacktrace
-						arguments[i] = context.interpreter.get(in);
+						arguments[i] = context().interpreter.get(in);
 						// END KGU#2 2015-11-24
 						// START KGU#160 2016-04-26: Issue #137 - document the arguments
 						if (this.console.logMeta()) {
-							this.console.writeln("*** Argument <" + in + "> = " + prepareValueForDisplay(arguments[i], context.dynTypeMap), Color.CYAN);
+							this.console.writeln("*** Argument <" + in + "> = " + prepareValueForDisplay(arguments[i], context().dynTypeMap), Color.CYAN);
 						}
 						// END KGU#160 2016-04-26
 					} catch (EvalError ex)
@@ -1691,7 +1789,7 @@ public class Executor implements Runnable
 		// END KGU#39 2015-10-16
 		// START KGU#376 2017-04-22: Enh. #389 - without arguments, we must also show the new context 
 		try {
-			this.updateVariableDisplay();
+			this.updateVariableDisplayIfVisible();
 		} catch (EvalError ex) {}
 		// END KGU#376 2017-04-22
 
@@ -1718,7 +1816,7 @@ public class Executor implements Runnable
 		// START KGU#430 2017-10-12: Issue #432 reduce redraw() calls with delay 0 (KGU#558: unless we are in step mode)
 		//diagram.redraw();
 		if (delay > 0 || step) {
-			diagram.redraw();
+			eventBus.publish(ExecutionEvent.Kind.ELEMENT_LEFT, root);
 		}
 		// END KGU#430 2017-10-12
 		if (!trouble.equals(""))
@@ -1770,7 +1868,7 @@ public class Executor implements Runnable
 			// END KGU#2 2015-11-24	
 		} else
 		{
-			if (root.isSubroutine() && (context.returned == false))
+			if (root.isSubroutine() && (context().returned == false))
 			{
 				// Possible result variable names
 				StringList posres = new StringList();
@@ -1781,7 +1879,7 @@ public class Executor implements Runnable
 				//posres.add("RESULT");
 				//posres.add("Result");
 				for (String resCand: new String[]{root.getMethodName(), "result", "RESULT", "Result"}) {
-					if (context.variables.contains(resCand)) {
+					if (context().variables.contains(resCand)) {
 						posres.add(resCand);
 					}
 				}
@@ -1790,15 +1888,15 @@ public class Executor implements Runnable
 				try
 				{
 					int i = 0;
-					while ((i < posres.count()) && (!context.returned))
+					while ((i < posres.count()) && (!context().returned))
 					{
-						Object resObj = context.interpreter.get(posres.get(i));
+						Object resObj = context().interpreter.get(posres.get(i));
 						if (resObj != null)
 						{
 							// START KGU#2 (#9) 2015-11-13: Only tell the user if this wasn't called
 							//JOptionPane.showMessageDialog(diagram, n,
 							//		"Returned result", 0);
-							context.returnedValue = resObj;
+							context().returnedValue = resObj;
 							if (this.callers.isEmpty())
 							{
 								// START KGU#197 2016-05-25: Translate the headline!
@@ -1831,7 +1929,7 @@ public class Executor implements Runnable
 								{
 									// START KGU#160 2016-04-26: Issue #137 - also log the result to the console
 									if (this.console.logMeta()) {
-										this.console.writeln("*** " + header + ": " + prepareValueForDisplay(resObj, context.dynTypeMap), Color.CYAN);
+										this.console.writeln("*** " + header + ": " + prepareValueForDisplay(resObj, context().dynTypeMap), Color.CYAN);
 									}
 									// END KGU#160 2016-04-26
 									JOptionPane.showMessageDialog(diagram.getParent(), resObj,
@@ -1841,7 +1939,7 @@ public class Executor implements Runnable
 								{
 									// START KGU#198 2016-05-25: Issue #137 - also log the result to the console
 									if (this.console.logMeta()) {
-										this.console.writeln("*** " + header + ": " + prepareValueForDisplay(resObj, context.dynTypeMap), Color.CYAN);
+										this.console.writeln("*** " + header + ": " + prepareValueForDisplay(resObj, context().dynTypeMap), Color.CYAN);
 									}
 									// END KGU#198 2016-05-25
 									Object[] options = {
@@ -1867,7 +1965,7 @@ public class Executor implements Runnable
 							delay();
 							// END KGU#148 2016-01-29							
 							// END KGU#2 (#9) 2015-11-13
-							context.returned = true;
+							context().returned = true;
 						}
 						i++;
 					}
@@ -1879,7 +1977,7 @@ public class Executor implements Runnable
 
 			}
 			// START KGU#299 2016-11-23: Enh. #297 In step mode, this offers a last pause to inspect variables etc.
-			if (this.callers.isEmpty() && !context.returned) {
+			if (this.callers.isEmpty() && !context().returned) {
 				delay();
 			}
 			// END KGU 2016-11-23
@@ -1892,7 +1990,7 @@ public class Executor implements Runnable
 			diagram.clearExecutionStatus();
 		}
 		else {
-			context.root.clearExecutionStatus();
+			context().root.clearExecutionStatus();
 		}
 		// END KGU#430 2017-10-12
 		// END KGU 2015-10-13
@@ -1929,23 +2027,23 @@ public class Executor implements Runnable
 					// Has this import already been executed -then just adopt the results
 					if (this.importMap.containsKey(imp)) {
 						ImportInfo impInfo = this.importMap.get(imp);
-						this.copyInterpreterContents(impInfo.interpreter, context.interpreter,
+						this.copyInterpreterContents(impInfo.interpreter, context().interpreter,
 								imp.getVariables(), imp.constants.keySet(), false);
 						// START KGU#388 2017-09-18: Enh. #423
 						// Adopt the imported typedefs if any
 						for (Entry<String, TypeMapEntry> typeEntry: impInfo.typeDefinitions.entrySet()) {
-							TypeMapEntry oldEntry = context.dynTypeMap.putIfAbsent(typeEntry.getKey(), typeEntry.getValue());
+							TypeMapEntry oldEntry = context().dynTypeMap.putIfAbsent(typeEntry.getKey(), typeEntry.getValue());
 							if (oldEntry != null) {
 								logger.log(Level.INFO, "Conflicting type entry {0} from Includable {1}", new Object[]{typeEntry.getKey(), diagrName});
 							}
 						}
 						// END KGU#388 2017-09-18
-						context.variables.addIfNew(impInfo.variableNames);
+						context().variables.addIfNew(impInfo.variableNames);
 						for (String constName: imp.constants.keySet()) {
 							// FIXME: Is it okay just to ignore conflicting constants?
-							if (!context.constants.containsKey(constName)) {
+							if (!context().constants.containsKey(constName)) {
 								try {
-									context.constants.put(constName, impInfo.interpreter.get(constName));
+									context().constants.put(constName, impInfo.interpreter.get(constName));
 								} catch (EvalError e) {
 									if (!errorString.isEmpty()) {
 										errorString += "\n";
@@ -1964,7 +2062,7 @@ public class Executor implements Runnable
 						// END KGU#376 2017-04-21
 						executeCall(imp, null, null);
 					}
-					context.importList.addIfNew(diagrName);
+					context().importList.addIfNew(diagrName);
 				}
 				else
 				{
@@ -2084,7 +2182,7 @@ public class Executor implements Runnable
 			ArrayList<Object> array = (ArrayList<Object>)_arrayOrRecord;
 			for (int i = 0; i < array.size(); i++)
 			{
-				String valLine = "[" + i + "]  " + prepareValueForDisplay(array.get(i), context.dynTypeMap);
+				String valLine = "[" + i + "]  " + prepareValueForDisplay(array.get(i), context().dynTypeMap);
 				// START KGU#160 2016-04-26: Issue #137 - also log the result to the console
 				if (this.console.logMeta()) {
 					this.console.writeln("\t" + valLine, Color.CYAN);
@@ -2106,7 +2204,7 @@ public class Executor implements Runnable
 			for (Entry<String, Object> entry: record.entrySet())
 			{
 				if (!entry.getKey().startsWith("§")) {
-					String valLine = entry.getKey() + ":  " + prepareValueForDisplay(entry.getValue(), context.dynTypeMap);
+					String valLine = entry.getKey() + ":  " + prepareValueForDisplay(entry.getValue(), context().dynTypeMap);
 					if (this.console.logMeta()) {
 						this.console.writeln("\t" + valLine, Color.CYAN);
 					}
@@ -2115,7 +2213,7 @@ public class Executor implements Runnable
 			}
 		}
 		else {
-			String valLine = prepareValueForDisplay(_arrayOrRecord, context.dynTypeMap);
+			String valLine = prepareValueForDisplay(_arrayOrRecord, context().dynTypeMap);
 			if (this.console.logMeta()) {
 				this.console.writeln("\t" + valLine, Color.CYAN);
 			}
@@ -2159,19 +2257,19 @@ public class Executor implements Runnable
 //				// END KGU#375, KGU#376 2017-04-21
 //				);
 		// START KGU#508 2018-03-19: Bugfix #525 - This had been forgotten on replacing the ExecutionStackEntry (#389)
-		this.context.root.isCalling = true;
+		context().root.isCalling = true;
 		// END KGU#508 2018-03-19
 		this.callers.push(this.context);
 		// START KGU#2 2015-10-18: cross-NSD subroutine execution?
 		// END KGU#384 2017-04-22
 		// START KGU#376 2017-04-21: Update all current imports before sub execution
-		for (int i = 0; i < context.importList.count(); i++) {
-			String impName = context.importList.get(i);
+		for (int i = 0; i < context().importList.count(); i++) {
+			String impName = context().importList.get(i);
 			// FIXME This retrieval is a little awkward - maybe the importList should be a set of Root
 			for (Root impRoot: this.importMap.keySet()) {
 				if (impRoot.getMethodName().equals(impName)) {
 					ImportInfo info = this.importMap.get(impRoot);
-					this.copyInterpreterContents(context.interpreter, info.interpreter, info.variableNames, impRoot.constants.keySet(), true);
+					this.copyInterpreterContents(context().interpreter, info.interpreter, info.variableNames, impRoot.constants.keySet(), true);
 				}
 			}
 		}
@@ -2205,7 +2303,7 @@ public class Executor implements Runnable
 		// START KGU#384 2017-04-22: Execution context redesign
 		if (root.isInclude()) {
 			// For an import Call continue the importList recursively
-			this.context = new ExecutionContext(root, this.context.importList);
+			this.context = new ExecutionContext(root, context().importList);
 		}
 		else {
 			// For a subroutine call, start with a new import list
@@ -2262,25 +2360,25 @@ public class Executor implements Runnable
 		if (subRoot.isInclude()) {
 			// It was an import Call, so we have to import the definitions and values 
 			// FIXME: Derive a sensible type StringList from subRoot.getTypeInfo() KGU 2017-09-18: what for?
-			this.copyInterpreterContents(context.interpreter, entry.interpreter,
-					this.context.variables, entry.root.constants.keySet(), false);
+			this.copyInterpreterContents(context().interpreter, entry.interpreter,
+					context().variables, entry.root.constants.keySet(), false);
 			// START KGU#388 2017-09-18: Enh. #423
 			// Adopt the imported typedefs if any
-			for (Entry<String, TypeMapEntry> typeEntry: context.dynTypeMap.entrySet()) {
+			for (Entry<String, TypeMapEntry> typeEntry: context().dynTypeMap.entrySet()) {
 				TypeMapEntry oldEntry = entry.dynTypeMap.putIfAbsent(typeEntry.getKey(), typeEntry.getValue());
 				if (oldEntry != null) {
 					logger.log(Level.INFO, "Conflicting type entry {0} from Includable {1}", new Object[]{typeEntry.getKey(), subRoot.getMethodName()});
 				}
 			}
 			// END KGU#388 2017-09-18
-			entry.variables.addIfNew(context.variables);
-			for (Entry<String, Object> constEntry: context.constants.entrySet()) {
+			entry.variables.addIfNew(context().variables);
+			for (Entry<String, Object> constEntry: context().constants.entrySet()) {
 				if (!entry.constants.containsKey(constEntry.getKey())) {
 					entry.constants.put(constEntry.getKey(), constEntry.getValue());
 				}
 			}	
-			this.importMap.put(subRoot, new ImportInfo(this.context.interpreter, this.context.variables, this.context.dynTypeMap));
-			context.importList.addIfNew(subRoot.getMethodName());
+			this.importMap.put(subRoot, new ImportInfo(context().interpreter, context().variables, context().dynTypeMap));
+			context().importList.addIfNew(subRoot.getMethodName());
 			// TODO: Check this for necessity and soundness!
 			for (Entry<String, String> constEntry: subRoot.constants.entrySet()) {
 				if (!entry.root.constants.containsKey(constEntry.getKey())) {
@@ -2290,13 +2388,13 @@ public class Executor implements Runnable
 		}
 		else {
 			// Subroutines may have updated definitions from import diagrams - we must get aware of these changes 
-			for (int i = 0; i < context.importList.count(); i++) {
-				String impName = context.importList.get(i);
+			for (int i = 0; i < context().importList.count(); i++) {
+				String impName = context().importList.get(i);
 				// FIXME This retrieval is a little awkward - maybe the importList should be a set of Root
 				for (Root impRoot: this.importMap.keySet()) {
 					if (impRoot.getMethodName().equals(impName)) {
 						ImportInfo info = this.importMap.get(impRoot);
-						if (this.copyInterpreterContents(context.interpreter, info.interpreter, info.variableNames, impRoot.constants.keySet(), true)
+						if (this.copyInterpreterContents(context().interpreter, info.interpreter, info.variableNames, impRoot.constants.keySet(), true)
 								&& entry.importList.contains(impName)) {
 							this.copyInterpreterContents(info.interpreter, entry.interpreter, info.variableNames, impRoot.constants.keySet(), true);
 						}
@@ -2325,7 +2423,7 @@ public class Executor implements Runnable
 
 		// START KGU#376 2017-04-21: Enh. #389
 		// The called subroutine will certainly have returned a value...
-		resultObject = this.context.returnedValue;
+		resultObject = context().returnedValue;
 		// ... but definitively not THIS calling routine!
 		// FIXME: Shouldn't we have cached the previous values in entry?
 		
@@ -2337,7 +2435,7 @@ public class Executor implements Runnable
 		
 		try 
 		{
-			updateVariableDisplay();
+			updateVariableDisplayIfVisible();
 		}
 		catch (EvalError ex) {}
 		
@@ -2352,7 +2450,7 @@ public class Executor implements Runnable
 		{
 			for (int i = 0; i < _arguments.length; i++)
 			{
-				argumentString = argumentString + (i>0 ? ", " : "") + prepareValueForDisplay(_arguments[i], context.dynTypeMap);					
+				argumentString = argumentString + (i>0 ? ", " : "") + prepareValueForDisplay(_arguments[i], context().dynTypeMap);					
 			}
 			argumentString = "(" + argumentString + ")";
 		}
@@ -2454,6 +2552,30 @@ public class Executor implements Runnable
      * @throws Exception 
      */
     public Root findSubroutineWithSignature(String name, int nArgs) throws Exception
+    {
+    	return findSubroutineWithSignature(null, name, nArgs);
+    }
+    
+    /**
+     * Searches all known pools for subroutines with a signature compatible to name(arg1, arg2, ..., arg_nArgs)
+     * on behalf of the given call site. The result is cached for the call site (until some routine pool
+     * reports a change) such that repeated executions of the Call needn't search the pools again.
+     * Failed (ambiguous) look-ups aren't cached.
+     * @param callSite - the calling element or null (then there is no caching)
+     * @param name - function name
+     * @param nArgs - number of parameters of the requested function
+     * @return a Root that matches the specification if uniquely found, null otherwise
+     * @throws Exception if the call is ambiguous
+     */
+    private Root findSubroutineWithSignature(Element callSite, String name, int nArgs) throws Exception
+    {
+    	if (callSite == null) {
+    		return resolveSubroutineWithSignature(name, nArgs);
+    	}
+    	return subroutineCache.resolve(callSite, name, nArgs);
+    }
+    
+    private Root resolveSubroutineWithSignature(String name, int nArgs) throws Exception
     {
     	Root subroutine = null;
     	// First test whether the current root calls itself recursively
@@ -2516,6 +2638,102 @@ public class Executor implements Runnable
     }
 	// END KGU#2 (#9) 2015-11-13
 
+	/**
+	 * Adds the given pool to the {@link #routinePools} and registers the subroutine cache
+	 * as change listener with it.
+	 * @param pool - an additional routine pool
+	 */
+	private void addRoutinePool(IRoutinePool pool)
+	{
+		this.routinePools.addElement(pool);
+		pool.addChangeListener(this.subroutineCache);
+	}
+
+	/**
+	 * Unregisters the subroutine cache from all {@link #routinePools}, clears them and
+	 * discards all cached subroutine resolutions.
+	 */
+	private void releaseRoutinePools()
+	{
+		for (IRoutinePool pool: this.routinePools) {
+			pool.removeChangeListener(this.subroutineCache);
+		}
+		this.routinePools.clear();
+		this.subroutineCache.clear();
+		this.forBounds.clear();
+	}
+
+	/**
+	 * Inline cache for subroutine resolution: maps Call elements to the diagram their
+	 * routine call resolved to (for the given name and number of arguments). Since the
+	 * resolution only depends on the contents of the {@link Executor#routinePools} (and
+	 * the calling diagram, which a Call element belongs to), all entries are discarded
+	 * as soon as a pool notifies a change of its diagram set.
+	 */
+	private final class SubroutineCache implements IRoutinePoolListener
+	{
+		private final class Resolution
+		{
+			final String name;
+			final int nArgs;
+			final Root root;
+			Resolution(String name, int nArgs, Root root)
+			{
+				this.name = name;
+				this.nArgs = nArgs;
+				this.root = root;
+			}
+		}
+
+		/**
+		 * Resolutions by call site element id (shared by the copies of a diagram made for
+		 * recursive calls, such that these copies aren't retained and the map stays bounded)
+		 */
+		private final HashMap<Long, Resolution> resolutions = new HashMap<Long, Resolution>();
+		/** Incremented on every invalidation, such that resolutions obtained meanwhile aren't stored */
+		private int generation = 0;
+
+		/**
+		 * Returns the diagram the call of routine {@code name} with {@code nArgs} arguments
+		 * at {@code callSite} resolves to, searching the routine pools only if there is no
+		 * valid cached result.
+		 * @throws Exception if the call is ambiguous
+		 */
+		Root resolve(Element callSite, String name, int nArgs) throws Exception
+		{
+			int gen;
+			synchronized (this) {
+				Resolution res = resolutions.get(callSite.getId());
+				if (res != null && res.nArgs == nArgs && res.name.equals(name)) {
+					return res.root;
+				}
+				gen = generation;
+			}
+			Root root = resolveSubroutineWithSignature(name, nArgs);
+			synchronized (this) {
+				// Resolving may itself have changed a pool (adoption of orphan diagrams)
+				if (gen == generation) {
+					resolutions.put(callSite.getId(), new Resolution(name, nArgs, root));
+				}
+			}
+			return root;
+		}
+
+		synchronized void clear()
+		{
+			resolutions.clear();
+			generation++;
+		}
+
+		@Override
+		public void routinePoolChanged(IRoutinePool _source, int _flags)
+		{
+			if ((_flags & RPC_POOL_CHANGED) != 0) {
+				clear();
+			}
+		}
+	}
+
     // KGU#448 2017-10-28: Replaced former method getExec(String) in the only remained reference 
 	public String initRootExecDelay()
 	{
@@ -2542,7 +2760,7 @@ public class Executor implements Runnable
 		}
 		if (delay != 0)
 		{
-			diagram.redraw();
+			eventBus.publish(ExecutionEvent.Kind.STATUS_CHANGED, null);
 			try
 			{
 				Thread.sleep(delay);
@@ -2595,7 +2813,14 @@ public class Executor implements Runnable
 		String trouble = "";
 		try {
 			// We don't expect results here
-			controller.execute(procName, arguments);
+			ControllerRoutine routine = getControllerRoutine(controller, procName, arguments.length);
+			if (routine != null) {
+				routine.invoke(arguments);
+			}
+			else {
+				// Produces the appropriate error
+				controller.execute(procName, arguments);
+			}
 		}
 		catch (FunctionException ex) {
 			trouble = ex.getMessage();
@@ -2606,7 +2831,7 @@ public class Executor implements Runnable
 			if (!(controller instanceof DelayableDiagramController)) {
 				delay();
 			}
-			diagram.redraw();
+			eventBus.publish(ExecutionEvent.Kind.STATUS_CHANGED, null);
 			try
 			{
 				Thread.sleep(delay);
@@ -2627,6 +2852,49 @@ public class Executor implements Runnable
 	}
 	// END KGU#448 2017-10-28
 
+	/**
+	 * Returns the routine {@code name} with {@code nArgs} arguments of the given {@code controller},
+	 * which is bound on first request and then retrieved from cache.
+	 * @param controller - one of the {@link #diagramControllers}
+	 * @param name - the routine name (lower-case)
+	 * @param nArgs - number of arguments
+	 * @return the bound routine or null if the controller doesn't provide it.
+	 */
+	private ControllerRoutine getControllerRoutine(DiagramController controller, String name, int nArgs)
+	{
+		String key = name + "#" + nArgs;
+		synchronized (this.controllerRoutines) {
+			ControllerRoutine routine = this.controllerRoutines.get(key);
+			if (routine == null || routine.getController() != controller) {
+				routine = controller.bindRoutine(name, nArgs);
+				if (routine != null) {
+					this.controllerRoutines.put(key, routine);
+				}
+			}
+			return routine;
+		}
+	}
+
+	/**
+	 * Rough but cheap test whether {@code expression} might contain a call of some
+	 * controller function, such that lexical splitting can be avoided otherwise.
+	 * @param expression - the expression to be inspected
+	 * @return false if there can't be a controller function call in the expression
+	 */
+	private boolean mayContainControllerFunction(String expression)
+	{
+		if (this.controllerFunctionNames.isEmpty() || expression.indexOf('(') < 0) {
+			return false;
+		}
+		String lowerExpr = expression.toLowerCase();
+		for (String fName: this.controllerFunctionNames) {
+			if (lowerExpr.contains(fName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public boolean getPaus()
 	{
 		synchronized (this)
@@ -2641,7 +2909,7 @@ public class Executor implements Runnable
 		{
 			// STRT KGU#384 2017-04-22: Redesign of execution context
 			//interpreter = new Interpreter();
-			Interpreter interpreter = this.context.interpreter;
+			Interpreter interpreter = context().interpreter;
 			// END KGU#384 2017-04-22
 
 			// START KGU 2016-12-18: #314: Support for simple text file API
@@ -2909,6 +3177,7 @@ public class Executor implements Runnable
 	{
 		execute();
 		running = false;
+		eventBus.stop();
 		// START KGU#117/KGU#156 2016-03-13: Enh. #77 + #124
 		// It is utterly annoying when in run data mode the control always 
 		// closes after execution.
@@ -2990,7 +3259,7 @@ public class Executor implements Runnable
 		// START KGU 2015-10-13: In "turbo" mode, too, we want to see were the algorithm is hovering.
 		if (delay == 0)
 		{
-			diagram.redraw();
+			eventBus.publish(ExecutionEvent.Kind.STATUS_CHANGED, null);
  			try {
 				updateVariableDisplay();
 			}
@@ -3007,7 +3276,7 @@ public class Executor implements Runnable
 			{
 				step = false;
 			}
-			this.notify();
+			this.notifyAll();
 		}
 	}
 
@@ -3023,7 +3292,7 @@ public class Executor implements Runnable
 			stop = aStop;
 			paus = false;
 			step = false;
-			this.notify();
+			this.notifyAll();
 		}
 	}
 
@@ -3067,14 +3336,14 @@ public class Executor implements Runnable
 						strInput.startsWith("'") && strInput.endsWith("'"))
 				{
 					this.evaluateExpression(target + " = " + rawInput, false, false);
-					varName = setVar(target, context.interpreter.get(target));
+					varName = setVar(target, context().interpreter.get(target));
 				}
 				// START KGU#285 2016-10-16: Bugfix #276
 				else if (rawInput.contains("\\"))
 				{
 					// Obviously it isn't enclosed by quotes (otherwise the previous test would have caught it
 					this.evaluateExpression(target + " = \"" + rawInput + "\"", false, false);
-					varName = setVar(target, context.interpreter.get(target));					
+					varName = setVar(target, context().interpreter.get(target));					
 				}
 				// END KGU#285 2016-10-16
 				// try adding as char (only if it's not a digit)
@@ -3201,7 +3470,7 @@ public class Executor implements Runnable
 	private String setVar(String target, Object content) throws EvalError
 	// START KGU#307 2016-12-12: Enh. #307 - check FOR loop variable manipulation
 	{
-		return setVar(target, content, context.forLoopVars.count()-1);
+		return setVar(target, content, context().forLoopVars.count()-1);
 	}
 
 	/**
@@ -3352,7 +3621,7 @@ public class Executor implements Runnable
 		
 		// FIXME: target may still contain type and other modifiers, so this check might fail!
 		// START KGU#307 2016-12-12: Enh. #307 - check FOR loop variable manipulation
-		if (context.forLoopVars.lastIndexOf(target, ignoreLoopStackLevel) >= 0)
+		if (context().forLoopVars.lastIndexOf(target, ignoreLoopStackLevel) >= 0)
 		{
 			throw new EvalError(control.msgForLoopManipulation.getText().replace("%", target), null, null);
 		}
@@ -3379,7 +3648,7 @@ public class Executor implements Runnable
 		// START KGU#439 2017-10-13: Enh. #436
 		else if (isConstant && content instanceof ArrayList<?>) {
 			// FIXME: This is only a shallow copy, we might have to clone all values as well
-			content = new ArrayList<Object>((ArrayList<?>)content);
+			content = TypedArrayList.copyOf((ArrayList<?>)content);
 		}
 		// END KGU#439 2017-10-13
 		// START KGU#388 2017-09-14: Enh. #423
@@ -3424,8 +3693,8 @@ public class Executor implements Runnable
 		// -------- Step 4 a: Array element assignment ----------------------- 
 		if (indexStr != null) {
 		// END KGU#375 2017-03-30
-			boolean arrayFound = context.variables.contains(target);
-			boolean componentArrayFound = compType != null && context.variables.contains(recordName) && compType.isArray();
+			boolean arrayFound = context().variables.contains(target);
+			boolean componentArrayFound = compType != null && context().variables.contains(recordName) && compType.isArray();
 			int index = this.getIndexValue(indexStr);
 			ArrayList<Object> objectArray = null;
 			Object record = null;
@@ -3446,10 +3715,10 @@ public class Executor implements Runnable
 //					//this.interpreter.eval(arrayname + "[" + index + "] = " + prepareValueForDisplay(content));
 //					this.evaluateExpression(target + "[" + index + "] = " + prepareValueForDisplay(content), false);
 //				}
-				Object targetObject = this.context.interpreter.get(target);
-				if (targetObject == null && context.dynTypeMap.containsKey(target) && context.dynTypeMap.get(target).isArray()) {
+				Object targetObject = context().interpreter.get(target);
+				if (targetObject == null && context().dynTypeMap.containsKey(target) && context().dynTypeMap.get(target).isArray()) {
 					// KGU#432: The variable had been declared as array but not initialized - so be generous here
-					objectArray = new ArrayList<Object>();
+					objectArray = TypedArrayList.create(context().dynTypeMap.get(target).getCanonicalType(true, false), content, index+1);
 				}
 				else if (targetObject instanceof ArrayList<?>) {
 					objectArray = (ArrayList<Object>)targetObject;
@@ -3457,7 +3726,7 @@ public class Executor implements Runnable
 				}
 				else {
 					// FIXME: Produce a more meaningful EvalError
-					this.evaluateExpression(target + "[" + index + "] = " + prepareValueForDisplay(content, context.dynTypeMap), false, true);
+					this.evaluateExpression(target + "[" + index + "] = " + prepareValueForDisplay(content, context().dynTypeMap), false, true);
 				}
 				// END KGU#439 2017-10-13
 			}
@@ -3465,7 +3734,7 @@ public class Executor implements Runnable
 			{
 				// Now get the original array component
 				StringList path = StringList.explode(target, "\\.");
-				record = context.interpreter.get(path.get(0));	// base record
+				record = context().interpreter.get(path.get(0));	// base record
 				if (record == null) {
 					record = this.createEmptyRecord(path, 0);
 				}
@@ -3479,14 +3748,14 @@ public class Executor implements Runnable
 					}
 				}
 				if (comp == null) {
-					objectArray = new ArrayList<Object>();
+					objectArray = TypedArrayList.create(compType.getCanonicalType(true, false), content, index+1);
 				}
 				else if (comp instanceof ArrayList<?>) {
 					objectArray = (ArrayList<Object>)comp;
 					oldSize = objectArray.size();
 				}
 				else {
-					String valueType = Instruction.identifyExprType(context.dynTypeMap, prepareValueForDisplay(comp, null), true);
+					String valueType = Instruction.identifyExprType(context().dynTypeMap, prepareValueForDisplay(comp, null), true);
 					throw new EvalError(control.msgTypeMismatch.getText().
 							replace("%1", valueType).
 									replace("%2", compType.getCanonicalType(true, true)).
@@ -3507,23 +3776,29 @@ public class Executor implements Runnable
 //					objectArray[i] = new Integer(0);
 //				}
 				if (objectArray == null) {
-					objectArray = new ArrayList<Object>(index+1);
+					TypeMapEntry arrayType = context().dynTypeMap.get(target);
+					objectArray = TypedArrayList.create(arrayType == null ? null : arrayType.getCanonicalType(true, false),
+							content, index+1);
 				}
-				// This adds dummy elements until inclusively index
-				for (int i = oldSize; i <= index; i++) {
+				// This adds dummy elements until exclusively index
+				for (int i = oldSize; i < index; i++) {
 					objectArray.add(0);
 				}
 				// END KGU#439 2017-10-13
+				// Adding the value directly (rather than a dummy to be replaced) keeps a specialized array
+				objectArray.add(content);
+			}
+			else {
+				//objectArray[index] = content;
+				objectArray.set(index, content);
 			}
-			//objectArray[index] = content;
-			objectArray.set(index, content);
 			//this.interpreter.set(arrayname, objectArray);
 			//this.variables.addIfNew(arrayname);
 			if (componentArrayFound) {
 				//try {
 					StringList path = StringList.explode(target, "\\.");
 					parentRecord.put(path.get(path.count()-1), objectArray);
-					context.interpreter.set(recordName, record);
+					context().interpreter.set(recordName, record);
 				//}
 				//catch (Exception ex)
 				//{
@@ -3534,8 +3809,8 @@ public class Executor implements Runnable
 				
 			}
 			else {
-				context.interpreter.set(target, objectArray);
-				context.variables.addIfNew(target);
+				context().interpreter.set(target, objectArray);
+				context().variables.addIfNew(target);
 			}
 		}
 		// START KGU#388 2017-09-14: Enh. #423 Special treatment for record components
@@ -3543,7 +3818,7 @@ public class Executor implements Runnable
 		else if (recordName != null) {
 			StringList path = StringList.explode(target, "\\.");
 			try {
-				Object record = context.interpreter.get(recordName);
+				Object record = context().interpreter.get(recordName);
 				if (record == null && path.count() == 2) {
 					record = createEmptyRecord(path, 0);
 				}
@@ -3566,7 +3841,7 @@ public class Executor implements Runnable
 					comp = subComp;
 				}
 				((HashMap<String, Object>)comp).put(path.get(path.count()-1), content);
-				context.interpreter.set(recordName, record);
+				context().interpreter.set(recordName, record);
 				// START KGU#580 2018-09-24
 				target = recordName;	// this is the variable name to be returned
 				// END KGU#580 2018-09-24
@@ -3601,8 +3876,8 @@ public class Executor implements Runnable
 			// or vice versa 
 			if (content instanceof HashMap<?,?>) {
 				String typeName = ((HashMap<?, ?>)content).get("§TYPENAME§").toString();
-				if ((context.variables.contains(target) || typeDescr != null)
-						&& (!context.dynTypeMap.containsKey(target) || (compType = context.dynTypeMap.get(target)) == null || !compType.isRecord()
+				if ((context().variables.contains(target) || typeDescr != null)
+						&& (!context().dynTypeMap.containsKey(target) || (compType = context().dynTypeMap.get(target)) == null || !compType.isRecord()
 						|| !compType.typeName.equals(typeName))) {
 					String compTypeStr = "???";
 					if (compType != null) {
@@ -3614,8 +3889,8 @@ public class Executor implements Runnable
 							replace("%3", target), null, null);
 				}
 			}
-			else if (content != null && (context.dynTypeMap.containsKey(target) && (compType = context.dynTypeMap.get(target)) != null
-				|| typeDescr != null && typeDescr.count() == 1 && (compType = context.dynTypeMap.get("%" + typeDescr.get(0))) != null)
+			else if (content != null && (context().dynTypeMap.containsKey(target) && (compType = context().dynTypeMap.get(target)) != null
+				|| typeDescr != null && typeDescr.count() == 1 && (compType = context().dynTypeMap.get("%" + typeDescr.get(0))) != null)
 					&& compType.isRecord() ) {
 				throw new EvalError(control.msgTypeMismatch.getText().
 						replace("%1", content.toString()).
@@ -3626,14 +3901,14 @@ public class Executor implements Runnable
 			// START KGU#322 2017-01-06: Bugfix #324 - an array assigned on input hindered scalar re-assignment
 			//this.interpreter.set(name, content);
 			try {
-				context.interpreter.set(target, content);
+				context().interpreter.set(target, content);
 			}
 			catch (EvalError ex) {
-				if (MTCH_EVAL_ERROR_ARRAY.reset(ex.getMessage()).matches()) {
+				if (PTRN_EVAL_ERROR_ARRAY.matcher(ex.getMessage()).matches()) {
 					// Stored array type is an obstacle for re-assignment, so drop it
-					context.interpreter.unset(target);
+					context().interpreter.unset(target);
 					// Now try again
-					context.interpreter.set(target, content);
+					context().interpreter.set(target, content);
 				}
 				else {
 					// Something different, so rethrow
@@ -3668,10 +3943,10 @@ public class Executor implements Runnable
 				{}
 			}
 			// END KGU#99 2015-12-10
-			context.variables.addIfNew(target);
+			context().variables.addIfNew(target);
 			// START KGU#375 2017-03-30: Enh. #388
 			if (isConstant) {
-				context.constants.put(target, context.interpreter.get(target));
+				context().constants.put(target, context().interpreter.get(target));
 			}
 			// END KGU#375 2017-03-30
 		}
@@ -3710,8 +3985,8 @@ public class Executor implements Runnable
 	private void associateType(String target, StringList typeDescr) {
 		String typeName = null;
 		if (typeDescr != null && typeDescr.count() == 1 && Function.testIdentifier(typeName = typeDescr.get(0), null)
-				&& context.dynTypeMap.containsKey(":" + typeName)) {
-			context.dynTypeMap.put(target, context.dynTypeMap.get(":" + typeName));
+				&& context().dynTypeMap.containsKey(":" + typeName)) {
+			context().dynTypeMap.put(target, context().dynTypeMap.get(":" + typeName));
 		}
 		// In other cases we cannot create a new TypeMapEntry because we are lacking element and line information here.
 		// So it is up to the calling method...
@@ -3745,7 +4020,7 @@ public class Executor implements Runnable
 	 */
 	private TypeMapEntry identifyRecordType(String typeOrVarName, boolean isTypeName)
 	{
-		TypeMapEntry recordType = context.dynTypeMap.get((isTypeName ? ":" : "") + typeOrVarName);
+		TypeMapEntry recordType = context().dynTypeMap.get((isTypeName ? ":" : "") + typeOrVarName);
 		
 		if (recordType != null && !recordType.isRecord()) {
 				recordType = null;
@@ -3762,20 +4037,78 @@ public class Executor implements Runnable
 	private void updateVariableDisplay() throws EvalError
 	{
 		Vector<String[]> vars = new Vector<String[]>();
-		for (int i = 0; i < context.variables.count(); i++)
+		for (int i = 0; i < context().variables.count(); i++)
 		{
-			String varName = context.variables.get(i);
+			String varName = context().variables.get(i);
 			// START KGU#67 2015-11-08: We had to find a solution for displaying arrays in a sensible way
 			//myVar.add(this.interpreter.get(this.variables.get(i)));
-			Object val = context.interpreter.get(varName);
-			String valStr = prepareValueForDisplay(val, context.dynTypeMap);
+			Object val = context().interpreter.get(varName);
+			String valStr = prepareValueForDisplay(val, context().dynTypeMap);
 			// END KGU#67 2015-11-08
 			vars.add(new String[]{varName, valStr});
 		}
-		this.control.updateVars(vars);
-		// START KGU#2 (#9) 2015-11-14
-		this.control.updateCallLevel(this.callers.size());
-		// END#2 (#9) KGU 2015-11-14
+		// The call level is passed with the event (for control.updateCallLevel())
+		eventBus.publish(new ExecutionEvent(vars, this.callers.size()));
+		this.variableDisplayStale = false;
+	}
+
+	/**
+	 * Updates the variable display unless delay is 0 and neither step nor pause mode is
+	 * active - then the display is just marked as stale (to be updated on termination)
+	 */
+	private void updateVariableDisplayIfVisible() throws EvalError
+	{
+		if (delay != 0 || step || paus) {
+			updateVariableDisplay();
+		}
+		else {
+			this.variableDisplayStale = true;
+		}
+	}
+
+	/**
+	 * Applies the execution events of one display frame to the GUI, coalescing redundant
+	 * updates: at most one redraw (focussing the last entered element, if any), one variable
+	 * table update and one button update. Is called on the event dispatch thread.
+	 * @param _events - the events published since the previous call
+	 */
+	private void consumeExecutionEvents(ArrayList<ExecutionEvent> _events)
+	{
+		Element focus = null;
+		ExecutionEvent varEvent = null;
+		boolean redraw = false;
+		boolean breakpointHit = false;
+		for (ExecutionEvent event: _events) {
+			switch (event.kind) {
+			case BREAKPOINT_HIT:
+				breakpointHit = true;
+				// no break here!
+			case ELEMENT_ENTERED:
+				focus = event.element;
+				break;
+			case VARIABLES_CHANGED:
+				varEvent = event;
+				break;
+			default:
+				redraw = true;
+			}
+		}
+		if (varEvent != null) {
+			control.updateVars(varEvent.variables);
+			control.updateCallLevel(varEvent.callLevel);
+		}
+		if (breakpointHit) {
+			control.setButtonsForPause(false);	// This avoids interference with the pause button
+		}
+		if (focus != null) {
+			diagram.redraw(focus);
+		}
+		else if (redraw) {
+			diagram.redraw();
+		}
+		// START KGU#143 2016-01-21: Bugfix #114 - make sure no compromising editing is done
+		diagram.doButtons();
+		// END KGU#143 2016-01-21
 	}
 	// END KGU#20 2015-10-13
 	
@@ -3876,10 +4209,10 @@ public class Executor implements Runnable
 		{
 			String varName = entry.getKey();
 			try {
-				Object oldValue = context.interpreter.get(varName);
+				Object oldValue = context().interpreter.get(varName);
 				Object newValue = entry.getValue();
 				// START KGU#443 2017-10-29: Issue #439 Precaution against unnecessary value overwriting
-				String oldValStr = prepareValueForDisplay(oldValue, context.dynTypeMap);
+				String oldValStr = prepareValueForDisplay(oldValue, context().dynTypeMap);
 				if (oldValStr.equals(newValue.toString())) {
 					// If there are no visible changes then we avoid reconstruction of the value
 					// from string because this might lead to broken references without need.
@@ -3924,7 +4257,7 @@ public class Executor implements Runnable
 					}
 					else {
 						// FIXME check if the variable had explicitly been declared as Array - in this case refuse
-						context.interpreter.set(varName, newObject);
+						context().interpreter.set(varName, newObject);
 					}
 //					// Okay, but now we have to sort out some un-boxed strings
 //					Object[] objectArray = (Object[]) interpreter.get(varName);
@@ -3940,12 +4273,12 @@ public class Executor implements Runnable
 //					}
 				}
 				// START KGU#388 2017-10-08: Enh. #423
-				else if (context.dynTypeMap.containsKey(varName) && context.dynTypeMap.get(varName).isRecord()) {
+				else if (context().dynTypeMap.containsKey(varName) && context().dynTypeMap.get(varName).isRecord()) {
 					// START KGU#439 2017-10-13: Issue #436 We must not break references
 					//context.interpreter.set(varName, evaluateExpression((String)newValue, true));
 					Object newObject = evaluateExpression((String)newValue, true, false);
 					if (oldValue instanceof HashMap && newObject instanceof HashMap) {
-						TypeMapEntry type = context.dynTypeMap.get(varName);
+						TypeMapEntry type = context().dynTypeMap.get(varName);
 						for (String key: type.getComponentInfo(true).keySet()) {
 							if (!key.startsWith("§")) {
 								if (((HashMap<String, Object>)newObject).containsKey(key)) {
@@ -3958,7 +4291,7 @@ public class Executor implements Runnable
 						}
 					}
 					else if (oldValue == null) {
-						context.interpreter.set(varName, newObject);
+						context().interpreter.set(varName, newObject);
 					}
 					// END KGU#439 2017-10-13
 				}
@@ -3982,7 +4315,7 @@ public class Executor implements Runnable
 	// START KGU#375 2017-03-30: Auxiliary callback for Control
 	public boolean isConstant(String varName)
 	{
-		return context.constants.containsKey(varName.trim());
+		return context().constants.containsKey(varName.trim());
 	}
 	// END KGU#375 2017-03-30
 
@@ -3997,6 +4330,7 @@ public class Executor implements Runnable
 		control.updateVars(new Vector<String[]>());
 		
 		running = true;
+		eventBus.start();
 		Thread runner = new Thread(this, "Player");
 		runner.start();
 	}
@@ -4009,23 +4343,44 @@ public class Executor implements Runnable
 		boolean atBreakpoint = element.triggersBreakNow();
 		// END KGU#213 2016-08-01
 		// START KGU#276 2016-11-19: Issue #267: in paused mode we should move the focus to the current element
-		if (delay > 0 || step || atBreakpoint) {
-			diagram.redraw(element);
-		}
-		// END KGU#276 2016-11-19
 		if (atBreakpoint) {
 			// START KGU#379 2017-04-12: Bugfix #391 moved to waitForNext()
 			//control.setButtonsForPause();
-			control.setButtonsForPause(false);	// This avoids interference with the pause button
+			// The consumer will also call control.setButtonsForPause(false)
+			eventBus.publish(ExecutionEvent.Kind.BREAKPOINT_HIT, element);
 			// END KGU#379 2017-04-12
 			this.setPaus(true);
 		}
+		else if (delay > 0 || step) {
+			eventBus.publish(ExecutionEvent.Kind.ELEMENT_ENTERED, element);
+		}
+		// END KGU#276 2016-11-19
 		return atBreakpoint;
 	}
 	// END KGU#43 2015-10-12
 
-	// START KGU 2015-10-13: Decomposed this "monster" method into Element-type-specific subroutines
+	/**
+	 * Executes the given element, with time and allocation profiling if runtime data are
+	 * to be collected
+	 * @param element - the element to be executed
+	 * @return an error message or an empty string
+	 */
 	private String step(Element element)
+	{
+		if (!Element.E_COLLECTRUNTIMEDATA || element.disabled) {
+			return stepElement(element);
+		}
+		profiler.enter(element);
+		try {
+			return stepElement(element);
+		}
+		finally {
+			profiler.leave(element);
+		}
+	}
+
+	// START KGU 2015-10-13: Decomposed this "monster" method into Element-type-specific subroutines
+	private String stepElement(Element element)
 	{
 		String trouble = new String();
 		// START KGU#277 2016-10-13: Enh. #270: skip the element if disabled
@@ -4048,21 +4403,23 @@ public class Executor implements Runnable
 //		}
 		// END KGU#276 2016-10-09
 		// START KGU#143 2016-01-21: Bugfix #114 - make sure no compromising editing is done
-		diagram.doButtons();
+		// (now done by consumeExecutionEvents() whenever there was something to show)
 		// END KGU#143 2016-01-21
 		// START KGU#43 2015-10-12: If there is a breakpoint switch to step mode before delay
 		checkBreakpoint(element);
 		// END KGU#43 2015-10-12
 
 		// START KGU#477 2017-12-10: Enh. #487 - check continuation of 
+		// (The surrogate is held by the context since Parallel branches may run concurrently)
+		ExecutionContext ctx = context();
 		if (!(element instanceof Instruction) || !((Instruction)element).isMereDeclaratory()) {
-			this.lastDeclarationSurrogate = null;
+			ctx.lastDeclarationSurrogate = null;
 		}
-		else if (this.lastDeclarationSurrogate == null) {
-			this.lastDeclarationSurrogate = (Instruction)element;
+		else if (ctx.lastDeclarationSurrogate == null) {
+			ctx.lastDeclarationSurrogate = (Instruction)element;
 		}
 		else if (Element.E_HIDE_DECL) {
-			this.lastDeclarationSurrogate.executed = true;
+			ctx.lastDeclarationSurrogate.executed = true;
 		}
 		// END KGU#477 2017-12-10
 		// The Root element and the REPEAT loop won't be delayed or halted in the beginning except by their members
@@ -4144,6 +4501,8 @@ public class Executor implements Runnable
 		}
 
 		element.waited = true;
+		// Buttons must reflect the (possibly switched) diagram, see consumeExecutionEvents()
+		eventBus.publish(ExecutionEvent.Kind.STATUS_CHANGED, null);
 
 		// START KGU#117 2016-03-07: Enh. #77 - consistent subqueue handling
 //		String trouble = new String();
@@ -4190,7 +4549,7 @@ public class Executor implements Runnable
 		// START KGU#77/KGU#78 2015-11-25: Leave if some kind of leave statement has been executed
 		//while ((i < sl.count()) && trouble.equals("") && (stop == false))
 		while ((i < sl.count()) && trouble.equals("") && (stop == false) &&
-				!context.returned && leave == 0)
+				!context().returned && context().leave == 0)
 		// END KGU#77/KGU#78 2015-11-25
 		{
 			String cmd = sl.get(i).trim();
@@ -4245,7 +4604,7 @@ public class Executor implements Runnable
 				}
 				else 
 				// START KGU#388 2017-09-13: Enh. #423 We shouldn't do this for type definitions
-				if (!Instruction.isTypeDefinition(cmd, context.dynTypeMap)) {
+				if (!Instruction.isTypeDefinition(cmd, context().dynTypeMap)) {
 					cmd = convert(cmd, false).trim();	// Do the string comparison analysis after decomposition!
 				// END KGU#388 2017-09-13
 				// END KGU#490 2018-02-07
@@ -4296,7 +4655,7 @@ public class Executor implements Runnable
 					// START KGU#332 2017-01-17/19: Enh. #335 - tolerate a Pascal variable declaration
 					else if (cmd.matches("^var.*:.*")) {
 						// START KGU#388 2017-09-14: Enh. #423
-						element.updateTypeMapFromLine(this.context.dynTypeMap, cmd, i);
+						element.updateTypeMapFromLine(context().dynTypeMap, cmd, i);
 						// END KGU#388 2017-09-14
 						StringList varNames = StringList.explode(cmd.substring("var".length(), cmd.indexOf(":")), ",");
 						for (int j = 0; j < varNames.count(); j++) {
@@ -4305,7 +4664,7 @@ public class Executor implements Runnable
 					}
 					else if (cmd.matches("^dim.* as .*")) {
 						// START KGU#388 2017-09-14: Enh. #423
-						element.updateTypeMapFromLine(this.context.dynTypeMap, cmd, i);
+						element.updateTypeMapFromLine(context().dynTypeMap, cmd, i);
 						// END KGU#388 2017-09-14
 						StringList varNames = StringList.explode(cmd.substring("dim".length(), cmd.indexOf(" as ")), ",");
 						for (int j = 0; j < varNames.count(); j++) {
@@ -4332,7 +4691,7 @@ public class Executor implements Runnable
 					// START KGU#508 2018-03-19: Bugfix #525 operation count for non-typedefs
 					isTypeDef = true;
 					// END KGU#508 2018-03-19
-					element.updateTypeMapFromLine(this.context.dynTypeMap, cmd, i);
+					element.updateTypeMapFromLine(context().dynTypeMap, cmd, i);
 					// We don't increment the total execution count here - this is regarded as a non-operation
 				}
 				// END KGU#388 2017-09-13
@@ -4343,7 +4702,7 @@ public class Executor implements Runnable
 				// END KGU#156/KGU#508 2018-03-19
 				// START KGU#271: 2016-10-06: Bugfix #261: Allow to step and stop within an instruction block (but no breakpoint here!) 
 				if ((i+1 < sl.count()) && trouble.equals("") && (stop == false)
-						&& !context.returned && leave == 0)
+						&& !context().returned && context().leave == 0)
 				{
 					delay();
 				}
@@ -4397,9 +4756,10 @@ public class Executor implements Runnable
 		{
 			element.executed = false;
 			// START KGU#477 2017-12-10: Enh. #487 - special treatment for declaration sequences
-			if (this.lastDeclarationSurrogate != null && this.lastDeclarationSurrogate != element) {
-				this.lastDeclarationSurrogate.executed = false;
-				this.lastDeclarationSurrogate.addToExecTotalCount(element.getExecStepCount(false) - initialStepCount, false);
+			Instruction surrogate = context().lastDeclarationSurrogate;
+			if (surrogate != null && surrogate != element) {
+				surrogate.executed = false;
+				surrogate.addToExecTotalCount(element.getExecStepCount(false) - initialStepCount, false);
 			}
 			// END KGU#477 2017-12-10
 		}
@@ -4425,7 +4785,7 @@ public class Executor implements Runnable
 
 		// START KGU#77 2015-11-11: Leave if a return statement has been executed
 		//while ((i < sl.count()) && trouble.equals("") && (stop == false))
-		while ((i < sl.count()) && trouble.equals("") && (stop == false) && !context.returned)
+		while ((i < sl.count()) && trouble.equals("") && (stop == false) && !context().returned)
 		// END KGU#77 2015-11-11
 		{
 			String cmd = sl.get(i);
@@ -4514,7 +4874,7 @@ public class Executor implements Runnable
 				trouble = control.msgIllegalLeave.getText().replace("%1", argument);				
 			}
 			else {
-				this.leave += nLevels;
+				context().leave += nLevels;
 				done = true;
 			}
 		}
@@ -4598,13 +4958,13 @@ public class Executor implements Runnable
 		}
 		// END KGU#380 2017-04-14
 			
-		if (done && leave > context.loopDepth)
+		if (done && context().leave > context().loopDepth)
 		{
 			// START KGU#197 2016-07-27: More localization support
-			trouble = "Too many levels to leave (actual depth: " + context.loopDepth + " / specified: " + leave + ")!";
+			trouble = "Too many levels to leave (actual depth: " + context().loopDepth + " / specified: " + context().leave + ")!";
 			trouble = control.msgTooManyLevels.getText().
-					replace("%1", Integer.toString(context.loopDepth)).
-					replace("%2", Integer.toString(leave));
+					replace("%1", Integer.toString(context().loopDepth)).
+					replace("%2", Integer.toString(context().leave));
 			// END KGU#197 2016-07-27
 		}			
 		if (trouble.equals(""))
@@ -4621,7 +4981,7 @@ public class Executor implements Runnable
 	// START KGU#417 2017-06-29: Enh. #424 New mechanism to pre-evaluate Turtleizer functions
 	private String evaluateDiagramControllerFunctions(String expression) throws EvalError
 	{
-		if (diagramControllers != null) {
+		if (diagramControllers != null && mayContainControllerFunction(expression)) {
 			// Now, several ones of the functions offered by diagramController might
 			// occur at different nesting depths in the expression. So we must find
 			// and evaluate them from innermost to outermost.
@@ -4651,8 +5011,9 @@ public class Executor implements Runnable
 					int nArgs = args.count();
 					String fSign = fName + "#" + nArgs;
 					DiagramController controller = this.controllerFunctions.get(fSign);
+					ControllerRoutine function = null;
 					// START KGU#592 2018-10-04 - Bugfix #617 If the signature doesn't match exactly then skip
-					if (controller != null) {
+					if (controller != null && (function = getControllerRoutine(controller, fName, nArgs)) != null) {
 					// END KGU#592 2018-10-04
 						//Method function = controller.getFunctionMap().get(fSign);
 						// Now we must know what is beyond the function call (the tail)
@@ -4667,7 +5028,7 @@ public class Executor implements Runnable
 							argVals[i] = this.evaluateExpression(args.get(i), false, false);
 						}
 						// Passed till here, we try to execute the function - this may throw a FunctionException
-						Object result = controller.execute(fName, argVals);
+						Object result = function.invoke(argVals);
 						tokens.remove(pos, tokens.count());
 						//tokens.add(controller.castArgument(result, function.getReturnType()).toString());
 						tokens.add(result.toString());
@@ -4731,7 +5092,7 @@ public class Executor implements Runnable
 		// Watch out for constant arrays or records
 		for (int i = 0; i < tokens.count(); i++) {
 			String token = tokens.get(i);
-			Object constVal = context.constants.get(token);
+			Object constVal = context().constants.get(token);
 			if (constVal instanceof ArrayList<?>) {
 				// Let a constant array be replaced by its clone, so we avoid structure
 				// sharing, which would break the assurance of constancy.
@@ -4758,7 +5119,7 @@ public class Executor implements Runnable
 				//Root sub = this.findSubroutineWithSignature(f.getName(), f.paramCount());
 				Root sub = null;
 				try {
-					sub = this.findSubroutineWithSignature(f.getName(), f.paramCount());
+					sub = this.findSubroutineWithSignature(instr, f.getName(), f.paramCount());
 				} catch (Exception ex) {
 					return ex.getMessage();	// Ambiguous call!
 				}
@@ -4866,14 +5227,14 @@ public class Executor implements Runnable
 			if (!leftSide.contains(".") && !leftSide.contains("[")) {
 				TypeMapEntry oldEntry = null;
 				String target = instr.getAssignedVarname(Element.splitLexically(leftSide, true)) + "";
-				if (!context.dynTypeMap.containsKey(target) || !(oldEntry = context.dynTypeMap.get(target)).isDeclared) {
-					String typeDescr = Instruction.identifyExprType(context.dynTypeMap, expression, true);
+				if (!context().dynTypeMap.containsKey(target) || !(oldEntry = context().dynTypeMap.get(target)).isDeclared) {
+					String typeDescr = Instruction.identifyExprType(context().dynTypeMap, expression, true);
 					if (oldEntry == null) {
 						TypeMapEntry typeEntry = null;
-						if (typeDescr != null && (typeEntry = context.dynTypeMap.get(":" + typeDescr)) == null) {
+						if (typeDescr != null && (typeEntry = context().dynTypeMap.get(":" + typeDescr)) == null) {
 							typeEntry = new TypeMapEntry(typeDescr, null, instr, lineNo, true, false, false);
 						}
-						context.dynTypeMap.put(target, typeEntry);
+						context().dynTypeMap.put(target, typeEntry);
 					}
 					else {
 						oldEntry.addDeclaration(typeDescr, instr, lineNo, true, false);
@@ -4916,11 +5277,11 @@ public class Executor implements Runnable
 				try {
 					String dummyVar = "prompt" + this.hashCode();
 					this.evaluateExpression(dummyVar + "=\"" + prompt + "\"", false, false);
-					Object res = context.interpreter.get(dummyVar);
+					Object res = context().interpreter.get(dummyVar);
 					if (res != null) {
 						prompt = res.toString();
 					}
-					context.interpreter.unset(dummyVar);
+					context().interpreter.unset(dummyVar);
 				}
 				catch (EvalError ex) {}
 				// END KGU#285 2016-10-16
@@ -5016,7 +5377,9 @@ public class Executor implements Runnable
 				this.console.setVisible(true);
 			}
 			// END KGU#160 2016-04-12
+			profiler.beginIdle();
 			String str = JOptionPane.showInputDialog(diagram.getParent(), prompt, null);
+			profiler.endIdle();
 			// END KGU#89 2016-03-18
 			// START KGU#84 2015-11-23: ER #36 - Allow a controlled continuation on cancelled input
 			//setVarRaw(in, str);
@@ -5038,7 +5401,7 @@ public class Executor implements Runnable
 				//control.setButtonsForPause();
 				control.setButtonsForPause(false);	// This avoids interference with the pause button
 				// END KGU#379 2017-04-12
-				if (!context.variables.contains(in))
+				if (!context().variables.contains(in))
 				{
 					// If the variable hasn't been used before, we must create it now
 					setVar(in, null);
@@ -5134,8 +5497,10 @@ public class Executor implements Runnable
 			{
 				// In step mode, there is no use to offer pausing
 				// diagram is a bad anchor component since its extension is the Root rectangle (may be huge!)
+				profiler.beginIdle();
 				JOptionPane.showMessageDialog(diagram.getParent(), s, control.lbOutput.getText(),
 						JOptionPane.INFORMATION_MESSAGE);
+				profiler.endIdle();
 			}
 			else
 			{
@@ -5145,8 +5510,10 @@ public class Executor implements Runnable
 						Control.lbPause.getText()
 				};
 				// diagram is a bad anchor component since its extension is the Root rectangle (may be huge!)
+				profiler.beginIdle();
 				int pressed = JOptionPane.showOptionDialog(diagram.getParent(), s, control.lbOutput.getText(),
 						JOptionPane.OK_CANCEL_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, null);
+				profiler.endIdle();
 				if (pressed == 1)
 				{
 					synchronized(this)
@@ -5212,7 +5579,7 @@ public class Executor implements Runnable
 				else if (step) {
 					// START KGU#160 2016-04-26: Issue #137 - also log the result to the console
 					if (this.console.logMeta()) {
-						this.console.writeln("*** " + header + ": " + prepareValueForDisplay(resObj, context.dynTypeMap), Color.CYAN);
+						this.console.writeln("*** " + header + ": " + prepareValueForDisplay(resObj, context().dynTypeMap), Color.CYAN);
 					}
 					// END KGU#160 2016-04-26
 					// START KGU#147 2016-01-29: This "unconverting" copied from tryOutput() didn't make sense...
@@ -5227,7 +5594,7 @@ public class Executor implements Runnable
 				else {
 					// START KGU#198 2016-05-25: Issue #137 - also log the result to the console
 					if (this.console.logMeta()) {
-						this.console.writeln("*** " + header + ": " + prepareValueForDisplay(resObj, context.dynTypeMap), Color.CYAN);
+						this.console.writeln("*** " + header + ": " + prepareValueForDisplay(resObj, context().dynTypeMap), Color.CYAN);
 					}
 					// END KGU#198 2016-05-25
 					// START KGU#84 2015-11-23: Enhancement to give a chance to pause (though of little use here)
@@ -5253,9 +5620,9 @@ public class Executor implements Runnable
 			}
 		}
 		
-		context.returnedValue = resObj;
+		context().returnedValue = resObj;
 		// END KGU#77 (#21) 2015-11-13
-		context.returned = true;
+		context().returned = true;
 		return trouble;
 	}
 
@@ -5311,7 +5678,7 @@ public class Executor implements Runnable
 				//Root sub = this.findSubroutineWithSignature(f.getName(), f.paramCount());
 				Root sub = null;
 				try {
-					sub = this.findSubroutineWithSignature(procName, f.paramCount());
+					sub = this.findSubroutineWithSignature(element, procName, f.paramCount());
 				} catch (Exception ex) {
 					return ex.getMessage();	// Ambiguous call!
 				}
@@ -5356,10 +5723,11 @@ public class Executor implements Runnable
 				String pSign = procName + "#" + args.length;
 				DiagramController controller = this.controllerProcedures.get(pSign);
 				if (controller != null) { 
-					HashMap<String, Method> procMap = controller.getProcedureMap(); 
 					// Check if the controller accepts a method with additional color argument, too
-					Method colMethod = procMap.get(procName + "#" + (args.length + 1));
-					if (colMethod != null && colMethod.getParameterTypes()[args.length] == Color.class) {
+					ControllerRoutine colRoutine = getControllerRoutine(controller, procName, args.length + 1);
+					Method colMethod = colRoutine == null ? null : colRoutine.getMethod();
+					if (colMethod != null && !colRoutine.isFunction()
+							&& colMethod.getParameterTypes()[args.length] == Color.class) {
 						Object[] argsColor = new Object[args.length+1];
 						for (int i = 0; i < args.length; i++) {
 							argsColor[i] = args[i];
@@ -5453,13 +5821,23 @@ public class Executor implements Runnable
 	}
 	// END KGU 2015-11-11
 
+	/**
+	 * Removes all occurrences of the parser keywords with the given preference names
+	 * from the token list, using the shared precompiled keyword matcher.
+	 * @param tokens - the split element text
+	 * @param keyNames - names of the parser preferences to be cut out (e.g. "preWhile")
+	 * @return the reduced token list (tokens itself if nothing had to be removed)
+	 */
+	private StringList cutOutKeywords(StringList tokens, String[] keyNames)
+	{
+		TokenSequenceMatcher matcher = CodeParser.getKeywordMatcher();
+		return matcher.removeAll(tokens, matcher.maskFor(keyNames));
+	}
+
 	private String stepCase(Case element)
 	{
 		// START KGU 2016-09-25: Bugfix #254
-		String[] parserKeys = new String[]{
-				CodeParser.getKeyword("preCase"),
-				CodeParser.getKeyword("postCase")
-				};
+		String[] parserKeys = new String[]{"preCase", "postCase"};
 		// END KGU 2016-09-25
 		String trouble = new String();
 		try
@@ -5471,13 +5849,7 @@ public class Executor implements Runnable
 			// START KGU#259 2016-09-25: Bugfix #254
 			//String expression = text.get(0) + " = ";
 			StringList tokens = Element.splitLexically(text.get(0), true);
-			for (String key : parserKeys)
-			{
-				if (!key.trim().isEmpty())
-				{
-					tokens.removeAll(Element.splitLexically(key, false), !CodeParser.ignoreCase);
-				}		
-			}
+			tokens = cutOutKeywords(tokens, parserKeys);
 			// START KGU#417 2017-06-30: Enh. #424
 			//String expression = tokens.concatenate() + " = ";
 			String expression = this.evaluateDiagramControllerFunctions(tokens.concatenate()) + " = ";
@@ -5516,13 +5888,7 @@ public class Executor implements Runnable
 						// START KGU#259 2016-09-25: Bugfix #254
 						//String test = convert(expression + constants[c]);
 						tokens = Element.splitLexically(constants[c], true);
-						for (String key : parserKeys)
-						{
-							if (!key.trim().isEmpty())
-							{
-								tokens.removeAll(Element.splitLexically(key, false), !CodeParser.ignoreCase);
-							}		
-						}
+						tokens = cutOutKeywords(tokens, parserKeys);
 						String test = convert(expression + tokens.concatenate());
 						// END KGU#259 2016-09-25
 						Object n = this.evaluateExpression(test, false, false);
@@ -5588,15 +5954,7 @@ public class Executor implements Runnable
 //
 //			s = convert(s);
 			StringList tokens = Element.splitLexically(s, true);
-			for (String key : new String[]{
-					CodeParser.getKeyword("preAlt"),
-					CodeParser.getKeyword("postAlt")})
-			{
-				if (!key.trim().isEmpty())
-				{
-					tokens.removeAll(Element.splitLexically(key, false), !CodeParser.ignoreCase);
-				}		
-			}
+			tokens = cutOutKeywords(tokens, new String[]{"preAlt", "postAlt"});
 			s = convert(tokens.concatenate());
 			// END KGU#150 2016-04-03
 
@@ -5699,15 +6057,7 @@ public class Executor implements Runnable
 //				// END KGU#79 2015-11-12
 //				// System.out.println("WHILE: "+condStr);
 				StringList tokens = Element.splitLexically(condStr, true);
-				for (String key : new String[]{
-						CodeParser.getKeyword("preWhile"),
-						CodeParser.getKeyword("postWhile")})
-				{
-					if (!key.trim().isEmpty())
-					{
-						tokens.removeAll(Element.splitLexically(key, false), !CodeParser.ignoreCase);
-					}		
-				}
+				tokens = cutOutKeywords(tokens, new String[]{"preWhile", "postWhile"});
 				// START KGU#433 2017-10-11: Bugfix #434 Don't try to be too clever here - variables might change type within the loop..
 				//condStr = convert(tokens.concatenate());
 				condStr = convert(tokens.concatenate(), false);
@@ -5738,9 +6088,9 @@ public class Executor implements Runnable
 				// START KGU#77/KGU#78 2015-11-25: Leave if any kind of Jump statement has been executed
 				//while (cond.toString().equals("true") && trouble.equals("")
 				//		&& (stop == false))
-				context.loopDepth++;
+				context().loopDepth++;
 				while (cond.toString().equals("true") && trouble.equals("")
-						&& (stop == false) && !context.returned && leave == 0)
+						&& (stop == false) && !context().returned && context().leave == 0)
 				// END KGU#77/KGU#78 2015-11-25
 				{
 
@@ -5813,11 +6163,11 @@ public class Executor implements Runnable
 						
 				}
 				// START KGU#78 2015-11-25: If there are open leave requests then nibble one off
-				if (leave > 0)
+				if (context().leave > 0)
 				{
-					leave--;
+					context().leave--;
 				}
-				context.loopDepth--;
+				context().loopDepth--;
 				// END KGU#78 2015-11-25
 			}
 			if (trouble.equals(""))
@@ -5845,7 +6195,7 @@ public class Executor implements Runnable
 			element.waited = true;
 			if (delay != 0 || step)
 			{
-				diagram.redraw();
+				eventBus.publish(ExecutionEvent.Kind.STATUS_CHANGED, null);
 			}
 
 			// The exit condition is converted and parsed once in advance!
@@ -5869,15 +6219,7 @@ public class Executor implements Runnable
 //			}
 //			condStr = convert(condStr, false);
 			StringList tokens = Element.splitLexically(condStr, true);
-			for (String key : new String[]{
-					CodeParser.getKeyword("preRepeat"),
-					CodeParser.getKeyword("postRepeat")})
-			{
-				if (!key.trim().isEmpty())
-				{
-					tokens.removeAll(Element.splitLexically(key, false), !CodeParser.ignoreCase);
-				}		
-			}
+			tokens = cutOutKeywords(tokens, new String[]{"preRepeat", "postRepeat"});
 			// START KGU#433 2017-10-11: Bugfix #434 Don't try to be too clever here - variables might change type within the loop...
 			//condStr = convert(tokens.concatenate());
 			condStr = convert(tokens.concatenate(), false);
@@ -5903,7 +6245,7 @@ public class Executor implements Runnable
 			// END KGU#487 2018-01-23
 			{
 				// START KGU#78 2015-11-25: In order to handle exits we must know the nesting depth
-				context.loopDepth++;
+				context().loopDepth++;
 				// END KGU#78
 				do
 				{
@@ -5960,15 +6302,15 @@ public class Executor implements Runnable
 				// START KGU#77/KGU#78 2015-11-25: Leave if some kind of Jump statement has been executed
 				//} while (!(n.toString().equals("true")) && trouble.equals("") && (stop == false))
 				} while (cond != null && !(cond.toString().equals("true")) && trouble.equals("") && (stop == false) &&
-						!context.returned && leave == 0);
+						!context().returned && context().leave == 0);
 				// END KGU#77/KGU#78 2015-11-25
 				// END KGU#70 2015-11-09
 				// START KGU#78 2015-11-25: If there are open leave requests then nibble one off
-				if (leave > 0)
+				if (context().leave > 0)
 				{
-					leave--;
+					context().leave--;
 				}
-				context.loopDepth--;
+				context().loopDepth--;
 				// END KGU#78 2015-11-25
 			}
 
@@ -5998,7 +6340,7 @@ public class Executor implements Runnable
 		// END KGU#61 2016-03-21
 		String trouble = new String();
 		// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
-		int forLoopLevel = context.forLoopVars.count();
+		int forLoopLevel = context().forLoopVars.count();
 		// END KGU#307 2016-12-12
 		try
 		{
@@ -6018,7 +6360,8 @@ public class Executor implements Runnable
 //			// 3. the pas value was parsed again and again in every loop.
 //			// 4. It's certainly not consistent with code export
 //			// To solve 2 and 3 we provide the Integer conversion once in advance
-			int sval = element.getStepConst();
+			For.LoopDescriptor loop = element.getLoopDescriptor();
+			int sval = loop.stepConst;
 			// END KGU#3 2015-10-31
                             
 			// START KGU#3 2015-10-27: Now replaced by For-intrinsic mechanisms
@@ -6037,20 +6380,32 @@ public class Executor implements Runnable
 //			// do other transformations
 //			str = CGenerator.transform(str);
 //			String counter = str.substring(0, str.indexOf("="));
-			String counter = element.getCounterVar();
+			String counter = loop.counterVar;
 			// END KGU#3 2015-10-27
 			// complete
+			// The start and end value expressions are converted only once per loop (except
+			// for the string comparisons, which depend on the runtime types of the operands)
+			String[] bounds;
+			synchronized (forBounds) {
+				bounds = forBounds.get(element.getId());
+			}
+			if (bounds == null || !bounds[0].equals(loop.startValue) || !bounds[1].equals(loop.endValue)) {
+				bounds = new String[]{loop.startValue, loop.endValue,
+						convert(loop.startValue, false), convert(loop.endValue, false)};
+				synchronized (forBounds) {
+					forBounds.put(element.getId(), bounds);
+				}
+			}
 			
 			// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
-			context.forLoopVars.add(counter);
+			context().forLoopVars.add(counter);
 			// END KGU#307 2016-12-12
 
 			// START KGU#3 2015-10-27: Now replaced by For-intrinsic mechanisms
 //			String s = str.substring(str.indexOf("=") + 1,
 //					str.indexOf("<=")).trim();
-			String s = element.getStartValue(); 
+			String s = convertStringComparison(bounds[2]);
 			// END KGU#3 2015-10-27
-			s = convert(s);
 			// START KGU#417 2017-06-30: Enh. #424 - Turtleizer functions must be evaluated
 			s = this.evaluateDiagramControllerFunctions(s);
 			// END KGU#417 2017-06-30
@@ -6082,9 +6437,8 @@ public class Executor implements Runnable
 
 			// START KGU#3 2015-10-27: Now replaced by For-intrinsic mechanisms
 //			s = str.substring(str.indexOf("<=") + 2, str.length()).trim();
-			s = element.getEndValue();
+			s = convertStringComparison(bounds[3]);
 			// END KGU#3 2015-10-27
-			s = convert(s);
 			// START KGU#417 2017-06-30: Enh. #424 - Turtleizer functions must be evaluated
 			s = this.evaluateDiagramControllerFunctions(s);
 			// END KGU#417 2017-06-30
@@ -6119,17 +6473,32 @@ public class Executor implements Runnable
 			//END KGU#156 2016-03-11
 			
 			int cw = ival;
+			// After the first regular assignment (which checks for constants and loop variable
+			// conflicts) a plain counter variable may simply be overwritten
+			boolean counterSet = false;
 			// START KGU#77/KGU#78 2015-11-25: Leave if some kind of Jump statement has been executed
 			//while (((sval >= 0) ? (cw <= fval) : (cw >= fval)) && trouble.equals("") && (stop == false))
-			context.loopDepth++;
+			context().loopDepth++;
 			while (((sval >= 0) ? (cw <= fval) : (cw >= fval)) && trouble.equals("") &&
-					(stop == false) && !context.returned && leave == 0)
+					(stop == false) && !context().returned && context().leave == 0)
 			// END KGU#77/KGU#78 2015-11-25
 			{
-				// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
-				//setVar(counter, cw);
-				setVar(counter, cw, forLoopLevel-1);
-				// END KGU#307 2016-12-12
+				if (counterSet && loop.isSimpleCounter)
+				{
+					context().interpreter.set(counter, cw);
+					if (delay != 0 || step)
+					{
+						updateVariableDisplay();
+					}
+				}
+				else
+				{
+					// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
+					//setVar(counter, cw);
+					setVar(counter, cw, forLoopLevel-1);
+					// END KGU#307 2016-12-12
+					counterSet = true;
+				}
 				element.waited = true;
 
 
@@ -6160,7 +6529,7 @@ public class Executor implements Runnable
 				element.executed = true;
 				if (delay != 0 || step)
 				{
-					diagram.redraw();
+					eventBus.publish(ExecutionEvent.Kind.STATUS_CHANGED, null);
 				}
 				checkBreakpoint(element);
 				delay();
@@ -6180,11 +6549,11 @@ public class Executor implements Runnable
 				// END KGU 2015-10-13
 			}
 			// START KGU#78 2015-11-25
-			if (leave > 0)
+			if (context().leave > 0)
 			{
-				leave--;
+				context().leave--;
 			}
-			context.loopDepth--;
+			context().loopDepth--;
 			// END KGU#78 2015-11-25
 			if (trouble.equals(""))
 			{
@@ -6196,8 +6565,8 @@ public class Executor implements Runnable
 			trouble = ex.getMessage();
 		}
 		// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
-		while (forLoopLevel < context.forLoopVars.count()) {
-			context.forLoopVars.remove(forLoopLevel);
+		while (forLoopLevel < context().forLoopVars.count()) {
+			context().forLoopVars.remove(forLoopLevel);
 		}
 		// END KGU#307 2016-12-12
 		return trouble;
@@ -6209,10 +6578,11 @@ public class Executor implements Runnable
 	{
 		String trouble = new String();
 		// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
-		int forLoopLevel = context.forLoopVars.count();
+		int forLoopLevel = context().forLoopVars.count();
 		// END KGU#307 2016-12-12
-		String valueListString = element.getValueList();
-		String iterVar = element.getCounterVar();
+		For.LoopDescriptor loop = element.getLoopDescriptor();
+		String valueListString = loop.valueList;
+		String iterVar = loop.counterVar;
 		Object[] valueList = null;
 		String problem = "";	// Gathers exception descriptions for analysis purposes
 		Object value = null;
@@ -6274,7 +6644,7 @@ public class Executor implements Runnable
 				// In case it was a variable or function, it MUST contain or return an array to be acceptable
 				if (value != null && /*!(value instanceof Object[]) &&*/ !(value instanceof ArrayList<?>) && !(value instanceof String)) {
 					valueNoArray = true;
-					problem += valueListString + " = " + prepareValueForDisplay(value, context.dynTypeMap);
+					problem += valueListString + " = " + prepareValueForDisplay(value, context().dynTypeMap);
 				}
 				// END KGU#429 2017-10-08
 			}
@@ -6341,15 +6711,15 @@ public class Executor implements Runnable
 		{
 				element.addToExecTotalCount(1, true);	// For the condition evaluation
 				// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
-				context.forLoopVars.add(iterVar);
+				context().forLoopVars.add(iterVar);
 				// END KGU#307 2016-12-12
 
 				// Leave if any kind of Jump statement has been executed
-				context.loopDepth++;
+				context().loopDepth++;
 				int cw = 0;
 
 				while (cw < valueList.length && trouble.equals("")
-						&& (stop == false) && !context.returned && leave == 0)
+						&& (stop == false) && !context().returned && context().leave == 0)
 				{
 					try
 					{
@@ -6358,12 +6728,12 @@ public class Executor implements Runnable
 						TypeMapEntry iterType = null;
 						if (iterVal instanceof HashMap<?,?>) {
 							Object typeName = ((HashMap<?, ?>)iterVal).get("§TYPENAME§");
-							if (typeName instanceof String && (iterType = context.dynTypeMap.get(":" + typeName)) != null) {
-								context.dynTypeMap.put(iterVar, iterType);
+							if (typeName instanceof String && (iterType = context().dynTypeMap.get(":" + typeName)) != null) {
+								context().dynTypeMap.put(iterVar, iterType);
 							}
 						}
-						else if (iterVal != null && (iterType = context.dynTypeMap.get(iterVar)) != null && iterType.isRecord()) {
-							context.dynTypeMap.remove(iterVar);
+						else if (iterVal != null && (iterType = context().dynTypeMap.get(iterVar)) != null && iterType.isRecord()) {
+							context().dynTypeMap.remove(iterVar);
 						}
 						// END KGU#388 2017-09-27
 						// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
@@ -6394,14 +6764,14 @@ public class Executor implements Runnable
 					}
 				}
 				// If there are open leave requests then nibble one off
-				if (leave > 0)
+				if (context().leave > 0)
 				{
-					leave--;
+					context().leave--;
 				}
-				context.loopDepth--;
+				context().loopDepth--;
 				// START KGU#307 2016-12-12: Issue #307 - prepare warnings on loop variable manipulations
-				while (forLoopLevel < context.forLoopVars.count()) {
-					context.forLoopVars.remove(forLoopLevel);
+				while (forLoopLevel < context().forLoopVars.count()) {
+					context().forLoopVars.remove(forLoopLevel);
 				}
 				// END KGU#307 2016-12-12
 		}
@@ -6421,10 +6791,15 @@ public class Executor implements Runnable
 	
 	private String stepParallel(Parallel element)
 	{
+		if (parallelThreads && !step && element.qs.size() > 1
+				&& !(Thread.currentThread() instanceof ParallelBranch)
+				&& !containsCalls(element)) {
+			return stepParallelThreaded(element);
+		}
 		String trouble = new String();
 		try
 		{
-			int outerLoopDepth = context.loopDepth;
+			int outerLoopDepth = context().loopDepth;
 			int nThreads = element.qs.size();
 			// For each of the parallel "threads" fetch a subqueue's Element iterator...
 			Vector<Iterator<Element> > undoneThreads = new Vector<Iterator<Element>>();
@@ -6441,9 +6816,9 @@ public class Executor implements Runnable
 			// The first condition holds if there is at least one unexhausted "thread"
 			// START KGU#77/KGU#78 2015-11-25: Leave if some kind of Jump statement has been executed
 			//while (!undoneThreads.isEmpty() && trouble.equals("") && (stop == false))
-			context.loopDepth = 0;	// Loop exits may not penetrate the Parallel section
+			context().loopDepth = 0;	// Loop exits may not penetrate the Parallel section
 			while (!undoneThreads.isEmpty() && trouble.equals("") && (stop == false) &&
-					!context.returned && leave == 0)
+					!context().returned && context().leave == 0)
 			// END KGU#77/KGU#78 2015-11-25
 			{
 				// Pick one of the "threads" by chance
@@ -6467,13 +6842,13 @@ public class Executor implements Runnable
 					// In order to allow better tracking we put the executed instructions into `waited´ state...
 					instr.waited = true;
 					// START KGU#78 2015-11-25: Parallel sections are impermeable for leave requests!
-					if (trouble == "" && leave > 0)
+					if (trouble == "" && context().leave > 0)
 					{
 						// This should never happen (the leave instruction should have failed already)
 						// At least we will kill the causing thread...
 						undoneThreads.remove(threadNr);
 						// ...and then of course wipe the remaining requested levels
-						leave = 0;
+						context().leave = 0;
 						// As it is not only a user syntax error but also a flaw in the Structorizer mechanisms we better report it
 						// START KGU#247 2016-09-17: Issue #243
 						//JOptionPane.showMessageDialog(diagram, "Uncaught attempt to jump out of a parallel thread:\n\n" + 
@@ -6487,7 +6862,7 @@ public class Executor implements Runnable
 					// END KGU#78 2015-11-25
 				}                
 			}
-			context.loopDepth = outerLoopDepth;	// Restore the original context
+			context().loopDepth = outerLoopDepth;	// Restore the original context
 			if (trouble.equals(""))
 			{
 				// Recursively reset all `waited´ flags of the subqueues now finished
@@ -6500,6 +6875,247 @@ public class Executor implements Runnable
 		return trouble;
 	}
 
+	/**
+	 * Checks whether the substructure of the given {@link Parallel} element contains
+	 * {@link Call} elements. Since subroutine and import calls replace the execution
+	 * context, such Parallel elements can't be executed on worker threads.
+	 */
+	private boolean containsCalls(Parallel element)
+	{
+		final boolean[] found = {false};
+		element.traverse(new IElementVisitor() {
+			@Override
+			public boolean visitPreOrder(Element _ele) {
+				if (_ele instanceof Call) {
+					found[0] = true;
+				}
+				return !found[0];
+			}
+			@Override
+			public boolean visitPostOrder(Element _ele) {
+				return true;
+			}
+		});
+		return found[0];
+	}
+
+	/**
+	 * Executes the branches of the given {@link Parallel} element concurrently, each on
+	 * a {@link ParallelBranch} worker thread with a private execution context. The current
+	 * thread waits until all branches have terminated.<br/>
+	 * The branches start with copies of the current variable values. Afterwards, the
+	 * variables a branch introduced or assigned a different value are copied back in branch
+	 * order (i.e. with concurrent assignments, the rightmost branch wins). Arrays and records
+	 * are not copied but shared, their elements and components are modified without any
+	 * synchronization - just as with real threads.<br/>
+	 * If a branch fails then the other branches are aborted and its error is returned.
+	 * @param element - the Parallel element
+	 * @return the error message of the first failing branch or an empty string
+	 * @see #stepParallel(Parallel)
+	 */
+	private String stepParallelThreaded(Parallel element)
+	{
+		String trouble = "";
+		ExecutionContext parent = context();
+		element.waited = true;
+		try
+		{
+			// Snapshot of the variable values at fork time to find the changes afterwards
+			HashMap<String, Object> forkValues = new HashMap<String, Object>();
+			for (int i = 0; i < parent.variables.count(); i++) {
+				String varName = parent.variables.get(i);
+				forkValues.put(varName, parent.interpreter.get(varName));
+			}
+			int nBranches = element.qs.size();
+			ParallelBranch[] branches = new ParallelBranch[nBranches];
+			for (int i = 0; i < nBranches; i++) {
+				ExecutionContext branchContext = new ExecutionContext(parent.root, parent.importList.copy());
+				branchContext.variables = parent.variables.copy();
+				branchContext.forLoopVars = parent.forLoopVars.copy();
+				branchContext.constants = new HashMap<String, Object>(parent.constants);
+				branchContext.dynTypeMap = new HashMap<String, TypeMapEntry>(parent.dynTypeMap);
+				branches[i] = new ParallelBranch(element, i, parent, branchContext, branches);
+			}
+			for (ParallelBranch branch: branches) {
+				branch.start();
+			}
+			boolean interrupted = false;
+			for (ParallelBranch branch: branches) {
+				while (branch.isAlive()) {
+					try {
+						branch.join();
+					}
+					catch (InterruptedException ex) {
+						interrupted = true;
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			for (ParallelBranch branch: branches) {
+				element.addToExecTotalCount(branch.execSteps, false);
+				if (trouble.isEmpty() && !branch.trouble.isEmpty()) {
+					trouble = branch.trouble;
+				}
+				if (branch.jumpOut != null) {
+					JOptionPane.showMessageDialog(diagram.getParent(), control.msgJumpOutParallel.getText().replace("%", "\n\n" + 
+							branch.jumpOut.getText().getText().replace("\n",  "\n\t") + "\n\n"),
+							control.msgTitleParallel.getText(), JOptionPane.WARNING_MESSAGE);
+				}
+			}
+			if (trouble.isEmpty())
+			{
+				// Join the branch contexts into the parent context (in branch order)
+				for (ParallelBranch branch: branches) {
+					ExecutionContext branchContext = branch.context;
+					StringList changedVars = new StringList();
+					for (int i = 0; i < branchContext.variables.count(); i++) {
+						String varName = branchContext.variables.get(i);
+						Object value = branchContext.interpreter.get(varName);
+						if (!forkValues.containsKey(varName)) {
+							changedVars.add(varName);
+						}
+						else {
+							Object oldValue = forkValues.get(varName);
+							if (value != oldValue && (value == null || !value.equals(oldValue))) {
+								changedVars.add(varName);
+							}
+						}
+					}
+					this.copyInterpreterContents(branchContext.interpreter, parent.interpreter,
+							changedVars, branchContext.constants.keySet(), true);
+					parent.variables.addIfNew(changedVars);
+					for (Entry<String, Object> constEntry: branchContext.constants.entrySet()) {
+						if (!parent.constants.containsKey(constEntry.getKey())) {
+							parent.constants.put(constEntry.getKey(), constEntry.getValue());
+						}
+					}
+					for (Entry<String, TypeMapEntry> typeEntry: branchContext.dynTypeMap.entrySet()) {
+						if (!parent.dynTypeMap.containsKey(typeEntry.getKey())) {
+							parent.dynTypeMap.put(typeEntry.getKey(), typeEntry.getValue());
+						}
+					}
+					if (branchContext.returned && !branch.aborted && !parent.returned) {
+						parent.returned = true;
+						parent.returnedValue = branchContext.returnedValue;
+					}
+				}
+				// Recursively reset all `waited´ flags of the subqueues now finished
+				element.clearExecutionStatus();
+				updateVariableDisplayIfVisible();
+			}
+		}
+		catch (EvalError ex)
+		{
+			trouble = ex.getMessage();
+		}
+		catch (Error ex)
+		{
+			trouble = ex.getMessage();
+		}
+		return trouble;
+	}
+
+	/**
+	 * Worker thread executing one branch of a {@link Parallel} element with its own
+	 * execution context (see {@link Executor#stepParallelThreaded(Parallel)}).
+	 * While this thread is running, {@link Executor#context()} yields the branch context.
+	 */
+	private final class ParallelBranch extends Thread
+	{
+		/** The private execution context of this branch */
+		final ExecutionContext context;
+		private final ExecutionContext parentContext;
+		private final Subqueue body;
+		/** All branches of the Parallel element (including this one) */
+		private final ParallelBranch[] siblings;
+		/** Error message (empty if the branch terminated regularly) */
+		String trouble = "";
+		/** A jump instruction that attempted to leave the Parallel element, if any */
+		Element jumpOut = null;
+		/** Number of execution steps performed in this branch */
+		int execSteps = 0;
+		/** Set if this branch was stopped due to the failure of a sibling */
+		volatile boolean aborted = false;
+		/** Profiling stack path of the forking thread, continued by this branch */
+		private final ExecutionProfiler.PathNode profilePath;
+
+		ParallelBranch(Parallel _element, int _index, ExecutionContext _parentContext,
+				ExecutionContext _context, ParallelBranch[] _siblings)
+		{
+			super("Parallel-" + _element.hashCode() + "-" + (_index + 1));
+			setDaemon(true);
+			context = _context;
+			parentContext = _parentContext;
+			body = _element.qs.get(_index);
+			siblings = _siblings;
+			profilePath = profiler.getCurrentPath();
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				profiler.setBasePath(profilePath);
+				initInterpreter();
+				copyInterpreterContents(parentContext.interpreter, context.interpreter,
+						context.variables, context.constants.keySet(), true);
+				Iterator<Element> iter = body.getIterator();
+				while (iter.hasNext() && trouble.isEmpty() && !stop && !context.returned)
+				{
+					Element instr = iter.next();
+					int oldExecCount = instr.getExecStepCount(true);
+					trouble = step(instr);
+					execSteps += instr.getExecStepCount(true) - oldExecCount;
+					// In order to allow better tracking we put the executed instructions into `waited´ state...
+					instr.waited = true;
+					// Parallel sections are impermeable for leave requests!
+					if (trouble.isEmpty() && context.leave > 0)
+					{
+						jumpOut = instr;
+						context.leave = 0;
+						break;
+					}
+				}
+			}
+			catch (Throwable ex)
+			{
+				trouble = ex.getMessage() != null ? ex.getMessage() : ex.toString();
+			}
+			if (!trouble.isEmpty()) {
+				// Abort the other branches
+				for (ParallelBranch sibling: siblings) {
+					if (sibling != this) {
+						sibling.aborted = true;
+						sibling.context.returned = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Enables or disables the execution of Parallel elements on worker threads (only
+	 * effective outside step mode and for Parallel elements without Call elements). 
+	 * The initial setting is taken from system property "structorizer.parallelThreads".
+	 * @param _enabled - true for threaded execution, false for the interleaved simulation
+	 */
+	public void setParallelThreadsEnabled(boolean _enabled)
+	{
+		this.parallelThreads = _enabled;
+	}
+
+	/**
+	 * @return true if Parallel elements are executed on worker threads (outside step mode)
+	 * @see #setParallelThreadsEnabled(boolean)
+	 */
+	public boolean isParallelThreadsEnabled()
+	{
+		return this.parallelThreads;
+	}
+
 	// START KGU#117 2016-03-07: Enh. #77 - to track test coverage a consistent subqueue handling is necessary
 	String stepSubqueue(Subqueue sq, boolean checkLeave)
 	{
@@ -6507,8 +7123,8 @@ public class Executor implements Runnable
 		
 		int i = 0;
 		while ((i < sq.getSize())
-				&& trouble.equals("") && (stop == false) && !context.returned
-				&& (!checkLeave || leave == 0))
+				&& trouble.equals("") && (stop == false) && !context().returned
+				&& (!checkLeave || context().leave == 0))
 		{
 			// START KGU#156 2016-03-11: Enh. #124
 			//trouble = step(sq.getElement(i));
@@ -6600,31 +7216,32 @@ public class Executor implements Runnable
 			do {
 				error423 = false;
 				try {
-					value = context.interpreter.eval(expr);
+					value = context().interpreter.eval(expr);
 				}
 				catch (EvalError err) {
 					String error423message = err.getMessage(); 
+					Matcher errorMatcher = null;
 					if (error423message.contains(ERROR423MESSAGE)) {
-						if (ERROR423MATCHER.reset(error423message).matches()) {
+						if ((errorMatcher = ERROR423PATTERN.matcher(error423message)).matches()) {
 							// Restore the assumed original attribute access and try again
 							// (this will at least induce a less confusing message)
 							// Could still be improved as we obtain in the end of the message the very name
-							expr = ERROR423MATCHER.group(1) + ERROR423MATCHER.group(2) + ERROR423MATCHER.group(3);
+							expr = errorMatcher.group(1) + errorMatcher.group(2) + errorMatcher.group(3);
 							error423 = true;
 						}
 					}
 					// START KGU#509 2018-03-20: Issue #527 - index range problem detection for more helpful message
-					else if (ERROR527MATCHER.reset(error423message).matches()) {
+					else if ((errorMatcher = ERROR527PATTERN.matcher(error423message)).matches()) {
 						try {
-							Object potArray = context.interpreter.eval(ERROR527MATCHER.group(4));
-							Object potIndex = context.interpreter.eval(ERROR527MATCHER.group(2));
+							Object potArray = context().interpreter.eval(errorMatcher.group(4));
+							Object potIndex = context().interpreter.eval(errorMatcher.group(2));
 							if (potArray instanceof ArrayList && potIndex instanceof Integer) {
 								int index = ((Integer)potIndex).intValue();
 								if (index < 0 || index >= ((ArrayList<?>)potArray).size()) {
 									err.setMessage(control.msgIndexOutOfBounds.getText().
-											replace("%1", ERROR527MATCHER.group(2)).
+											replace("%1", errorMatcher.group(2)).
 											replace("%2", Integer.toString(index)).
-											replace("%3", ERROR527MATCHER.group(4)));
+											replace("%3", errorMatcher.group(4)));
 								}
 							}
 						}
@@ -6667,11 +7284,12 @@ public class Executor implements Runnable
 			throw new EvalError(control.msgInvalidExpr.getText().replace("%1", _expr), null, null);				
 		}
 		elementExprs.remove(--nElements);
-		ArrayList<Object> valueArray = new ArrayList<Object>(nElements);
+		Object[] values = new Object[nElements];
 		for (int i = 0; i < nElements; i++) {
-			valueArray.add(evaluateExpression(elementExprs.get(i), true, false));
+			values[i] = evaluateExpression(elementExprs.get(i), true, false);
 		}
-		return valueArray;
+		// Homogeneous numeric or character arrays get a compact representation
+		return TypedArrayList.of(values);
 	}
 	// END KGU#100 2016-01-14
 	// START KGU#388 2017-09-13: Enh. #423 - accept record assignments with syntax recordVar <- typename{comp1: val1, comp2: val2, ..., compN: valN}
@@ -0,0 +1,759 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Shneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.executor;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Array values of the Executor backed by primitive arrays
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026-10-19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      Arrays are represented as ArrayList<Object> in the Executor (and in the BeanShell interpreter,
+ *      where element accesses are rewritten into get() and set() calls). With boxed elements, large
+ *      numeric arrays need several times the memory of the actual data. A TypedArrayList holds its
+ *      elements in an int[], long[], double[], or char[] as long as all elements are Integer, Long,
+ *      Double, or Character objects, respectively (exactly the class, such that get() returns values
+ *      equal to the stored ones and the interpreter semantics doesn't change).
+ *      As soon as a value of another class (or null) is to be stored, the list converts itself into
+ *      a generic ArrayList (i.e. the elements are moved into the inherited storage and all methods
+ *      delegate to the superclass), so the object identity, which the interpreter variables and
+ *      enclosing records or arrays rely on, is retained.
+ *      Bulk operations without a specialized implementation (e.g. subList, removeAll) convert the
+ *      list first. Iterators of specialized lists aren't fail-fast.
+ *
+ ******************************************************************************************************///
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * An {@link ArrayList} of numbers or characters stored in a primitive array, which
+ * transparently turns into a generic {@link ArrayList} when a value of another type is stored.
+ * Use the factory methods to obtain array values for the Executor.
+ * @author agent
+ */
+public class TypedArrayList extends ArrayList<Object> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The specializable element types (with the exact classes of the element values) */
+	public static enum ElementType {
+		INT(Integer.class, "int"),
+		LONG(Long.class, "long"),
+		DOUBLE(Double.class, "double"),
+		CHAR(Character.class, "char");
+
+		private final Class<?> valueClass;
+		private final String typeName;
+
+		private ElementType(Class<?> _valueClass, String _typeName)
+		{
+			valueClass = _valueClass;
+			typeName = _typeName;
+		}
+
+		/**
+		 * @param _value - some value
+		 * @return the element type specialized for values like {@code _value} or null
+		 */
+		public static ElementType forValue(Object _value)
+		{
+			if (_value != null) {
+				for (ElementType type: values()) {
+					if (_value.getClass() == type.valueClass) {
+						return type;
+					}
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @param _canonicalType - a canonicalized array type description as obtained by
+		 * {@link lu.fisch.structorizer.elements.TypeMapEntry#getCanonicalType(boolean, boolean)}
+		 * (e.g. "@int")
+		 * @return the element type specialized for the elements of a one-dimensional array of the
+		 * given type or null
+		 */
+		public static ElementType forArrayType(String _canonicalType)
+		{
+			if (_canonicalType != null && _canonicalType.startsWith("@")) {
+				String elementType = _canonicalType.substring(1);
+				for (ElementType type: values()) {
+					if (elementType.equals(type.typeName)) {
+						return type;
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	/** Minimum capacity of an allocated primitive array */
+	private static final int MIN_CAPACITY = 10;
+
+	/** The current element type or null if the list has turned generic */
+	private ElementType elementType;
+	private int[] ints = null;
+	private long[] longs = null;
+	private double[] doubles = null;
+	private char[] chars = null;
+	/** Number of elements in the primitive array */
+	private int count = 0;
+
+	private TypedArrayList(ElementType _elementType, int _capacity)
+	{
+		super(0);
+		elementType = _elementType;
+		allocate(Math.max(_capacity, MIN_CAPACITY));
+	}
+
+	// ================ Factory methods ================
+
+	/**
+	 * Creates an empty array value, specialized according to the declared type or - if
+	 * that doesn't designate a specializable array type - to the prospective first element.
+	 * @param _canonicalType - the canonicalized declared type of the array (e.g. "@double") or null
+	 * @param _firstValue - the first value to be stored or null
+	 * @param _capacity - the expected number of elements
+	 * @return a new empty list (possibly a generic {@link ArrayList})
+	 */
+	public static ArrayList<Object> create(String _canonicalType, Object _firstValue, int _capacity)
+	{
+		ElementType type = ElementType.forArrayType(_canonicalType);
+		if (type == null) {
+			type = ElementType.forValue(_firstValue);
+		}
+		if (type == null) {
+			return new ArrayList<Object>(_capacity);
+		}
+		return new TypedArrayList(type, _capacity);
+	}
+
+	/**
+	 * Creates an array value containing the given {@code _values} in a specialized
+	 * representation if all values are of the same specializable type.
+	 * @param _values - the element values
+	 * @return a new list (possibly a generic {@link ArrayList})
+	 */
+	public static ArrayList<Object> of(Object[] _values)
+	{
+		ArrayList<Object> list = create(null, _values.length > 0 ? _values[0] : null, _values.length);
+		for (Object value: _values) {
+			list.add(value);
+		}
+		return list;
+	}
+
+	/**
+	 * Creates a shallow copy of the given array value, in a specialized representation
+	 * if possible.
+	 * @param _source - the list to be copied
+	 * @return a new list (possibly a generic {@link ArrayList})
+	 */
+	public static ArrayList<Object> copyOf(Collection<?> _source)
+	{
+		if (_source instanceof TypedArrayList) {
+			return ((TypedArrayList)_source).clone();
+		}
+		return of(_source.toArray());
+	}
+
+	/**
+	 * @return the element type of the primitive array holding the elements, or null if this
+	 * list has turned into a generic list
+	 */
+	public ElementType getElementType()
+	{
+		return elementType;
+	}
+
+	// ================ Specialized element access ================
+
+	@Override
+	public int size()
+	{
+		if (elementType == null) {
+			return super.size();
+		}
+		return count;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	@Override
+	public Object get(int _index)
+	{
+		if (elementType == null) {
+			return super.get(_index);
+		}
+		checkIndex(_index, count);
+		return load(_index);
+	}
+
+	@Override
+	public Object set(int _index, Object _value)
+	{
+		if (elementType == null) {
+			return super.set(_index, _value);
+		}
+		checkIndex(_index, count);
+		if (!accepts(_value)) {
+			promote();
+			return super.set(_index, _value);
+		}
+		Object old = load(_index);
+		store(_index, _value);
+		return old;
+	}
+
+	@Override
+	public boolean add(Object _value)
+	{
+		if (elementType == null || !accepts(_value)) {
+			promote();
+			return super.add(_value);
+		}
+		ensureCapacity(count + 1);
+		store(count++, _value);
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void add(int _index, Object _value)
+	{
+		if (elementType == null || !accepts(_value)) {
+			promote();
+			super.add(_index, _value);
+			return;
+		}
+		checkIndex(_index, count + 1);
+		ensureCapacity(count + 1);
+		Object array = getArray();
+		System.arraycopy(array, _index, array, _index + 1, count - _index);
+		count++;
+		store(_index, _value);
+		modCount++;
+	}
+
+	@Override
+	public Object remove(int _index)
+	{
+		if (elementType == null) {
+			return super.remove(_index);
+		}
+		checkIndex(_index, count);
+		Object old = load(_index);
+		Object array = getArray();
+		System.arraycopy(array, _index + 1, array, _index, count - _index - 1);
+		count--;
+		modCount++;
+		return old;
+	}
+
+	@Override
+	public boolean remove(Object _value)
+	{
+		if (elementType == null) {
+			return super.remove(_value);
+		}
+		int index = indexOf(_value);
+		if (index >= 0) {
+			remove(index);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void clear()
+	{
+		if (elementType == null) {
+			super.clear();
+		}
+		else {
+			count = 0;
+			modCount++;
+		}
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Object> _values)
+	{
+		if (elementType == null) {
+			return super.addAll(_values);
+		}
+		Object[] values = _values.toArray();
+		ensureCapacity(count + values.length);
+		for (Object value: values) {
+			add(value);
+		}
+		return values.length > 0;
+	}
+
+	@Override
+	public boolean contains(Object _value)
+	{
+		return indexOf(_value) >= 0;
+	}
+
+	@Override
+	public int indexOf(Object _value)
+	{
+		if (elementType == null) {
+			return super.indexOf(_value);
+		}
+		if (accepts(_value)) {
+			for (int i = 0; i < count; i++) {
+				if (_value.equals(load(i))) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object _value)
+	{
+		if (elementType == null) {
+			return super.lastIndexOf(_value);
+		}
+		if (accepts(_value)) {
+			for (int i = count - 1; i >= 0; i--) {
+				if (_value.equals(load(i))) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public Object[] toArray()
+	{
+		if (elementType == null) {
+			return super.toArray();
+		}
+		Object[] result = new Object[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = load(i);
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T[] toArray(T[] _array)
+	{
+		if (elementType == null) {
+			return super.toArray(_array);
+		}
+		T[] result = _array.length >= count ? _array
+				: (T[])java.lang.reflect.Array.newInstance(_array.getClass().getComponentType(), count);
+		for (int i = 0; i < count; i++) {
+			result[i] = (T)load(i);
+		}
+		if (result.length > count) {
+			result[count] = null;
+		}
+		return result;
+	}
+
+	@Override
+	public Iterator<Object> iterator()
+	{
+		return listIterator(0);
+	}
+
+	@Override
+	public ListIterator<Object> listIterator()
+	{
+		return listIterator(0);
+	}
+
+	@Override
+	public ListIterator<Object> listIterator(int _index)
+	{
+		if (elementType == null) {
+			return super.listIterator(_index);
+		}
+		checkIndex(_index, count + 1);
+		return new Itr(_index);
+	}
+
+	@Override
+	public Spliterator<Object> spliterator()
+	{
+		if (elementType == null) {
+			return super.spliterator();
+		}
+		return Spliterators.spliterator(this, Spliterator.ORDERED);
+	}
+
+	@Override
+	public void forEach(Consumer<? super Object> _action)
+	{
+		if (elementType == null) {
+			super.forEach(_action);
+			return;
+		}
+		for (int i = 0; i < count; i++) {
+			_action.accept(load(i));
+		}
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<Object> _operator)
+	{
+		if (elementType == null) {
+			super.replaceAll(_operator);
+			return;
+		}
+		for (int i = 0; i < size(); i++) {
+			// This may turn the list generic, then set() delegates to the superclass
+			set(i, _operator.apply(get(i)));
+		}
+	}
+
+	@Override
+	public void sort(Comparator<? super Object> _comparator)
+	{
+		if (elementType != null && _comparator == null) {
+			// The natural order of the wrapper classes equals that of the primitive sort
+			switch (elementType) {
+			case INT:    Arrays.sort(ints, 0, count);    break;
+			case LONG:   Arrays.sort(longs, 0, count);   break;
+			case DOUBLE: Arrays.sort(doubles, 0, count); break;
+			case CHAR:   Arrays.sort(chars, 0, count);   break;
+			}
+			modCount++;
+			return;
+		}
+		promote();
+		super.sort(_comparator);
+	}
+
+	@Override
+	public boolean equals(Object _other)
+	{
+		if (elementType == null) {
+			return super.equals(_other);
+		}
+		if (_other == this) {
+			return true;
+		}
+		if (!(_other instanceof List)) {
+			return false;
+		}
+		Iterator<?> iter = ((List<?>)_other).iterator();
+		for (int i = 0; i < count; i++) {
+			if (!iter.hasNext() || !load(i).equals(iter.next())) {
+				return false;
+			}
+		}
+		return !iter.hasNext();
+	}
+
+	@Override
+	public int hashCode()
+	{
+		if (elementType == null) {
+			return super.hashCode();
+		}
+		int hash = 1;
+		for (int i = 0; i < count; i++) {
+			hash = 31 * hash + load(i).hashCode();
+		}
+		return hash;
+	}
+
+	@Override
+	public TypedArrayList clone()
+	{
+		TypedArrayList copy = (TypedArrayList)super.clone();
+		if (ints != null) copy.ints = Arrays.copyOf(ints, Math.max(count, MIN_CAPACITY));
+		if (longs != null) copy.longs = Arrays.copyOf(longs, Math.max(count, MIN_CAPACITY));
+		if (doubles != null) copy.doubles = Arrays.copyOf(doubles, Math.max(count, MIN_CAPACITY));
+		if (chars != null) copy.chars = Arrays.copyOf(chars, Math.max(count, MIN_CAPACITY));
+		return copy;
+	}
+
+	@Override
+	public void ensureCapacity(int _minCapacity)
+	{
+		if (elementType == null) {
+			super.ensureCapacity(_minCapacity);
+		}
+		else if (_minCapacity > capacity()) {
+			// Grow by half as ArrayList does
+			int oldCapacity = capacity();
+			allocate(Math.max(_minCapacity, oldCapacity + (oldCapacity >> 1)));
+		}
+	}
+
+	@Override
+	public void trimToSize()
+	{
+		if (elementType == null) {
+			super.trimToSize();
+		}
+		else if (count < capacity()) {
+			allocate(count);
+		}
+	}
+
+	// ================ Operations with conversion into a generic list ================
+
+	@Override
+	public boolean addAll(int _index, Collection<? extends Object> _values)
+	{
+		promote();
+		return super.addAll(_index, _values);
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> _values)
+	{
+		promote();
+		return super.removeAll(_values);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> _values)
+	{
+		promote();
+		return super.retainAll(_values);
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super Object> _filter)
+	{
+		promote();
+		return super.removeIf(_filter);
+	}
+
+	@Override
+	protected void removeRange(int _fromIndex, int _toIndex)
+	{
+		promote();
+		super.removeRange(_fromIndex, _toIndex);
+	}
+
+	@Override
+	public List<Object> subList(int _fromIndex, int _toIndex)
+	{
+		promote();
+		return super.subList(_fromIndex, _toIndex);
+	}
+
+	// ================ Internal helpers ================
+
+	/** List iterator based on the index access methods (works across a conversion) */
+	private class Itr implements ListIterator<Object> {
+		private int cursor;
+		private int lastRet = -1;
+
+		Itr(int _index)
+		{
+			cursor = _index;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return cursor < size();
+		}
+
+		@Override
+		public Object next()
+		{
+			if (cursor >= size()) {
+				throw new NoSuchElementException();
+			}
+			lastRet = cursor++;
+			return get(lastRet);
+		}
+
+		@Override
+		public boolean hasPrevious()
+		{
+			return cursor > 0;
+		}
+
+		@Override
+		public Object previous()
+		{
+			if (cursor <= 0) {
+				throw new NoSuchElementException();
+			}
+			lastRet = --cursor;
+			return get(lastRet);
+		}
+
+		@Override
+		public int nextIndex()
+		{
+			return cursor;
+		}
+
+		@Override
+		public int previousIndex()
+		{
+			return cursor - 1;
+		}
+
+		@Override
+		public void remove()
+		{
+			if (lastRet < 0) {
+				throw new IllegalStateException();
+			}
+			TypedArrayList.this.remove(lastRet);
+			cursor = lastRet;
+			lastRet = -1;
+		}
+
+		@Override
+		public void set(Object _value)
+		{
+			if (lastRet < 0) {
+				throw new IllegalStateException();
+			}
+			TypedArrayList.this.set(lastRet, _value);
+		}
+
+		@Override
+		public void add(Object _value)
+		{
+			TypedArrayList.this.add(cursor++, _value);
+			lastRet = -1;
+		}
+	}
+
+	/** Checks whether {@code _value} can be stored in the primitive array */
+	private boolean accepts(Object _value)
+	{
+		return _value != null && elementType != null && _value.getClass() == elementType.valueClass;
+	}
+
+	/**
+	 * Moves the elements into the storage of the superclass and drops the primitive array.
+	 * Afterwards, all methods delegate to the superclass. Has no effect on a generic list.
+	 */
+	private void promote()
+	{
+		if (elementType != null) {
+			super.ensureCapacity(count);
+			for (int i = 0; i < count; i++) {
+				super.add(load(i));
+			}
+			elementType = null;
+			ints = null;
+			longs = null;
+			doubles = null;
+			chars = null;
+			count = 0;
+		}
+	}
+
+	private Object load(int _index)
+	{
+		switch (elementType) {
+		case INT:    return ints[_index];
+		case LONG:   return longs[_index];
+		case DOUBLE: return doubles[_index];
+		default:     return chars[_index];
+		}
+	}
+
+	private void store(int _index, Object _value)
+	{
+		switch (elementType) {
+		case INT:    ints[_index] = (Integer)_value;      break;
+		case LONG:   longs[_index] = (Long)_value;        break;
+		case DOUBLE: doubles[_index] = (Double)_value;    break;
+		default:     chars[_index] = (Character)_value;
+		}
+	}
+
+	private Object getArray()
+	{
+		switch (elementType) {
+		case INT:    return ints;
+		case LONG:   return longs;
+		case DOUBLE: return doubles;
+		default:     return chars;
+		}
+	}
+
+	private int capacity()
+	{
+		return java.lang.reflect.Array.getLength(getArray());
+	}
+
+	/** (Re-)allocates the primitive array with the given capacity, retaining the elements */
+	private void allocate(int _capacity)
+	{
+		switch (elementType) {
+		case INT:    ints = ints == null ? new int[_capacity] : Arrays.copyOf(ints, _capacity);             break;
+		case LONG:   longs = longs == null ? new long[_capacity] : Arrays.copyOf(longs, _capacity);         break;
+		case DOUBLE: doubles = doubles == null ? new double[_capacity] : Arrays.copyOf(doubles, _capacity); break;
+		case CHAR:   chars = chars == null ? new char[_capacity] : Arrays.copyOf(chars, _capacity);         break;
+		}
+	}
+
+	/** Throws an IndexOutOfBoundsException unless 0 &lt;= {@code _index} &lt; {@code _bound} */
+	private void checkIndex(int _index, int _bound)
+	{
+		if (_index < 0 || _index >= _bound) {
+			throw new IndexOutOfBoundsException("Index: " + _index + ", Size: " + count);
+		}
+	}
+
+}
@@ -80,6 +80,7 @@ package lu.fisch.structorizer.generators;
  *      Kay Gürtzig     2018.03.13      Modifications for bugfix #521, transformOutput() revised
  *      Kay Gürtzig     2018.10.30      New field generatorIncludes and method insertGeneratorIncludes() to
  *                                      avoid duplicate include/import/using entries system <-> user 
+ *      agent           2026.10.19      transform() uses the shared precompiled keyword matcher of CodeParser
  *
  ******************************************************************************************************
  *
@@ -273,9 +274,6 @@ public abstract class Generator extends javax.swing.filechooser.FileFilter imple
 	 */
 	protected StringList varNames = new StringList();
 	// END KGU#129/KGU#61 2015-01-22
-	// START KGU 2016-03-29: For keyword detection improvement
-	private Vector<StringList> splitKeywords = new Vector<StringList>();
-	// END KGU 2016-03-29
 	// START KGU#446 2017-10-27: Enh. #441
 	/** Flag to remember whether Turtleizer routine calls are in the code (to prepare support if possible) */
 	protected boolean usesTurtleizer = false;
@@ -1056,26 +1054,8 @@ public abstract class Generator extends javax.swing.filechooser.FileFilter imple
 		// START KGU 2016-03-29: Unify all parser keywords
 		// This is somewhat redundant because most of the keywords have already been cut out
 		// but it's still needed for the meaningful ones.
-		String[] keywords = CodeParser.getAllProperties();
-		for (int kw = 0; kw < keywords.length; kw++)
-		{    				
-			if (keywords[kw].trim().length() > 0)
-			{
-				StringList keyTokens = this.splitKeywords.elementAt(kw);
-				int keyLength = keyTokens.count();
-				int pos = -1;
-				while ((pos = tokens.indexOf(keyTokens, pos + 1, !CodeParser.ignoreCase)) >= 0)
-				{
-					// Replace the first token of the keyword by the entire keyword
-					tokens.set(pos, keywords[kw]);
-					// Remove the remaining tokens of the split keyword
-					for (int j=1; j < keyLength; j++)
-					{
-						tokens.delete(pos+1);
-					}
-				}
-			}
-		}
+		// (All split keywords are replaced in a single pass by the precompiled keyword matcher)
+		tokens = CodeParser.getKeywordMatcher().replaceAll(tokens, null);
 		// END KGU 2016-03-29
 		// START KGU#162 2016-03-31: Enh. #144
 		//String transformed = transformTokens(tokens);
@@ -2688,15 +2668,6 @@ public abstract class Generator extends javax.swing.filechooser.FileFilter imple
 			}
 			// END KGU#194 2016-05-07
 
-			// START KGU 2016-03-29: Pre-processed match patterns for better identification of complicated keywords
-			this.splitKeywords.clear();
-			String[] keywords = CodeParser.getAllProperties();
-			for (int k = 0; k < keywords.length; k++)
-			{
-				this.splitKeywords.add(Element.splitLexically(keywords[k], false));
-			}
-			// END KGU 2016-03-29
-
 			try
 			{
 				// START KGU#178 2016-07-20: Enh. #160 - register all subroutine calls
@@ -3210,12 +3181,6 @@ public abstract class Generator extends javax.swing.filechooser.FileFilter imple
 		}
 
 		CodeParser.loadFromINI();
-		this.splitKeywords.clear();
-		String[] keywords = CodeParser.getAllProperties();
-		for (int k = 0; k < keywords.length; k++)
-		{
-			this.splitKeywords.add(Element.splitLexically(keywords[k], false));
-		}
 
 		boolean firstExport = true;
 		for (Root root : _roots)
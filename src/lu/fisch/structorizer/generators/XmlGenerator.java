@@ -50,6 +50,8 @@ package lu.fisch.structorizer.generators;
  *      Kay Gürtzig     2017.03.28      Enh. #370: Alternative keyword set may be saved (un-refactored diagrams)
  *      Kay Gürtzig     2017.05.22      Enh. #372: New attribute "origin" added.
  *      Kay Gürtuig     2017.06.30      Enh. #389: New attribute "includeList" added.
+ *      agent           2026.10.19      Streaming output: writeNSD() writes directly to a stream
+ *                                      instead of accumulating the document in a StringList
  *
  ******************************************************************************************************
  *
@@ -58,12 +60,17 @@ package lu.fisch.structorizer.generators;
  ******************************************************************************************************///
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 
 import java.util.Map;
 import java.util.logging.Level;
@@ -84,6 +91,16 @@ public class XmlGenerator extends Generator
 	// END KGU#134 2016-01-08
 	// END KGU#118 2015-12-31
 	
+	/** Buffer size for the stream wrapped by {@link #writeNSD(Root, String, OutputStream)} */
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+	
+	/** The target of the current {@link #writeNSD(Root, String, Writer)} call */
+	private Writer out = null;
+	/** Whether no line has been started yet (to avoid a trailing newline) */
+	private boolean atFirstLine = true;
+	/** The first exception occurred during the current write process, if any */
+	private IOException writeError = null;
+	
 	/************ Fields ***********************/
 	protected String getDialogTitle()
 	{
@@ -182,18 +199,18 @@ public class XmlGenerator extends Generator
 	{
 		String r = "0";
 		//if(_inst.rotated==true) {r="1";}
-		code.add(_indent+"<instruction text=\""+BString.encodeToHtml(_inst.getText().getCommaText())+"\" comment=\""+
-												BString.encodeToHtml(_inst.getComment().getCommaText())+"\" color=\""+
-												_inst.getHexColor()+"\" rotated=\""+r+"\" disabled=\""+
-												(_inst.disabled ? "1" : "0") + "\"></instruction>");
+		startElement(_indent, "instruction", _inst);
+		write(" rotated=\"" + r + "\"");
+		writeDisabled(_inst);
+		write("></instruction>");
 	}
 	
     @Override
 	protected void generateCode(Alternative _alt, String _indent)
 	{
-		code.add(_indent+"<alternative text=\""+BString.encodeToHtml(_alt.getText().getCommaText())+"\" comment=\""+
-				 BString.encodeToHtml(_alt.getComment().getCommaText())+"\" color=\""+
-				 _alt.getHexColor()+"\" disabled=\""+ (_alt.disabled ? "1" : "0") + "\">");
+		startElement(_indent, "alternative", _alt);
+		writeDisabled(_alt);
+		write(">");
     	// START KGU 2016-12-21: Bugfix #317
 		//code.add(_indent+this.getIndent()+"<qTrue>");
 		//generateCode(_alt.qTrue,_indent+this.getIndent()+this.getIndent());
@@ -204,15 +221,15 @@ public class XmlGenerator extends Generator
 		generateCode(_alt.qTrue, _indent+this.getIndent(), "qTrue");
 		generateCode(_alt.qFalse, _indent+this.getIndent(), "qFalse");
 	    // END KGU 2016-12-21
-		code.add(_indent+"</alternative>");
+		writeLine(_indent, "</alternative>");
 	}
 	
     @Override
 	protected void generateCode(Case _case, String _indent)
 	{
-		code.add(_indent+"<case text=\""+BString.encodeToHtml(_case.getText().getCommaText())+"\" comment=\""+
-				 BString.encodeToHtml(_case.getComment().getCommaText())+"\" color=\""+
-				 _case.getHexColor()+"\" disabled=\""+ (_case.disabled ? "1" : "0") + "\">");
+		startElement(_indent, "case", _case);
+		writeDisabled(_case);
+		write(">");
 		for(int i=0;i<_case.qs.size();i++)
 		{
 	    	// START KGU 2016-12-21: Bugfix #317
@@ -222,15 +239,14 @@ public class XmlGenerator extends Generator
 			generateCode(_case.qs.get(i), _indent+this.getIndent(), "qCase");
 		    // END KGU 2016-12-21
 		}
-		code.add(_indent+"</case>");
+		writeLine(_indent, "</case>");
 	}
 
     @Override
     	protected void generateCode(Parallel _para, String _indent)
 	{
-		code.add(_indent+"<parallel text=\""+BString.encodeToHtml(_para.getText().getCommaText())+"\" comment=\""+
-				 BString.encodeToHtml(_para.getComment().getCommaText())+"\" color=\""+
-				 _para.getHexColor()+"\">");
+		startElement(_indent, "parallel", _para);
+		write(">");
 		for(int i=0;i<_para.qs.size();i++)
 		{
 	    	// START KGU 2016-12-21: Bugfix #317
@@ -240,7 +256,7 @@ public class XmlGenerator extends Generator
 			generateCode(_para.qs.get(i), _indent+this.getIndent(), "qPara");
 		    // END KGU 2016-12-21
 		}
-		code.add(_indent+"</parallel>");
+		writeLine(_indent, "</parallel>");
 	}
 
     @Override
@@ -273,22 +289,25 @@ public class XmlGenerator extends Generator
        		specificInfo[3] = Integer.toString(_for.getStepConst());
     	}
     	// END KGU#268 2016-10-04
-    	String specificAttributes = "";
+    	startLine(_indent);
+    	write("<for");
+    	writeTextAttribute("text", _for.getText());
+    	writeTextAttribute("comment", _for.getComment());
     	for (int i = 0; i < forLoopAttributes.length; i++)
     	{
     		if (specificInfo[i] != null)
     		{
-    			specificAttributes += "\" " + forLoopAttributes[i] + "=\"" + BString.encodeToHtml(specificInfo[i]);
+    			writeAttribute(forLoopAttributes[i], specificInfo[i]);
     		}
     	}
-    	code.add(_indent+"<for text=\""+BString.encodeToHtml(_for.getText().getCommaText()) +
-    			"\" comment=\"" + BString.encodeToHtml(_for.getComment().getCommaText()) +
-    			specificAttributes +
-    			"\" style=\"" + BString.encodeToHtml(_for.style.toString()) +
-    			// FIXME: No longer needed beyond version 3.25-01, except for backward compatibility (i. e. temporarily)
-    			(_for.isForInLoop() ? ("\" insep=\"" + BString.encodeToHtml(CodeParser.getKeyword("postForIn"))) : "") +
-    			"\" color=\"" + _for.getHexColor()+"\" disabled=\""+
-    			(_for.disabled ? "1" : "0") + "\">");
+    	writeAttribute("style", _for.style.toString());
+    	// FIXME: No longer needed beyond version 3.25-01, except for backward compatibility (i. e. temporarily)
+    	if (_for.isForInLoop()) {
+    		writeAttribute("insep", CodeParser.getKeyword("postForIn"));
+    	}
+    	write(" color=\"" + _for.getHexColor() + "\"");
+    	writeDisabled(_for);
+    	write(">");
     	// END KGU#118 2015-12-31
     	// START KGU 2016-12-21: Bugfix #317
 		//code.add(_indent+this.getIndent()+"<qFor>");
@@ -296,68 +315,68 @@ public class XmlGenerator extends Generator
 		//code.add(_indent+this.getIndent()+"</qFor>");
 		generateCode(_for.q, _indent+this.getIndent(), "qFor");
 		// END KGU 2016-12-21
-		code.add(_indent+"</for>");
+		writeLine(_indent, "</for>");
 	}
 	
     @Override
 	protected void generateCode(While _while, String _indent)
 	{
-		code.add(_indent+"<while text=\""+BString.encodeToHtml(_while.getText().getCommaText())+"\" comment=\""+
-				 BString.encodeToHtml(_while.getComment().getCommaText())+"\" color=\""+
-				 _while.getHexColor()+"\" disabled=\""+(_while.disabled ? "1" : "0") + "\">");
+		startElement(_indent, "while", _while);
+		writeDisabled(_while);
+		write(">");
     	// START KGU 2016-12-21: Bugfix #317
 		//code.add(_indent+this.getIndent()+"<qWhile>");
 		//generateCode(_while.q,_indent+this.getIndent()+this.getIndent());
 		//code.add(_indent+this.getIndent()+"</qWhile>");
 		generateCode(_while.q, _indent+this.getIndent(), "qWhile");
 	    // END KGU 2016-12-21
-		code.add(_indent+"</while>");
+		writeLine(_indent, "</while>");
 	}
 	
     @Override
 	protected void generateCode(Repeat _repeat, String _indent)
 	{
-		code.add(_indent+"<repeat text=\""+BString.encodeToHtml(_repeat.getText().getCommaText())+"\" comment=\""+
-				 BString.encodeToHtml(_repeat.getComment().getCommaText())+"\" color=\""+
-				 _repeat.getHexColor()+"\" disabled=\""+ (_repeat.disabled ? "1" : "0") + "\">");
+		startElement(_indent, "repeat", _repeat);
+		writeDisabled(_repeat);
+		write(">");
     	// START KGU 2016-12-21: Bugfix #317
 		//code.add(_indent+this.getIndent()+"<qRepeat>");
 		//generateCode(_repeat.q,_indent+this.getIndent()+this.getIndent());
 		//code.add(_indent+this.getIndent()+"</qRepeat>");
 		generateCode(_repeat.q, _indent+this.getIndent(), "qRepeat");
 	    // END KGU 2016-12-21
-		code.add(_indent+"</repeat>");
+		writeLine(_indent, "</repeat>");
 	}
 	
     @Override
 	protected void generateCode(Forever _forever, String _indent)
 	{
-		code.add(_indent+"<forever text=\""+BString.encodeToHtml(_forever.getText().getCommaText())+"\" comment=\""+
-				 BString.encodeToHtml(_forever.getComment().getCommaText())+"\" color=\""+
-				 _forever.getHexColor()+"\" disabled=\""+(_forever.disabled ? "1" : "0") + "\">");
+		startElement(_indent, "forever", _forever);
+		writeDisabled(_forever);
+		write(">");
     	// START KGU 2016-12-21: Bugfix #317
 		//code.add(_indent+this.getIndent()+"<qForever>");
 		//generateCode(_forever.q,_indent+this.getIndent()+this.getIndent());
 		//code.add(_indent+this.getIndent()+"</qForever>");
 		generateCode(_forever.q, _indent+this.getIndent(), "qForever");
 	    // END KGU 2016-12-21
-		code.add(_indent+"</forever>");
+		writeLine(_indent, "</forever>");
 	}
 	
     @Override
 	protected void generateCode(Call _call, String _indent)
 	{
-		code.add(_indent+"<call text=\""+BString.encodeToHtml(_call.getText().getCommaText())+"\" comment=\""+
-				 BString.encodeToHtml(_call.getComment().getCommaText())+"\" color=\""+
-				 _call.getHexColor()+"\" disabled=\""+(_call.disabled ? "1" : "0") + "\"></call>");
+		startElement(_indent, "call", _call);
+		writeDisabled(_call);
+		write("></call>");
 	}
 	
     @Override
 	protected void generateCode(Jump _jump, String _indent)
 	{
-		code.add(_indent+"<jump text=\""+BString.encodeToHtml(_jump.getText().getCommaText())+"\" comment=\""+
-				 BString.encodeToHtml(_jump.getComment().getCommaText())+"\" color=\""+
-				 _jump.getHexColor()+"\" disabled=\""+(_jump.disabled ? "1" : "0") + "\"></jump>");
+		startElement(_indent, "jump", _jump);
+		writeDisabled(_jump);
+		write("></jump>");
 	}
 	
 	// START KGU 2016-12-21: Bugfix #315 - preserve the element colour of empty subqueues
@@ -367,14 +386,79 @@ public class XmlGenerator extends Generator
 		if (_subqueue.getSize() == 0) {
 			colorAttr = " color=\""+_subqueue.getHexColor() + "\"";
 		}
-		code.add(_indent+"<" + tagName + colorAttr + ">");
+		writeLine(_indent, "<" + tagName + colorAttr + ">");
     	generateCode(_subqueue, _indent + this.getIndent());
-		code.add(_indent+"</" + tagName + ">");
+		writeLine(_indent, "</" + tagName + ">");
 	}
     // END KGU 2016-12-21
 	
+	/**
+	 * Generates the NSD file content for the given diagram {@code _root} and returns
+	 * it as string (e.g. for the clipboard). For files, better use the streaming
+	 * method {@link #writeNSD(Root, String, OutputStream)}, which doesn't hold the
+	 * document in memory.
+	 * @see #writeNSD(Root, String, Writer)
+	 */
     @Override
 	public String generateCode(Root _root, String _indent)
+	{
+		StringWriter sw = new StringWriter();
+		try {
+			writeNSD(_root, _indent, sw);
+		} catch (IOException ex) {
+			// Cannot actually happen with a StringWriter
+			getLogger().log(Level.WARNING, "{0}", ex.getMessage());
+		}
+		return sw.toString();
+	}
+	
+	/**
+	 * Writes the NSD (XML) representation of diagram {@code _root} as UTF-8 directly
+	 * to the given output stream {@code _os}, which will be flushed but not closed
+	 * (so it may e.g. be a {@link java.util.zip.ZipOutputStream}).
+	 * @param _root - the diagram to be saved
+	 * @param _indent - the initial indentation (usually "\t")
+	 * @param _os - the target stream
+	 * @throws IOException if writing failed
+	 * @see #writeNSD(Root, String, Writer)
+	 */
+	public void writeNSD(Root _root, String _indent, OutputStream _os) throws IOException
+	{
+		Writer writer = new BufferedWriter(new OutputStreamWriter(_os, "UTF-8"), WRITE_BUFFER_SIZE);
+		writeNSD(_root, _indent, writer);
+	}
+	
+	/**
+	 * Writes the NSD (XML) representation of diagram {@code _root} element by element
+	 * to the given character stream {@code _out}, which will be flushed but not closed.
+	 * Element texts are escaped on the fly, such that no complete document or line list
+	 * will be held in memory.
+	 * @param _root - the diagram to be saved
+	 * @param _indent - the initial indentation (usually "\t")
+	 * @param _out - the target writer (should be buffered)
+	 * @throws IOException if writing failed
+	 * @see #writeNSD(Root, String, OutputStream)
+	 */
+	public void writeNSD(Root _root, String _indent, Writer _out) throws IOException
+	{
+		this.out = _out;
+		this.atFirstLine = true;
+		this.writeError = null;
+		try {
+			writeRoot(_root, _indent);
+			if (this.writeError == null) {
+				out.flush();
+			}
+		}
+		finally {
+			this.out = null;
+		}
+		if (this.writeError != null) {
+			throw this.writeError;
+		}
+	}
+	
+	private void writeRoot(Root _root, String _indent)
 	{
  		String pr = _root.isProgram() ? "program" : "sub";
  	   	// START KGU#376 2017-05-16: Enh. #389
@@ -384,24 +468,26 @@ public class XmlGenerator extends Generator
 		// END KGU##376 2017-05-16
 		String ni = _root.isBoxed ? "nice" : "abbr";
 		
-		// START KGU#257 2016-09-25: Enh. #253
-		String pp_attributes = "";
+		writeLine("", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		//code.add("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>");
+		// START KGU 2015-12-04: Might not be so bad an idea to write the product version into the file
+		// START KGU#563 2018-07-26: Issue #566
+		writeLine("", "<root xmlns:nsd=\"" + Element.E_HOME_PAGE + "\" version=\"" + Element.E_VERSION + "\"");
+		// END KGU#563 2018-07-26
+		// END KGU 2015-12-04
 		
+		// START KGU#257 2016-09-25: Enh. #253
 		for (Map.Entry<String, String> entry: CodeParser.getPropertyMap(true).entrySet())
 		{
 			// Empty keywords will hardly have been used in this diagram, so it's okay to omit them
 			// START KGU#362 2017-03-28: Enh. #370 - Special care for un-refactored diagrams
-			//if (!entry.getValue().isEmpty())
-			//{
-			//	pp_attributes += " " + entry.getKey() + "=\"" + BString.encodeToHtml(entry.getValue()) + "\"";
-			//}
 			String value = entry.getValue();
 			if (_root.storedParserPrefs != null && _root.storedParserPrefs.containsKey(entry.getKey())) {
 				value = _root.storedParserPrefs.get(entry.getKey()).concatenate();
 			}
 			if (!value.isEmpty())
 			{
-				pp_attributes += " " + entry.getKey() + "=\"" + BString.encodeToHtml(value) + "\"";
+				writeAttribute(entry.getKey(), value);
 			}
 			// END KGU#362 2017-03-28
 		}
@@ -409,27 +495,27 @@ public class XmlGenerator extends Generator
 		
 		// START KGU#376 2017-06-30: Enh. #389
 		if (_root.includeList != null && _root.includeList.count() > 0) {
-			pp_attributes += " includeList=\"" + _root.includeList.concatenate(",").trim() + "\"";
+			write(" includeList=\"" + _root.includeList.concatenate(",").trim() + "\"");
 		}
 		// END KGU#376 2017-06-30
 		
 		// START KGU#363 2017-03-10: Enh. #372 These are no parser preferences but the mechanism is convenient
 		if (_root.getAuthor() != null) {
-			pp_attributes += " author=\"" + BString.encodeToHtml(_root.getAuthor()) + "\"";
+			writeAttribute("author", _root.getAuthor());
 		}
 		if (_root.getCreated() != null) {
-			pp_attributes += " created=\"" + _root.getCreatedString() + "\"";
+			write(" created=\"" + _root.getCreatedString() + "\"");
 		}
 		if (_root.getModifiedBy() != null) {
-			pp_attributes += " changedby=\"" + BString.encodeToHtml(_root.getModifiedBy()) + "\"";
+			writeAttribute("changedby", _root.getModifiedBy());
 		}
 		if (_root.getModified() != null) {
-			pp_attributes += " changed=\"" + _root.getModifiedString() + "\"";
+			write(" changed=\"" + _root.getModifiedString() + "\"");
 		}
 		// END KGU#363 3017-03-10
 		// START KGU#363 2017-05-22: Enh. #372
 		if (_root.origin != null && !_root.origin.trim().isEmpty()) {
-			pp_attributes += " origin=\"" + BString.encodeToXML(_root.origin) + "\"";
+			writeXMLAttribute("origin", _root.origin);
 		}
 		// END KGU#363 2017-05-22
 		// START KGU#363 2017-03-13: Enh. #372 License stuff
@@ -439,43 +525,165 @@ public class XmlGenerator extends Generator
 			licName = Ini.getInstance().getProperty("licenseName", "").trim();
 		}
 		if (licName != null && !licName.isEmpty()) {
-			pp_attributes += " licenseName=\"" + BString.encodeToHtml(licName) + "\"";
+			writeAttribute("licenseName", licName);
 
 			String licenseText = _root.licenseText; 
 			if (licenseText == null || licenseText.trim().isEmpty()) {
 				licenseText = this.loadLicenseText(licName);
 			}
 			if (licenseText != null) {
-				pp_attributes += " license=\"" + BString.encodeToXML(licenseText) + "\"";
+				writeXMLAttribute("license", licenseText);
 			}
 		}
 		// END KGU#362 2017-03-13
 
-		code.add("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-		//code.add("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>");
-		// START KGU 2015-12-04: Might not be so bad an idea to write the product version into the file
-		//code.add("<root xmlns:nsd=\"http://structorizer.fisch.lu/\" text=\""+BString.encodeToHtml(_root.getText().getCommaText())+"\" comment=\""+
-		// START KGU#257 2016-09-25: Enh. #253: Add all current parser preferences
-		//code.add("<root xmlns:nsd=\"http://structorizer.fisch.lu/\" version=\"" + Element.E_VERSION + "\" text=\"" +
-		// START KGU#563 2018-07-26: Issue #566
-		//code.add("<root xmlns:nsd=\"http://structorizer.fisch.lu/\" version=\"" + Element.E_VERSION + "\"" +
-		code.add("<root xmlns:nsd=\"" + Element.E_HOME_PAGE + "\" version=\"" + Element.E_VERSION + "\"" +
-		// END KGU#563 2018-07-26
-								pp_attributes + " text=\"" + 
-		// END KGU#257 2016-09-25
-								BString.encodeToHtml(_root.getText().getCommaText()) + "\" comment=\"" +
-		// END KGU 2015-12-04
-								BString.encodeToHtml(_root.getComment().getCommaText())+"\" color=\""+
-								_root.getHexColor()+"\" type=\""+pr+"\" style=\""+ni+"\">");
+		writeTextAttribute("text", _root.getText());
+		writeTextAttribute("comment", _root.getComment());
+		write(" color=\"" + _root.getHexColor() + "\" type=\"" + pr + "\" style=\"" + ni + "\">");
 		// START KGU 2016-12-21: Bugfix #317
-		//code.add(_indent+"<children>");
-		//generateCode(_root.children,_indent+this.getIndent());
-		//code.add(_indent+"</children>");
 		generateCode(_root.children, _indent, "children");
 		// END KGU 2016-12-21
-		code.add("</root>");
-		
-		return code.getText();
+		writeLine("", "</root>");
+	}
+	
+	/*========================= Streaming helpers ========================*/
+	
+	/**
+	 * Starts a new line with the given indentation and writes the opening tag name
+	 * of element {@code _ele} together with its attributes text, comment and color.
+	 * The tag is left open for further attributes.
+	 */
+	private void startElement(String _indent, String _tagName, Element _ele)
+	{
+		startLine(_indent);
+		write("<" + _tagName);
+		writeTextAttribute("text", _ele.getText());
+		writeTextAttribute("comment", _ele.getComment());
+		write(" color=\"" + _ele.getHexColor() + "\"");
+	}
+	
+	/** Writes the "disabled" attribute of element {@code _ele} */
+	private void writeDisabled(Element _ele)
+	{
+		write(_ele.disabled ? " disabled=\"1\"" : " disabled=\"0\"");
+	}
+	
+	/** Starts a new line with the given indentation and writes {@code _content} to it */
+	private void writeLine(String _indent, String _content)
+	{
+		startLine(_indent);
+		write(_content);
+	}
+	
+	/** Terminates the previous line (if any) and writes the given indentation */
+	private void startLine(String _indent)
+	{
+		if (!atFirstLine) {
+			write("\n");
+		}
+		atFirstLine = false;
+		write(_indent);
+	}
+	
+	/**
+	 * Writes an attribute {@code _name} with the lines of {@code _text} in comma-separated
+	 * form as value, i.e. equivalent to {@code BString.encodeToHtml(_text.getCommaText())}
+	 * but without building the intermediate strings.
+	 */
+	private void writeTextAttribute(String _name, StringList _text)
+	{
+		write(" " + _name + "=\"");
+		int nLines = _text.count();
+		for (int i = 0; i < nLines; i++) {
+			if (i > 0) {
+				write(",");
+			}
+			write("&#34;");
+			writeEscaped(_text.get(i), true, false);
+			write("&#34;");
+		}
+		write("\"");
+	}
+	
+	/**
+	 * Writes an attribute {@code _name} with value {@code _value}, escaped like
+	 * {@link BString#encodeToHtml(String)} would do it.
+	 */
+	private void writeAttribute(String _name, String _value)
+	{
+		write(" " + _name + "=\"");
+		writeEscaped(_value, false, false);
+		write("\"");
+	}
+	
+	/**
+	 * Writes an attribute {@code _name} with value {@code _value}, escaped like
+	 * {@link BString#encodeToXML(String)} would do it (preserving newlines etc.).
+	 */
+	private void writeXMLAttribute(String _name, String _value)
+	{
+		write(" " + _name + "=\"");
+		writeEscaped(_value, false, true);
+		write("\"");
+	}
+	
+	/**
+	 * Writes {@code _value} with all XML-relevant characters escaped.
+	 * @param _value - the raw string
+	 * @param _asCommaItem - if true then double quotes are doubled (CSV item syntax)
+	 * @param _strict - if true then also apostrophes, control and non-ASCII characters
+	 * are converted into character references (see {@link BString#encodeToXML(String)})
+	 */
+	private void writeEscaped(String _value, boolean _asCommaItem, boolean _strict)
+	{
+		if (writeError != null) {
+			return;
+		}
+		try {
+			int len = _value.length();
+			int start = 0;	// Start of the pending unescaped section
+			for (int i = 0; i < len; i++) {
+				char ch = _value.charAt(i);
+				String esc = null;
+				switch (ch) {
+				case '&':	esc = _strict ? "&#38;" : "&amp;"; break;
+				case '<':	esc = "&#60;"; break;
+				case '>':	esc = "&#62;"; break;
+				case '"':	esc = _asCommaItem ? "&#34;&#34;" : "&#34;"; break;
+				case '\'':	if (_strict) esc = "&#39;"; break;
+				default:
+					if (_strict && (ch < 0x20 || ch > 0x7e)) {
+						esc = "&#" + ((int)ch) + ";";
+					}
+				}
+				if (esc != null) {
+					if (i > start) {
+						out.write(_value, start, i - start);
+					}
+					out.write(esc);
+					start = i + 1;
+				}
+			}
+			if (len > start) {
+				out.write(_value, start, len - start);
+			}
+		}
+		catch (IOException ex) {
+			writeError = ex;
+		}
+	}
+	
+	/** Writes the given string verbatim unless a previous write has failed */
+	private void write(String _str)
+	{
+		if (writeError == null) {
+			try {
+				out.write(_str);
+			}
+			catch (IOException ex) {
+				writeError = ex;
+			}
+		}
 	}
 
 	private String loadLicenseText(String licName) {
@@ -40,6 +40,7 @@ package lu.fisch.structorizer.gui;
  *      Kay Gürtzig     2018.03.21      Logger introduced, two file reading sequences extracted to method readTextFile()
  *      Kay Gürtzig     2018.07.30      Bugfix #571 - about -> license also showed the changelog.txt
  *      Kay Gürtzig     2018.10.08      Issue #620: a fourth tab "Paths" added.
+ *      agent           2026.10.19      Product icon retrieved via IconLoader cache (icoNSD48 dropped)
  *
  ******************************************************************************************************
  *
@@ -204,7 +205,7 @@ public class About extends LangDialog implements ActionListener, KeyListener, La
 					pnlTop.add(panel2, BorderLayout.CENTER);
 					
 					//---- label2 ----
-					label2.setIcon(IconLoader.icoNSD48);
+					label2.setIcon(IconLoader.getIconImage("000_structorizer.png", 3.0));
 					border = (int)(8 * scaleFactor);
 					label2.setBorder(BorderFactory.createEmptyBorder(border,border,border,border));
 					pnlTop.add(label2, BorderLayout.WEST);
@@ -168,6 +168,10 @@ package lu.fisch.structorizer.gui;
  *      Kay Gürtzig     2019-01-13      Enh. #662/4: Support for new saving option to store relative coordinates in arr files
  *      Kay Gürtzig     2019-01-17      Issue #664: Workaround for ambiguous canceling in AUTO_SAVE_ON_CLOSE mode
  *      Kay Gürtzig     2019-01-20      Issue #668: Group behaviour on outsourcing subdiagrams improved. 
+ *      agent           2026-10-19      Diagrams residing in arrz files are saved directly into the archive
+ *      agent           2026-10-19      Parser and controller plugin definitions retrieved via StartupPipeline
+ *      agent           2026-10-19      exportPNG() delegated to ImageExporter (tiled, streamed rendering)
+ *      agent           2026-10-19      resetDrawingInfo() just advances the global layout epoch
  *
  ******************************************************************************************************
  *
@@ -205,10 +209,6 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -1446,11 +1446,8 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 	 */
 	public void resetDrawingInfo()
 	{
-		root.resetDrawingInfoDown();
-		if (isArrangerOpen())
-		{
-			Arranger.getInstance().resetDrawingInfo(this.hashCode());
-		}
+		// All diagrams (including those in the Arranger) will lazily re-layout on next drawing
+		Element.invalidateLayouts();
 	}
 	// END KGU#155 2016-03-08
 
@@ -2371,6 +2368,20 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 		boolean done = false;
 		try
 		{
+			// A diagram residing in an arrz file is written directly into the archive
+			File arrzFile = ArrzArchive.getArchiveFile(root.filename);
+			if (arrzFile != null) {
+				ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				XmlGenerator xmlgen = new XmlGenerator();
+				xmlgen.writeNSD(root, "\t", bos);
+				if (!zipToArrz(root, arrzFile, bos.toByteArray())) {
+					return false;
+				}
+				root.shadowFilepath = null;
+				root.rememberSaved();
+				addRecentFile(arrzFile.getAbsolutePath());
+				return true;
+			}
 			// START KGU#94 2015.12.04: Bugfix #40 part 1
 			// A failed saving attempt should not leave a truncated file!
 			//FileOutputStream fos = new FileOutputStream(root.filename);
@@ -2412,26 +2423,19 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 			}
 			FileOutputStream fos = new FileOutputStream(filename);
 			// END KGU#94 2015-12-04
-			Writer out = new OutputStreamWriter(fos, "UTF-8");
-			XmlGenerator xmlgen = new XmlGenerator();
-			out.write(xmlgen.generateCode(root,"\t"));
-			out.close();
+			try {
+				XmlGenerator xmlgen = new XmlGenerator();
+				xmlgen.writeNSD(root, "\t", fos);
+			}
+			finally {
+				fos.close();
+			}
 
 			// START KGU#94 2015-12-04: Bugfix #40 part 2
 			// If the NSD file had existed then replace it by the output file after having created a backup
 			// START KGU#316 2016-12-28: Enh. #318 Let nsd files reside in arrz files
 			// if (fileExisted)
-			if (root.shadowFilepath != null) {
-				// START KGU#320 2017-01-04: Bugfix #321(?)
-				//if (!zipToArrz(filename)) {
-				if (!zipToArrz(root, filename)) {
-				// END KGU#320 2017-01-04
-					// If the saving to the original arrz file failed then make the shadow path the actual one
-					root.filename = filename;
-					root.shadowFilepath = null;
-				}
-			}
-			else if (fileExisted)
+			if (fileExisted && root.shadowFilepath == null)
 			// END KGU#316 2016-12-28
 			{
 				File backUp = new File(root.filename + ".bak");
@@ -2539,85 +2543,34 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 
 	// END KGU#94 2015-12-04
 	
-	// START KGU#316 2016-12-28: Enh. #318
-	// START KGU#320 2017-01-04: Bugfix #320 We might be forced to save a different diagram (from Arranger)
-	//private boolean zipToArrz(String tmpFilename)
-	private boolean zipToArrz(Root root, String tmpFilename)
-	// END KGU#320 2017-01-04
+	/**
+	 * Replaces the entry of the given {@code root} in arrz file {@code arrzFile} (which
+	 * {@code root.filename} points into) with {@code content}. Errors are reported to the user.
+	 * @param root - the diagram residing in the arrz file
+	 * @param arrzFile - the enveloping arrz file
+	 * @param content - the NSD file content to be stored
+	 * @return true if the archive has been updated
+	 */
+	private boolean zipToArrz(Root root, File arrzFile, byte[] content)
 	{
 		String error = null;
-		boolean isDone = false;
-		final int BUFSIZE = 2048;
-		byte[] buf = new byte[BUFSIZE];
-		int len = 0;
-
-		StringList inZipPath = new StringList();
-		File arrzFile = new File(root.filename);
-		while (arrzFile != null && !arrzFile.isFile()) {
-			inZipPath.add(arrzFile.getName());
-			arrzFile = arrzFile.getParentFile();
-		}
-		if (arrzFile == null) {
-			int posArrz = root.filename.toLowerCase().indexOf(".arrz");
-			error = ((posArrz > 0) ? root.filename.substring(0, posArrz+5) : root.filename) + ": " + Menu.msgErrorNoFile.getText();
-		}
-		else {
-			String localPath = inZipPath.reverse().concatenate(File.separator);
-
-			ZipFile zipFile = null;
-			try {
-				zipFile = new ZipFile(arrzFile);
-				File tmpZipFile = File.createTempFile("Structorizer", "zip");
-				final ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(tmpZipFile));
-				Enumeration<? extends ZipEntry> entries = zipFile.entries();
-				// Copy all but the file to be updated
-				while(entries.hasMoreElements()) {
-					ZipEntry entryIn = entries.nextElement();
-					if (!entryIn.getName().equals(localPath)) {
-						zos.putNextEntry(entryIn);
-						InputStream is = zipFile.getInputStream(entryIn);
-						while((len = is.read(buf)) > 0) {            
-							zos.write(buf, 0, len);
-						}
-						zos.closeEntry();
-					}
-				}
-				// Now add the file to be updated
-				zos.putNextEntry(new ZipEntry(localPath));
-				FileInputStream fis = new FileInputStream(tmpFilename);
-				while ((len = (fis.read(buf))) > 0) {
-					zos.write(buf, 0, len);
-				}
-				zos.closeEntry();
-				fis.close();
-				zos.close();
-				zipFile.close();
-				String zipPath = arrzFile.getAbsolutePath();
-				File bakFile = new File(zipPath + ".bak");
-				if (bakFile.exists()) {
-					bakFile.delete();
-				}
-				boolean bakOk = arrzFile.renameTo(bakFile);
-				boolean zipOk = tmpZipFile.renameTo(new File(zipPath));
-				if (bakOk && zipOk && !Element.E_MAKE_BACKUPS) {
-					bakFile.delete();
-				}
-				isDone = true;
-			} catch (ZipException ex) {
-				error = ex.getLocalizedMessage();
-			} catch (IOException ex) {
-				error = ex.getLocalizedMessage();
+		try {
+			ArrzArchive.replaceEntry(arrzFile, ArrzArchive.getEntryName(root.filename, arrzFile),
+					content, Element.E_MAKE_BACKUPS);
+		} catch (IOException ex) {
+			error = ex.getLocalizedMessage();
+			if (error == null) {
+				error = ex.toString();
 			}
 		}
 		if (error != null) {
 			JOptionPane.showMessageDialog(this.NSDControl.getFrame(),
-					error,
+					arrzFile.getAbsolutePath() + ": " + error,
 					Menu.msgTitleError.getText(),
 					JOptionPane.ERROR_MESSAGE, null);
 		}
-		return isDone;
+		return error == null;
 	}
-	// END KGU#316 2016-12-28
 
 	/*****************************************
 	 * addUndo method
@@ -4761,14 +4714,10 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 			File file = new File(filename);
 			if (checkOverwrite(file, false) == 0)
 			{
-				BufferedImage bi = new BufferedImage(root.width+1,root.height+1,BufferedImage.TYPE_4BYTE_ABGR);
-				// START KGU#221 2016-07-28: Issue #208 Need to achieve transparent background
-				//printAll(bi.getGraphics());
-				redraw(bi.createGraphics());
-				// END KGU#221 2016-07-28
+				// The image is rendered in bands and streamed, so huge diagrams don't exhaust the heap
 				try
 				{
-					ImageIO.write(bi, "png", file);
+					ImageExporter.export(root, "png", 1.0, file);
 				}
 				catch(Exception e)
 				{
@@ -5760,10 +5709,7 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 		}
 		parsers = new Vector<CodeParser>();
 		String errors = "";
-		BufferedInputStream buff = new BufferedInputStream(getClass().getResourceAsStream("parsers.xml"));
-		GENParser genp = new GENParser();
-		parserPlugins = genp.parse(buff);
-		try { buff.close(); } catch (IOException e1) {}
+		parserPlugins = StartupPipeline.getPlugins("parsers.xml");
 		for (int i = 0; i < parserPlugins.size(); i++)
 		{
 			GENPlugin plugin = parserPlugins.get(i);
@@ -5775,14 +5721,6 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 				errors += "\n" + plugin.title + ": " + ex.getLocalizedMessage();
 			}
 		}
-		try {
-			buff.close();
-		} catch (IOException e) {
-			// START KGU#484 2018-04-05: Issue #463
-			//e.printStackTrace();
-			logger.log(Level.WARNING, "Couldn't close parser plugin definition file.", e);
-			// END KGU#484 2018-04-05
-		}
 		if (!errors.isEmpty()) {
 			errors = Menu.msgTitleLoadingError.getText() + errors;
 			JOptionPane.showMessageDialog(this.NSDControl.getFrame(), errors, 
@@ -6873,7 +6811,7 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
                 	// END KGU#416 2017-06-20
                 }
                 // END KGU#351 2017-02-26
-                ini.save();
+                ini.requestSave();
             }
         } 
         catch (FileNotFoundException ex)
@@ -6984,7 +6922,7 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
                 // START KGU#548 2018-07-09: Restore the last selected plugin choice
                 ini.setProperty("impPluginChoice", (String)iod.cbOptionPlugins.getSelectedItem());
                 // END KGU#548 2018-07-09
-                ini.save();
+                ini.requestSave();
             }
         } 
         catch (FileNotFoundException ex)
@@ -8032,11 +7970,8 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 		String errors = "";
 		Vector<GENPlugin> plugins = Menu.controllerPlugins;
 		if (plugins.isEmpty()) {
-			BufferedInputStream buff = null;
 			try {
-				buff = new BufferedInputStream(getClass().getResourceAsStream("controllers.xml"));
-				GENParser genp = new GENParser();
-				plugins = genp.parse(buff);
+				plugins = StartupPipeline.getPlugins("controllers.xml");
 			} catch (Exception ex) {
 				errors = ex.toString();
 				// START KGU#484 2018-04-05: Issue #463
@@ -8044,16 +7979,6 @@ public class Diagram extends JPanel implements MouseMotionListener, MouseListene
 				logger.log(Level.WARNING, "Trouble accessing controller plugin definitions.", ex);
 				// END KGU#484 2018-04-05
 			}
-			if (buff != null) {
-				try {
-					buff.close(); 
-				} catch (IOException ex) {
-					// START KGU#484 2018-04-05: Issue #463
-					//ex.printStackTrace();
-					logger.log(Level.WARNING, "Couldn't close the controller plugin definition file.", ex);
-					// END KGU#484 2018-04-05
-				}
-			}
 		}
 		for (int i = 0; i < plugins.size(); i++)
 		{
@@ -316,7 +316,7 @@ public class ElementNames extends Component {
 			Ini ini = Ini.getInstance();
 			ini.load();
 			putToIni(ini);
-			ini.save();
+			ini.requestSave();
 		}
 		catch (Exception e)
 		{
@@ -45,6 +45,9 @@ package lu.fisch.structorizer.gui;
  *      Kay Gürtzig     2018-07-02      Bugfix KGU#540 - An element filter change didn't reset the result
  *      Kay Gürtzig     2018-11-21      Bugfix #448: Apparently forgotten part of the fix accomplished
  *      Kay Gürtzig     2018-11-22      Bugfix #637: ArrayIndexOutOfBoundsException in replacePattern(...)
+ *      agent           2026-10-19      Search pattern compiled once per criteria, scope OPENED_DIAGRAMS based
+ *                                      on a SearchIndex, replace-all with a single undo entry per diagram
+ *      agent           2026-10-19      Index pattern lower-cased with Locale.ROOT (consistent with SearchIndex)
  *
  ******************************************************************************************************
  *
@@ -72,8 +75,12 @@ import java.awt.event.ItemListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
+import java.util.Locale;
+import java.util.Set;
 import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -120,7 +127,6 @@ import lu.fisch.structorizer.executor.Function;
 import lu.fisch.structorizer.io.Ini;
 import lu.fisch.structorizer.locales.LangFrame;
 import lu.fisch.structorizer.locales.LangTextHolder;
-import lu.fisch.utils.BString;
 import lu.fisch.utils.StringList;
 
 /**
@@ -177,12 +183,16 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 	private DefaultMutableTreeNode currentNode = null;
 	private DefaultTreeModel resultModel = null;
 	
-	// Pre-compiled matchers for word separation
-	private static final Pattern PTRN_WORDL = Pattern.compile("(\\n|.)*?\\W");
-	private static final Pattern PTRN_WORDR = Pattern.compile("\\W(\\n|.)*?");
-	// Caution! Can we be sure these "constants" aren't concurrently used?
-	private static Matcher mtchWordL = PTRN_WORDL.matcher("");
-	private static Matcher mtchWordR = PTRN_WORDR.matcher("");
+	/** Pre-compiled pattern for word separation */
+	private static final Pattern PTRN_NON_WORD = Pattern.compile("\\W+");
+	/** The search pattern compiled for the current criteria, see {@link #getSearchRegex()} */
+	private Pattern searchRegex = null;
+	/** Search pattern string and flags {@link #searchRegex} was compiled for */
+	private String searchRegexKey = null;
+	/** Word index of the diagrams for scope OPENED_DIAGRAMS */
+	private final SearchIndex searchIndex = new SearchIndex();
+	/** Diagrams already provided with an undo entry during a replace-all run (null otherwise) */
+	private Set<Root> replaceAllRoots = null;
 
 	/**
 	 * Allows to formulate sets of interesting element types
@@ -1033,7 +1043,9 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 		// END KGU#454 2017-11-03
 		currentPosition = positionInElement;
 		ele.setSelected(true);
-		diagram.redraw(ele);
+		if (replaceAllRoots == null) {
+			diagram.redraw(ele);
+		}
 		//System.out.println(ele);
 		int nMatches = 0;
 		boolean enable = false;
@@ -1141,98 +1153,82 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 		// END KGU#454 2017-11-03
 	}
 
-	// FIXME: We might cache the split results for the currentElement
 	/**
-	 * Splits the source string {@code text} (may contain newlines) with respect to the
-	 * matching {@code pattern}, returns the split results and fills th matching substrings
-	 * into {@code realWords} (the name means that it contains the real strings matching
-	 * the patterns as needed for the preview highlighting.
-	 * @param text - the newline-separated source text as String
-	 * @param pattern - the search pattern as string
-	 * @param realWords - empty {@link StringList} to be filled with the matching substrings
-	 * @return array of splitting results (i.e. the substrings around the matches)
+	 * Returns the search pattern compiled according to the current criteria (pattern string,
+	 * case sensitivity, regular expression mode). The pattern is only compiled anew if the
+	 * criteria have changed.
+	 * @return the compiled search pattern
+	 * @throws PatternSyntaxException if the regular expression is corrupt
 	 */
-	private String[] splitText(String text, String pattern, StringList realWords) {
-		int lenPattern = pattern.length();
+	private Pattern getSearchRegex()
+	{
+		String pattern = (String)cmbSearchPattern.getEditor().getItem();
 		boolean caseSens = chkCaseSensitive.isSelected();
 		boolean isRegex = chkRegEx.isSelected();
-		String splitter = pattern + "";
-		if (!isRegex) {
-			if (caseSens) {
-				splitter = Pattern.quote(splitter);
+		String key = (isRegex ? "R" : (caseSens ? "C" : "I")) + pattern;
+		if (!key.equals(searchRegexKey)) {
+			if (isRegex) {
+				searchRegex = Pattern.compile(pattern);
+			}
+			else if (caseSens) {
+				searchRegex = Pattern.compile(Pattern.quote(pattern));
 			}
 			else {
-				splitter = BString.breakup(splitter);
-				// We must care for metasymbols lest the regex mechanism should run havoc
+				searchRegex = Pattern.compile(Pattern.quote(pattern), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
 			}
+			searchRegexKey = key;
 		}
-		String[] parts = text.split(splitter, -1);
-		int nParts = parts.length;
-		// Restore all matched substrings.
-		String[] matches = new String[nParts-1];
+		return searchRegex;
+	}
+
+	/**
+	 * Splits the source string {@code text} (may contain newlines) with respect to the
+	 * current search pattern, returns the split results and fills the matching substrings
+	 * into {@code realWords} (the name means that it contains the real strings matching
+	 * the patterns as needed for the preview highlighting.
+	 * @param text - the newline-separated source text as String
+	 * @param realWords - empty {@link StringList} to be filled with the matching substrings
+	 * @return array of splitting results (i.e. the substrings around the matches)
+	 */
+	private String[] splitText(String text, StringList realWords) {
+		// Same splitting as with String.split(regex, -1) but retaining the matches
+		StringList parts = new StringList();
+		StringList matches = new StringList();
+		Matcher matcher = getSearchRegex().matcher(text);
 		int start = 0;
-		for (int i = 0; i < nParts-1; i++) {
-			String part = parts[i];
-			int lenPart = part.length();
-			if (!isRegex) {
-				if (caseSens) {
-					matches[i] = pattern;
-				}
-				else {
-					matches[i] = text.substring(start + lenPart, start + lenPart + lenPattern);
-				}
-			}
-			else {
-				// In case of regular expressions we cannot deduce the length of the match
-				// So we try something vague: We try to match the pattern in the remainder of
-				// the text and "replace" it by itself. This way, we my derive the length of
-				// the match and copy the respective substring from the original text.
-				String remainder = text.substring(start + lenPart);
-				// We have to consider that the regular expression may or may not subsume line
-				// feed under '.'. Hence we must either check linewise or replace all newlines
-				// by something unlikely in program texts but being matched by '.', or as third
-				// variant explicitly matching newlines. The last way is what we try.
-				// Unfortunately, this may crash in certain cases, we can't even catch it.
-				// FIXME: We should first try some possibly incomplete but less dangerous
-				// approach, e.g. by seeking the next split part in the text beyond the previous
-				// split part. We cannot exclude, however, that this text part might also be
-				// a substring of the match, thus suggesting too early a position...
-				int pos = remainder.indexOf(parts[i+1]);
-				if (pos > -1) {
-					matches[i] = remainder.replaceFirst("(" + splitter +")(\\n|.)*", "$1");
-				}
-				// The splitter might require a non-line start, so we better involve the previous
-				// context for the eventual trial...
-				remainder = text.substring(start);
-				matches[i] = remainder.replaceFirst("(\\n|.)*?(" + splitter + ")(\\n|.)*", "$2");
+		while (matcher.find()) {
+			if (matcher.end() == 0) {
+				// No leading empty part for a zero-width match at the beginning
+				continue;
 			}
-			start += lenPart + matches[i].length();
+			parts.add(text.substring(start, matcher.start()));
+			matches.add(matcher.group());
+			start = matcher.end();
 		}
+		parts.add(text.substring(start));
+		int nParts = parts.count();
 		// Finally we may have to re-combine wrong matches if we only may accept whole word matches
 		if (chkWholeWord.isSelected()) {
 			StringList realParts = new StringList(); 
-			String part = parts[0];
+			String part = parts.get(0);
 			for (int i = 0; i < nParts - 1; i++) {
-				String nextPart = parts[i+1];
-				if ((part.isEmpty() || mtchWordL.reset(part).matches())
-						&& (i+2 == nParts && nextPart.isEmpty() || mtchWordR.reset(nextPart).matches())) {
+				String nextPart = parts.get(i+1);
+				if ((part.isEmpty() || !SearchIndex.isWordChar(part.charAt(part.length()-1)))
+						&& (i+2 == nParts && nextPart.isEmpty()
+						|| !nextPart.isEmpty() && !SearchIndex.isWordChar(nextPart.charAt(0)))) {
 					realParts.add(part);
-					realWords.add(matches[i]);
+					realWords.add(matches.get(i));
 					part = nextPart;
 				}
 				else {
-					part += matches[i] + nextPart;
+					part += matches.get(i) + nextPart;
 				}
 			}
 			realParts.add(part);
-			parts = realParts.toArray();
-		}
-		else {
-			for (String word: matches) {
-				realWords.add(word);
-			}
+			return realParts.toArray();
 		}
-		return parts;
+		realWords.add(matches);
+		return parts.toArray();
 	}
 
 	// START KGU#454 2017-11-03: Bugfix #448 - helper to cache the splitting results
@@ -1249,8 +1245,7 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 		String brokenText = text.getText();
 		StringList matches = new StringList();
 		if (chkInTexts.isSelected()) {
-			String pattern = (String)cmbSearchPattern.getEditor().getItem();
-			String[] parts = this.splitText(brokenText, pattern, matches);
+			String[] parts = this.splitText(brokenText, matches);
 			for (int i = 0; i < parts.length - 1; i++) {
 				partList.add(parts[i]);
 				partList.add(matches.get(i));
@@ -1320,7 +1315,7 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 		if (this.chkRegEx.isSelected()) {
 			String patternString = (String)this.cmbSearchPattern.getEditor().getItem();
 			try {
-				Pattern.compile(patternString);
+				getSearchRegex();
 			}
 			catch (PatternSyntaxException ex) {
 				JOptionPane.showMessageDialog(this,
@@ -1393,8 +1388,8 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 			if (replace && nMatches > 0) {
 				// Replace next match according to the current pattern
 				Root root = Element.getRoot(currentElement);
-				if (root != null) {
-					// Every single replacement is to be undoable ...
+				// Every single replacement is to be undoable (with replace-all only once per diagram)...
+				if (root != null && (replaceAllRoots == null || replaceAllRoots.add(root))) {
 					root.addUndo();
 				}
 				// START KGU#480 2018-01-22: Enh. #490
@@ -1446,6 +1441,9 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 					// END KGU#609 2018-11-21
 					done = true;
 				}
+				if (root != null) {
+					searchIndex.update(root);
+				}
 				if (currentNode != null) {
 					// We better cache the current node locally lest the reload actions should reset it.
 					DefaultMutableTreeNode currNode = currentNode;
@@ -1459,9 +1457,11 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 						treResults.setSelectionPath(new TreePath(currentNode.getPath()));
 					}
 				}
-			diagram.doButtons();
-			// Make sure the Structorizer working area is refreshed, too
-			diagram.redraw(currentElement);
+			if (replaceAllRoots == null) {
+				diagram.doButtons();
+				// Make sure the Structorizer working area is refreshed, too
+				diagram.redraw(currentElement);
+			}
 			if (done) {
 				if (elementwise) {
 					// after an elementwise replacement there can't be matches left (unless the
@@ -1589,14 +1589,14 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 		resultModel.reload();
 		clearCurrentElement();
 		DefaultMutableTreeNode lastNode = null;
-		Vector<Root> roots = Arranger.getSortedRoots();
-		if (!roots.contains(diagram.getRoot())) {
-			roots.add(0, diagram.getRoot());
-		}
+		Vector<Root> roots = getSearchableRoots();
+		searchIndex.retainAll(roots);
 		for (Root root: roots) {
-			LinkedList<Element> elements = this.findElements(root.children, true);
-			if (checkElementMatch(root) > 0) {
-				elements.addFirst(root);
+			LinkedList<Element> elements = new LinkedList<Element>();
+			for (Element ele: getCandidateElements(root)) {
+				if (checkElementMatch(ele) > 0) {
+					elements.add(ele);
+				}
 			}
 			if (!elements.isEmpty()) {
 				DefaultMutableTreeNode rootNode = new DefaultMutableTreeNode(root);
@@ -1627,13 +1627,84 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 		}
 	}
 
+	/**
+	 * @return the diagrams to be searched in scope OPENED_DIAGRAMS (the Arranger diagrams
+	 * and the diagram of the owning {@link Diagram})
+	 */
+	private Vector<Root> getSearchableRoots()
+	{
+		Vector<Root> roots = new Vector<Root>(Arranger.getSortedRoots());
+		if (!roots.contains(diagram.getRoot())) {
+			roots.add(0, diagram.getRoot());
+		}
+		return roots;
+	}
+
+	/**
+	 * Retrieves the elements of the given {@code root} possibly matching the current search
+	 * criteria (in traversal order) from the {@link #searchIndex}. With a regular expression
+	 * or a pattern without word characters this will be all elements of the diagram, otherwise
+	 * only the elements containing the (longest) word of the pattern. 
+	 * @param root - the diagram to be searched
+	 * @return the list of candidate elements (the Root first if contained) 
+	 */
+	private List<Element> getCandidateElements(Root root)
+	{
+		if (!chkRegEx.isSelected()) {
+			String pattern = ((String)cmbSearchPattern.getEditor().getItem()).toLowerCase(Locale.ROOT);
+			boolean wholeWord = chkWholeWord.isSelected();
+			// Find the longest sequence of word characters, it must be contained in some word
+			int wordStart = 0, wordEnd = 0;
+			for (int i = 0, start = -1; i <= pattern.length(); i++) {
+				if (i < pattern.length() && SearchIndex.isWordChar(pattern.charAt(i))) {
+					if (start < 0) {
+						start = i;
+					}
+				}
+				else if (start >= 0) {
+					if (i - start > wordEnd - wordStart) {
+						wordStart = start;
+						wordEnd = i;
+					}
+					start = -1;
+				}
+			}
+			if (wholeWord && wordEnd - wordStart < pattern.length()) {
+				// A pattern containing non-word characters cannot match a whole word
+				return new LinkedList<Element>();
+			}
+			if (wordEnd > wordStart) {
+				return searchIndex.getCandidates(root, pattern.substring(wordStart, wordEnd), wholeWord);
+			}
+		}
+		return searchIndex.getElements(root);
+	}
+
 	/**
 	 * Action listener method for the "Replace All" button. Executes the find cycle
-	 * with replacement.
+	 * with replacement. All replacements in a diagram are undone by a single undo step.
 	 * @param evt - the inducing event
 	 */
 	protected void replaceAllActionPerformed(ActionEvent evt) {
-		while (findActionPerformed(evt, true, true));
+		replaceAllRoots = new HashSet<Root>();
+		try {
+			while (findActionPerformed(evt, true, true));
+		}
+		finally {
+			replaceAllRoots = null;
+		}
+		diagram.doButtons();
+		diagram.redraw();
+	}
+
+	@Override
+	public void setVisible(boolean _visible)
+	{
+		if (_visible) {
+			// Have the diagrams indexed in the background while the user enters the criteria
+			searchIndex.prepare(getSearchableRoots());
+		}
+		super.setVisible(_visible);
 	}
 
 	// START KGU#454 2017-11-03: Bugfix #448 signature meaning changed, implementation revised
@@ -1731,7 +1802,7 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 				splitText.set(0, sb.toString());
 			}
 			else {
-				splitText.set(0, splitText.concatenate().replaceAll(searchPattern, replacePattern));
+				splitText.set(0, getSearchRegex().matcher(splitText.concatenate()).replaceAll(replacePattern));
 			}
 			splitText.remove(1, splitText.count());
 		}
@@ -1745,7 +1816,7 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 			if (pos+1 < splitText.count()) {
 				// At the very position replace the found match
 				if (isRegex) {
-					replacePattern = splitText.get(pos).replaceFirst(searchPattern, replacePattern);
+					replacePattern = getSearchRegex().matcher(splitText.get(pos)).replaceFirst(replacePattern);
 				}
 				// We must now concatenate the replaced part with both its neighbours
 				splitText.set(pos - 1, splitText.get(pos-1) + replacePattern + splitText.get(pos+1));
@@ -1813,7 +1884,13 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 			// START KGU#454 2017-11-03: Bugfix #448 - the pattern might be corrupt!
 			//nMatches = brokenText.split(searchPattern, -1).length - 1;
 			try {
-				nMatches = brokenText.split(searchPattern, -1).length - 1;
+				// Equivalent to brokenText.split(searchPattern, -1).length - 1
+				Matcher matcher = getSearchRegex().matcher(brokenText);
+				while (matcher.find()) {
+					if (matcher.end() > 0) {
+						nMatches++;
+					}
+				}
 			}
 			catch (Exception ex) {
 				JOptionPane.showMessageDialog(this,
@@ -1827,7 +1904,7 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 		}
 		else if (chkWholeWord.isSelected()) {
 			// FIXME: Maybe we should rather tokenize the string!?
-			String[] words = brokenText.split("\\W+");
+			String[] words = PTRN_NON_WORD.split(brokenText);
 			for (String word: words) {
 				if (caseSensi && word.equals(searchPattern) || !caseSensi && word.equalsIgnoreCase(searchPattern)) {
 					//doesMatch = true;
@@ -1842,7 +1919,14 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 				searchPattern = searchPattern.toLowerCase();
 			}
 			//doesMatch = brokenText.contains(searchPattern);
-			nMatches = brokenText.split(Pattern.quote(searchPattern), -1).length - 1;
+			int lenPattern = searchPattern.length();
+			if (lenPattern > 0) {
+				int pos = 0;
+				while ((pos = brokenText.indexOf(searchPattern, pos)) >= 0) {
+					nMatches++;
+					pos += lenPattern;
+				}
+			}
 		}
 		//return doesMatch;
 		return nMatches;
@@ -1976,25 +2060,6 @@ public class FindAndReplace extends LangFrame /*implements WindowListener*/ {
 		}
 	}
 	
-	/**
-	 * Retrieves the matching elements in the given subsequence {@code _scope} and links them to a list.
-	 * THe restrieval is restricted to elements of one and the same {@link Root}.
-	 * @param _scope - linear subsequence of elements limiting the search scope
-	 * @param _deeply - whether the searh is to comprise all substructure (otherwise: flat)
-	 * @return ordered list of the elements matching the search criteria
-	 */
-	private LinkedList<Element> findElements(IElementSequence _scope, boolean _deeply)
-	{
-		LinkedList<Element> elements = new LinkedList<Element>();
-		Iterator iter = _scope.iterator(_deeply);
-		while (iter.hasNext()) {
-			Element ele = iter.next();
-			if (checkElementMatch(ele) > 0) {
-				elements.add(ele);
-			}
-		}
-		return elements;
-	}
 	
 //	@Override
 //	public void windowActivated(WindowEvent arg0) {
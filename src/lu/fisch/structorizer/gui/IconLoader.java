@@ -75,16 +75,24 @@ package lu.fisch.structorizer.gui;
  *      Kay Gürtzig     2019-01-03      Enh. #657: New icons 116_groupAttach, 117_groupExpand added
  *      Kay Gürtzig     2019-01-10      Enh. #657, #662/2: variant of generateIcon(Color) with insets
  *      Kay Gürtzig     2019-01-12      Enh. #622/3: 119_rearrange added
+ *      agent           2026-10-19      Icons loaded and scaled individually on demand (concurrent cache keyed
+ *                                      by file name and pixel size), derived from the nearest larger source
+ *                                      resolution; background prefetch of secondary icons, icoNSD48, turtle,
+ *                                      and icoLocales dropped
+ *      agent           2026-10-19      loadIcons(int[]) and MAIN_ICONS for the StartupPipeline
  *
  ******************************************************************************************************
  *
- *      Comment:		/
+ *      Comment:
+ *      Icons are only loaded when requested. The scaled icons are cached per file name and coerced
+ *      pixel size, so a change of the scale factor merely starts a new generation of the cache.
+ *      Access is thread-safe such that icons may be prefetched by a background thread.
  *
  ******************************************************************************************************///
 
 import java.awt.*;
 import java.awt.image.*;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -232,8 +240,23 @@ public class IconLoader {
 			// The sizes 128 and 256 are only for design purposes, they would unnecessarily inflate the JAR
 	};
 	
-	/** Array of available numbered icons with lazy initialization (replaces ico001, ico002 etc.) */
-	private static ImageIcon[] icons = null;
+	/** Cache of the loaded and scaled icons, keyed by file name and pixel size (replaces ico001, ico002 etc.) */
+	private static final ConcurrentHashMap<String, ImageIcon> iconCache = new ConcurrentHashMap<String, ImageIcon>();
+	
+	/** Numbers of the icons needed for the toolbars and menus of the main window */
+	public static final int[] MAIN_ICONS = {
+			0, 1, 2, 3, 4, 5, 6, 7, 9, 14, 17, 18, 19, 20, 21, 22, 23, 25, 26, 27, 28, 29, 31, 32, 33,
+			34, 38, 39, 40, 41, 42, 43, 44, 51, 52, 54, 56, 57, 58, 59, 60, 61, 62, 63, 64, 68, 69, 71,
+			73, 74, 75, 77, 78, 79, 81, 82, 83, 85, 86, 87, 88, 91, 92, 102, 103, 104, 105, 106, 107,
+			108, 109, 110, 111, 112, 113
+	};
+
+	/** Numbers of icons not needed for the main window but for Arranger, Executor Control etc. */
+	private static final int[] PREFETCH_ICONS = {
+			3, 4, 5, 10, 11, 12, 13, 14, 15, 16, 17, 21, 22, 24, 30, 45, 46, 47, 48, 49, 50, 53,
+			57, 58, 59, 60, 61, 62, 63, 64, 70, 71, 72, 74, 79, 80, 85, 86, 89, 90, 91, 94, 97, 98,
+			100, 110, 116, 117, 118, 119
+	};
 	// END KGU#486 2018-01-24
 
 	// Icons
@@ -246,8 +269,6 @@ public class IconLoader {
 	//public static ImageIcon icoNSD48 = new ImageIcon(getURI(from+"icons/structorizer48.png"));
 	// START KGU#486 2018-02-06: Issue #4 (Icon redesign)
 	//public static ImageIcon icoNSD48 = getIconImage(getURI(from+"icons/structorizer48.png"));
-	/** A scaled product image with basic size of 48 pixels */
-	public static ImageIcon icoNSD48 = getIconImage(getURI(from+"icons_48/000_structorizer.png"));
 	// END KGU#486 2018-02-06
 	// END KGU#287 2016-11-02
 	// START KGU#577 2018-09-17: Issue #601 - we use lazy initialization
@@ -420,23 +441,13 @@ public class IconLoader {
 //	public static ImageIcon ico115 = getIconImage(getURI(from+"icons/115_up.png"));
 //	// END KGU#213 2017-12-11
 
-	/**
-	 * This still holds the obsolete traditional turtle icon.
-	 * Use {@link #getIcon(int)} with argument 54 to obtain the topical tortoise. 
-	 */
-	@Deprecated 
-	public static ImageIcon turtle = getIconImage(getURI(from+"icons/turtle.png"));
-	
-	// START KGU#242 2016-09-05
-	public static HashMap<String, ImageIcon> icoLocales = new HashMap<String, ImageIcon>();
-	// END KGU#242 2016-09-05
-	
 	// START KGU#486 2018-01-25: Issues #4, #81
 	/**
 	 * New preferred icon retrieval mechanism to support qualitatively acceptable icon scaling
 	 * results and to facilitate the introduction of new icons (though it's going to get harder
 	 * to identify unused icons.)<br/>
-	 * The first call will cause the initialization of he icon cache.
+	 * The icon is loaded and scaled on its first request for the current scale factor and
+	 * cached afterwards.
 	 * @param iconNo - the index of he requested icon
 	 * @return the {@linkImageIcon} object for the requested icon if available, null otherwise
 	 * @see #getIconImage(java.net.URL)
@@ -452,20 +463,10 @@ public class IconLoader {
 		ImageIcon icon = null;
 		if (iconNo >= 0 && iconNo < ICON_FILES.length) {
 		// END KGU#577 2018-09-17
-			if (icons == null) {
-				// Lazy initialization of the icon cache
-				icons = new ImageIcon[ICON_FILES.length];
-				for (int i = 0; i < ICON_FILES.length; i++) {
-					String fileName = ICON_FILES[i];
-					if (fileName != null) {
-						icons[i] = getIconImage(fileName);
-					}
-					else {
-						icons[i] = null;
-					}
-				}
+			String fileName = ICON_FILES[iconNo];
+			if (fileName != null) {
+				icon = getIconImage(fileName);
 			}
-			icon = icons[iconNo];
 		// START KGU#577 2018-09-17: Issue #601
 		}
 		else {
@@ -485,9 +486,39 @@ public class IconLoader {
 	// END KGU#486 2018-01-25
 
 	/**
-	 * Stores the given scale factor, clears the general icon cache (such that icon retrieval
-	 * refills it by lazy initialization with the new scale), and immediately rescales all
-	 * separately cached icons (e.g. product icon, locale icons).
+	 * Starts a background thread loading the icons needed by the Arranger, the Executor
+	 * Control etc. (but not by the main window) for the current scale factor, such that
+	 * these components may open without delay. To be called after the main window appeared.
+	 */
+	public static void prefetchIcons()
+	{
+		Thread prefetcher = new Thread("IconPrefetch") {
+			@Override
+			public void run() {
+				loadIcons(PREFETCH_ICONS);
+			}
+		};
+		prefetcher.setDaemon(true);
+		prefetcher.setPriority(Thread.MIN_PRIORITY);
+		prefetcher.start();
+	}
+
+	/**
+	 * Ensures the icons with the given numbers being cached for the current scale factor
+	 * (e.g. to load them on a background thread in advance).
+	 * @param iconNos - the numbers of the icons to be loaded
+	 * @see #MAIN_ICONS
+	 */
+	public static void loadIcons(int[] iconNos)
+	{
+		for (int iconNo: iconNos) {
+			getIcon(iconNo);
+		}
+	}
+
+	/**
+	 * Stores the given scale factor and clears the icon cache (such that icon retrieval
+	 * refills it by lazy initialization with the new scale) if the factor has changed.
 	 * @param scale - the new scale factor.
 	 */
 	public static void setScaleFactor(double scale)
@@ -495,13 +526,13 @@ public class IconLoader {
 		// START KGU#577 2018-09-18: Issue #601 replace the scaled dummy
 		if (scale != scaleFactor) {
 			dummyIcon = null;	// Is going to be reproduced as soon as needed
+			iconCache.clear();
 		}
 		// END KGU#577 2018-09-18
 		scaleFactor = scale;
 		// START KGU#287 2016-11-02: Issue #81 (DPI awareness workaround)
 		// START KGU#486 2018-02-06: Issue #4 (icon redesign)
 		//icoNSD48 = getIconImage(getURI(from+"icons/structorizer48.png"));
-		icoNSD48 = getIconImage(getURI(from+"icons_48/000_structorizer.png"));
 		// END KGU#486 2018-02-06
 		// END KGU#287 2016-11-02
 
@@ -677,18 +708,6 @@ public class IconLoader {
 //		ico114 = getIconImage(getURI(from+"icons/114_down.png"));
 //		ico115 = getIconImage(getURI(from+"icons/115_up.png"));
 //		// END KGU#213 2017-12-11
-		
-		// Take advantage of the lazy initialization mechanism in getIcon(int) 
-		icons = null;
-
-		turtle = getIconImage(getURI(from + "icons/turtle.png"));
-
-		// START KGU#242 2016-09-05
-		for (String key: icoLocales.keySet())
-		{
-			icoLocales.put(key, getIconImage(getURI(from+"icons/locale_"+key+".png")));
-		}
-		// END KGU#242 2016-09-05
 	}
 
 	/**
@@ -709,7 +728,7 @@ public class IconLoader {
 	 * for the currently specified scale.
 	 * @param fileName - the file name of the icon file(s) in the cascaded icon folders;
 	 * @param extraFactor - additional (product-internal) scaling factor
-	 * @return the retrieved or scaled ImageIco
+	 * @return the retrieved or scaled ImageIco (cached, so it must not be modified)
 	 * @see #getIcon(int)
 	 * @see #setScaleFactor(double)
 	 */
@@ -717,60 +736,77 @@ public class IconLoader {
 	public static ImageIcon getIconImage(String fileName, double extraFactor)
 	// END KGU#486 2018-02-06
 	{
-		//System.out.println("getIconImage(\"" + fileName + "\")");
+		// We coerce the scale factor to multiples of 0.5 and compute the wanted size
+		long pixels = 8 * Math.round(scaleFactor * extraFactor * 2);
+		String key = fileName + "@" + pixels;
+		ImageIcon ii = iconCache.get(key);
+		if (ii == null) {
+			ii = loadIconImage(fileName, pixels);
+			ImageIcon cached = iconCache.putIfAbsent(key, ii);
+			if (cached != null) {
+				ii = cached;	// Another thread was faster
+			}
+		}
+		return ii;
+	}
+
+	/**
+	 * Loads the icon file with the given name in the given size. If there is no icon
+	 * file of exactly this size then the icon file of the nearest larger size will be
+	 * scaled down. Only if there is no larger file, the largest available file is
+	 * magnified (preferably with an integral factor).
+	 * @param fileName - the file name of the icon file(s) in the cascaded icon folders
+	 * @param pixels - the requested (basic) size
+	 * @return the loaded and scaled {@link ImageIcon} or the missing icon dummy
+	 */
+	private static ImageIcon loadIconImage(String fileName, long pixels)
+	{
 		// START KGU#577 2018-09-17: Issue #601 - precautions against inconsistent resources or code
 		// First we fetch the base icon (size 16 pixels = scalefactor 1)
-		ImageIcon ii = null;
-		try {
-			ii = new ImageIcon(getURI(from + "icons/" + fileName));
-		}
-		catch (Exception ex) {
-			Logger.getLogger(IconLoader.class.getName()).log(Level.SEVERE, "Resources inconsitent!", ex);
+		java.net.URL largestURL = getURI(from + "icons/" + fileName);
+		if (largestURL == null) {
+			Logger.getLogger(IconLoader.class.getName()).log(Level.SEVERE, "Resources inconsistent! No icon file " + fileName);
 			return getMissingIcon();
 		}
 		// END KGU#577 2018-09-17
-		// We coerce the scale factor to multiples of 0.5 and compute the wanted size
-		long pixels = 8 * Math.round(scaleFactor * extraFactor * 2);
-		int size = 16;
-		double factor = 1.0 * pixels / size;
+		int largestSize = ICON_SIZES[0];
 		java.net.URL roundURL = null;
-		java.net.URL largestURL = null;
-		double minFactor = factor;
-		for (int i = 1; i < ICON_SIZES.length && ICON_SIZES[i] <= pixels; i++) {
-			size = ICON_SIZES[i];
+		int roundSize = 0;
+		for (int i = 1; i < ICON_SIZES.length && largestSize < pixels; i++) {
+			int size = ICON_SIZES[i];
 			java.net.URL url = getURI(from + "icons_" + size + "/" + fileName);
 			if (url != null) {
 				largestURL = url;
-				minFactor = 1.0 * pixels / size;
-				// If the file can be scaled with an integral factor, we'll cache it
-				if (pixels % size == 0) { 
+				largestSize = size;
+				// Magnification with an integral factor is still acceptable
+				if (size < pixels && pixels % size == 0 && pixels / size <= 3) {
 					roundURL = url;
-					factor = pixels / size;
+					roundSize = size;
 				}
 			}
 		}
-		if (largestURL != null && minFactor < 1.25) {
-			roundURL = largestURL;
-			factor = 1.0;
-		}
-		if (roundURL != null && factor <= 3) {
+		if (largestSize < pixels && roundURL != null && 1.0 * pixels / largestSize >= 1.25) {
+			// No larger file available, a too small one would have to be magnified by a fraction
 			largestURL = roundURL;
+			largestSize = roundSize;
 		}
-		else if (largestURL != null) {
-			factor = minFactor;
-		}
-		else {
-			factor = scaleFactor * extraFactor;
+		else if (largestSize < pixels && 1.0 * pixels / largestSize < 1.25) {
+			// Too little magnification to be worth the blur
+			pixels = largestSize;
 		}
-		if (largestURL != null) {
+		ImageIcon ii = null;
+		try {
 			ii = new ImageIcon(largestURL);
 		}
-		// FIXME: Why is this signaled as dead code? (without being commented out, of course)
-		//if (ii == null) {
-		//	Logger.getLogger(IconLoader.class.getName()).log(Level.SEVERE, "No resource " + fileName + " with size " + extraFactor);
-		//	return getMissingIcon();			
-		//}
-		return scale(ii, factor);
+		catch (Exception ex) {
+			Logger.getLogger(IconLoader.class.getName()).log(Level.SEVERE, "Resources inconsitent!", ex);
+			return getMissingIcon();
+		}
+		if (largestSize != pixels) {
+			double factor = 1.0 * pixels / largestSize;
+			ii = scaleTo(ii, (int)Math.round(factor * ii.getIconWidth()), (int)Math.round(factor * ii.getIconHeight()));
+		}
+		return ii;
 	}
 
 	/**
@@ -839,8 +875,8 @@ public class IconLoader {
 	// START KGU 2016-09-06
 	public static ImageIcon getLocaleIconImage(String localeName)
 	{
-		ImageIcon ii = icoLocales.get(localeName);
-		if (ii == null && Locales.isNamedLocale(localeName))
+		ImageIcon ii = null;
+		if (Locales.isNamedLocale(localeName))
 		{
 			// Already comprises scaling...
 			// START KGU#286 2018-02-13: Issues #4, #81
@@ -888,6 +924,11 @@ public class IconLoader {
 		int type = BufferedImage.TYPE_INT_ARGB;
 		BufferedImage dst = new BufferedImage(width, height, type);
 		Graphics2D g2 = dst.createGraphics();
+		if (width < src.getIconWidth() || height < src.getIconHeight()) {
+			// Reduction with mere pixel selection would look ragged
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+			g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		}
 		g2.drawImage(src.getImage(), 0, 0, width, height, null);
 		g2.dispose();
 		return new ImageIcon(dst);
@@ -77,6 +77,9 @@ package lu.fisch.structorizer.gui;
  *      Kay Gürtzig     2018-10-28      Enh. #419: loadFromIni() decomposed (diagram-related parts delegated)
  *      Kay Gürtzig     2018-12-21      Enh. #655 signature and semantics of method routinePoolChanged adapted 
  *      Kay Gürtzig     2019-01-17      Issue #664: Workaround for ambiguous canceling in AUTO_SAVE_ON_CLOSE mode
+ *      agent           2026-10-19      Background prefetch of secondary icons after startup
+ *      agent           2026-10-19      Startup steps parallelised via StartupPipeline (with trace option),
+ *                                      controller plugins only instantiated on startup if aliases are configured
  *
  ******************************************************************************************************
  *
@@ -103,6 +106,7 @@ package lu.fisch.structorizer.gui;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -121,6 +125,7 @@ import lu.fisch.structorizer.elements.*;
 import lu.fisch.structorizer.executor.Executor;
 import lu.fisch.structorizer.executor.IRoutinePool;
 import lu.fisch.structorizer.executor.IRoutinePoolListener;
+import lu.fisch.structorizer.helpers.GENPlugin;
 import lu.fisch.structorizer.locales.LangFrame;
 import lu.fisch.structorizer.locales.Locales;
 
@@ -170,10 +175,14 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
 	 ******************************/
 	private void create()
 	{
+            long stepStart = System.nanoTime();
             // START KGU#456 2017-11-05: Enh. #452
             //Ini.getInstance();
             isNew = Ini.getInstance().wasFirstStart();
             // END KGU#456 2017-11-05
+            stepStart = StartupPipeline.record("Ini", stepStart);
+            // Plugin definitions and locales are loaded in parallel from now on
+            StartupPipeline.begin();
             /*
             try {
                     ClassPathHacker.addFile("Structorizer.app/Contents/Resources/Java/quaqua-filechooser-only.jar");
@@ -191,6 +200,14 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
             // But it doesn't reach components like Editor, Menu and Diagram, which are
             // created later
             loadFromINI();
+            stepStart = StartupPipeline.record("loadFromINI", stepStart);
+            // The scale factor is known now, so the icons may be loaded in advance
+            StartupPipeline.submit("main window icons", new Runnable() {
+            	@Override
+            	public void run() {
+            		IconLoader.loadIcons(IconLoader.MAIN_ICONS);
+            	}
+            });
 
             /******************************
              * Some JFrame specific things
@@ -254,6 +271,7 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
             	editor = new Editor(Mainform.this);
             }
             //System.out.println("* editor done.");
+            stepStart = StartupPipeline.record("Editor", stepStart);
             // get reference to the diagram
             diagram = getEditor().diagram;
             Container container = getContentPane();
@@ -288,6 +306,7 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
             	menu = new Menu(diagram, Mainform.this);
             }
             //System.out.println("* menu done.");
+            stepStart = StartupPipeline.record("Menu", stepStart);
             setJMenuBar(menu);		
 
             /******************************
@@ -422,6 +441,7 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
             //System.out.println("* Load from Ini ...");
             loadFromINI();
             //System.out.println("* Load from Ini done.");
+            stepStart = StartupPipeline.record("loadFromINI (components)", stepStart);
             // START KGU#337 2017-02-03: Issue #340 - setLocale has already been done by loadFromIni()
             //Locales.getInstance().setLocale(Locales.getInstance().getLoadedLocaleName());
             // END KGU#337 2017-02-03
@@ -522,9 +542,37 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
         	// START KGU#461/KGU#491 2018-02-09: Bugfix #455/#465/#507: We got into trouble on reloading the preferences
         	isStartingUp = false;
         	// END KGU#461/KGU#491 2018-02-09
+        	StartupPipeline.record("remaining setup", stepStart);
+        	StartupPipeline.finish();
+        	// Icons for Arranger, Executor Control etc. aren't needed before the window appeared
+        	IconLoader.prefetchIcons();
 	}
 	
 
+	/**
+	 * Checks whether the given {@link Ini} instance contains routine aliases for some
+	 * {@link DiagramController} (Turtleizer or a controller plugin) without instantiating
+	 * the controllers.
+	 * @param ini - the loaded {@link Ini} instance
+	 * @return true if there is at least one property key starting with a controller class name
+	 */
+	private boolean hasControllerAliases(Ini ini)
+	{
+		ArrayList<String> prefixes = new ArrayList<String>();
+		prefixes.add(TurtleBox.class.getName() + ".");
+		for (GENPlugin plugin: StartupPipeline.getPlugins("controllers.xml")) {
+			prefixes.add(plugin.className + ".");
+		}
+		for (Object key: ini.keySet()) {
+			for (String prefix: prefixes) {
+				if (key.toString().startsWith(prefix)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	/******************************
 	 * Load & save INI-file
 	 ******************************/
@@ -534,7 +582,6 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
 		{
 			Ini ini = Ini.getInstance();
 			ini.load();
-			ini.load();	// FIXME This seems to be repeated in order to buy time for the GUI
 
 			double scaleFactor = Double.parseDouble(ini.getProperty("scaleFactor","1"));
 			// START KGU#287 2017-01-09 
@@ -549,13 +596,13 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
 			int defaultHeight = Double.valueOf(550 * scaleFactor).intValue();
 			// END KGU#287 2016-11-01
 			// position
-			int top = Integer.parseInt(ini.getProperty("Top","0"));
-			int left = Integer.parseInt(ini.getProperty("Left","0"));
+			int top = ini.getIntProperty("Top", 0);
+			int left = ini.getIntProperty("Left", 0);
 			// START KGU#287 2016-11-01: Issue #81 (DPI awareness)
 			//int width = Integer.parseInt(ini.getProperty("Width","750"));
 			//int height = Integer.valueOf(ini.getProperty("Height","550"));
-			int width = Integer.parseInt(ini.getProperty("Width", ""+defaultWidth));
-			int height = Integer.parseInt(ini.getProperty("Height", ""+defaultHeight));
+			int width = ini.getIntProperty("Width", defaultWidth);
+			int height = ini.getIntProperty("Height", defaultHeight);
 			// END KGU#287 2016-11-01
 
 			// reset to defaults if wrong values
@@ -611,17 +658,17 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
 			validate();
 
 			// START KGU#123 2018-03-14: Enh. #87, Bugfix #65
-			Element.E_WHEELCOLLAPSE = ini.getProperty("wheelToCollapse", "0").equals("1");
+			Element.E_WHEELCOLLAPSE = ini.getBooleanProperty("wheelToCollapse", false);
 			// END KGU#123 2018-03-14
 			// START KGU#503 2018-03-14: Enh. #519
-			Element.E_WHEEL_REVERSE_ZOOM = ini.getProperty("wheelCtrlReverse", "0").equals("1");
+			Element.E_WHEEL_REVERSE_ZOOM = ini.getBooleanProperty("wheelCtrlReverse", false);
 			// END KGU#503 2018-03-14
 			// START KGU#494 2018-09-10: Issue #508
-			Element.E_PADDING_FIX = ini.getProperty("fixPadding", "0").equals("1");
+			Element.E_PADDING_FIX = ini.getBooleanProperty("fixPadding", false);
 			// END KGU#494 2018-09-10
 
 			// START KGU#300 2016-12-02: Enh. #300
-			Diagram.retrieveVersion = ini.getProperty("retrieveVersion", "false").equals("true");
+			Diagram.retrieveVersion = ini.getBooleanProperty("retrieveVersion", false);
 			// END KGU#300 2016-12-02
 			if (diagram != null) 
 			{
@@ -674,7 +721,12 @@ public class Mainform  extends LangFrame implements NSDController, IRoutinePoolL
                  * */
 				// START KGU#480 2018-01-21: Enh. #490
 				if (Element.controllerName2Alias.isEmpty()) {
-					for (DiagramController controller: diagram.getDiagramControllers()) {
+					// The controller plugins are only to be instantiated this early if there are aliases for them
+					ArrayList<DiagramController> controllers = new ArrayList<DiagramController>();
+					if (hasControllerAliases(ini)) {
+						controllers = diagram.getDiagramControllers();
+					}
+					for (DiagramController controller: controllers) {
 						if (controller == null) {
 							controller = new TurtleBox();
 						}
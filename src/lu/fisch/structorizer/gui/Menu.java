@@ -96,6 +96,7 @@ package lu.fisch.structorizer.gui;
  *      Kay Gürtzig     2018-10-26      Enh. #619: New menu entries and messages for line breaking
  *      Kay Gürtzig     2018-12-24      Toolkit.getDefaultToolkit().getMenuShortcutKeyMask() calls concentrated
  *      Kay Gürtzig     2019-01-04      Enh. #657: Key bindings Ctrl-G and Ctrl-Shift-G withdrawn (too rarely used)
+ *      agent           2026-10-19      Plugin definitions retrieved via StartupPipeline
  *
  ******************************************************************************************************
  *
@@ -1849,11 +1850,8 @@ public class Menu extends LangMenuBar implements NSDController
     	case CONTROLLER:
     		fileName = "controllers.xml";
     	}
-		// and add them to the menu
-		BufferedInputStream buff = new BufferedInputStream(getClass().getResourceAsStream(fileName));
-		GENParser genp = new GENParser();
-		Vector<GENPlugin> plugins = genp.parse(buff);
-		try { buff.close();	} catch (IOException e) {}
+		// and add them to the menu (the file is likely to have been parsed during startup)
+		Vector<GENPlugin> plugins = StartupPipeline.getPlugins(fileName);
 		for (int i = 0; i < plugins.size(); i++)
 		{
 			GENPlugin plugin = plugins.get(i);
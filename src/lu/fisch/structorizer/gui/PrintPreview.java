@@ -35,6 +35,7 @@ package lu.fisch.structorizer.gui;
  *      Bob Fisch       2008.01.27      First Issue
  *      Kay Gürtzig     2017.11.06      Enh. #456 Orientation switching reactivated, margin configuration added.
  *      Kay Gürtzig     2018.03.22      Issue #463 Console output replaced with logging mechanism
+ *      agent           2026.10.19      Explicit garbage collection on preview update dropped
  *
  ******************************************************************************************************
  *
@@ -467,7 +468,6 @@ public class PrintPreview extends LangDialog implements Runnable{
 		// END KGU#458 2017-11-07
 		
 		scrPreview.setViewportView(m_preview);
-		System.gc();
 				
 		/*
 		Component[] comps = m_preview.getComponents();
@@ -0,0 +1,316 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Shneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.gui;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Inverted word index over the elements of several diagrams (for FindAndReplace)
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026-10-19      First Issue
+ *      agent           2026-10-19      Entries validated against Root.getModificationCount() (diagrams
+ *                                      not being drawn never notify their updaters), Locale.ROOT case folding
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      For every indexed Root, the elements are listed in traversal order (the Root first) and each
+ *      word (maximum sequence of characters matching \w, lower-cased) occurring in the text, the alias
+ *      text, or the comment of an element is mapped to the set of indices of these elements.
+ *      The index only serves to preselect candidate elements, which have still to be verified by the
+ *      actual search criteria. An entry is a superset of the matching elements only as long as the
+ *      diagram hasn't been modified since indexing. Therefore each entry records the modification
+ *      count of its Root (see Root.getModificationCount(), which is maintained by the undo/redo
+ *      bookkeeping and thus also covers diagrams that are never drawn, e.g. refactored Arranger
+ *      diagrams) and is rebuilt lazily on access if the count differs. Additionally, the index is
+ *      registered as Updater with the indexed diagrams in order to drop entries early after changes
+ *      that are reported on drawing.
+ *      Entries may be prepared by a background thread (see prepare(Collection)); access is synchronized.
+ *
+ ******************************************************************************************************///
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import lu.fisch.structorizer.elements.Element;
+import lu.fisch.structorizer.elements.IElementVisitor;
+import lu.fisch.structorizer.elements.Root;
+import lu.fisch.structorizer.elements.Updater;
+import lu.fisch.utils.StringList;
+
+/**
+ * Inverted word index over the elements of a set of diagrams, maintained via the
+ * {@link Updater} mechanism and used by {@link FindAndReplace} to preselect the
+ * elements to be checked.
+ * @author agent
+ */
+public class SearchIndex implements Updater {
+
+	private static final Logger logger = Logger.getLogger(SearchIndex.class.getName());
+
+	/** Index data of a single diagram */
+	private static final class Entry {
+		/** Modification count of the diagram at the time of indexing */
+		final int modificationCount;
+		/** All elements of the diagram in traversal order (Root first) */
+		final ArrayList<Element> elements = new ArrayList<Element>();
+		/** Maps lower-case words to the indices of the elements containing them */
+		final HashMap<String, BitSet> postings = new HashMap<String, BitSet>();
+		Entry(int modificationCount)
+		{
+			this.modificationCount = modificationCount;
+		}
+	}
+
+	private final HashMap<Root, Entry> entries = new HashMap<Root, Entry>();
+	/** Change counters of the registered diagrams (to discard outdated background results) */
+	private final HashMap<Root, Integer> generations = new HashMap<Root, Integer>();
+	private Thread preparer = null;
+
+	/**
+	 * @param c - some character
+	 * @return true if {@code c} is a word character in the sense of regular expression class \w
+	 */
+	public static boolean isWordChar(char c)
+	{
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+	}
+
+	/**
+	 * Returns the elements of {@code root} that may match a search for {@code word}.
+	 * @param root - the diagram
+	 * @param word - a non-empty sequence of word characters (see {@link #isWordChar(char)})
+	 * @param wholeWord - whether {@code word} must be an entire word (otherwise it may be
+	 * part of a word)
+	 * @return the candidate elements in traversal order (Root first)
+	 */
+	public List<Element> getCandidates(Root root, String word, boolean wholeWord)
+	{
+		word = word.toLowerCase(Locale.ROOT);
+		ArrayList<Element> candidates = new ArrayList<Element>();
+		synchronized (this) {
+			Entry entry = getEntry(root);
+			BitSet hits = null;
+			if (wholeWord) {
+				hits = entry.postings.get(word);
+			}
+			else {
+				for (Map.Entry<String, BitSet> posting: entry.postings.entrySet()) {
+					if (posting.getKey().contains(word)) {
+						if (hits == null) {
+							hits = new BitSet(entry.elements.size());
+						}
+						hits.or(posting.getValue());
+					}
+				}
+			}
+			if (hits != null) {
+				for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i+1)) {
+					candidates.add(entry.elements.get(i));
+				}
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns all elements of {@code root} in traversal order (Root first), without
+	 * traversing the diagram if it hasn't changed since its last indexing.
+	 * @param root - the diagram
+	 * @return list of the elements
+	 */
+	public synchronized List<Element> getElements(Root root)
+	{
+		return new ArrayList<Element>(getEntry(root).elements);
+	}
+
+	/**
+	 * Restricts the index to the given {@code roots} (unregisters from all other diagrams)
+	 * and starts a background thread indexing those of them not having been indexed yet.
+	 * @param roots - the diagrams to be indexed
+	 */
+	public void prepare(Collection<Root> roots)
+	{
+		final ArrayList<Root> toBeIndexed = new ArrayList<Root>();
+		synchronized (this) {
+			retainAll(roots);
+			for (Root root: roots) {
+				if (!entries.containsKey(root)) {
+					register(root);
+					toBeIndexed.add(root);
+				}
+			}
+			if (toBeIndexed.isEmpty() || preparer != null && preparer.isAlive()) {
+				return;
+			}
+			preparer = new Thread("SearchIndex") {
+				@Override
+				public void run() {
+					for (Root root: toBeIndexed) {
+						int generation;
+						synchronized (SearchIndex.this) {
+							if (entries.containsKey(root) || !generations.containsKey(root)) {
+								continue;
+							}
+							generation = generations.get(root);
+						}
+						try {
+							Entry entry = createEntry(root);
+							synchronized (SearchIndex.this) {
+								// Discard the result if the diagram has been changed meanwhile
+								Integer current = generations.get(root);
+								if (current != null && current == generation && !entries.containsKey(root)) {
+									entries.put(root, entry);
+								}
+							}
+						}
+						catch (Exception ex) {
+							// The diagram was probably modified concurrently - it will be indexed on demand
+							logger.log(Level.FINE, "Background indexing of " + root.getMethodName() + " failed", ex);
+						}
+					}
+				}
+			};
+			preparer.setDaemon(true);
+			preparer.setPriority(Thread.MIN_PRIORITY);
+		}
+		preparer.start();
+	}
+
+	@Override
+	public synchronized void update(Root source)
+	{
+		Integer generation = generations.get(source);
+		if (generation != null) {
+			generations.put(source, generation + 1);
+			entries.remove(source);
+		}
+	}
+
+	@Override
+	public synchronized void replaced(Root oldRoot, Root newRoot)
+	{
+		generations.remove(oldRoot);
+		entries.remove(oldRoot);
+	}
+
+	/**
+	 * Drops the index data of all diagrams not contained in {@code roots} and unregisters
+	 * from them
+	 * @param roots - the diagrams still of interest
+	 */
+	public synchronized void retainAll(Collection<Root> roots)
+	{
+		HashSet<Root> rootSet = new HashSet<Root>(roots);
+		for (Root root: new ArrayList<Root>(generations.keySet())) {
+			if (!rootSet.contains(root)) {
+				root.removeUpdater(this);
+				generations.remove(root);
+				entries.remove(root);
+			}
+		}
+	}
+
+	private void register(Root root)
+	{
+		if (!generations.containsKey(root)) {
+			generations.put(root, 0);
+			root.addUpdater(this);
+		}
+	}
+
+	/** Returns the up-to-date entry for {@code root}, (re-)indexes it if necessary */
+	private Entry getEntry(Root root)
+	{
+		Entry entry = entries.get(root);
+		if (entry == null || entry.modificationCount != root.getModificationCount()) {
+			register(root);
+			entry = createEntry(root);
+			entries.put(root, entry);
+		}
+		return entry;
+	}
+
+	private static Entry createEntry(Root root)
+	{
+		final Entry entry = new Entry(root.getModificationCount());
+		root.traverse(new IElementVisitor() {
+			@Override
+			public boolean visitPreOrder(Element _ele) {
+				int index = entry.elements.size();
+				entry.elements.add(_ele);
+				addWords(entry, index, _ele.getText());
+				StringList aliasText = _ele.getAliasText();
+				if (aliasText != _ele.getText()) {
+					addWords(entry, index, aliasText);
+				}
+				addWords(entry, index, _ele.getComment());
+				return true;
+			}
+			@Override
+			public boolean visitPostOrder(Element _ele) {
+				return true;
+			}
+		});
+		return entry;
+	}
+
+	private static void addWords(Entry entry, int index, StringList text)
+	{
+		for (int i = 0; i < text.count(); i++) {
+			String line = text.get(i);
+			int len = line.length();
+			int start = -1;
+			for (int j = 0; j <= len; j++) {
+				boolean inWord = j < len && isWordChar(line.charAt(j));
+				if (inWord && start < 0) {
+					start = j;
+				}
+				else if (!inWord && start >= 0) {
+					String word = line.substring(start, j).toLowerCase(Locale.ROOT);
+					BitSet elements = entry.postings.get(word);
+					if (elements == null) {
+						elements = new BitSet();
+						entry.postings.put(word, elements);
+					}
+					elements.set(index);
+					start = -1;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,266 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Shneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.gui;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Parallel execution of the independent startup steps of the Mainform
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026-10-19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The Mainform starts the pipeline as soon as the INI file is loaded. The plugin definition files
+ *      (generators.xml, parsers.xml etc.) are then parsed and the configured locale is loaded on a
+ *      small pool of daemon threads while the main thread goes on with the GUI construction. Consumers
+ *      of plugin definitions retrieve them via getPlugins(String), which waits for the respective task
+ *      or parses the file itself if the pipeline hadn't been started (e.g. in batch mode).
+ *      With system property structorizer.startupTrace set to true, the durations of the steps (both
+ *      of the pooled tasks and of the steps reported by the Mainform) are printed on finish().
+ *
+ ******************************************************************************************************///
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import lu.fisch.structorizer.helpers.GENPlugin;
+import lu.fisch.structorizer.io.Ini;
+import lu.fisch.structorizer.locales.Locales;
+import lu.fisch.structorizer.parsers.GENParser;
+
+/**
+ * Orchestrates the independent steps of the GUI startup (plugin definition parsing, locale
+ * loading, icon loading) on a small thread pool and optionally traces the step durations
+ * (system property {@code structorizer.startupTrace}).
+ * @author agent
+ */
+public class StartupPipeline {
+
+	private static final Logger logger = Logger.getLogger(StartupPipeline.class.getName());
+
+	/** Whether a timing breakdown is to be printed (system property {@code structorizer.startupTrace}) */
+	public static final boolean TRACE = Boolean.getBoolean("structorizer.startupTrace");
+
+	/** The plugin definition files residing in this package */
+	public static final String[] PLUGIN_FILES = {"generators.xml", "parsers.xml", "importers.xml", "controllers.xml"};
+
+	private static ExecutorService pool = null;
+	private static final HashMap<String, Future<Vector<GENPlugin>>> pluginFutures = new HashMap<String, Future<Vector<GENPlugin>>>();
+	/** Recorded steps: thread name, step name, duration in ms */
+	private static final ArrayList<String[]> timings = new ArrayList<String[]>();
+	private static long startTime = 0;
+
+	/**
+	 * Starts the pool with the tasks not depending on the GUI: parsing of the plugin
+	 * definition files and loading of the locale configured in the INI file.
+	 * Subsequent calls have no effect.
+	 */
+	public static synchronized void begin()
+	{
+		if (pool != null) {
+			return;
+		}
+		startTime = System.nanoTime();
+		final AtomicInteger threadCount = new AtomicInteger(0);
+		pool = Executors.newFixedThreadPool(Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1)),
+				new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Startup-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		for (final String fileName: PLUGIN_FILES) {
+			pluginFutures.put(fileName, pool.submit(new Callable<Vector<GENPlugin>>() {
+				@Override
+				public Vector<GENPlugin> call() {
+					long start = System.nanoTime();
+					Vector<GENPlugin> plugins = parsePlugins(fileName);
+					record(fileName, start);
+					return plugins;
+				}
+			}));
+		}
+		String localeName = Ini.getInstance().getProperty("Lang", Locales.DEFAULT_LOCALE).replace(".txt", "");
+		final ArrayList<String> localeNames = new ArrayList<String>();
+		localeNames.add(Locales.DEFAULT_LOCALE);
+		if (Locales.isNamedLocale(localeName) && !localeName.equals(Locales.DEFAULT_LOCALE)) {
+			localeNames.add(localeName);
+		}
+		submit("locales " + localeNames, new Runnable() {
+			@Override
+			public void run() {
+				for (String name: localeNames) {
+					Locales.getInstance().getLocale(name);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Runs the given {@code task} on the pool if the pipeline is active, otherwise
+	 * immediately in the calling thread.
+	 * @param step - a name for the startup trace
+	 * @param task - the task to be performed
+	 */
+	public static synchronized void submit(final String step, final Runnable task)
+	{
+		Runnable tracedTask = new Runnable() {
+			@Override
+			public void run() {
+				long start = System.nanoTime();
+				try {
+					task.run();
+				}
+				catch (Exception ex) {
+					logger.log(Level.WARNING, "Startup step " + step + " failed.", ex);
+				}
+				record(step, start);
+			}
+		};
+		if (pool != null && !pool.isShutdown()) {
+			pool.execute(tracedTask);
+		}
+		else {
+			tracedTask.run();
+		}
+	}
+
+	/**
+	 * Returns the plugin definitions from the given plugin file (one of {@link #PLUGIN_FILES}),
+	 * either waiting for the startup task parsing it or parsing it now.
+	 * @param fileName - the name of the plugin definition file
+	 * @return a new vector of the plugin definitions (may be empty)
+	 */
+	public static Vector<GENPlugin> getPlugins(String fileName)
+	{
+		Future<Vector<GENPlugin>> future;
+		synchronized (StartupPipeline.class) {
+			future = pluginFutures.get(fileName);
+		}
+		if (future != null) {
+			try {
+				return new Vector<GENPlugin>(future.get());
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException ex) {
+				logger.log(Level.WARNING, "Parsing " + fileName + " in background failed.", ex.getCause());
+			}
+		}
+		return parsePlugins(fileName);
+	}
+
+	/**
+	 * Records the duration of a step performed by the calling thread for the startup trace
+	 * @param step - name of the step
+	 * @param startNanos - the start time of the step as obtained by {@link System#nanoTime()}
+	 * @return the current time (as start time of a subsequent step)
+	 */
+	public static long record(String step, long startNanos)
+	{
+		long now = System.nanoTime();
+		if (TRACE) {
+			long millis = TimeUnit.NANOSECONDS.toMillis(now - startNanos);
+			synchronized (timings) {
+				timings.add(new String[]{Thread.currentThread().getName(), step, Long.toString(millis)});
+			}
+		}
+		return now;
+	}
+
+	/**
+	 * Shuts the pool down as soon as the pending tasks are done (tasks submitted afterwards
+	 * are performed synchronously) and prints the startup trace if requested.
+	 */
+	public static void finish()
+	{
+		ExecutorService finishedPool;
+		synchronized (StartupPipeline.class) {
+			finishedPool = pool;
+			if (finishedPool == null || finishedPool.isShutdown()) {
+				return;
+			}
+			finishedPool.shutdown();
+		}
+		if (TRACE) {
+			try {
+				finishedPool.awaitTermination(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			long total = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			StringBuilder sb = new StringBuilder("Structorizer startup trace (ms):\n");
+			synchronized (timings) {
+				for (String[] timing: timings) {
+					sb.append(String.format("  %-14s %-40s %6s%n", timing[0], timing[1], timing[2]));
+				}
+			}
+			sb.append(String.format("  %-14s %-40s %6d%n", "", "total (since pipeline start)", total));
+			System.err.print(sb);
+		}
+	}
+
+	private static Vector<GENPlugin> parsePlugins(String fileName)
+	{
+		Vector<GENPlugin> plugins = new Vector<GENPlugin>();
+		InputStream is = StartupPipeline.class.getResourceAsStream(fileName);
+		if (is == null) {
+			logger.log(Level.SEVERE, "Missing plugin definition file " + fileName);
+			return plugins;
+		}
+		BufferedInputStream buff = new BufferedInputStream(is);
+		try {
+			plugins = new GENParser().parse(buff);
+		}
+		finally {
+			try { buff.close(); } catch (IOException e) {}
+		}
+		return plugins;
+	}
+
+}
@@ -0,0 +1,352 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.io;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Direct access to Arranger archives (arrz files) without extraction
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      A diagram residing in an arrz file has a virtual path consisting of the path of the arrz
+ *      file and the name of the zip entry (e.g. ".../project.arrz/main.nsd"). The entries are read
+ *      directly via ZipFile input streams. Archives are written via a ZipOutputStream into a
+ *      temporary file beside the target file, which then replaces the target (optionally keeping
+ *      a backup). Entries taken over from existing archives are streamed from entry to entry with
+ *      their time attributes; java.util.zip offers no way to transfer the compressed data as is.
+ *
+ ******************************************************************************************************///
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Static helper methods to read entries of Arranger archives (arrz files) in place and to
+ * compose or update such archives without a temporary extraction directory.
+ * @author agent
+ */
+public class ArrzArchive {
+
+	private static final int BUFSIZE = 8192;
+
+	/**
+	 * Returns the arrz (or other zip) file the given virtual path {@code _path} points into,
+	 * i.e. the nearest existing ancestor of the path if it is a file.
+	 * @param _path - a file path, possibly a virtual path into an archive
+	 * @return the archive file or null if {@code _path} exists or doesn't lead into an archive
+	 * @see #getEntryName(String, File)
+	 */
+	public static File getArchiveFile(String _path)
+	{
+		if (_path == null || _path.isEmpty()) {
+			return null;
+		}
+		File file = new File(_path);
+		if (file.exists()) {
+			return null;
+		}
+		File archive = file.getParentFile();
+		while (archive != null && !archive.exists()) {
+			archive = archive.getParentFile();
+		}
+		if (archive != null && archive.isFile()) {
+			return archive;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the zip entry name addressed by the virtual path {@code _path} within the
+	 * archive {@code _archive}.
+	 * @param _path - the virtual path
+	 * @param _archive - the archive file (as obtained by {@link #getArchiveFile(String)})
+	 * @return the entry name (with '/' as separator)
+	 */
+	public static String getEntryName(String _path, File _archive)
+	{
+		String relPath = _archive.getAbsoluteFile().toPath().relativize(new File(_path).getAbsoluteFile().toPath()).toString();
+		return relPath.replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Finds the entry with name {@code _name} in the given {@code _zipFile}. If there is no
+	 * exactly matching entry, then the first entry with the same pure file name (i.e. within
+	 * some folder) will be returned.
+	 * @param _zipFile - the opened archive
+	 * @param _name - the entry name or pure file name
+	 * @return the found entry or null
+	 */
+	public static ZipEntry findEntry(ZipFile _zipFile, String _name)
+	{
+		ZipEntry entry = _zipFile.getEntry(_name);
+		if (entry == null) {
+			String pureName = new File(_name).getName();
+			Enumeration<? extends ZipEntry> entries = _zipFile.entries();
+			while (entry == null && entries.hasMoreElements()) {
+				ZipEntry candidate = entries.nextElement();
+				if (!candidate.isDirectory() && new File(candidate.getName()).getName().equals(pureName)) {
+					entry = candidate;
+				}
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Finds the (first) arrangement list (arr file) entry in the given {@code _zipFile}
+	 * @param _zipFile - the opened archive
+	 * @return the arr file entry or null
+	 */
+	public static ZipEntry findArrEntry(ZipFile _zipFile)
+	{
+		Enumeration<? extends ZipEntry> entries = _zipFile.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			if (!entry.isDirectory() && ArrFilter.isArr(entry.getName())) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Composes the archive {@code _target} from the files given by {@code _sourcePaths}
+	 * (each stored under its pure file name) and the additional entries {@code _addedEntries}.
+	 * Source paths may be virtual paths into archives (including {@code _target} itself), such
+	 * entries are transferred without extraction.
+	 * @param _target - the archive file to be written (or replaced)
+	 * @param _sourcePaths - paths of the files to be stored (possibly virtual)
+	 * @param _addedEntries - maps entry names to the contents of entries to be added after the files
+	 * @param _keepBackup - whether a replaced {@code _target} file is to be kept as ".bak" file
+	 * @throws IOException if some source file or entry could not be read or the target not be written
+	 */
+	public static void write(File _target, Collection<String> _sourcePaths, Map<String, byte[]> _addedEntries,
+			boolean _keepBackup) throws IOException
+	{
+		File tmpFile = createTempFile(_target);
+		HashMap<File, ZipFile> sourceArchives = new HashMap<File, ZipFile>();
+		boolean done = false;
+		try {
+			ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+			try {
+				for (String path: _sourcePaths) {
+					File file = new File(path);
+					File archive = getArchiveFile(path);
+					if (archive != null) {
+						ZipFile zipFile = sourceArchives.get(archive);
+						if (zipFile == null) {
+							zipFile = new ZipFile(archive);
+							sourceArchives.put(archive, zipFile);
+						}
+						ZipEntry entry = findEntry(zipFile, getEntryName(path, archive));
+						if (entry == null) {
+							throw new FileNotFoundException(path);
+						}
+						copyEntry(zipFile, entry, file.getName(), zos);
+					}
+					else {
+						ZipEntry entry = new ZipEntry(file.getName());
+						// Preserve time attributes if possible
+						try {
+							BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+							FileTime modTime = attrs.lastModifiedTime();
+							FileTime creTime = attrs.creationTime();
+							if (modTime.toMillis() > 0) {
+								entry.setLastModifiedTime(modTime);
+							}
+							if (creTime.toMillis() > 0) {
+								entry.setCreationTime(creTime);
+							}
+						} catch (IOException e) {}
+						zos.putNextEntry(entry);
+						Files.copy(file.toPath(), zos);
+						zos.closeEntry();
+					}
+				}
+				addEntries(_addedEntries, zos);
+			}
+			finally {
+				zos.close();
+			}
+			closeAll(sourceArchives);
+			replace(tmpFile, _target, _keepBackup);
+			done = true;
+		}
+		finally {
+			closeAll(sourceArchives);
+			if (!done) {
+				tmpFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Replaces (or adds) entry {@code _entryName} of the existing archive {@code _archive}
+	 * with the given {@code _content}. All other entries are transferred unchanged.
+	 * @param _archive - the archive file to be updated
+	 * @param _entryName - name of the entry to be replaced
+	 * @param _content - the new content of the entry
+	 * @param _keepBackup - whether the previous archive is to be kept as ".bak" file
+	 * @throws IOException if the archive could not be read or written
+	 */
+	public static void replaceEntry(File _archive, String _entryName, byte[] _content, boolean _keepBackup)
+			throws IOException
+	{
+		File tmpFile = createTempFile(_archive);
+		boolean done = false;
+		try {
+			ZipFile zipFile = new ZipFile(_archive);
+			try {
+				ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+				try {
+					Enumeration<? extends ZipEntry> entries = zipFile.entries();
+					while (entries.hasMoreElements()) {
+						ZipEntry entry = entries.nextElement();
+						if (!entry.getName().equals(_entryName)) {
+							copyEntry(zipFile, entry, entry.getName(), zos);
+						}
+					}
+					HashMap<String, byte[]> added = new HashMap<String, byte[]>();
+					added.put(_entryName, _content);
+					addEntries(added, zos);
+				}
+				finally {
+					zos.close();
+				}
+			}
+			finally {
+				zipFile.close();
+			}
+			replace(tmpFile, _archive, _keepBackup);
+			done = true;
+		}
+		finally {
+			if (!done) {
+				tmpFile.delete();
+			}
+		}
+	}
+
+	/** Creates a temporary file in the directory of {@code _target} (to allow an atomic replacement) */
+	private static File createTempFile(File _target) throws IOException
+	{
+		File dir = _target.getAbsoluteFile().getParentFile();
+		return File.createTempFile("Structorizer", ".tmp", dir);
+	}
+
+	/** Streams the content of {@code _entry} into a new entry {@code _name} of {@code _zos} */
+	private static void copyEntry(ZipFile _zipFile, ZipEntry _entry, String _name, ZipOutputStream _zos) throws IOException
+	{
+		ZipEntry entryOut = new ZipEntry(_name);
+		entryOut.setTime(_entry.getTime());
+		if (_entry.getCreationTime() != null) {
+			entryOut.setCreationTime(_entry.getCreationTime());
+		}
+		if (_entry.getLastAccessTime() != null) {
+			entryOut.setLastAccessTime(_entry.getLastAccessTime());
+		}
+		entryOut.setComment(_entry.getComment());
+		_zos.putNextEntry(entryOut);
+		InputStream is = _zipFile.getInputStream(_entry);
+		try {
+			copy(is, _zos);
+		}
+		finally {
+			is.close();
+		}
+		_zos.closeEntry();
+	}
+
+	private static void addEntries(Map<String, byte[]> _entries, ZipOutputStream _zos) throws IOException
+	{
+		if (_entries != null) {
+			for (Map.Entry<String, byte[]> added: _entries.entrySet()) {
+				ZipEntry entry = new ZipEntry(added.getKey());
+				entry.setTime(System.currentTimeMillis());
+				_zos.putNextEntry(entry);
+				_zos.write(added.getValue());
+				_zos.closeEntry();
+			}
+		}
+	}
+
+	private static void copy(InputStream _is, OutputStream _os) throws IOException
+	{
+		byte[] buffer = new byte[BUFSIZE];
+		int count;
+		while ((count = _is.read(buffer)) != -1) {
+			_os.write(buffer, 0, count);
+		}
+	}
+
+	/** Replaces {@code _target} by {@code _newFile}, possibly keeping a backup of {@code _target} */
+	private static void replace(File _newFile, File _target, boolean _keepBackup) throws IOException
+	{
+		if (_target.exists()) {
+			File backUp = new File(_target.getAbsolutePath() + ".bak");
+			if (backUp.exists()) {
+				backUp.delete();
+			}
+			if (_keepBackup) {
+				Files.copy(_target.toPath(), backUp.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+			}
+		}
+		Files.move(_newFile.toPath(), _target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void closeAll(Map<File, ZipFile> _zipFiles)
+	{
+		for (ZipFile zipFile: _zipFiles.values()) {
+			try {
+				zipFile.close();
+			} catch (IOException e) {}
+		}
+		_zipFiles.clear();
+	}
+
+}
@@ -0,0 +1,254 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.io;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Renders diagrams into image files without GUI component (PNG, SVG, PDF, EMF)
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue (extracted from the export methods of Diagram)
+ *      agent           2026.10.19      PNG export now tiled and streamed (exportTiledPNG)
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The layout is computed via Root.prepareDraw() on a Canvas over an offscreen image, so this
+ *      works in java.awt.headless mode. The vector formats are produced via the freehep back-ends.
+ *      Different diagrams may be exported concurrently (the export of one Root is not thread-safe,
+ *      as drawing caches the layout within the elements).
+ *      PNG images are rendered band by band into a reused buffer of at most BAND_PIXELS pixels
+ *      (each band with a clip and a translated Graphics2D), and every band is passed to a
+ *      PNGStreamWriter before the next one is drawn. So the memory needed doesn't depend on the
+ *      height of the image.
+ *
+ ******************************************************************************************************///
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.freehep.graphicsio.AbstractVectorGraphicsIO;
+import org.freehep.graphicsio.emf.EMFGraphics2D;
+import org.freehep.graphicsio.pdf.PDFGraphics2D;
+import org.freehep.graphicsio.svg.SVGGraphics2D;
+
+import lu.fisch.graphics.Canvas;
+import lu.fisch.graphics.Rect;
+import lu.fisch.structorizer.elements.Root;
+
+/**
+ * Static methods to render a diagram ({@link Root}) into an image file of one of the
+ * {@link #FORMATS}, independent of any GUI component.
+ * @author agent
+ */
+public class ImageExporter {
+
+	/** The supported image formats (also used as file name extensions) */
+	public static final String[] FORMATS = {"png", "svg", "pdf", "emf"};
+
+	/** Margin around the diagram in vector graphics formats */
+	private static final int MARGIN = 6;
+
+	/** Maximum number of pixels of a band buffer in tiled PNG export (i.e. 16 MiB) */
+	private static final int BAND_PIXELS = 1 << 22;
+
+	/**
+	 * Draws a scene, e.g. a diagram or the contents of the Arranger, for
+	 * {@link ImageExporter#exportTiledPNG(Painter, int, int, double, File)}.
+	 */
+	public interface Painter {
+		/**
+		 * Draws the scene in its own coordinates onto {@code _g2d}. Only the
+		 * part within the clip bounds of {@code _g2d} is actually needed.
+		 * @param _g2d - the graphics (transformed and clipped to the current band)
+		 */
+		public void paint(Graphics2D _g2d);
+	}
+
+	/**
+	 * @param _format - a format name (case-insensitive)
+	 * @return true if {@code _format} is one of the {@link #FORMATS}
+	 */
+	public static boolean isSupportedFormat(String _format)
+	{
+		for (String format: FORMATS) {
+			if (format.equalsIgnoreCase(_format)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Computes the layout of the given diagram (if it isn't up to date) on an offscreen
+	 * canvas and returns its extension.
+	 * @param _root - the diagram
+	 * @return the bounds of the diagram (with top left corner at (0,0))
+	 */
+	public static Rect prepareLayout(Root _root)
+	{
+		BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = scratch.createGraphics();
+		try {
+			return _root.prepareDraw(new Canvas(g2d));
+		}
+		finally {
+			g2d.dispose();
+		}
+	}
+
+	/**
+	 * Renders the given diagram into file {@code _file} in the specified format.
+	 * @param _root - the diagram to be rendered
+	 * @param _format - one of the {@link #FORMATS} (case-insensitive)
+	 * @param _scale - magnification factor (1.0 = original size)
+	 * @param _file - the target file (will be overwritten)
+	 * @throws IOException if the file could not be written or the format is unknown
+	 */
+	public static void export(Root _root, String _format, double _scale, File _file) throws IOException
+	{
+		String format = _format.toLowerCase();
+		Rect bounds = prepareLayout(_root);
+		if (format.equals("png")) {
+			final Root root = _root;
+			exportTiledPNG(new Painter() {
+				@Override
+				public void paint(Graphics2D _g2d) {
+					root.draw(_g2d);
+				}
+			},
+			(int)Math.ceil((bounds.right + 1) * _scale),
+			(int)Math.ceil((bounds.bottom + 1) * _scale),
+			_scale, _file);
+			return;
+		}
+		Dimension size = new Dimension(
+				(int)Math.ceil((bounds.right + 2 * MARGIN) * _scale),
+				(int)Math.ceil((bounds.bottom + 2 * MARGIN) * _scale));
+		if (format.equals("svg")) {
+			// The freehep SVG writer uses the default charset, but we want UTF-8
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			drawVector(_root, new SVGGraphics2D(bos, size), _scale);
+			Writer out = new OutputStreamWriter(new FileOutputStream(_file), "UTF-8");
+			try {
+				out.write(new String(bos.toByteArray(), Charset.defaultCharset()));
+			}
+			finally {
+				out.close();
+			}
+			return;
+		}
+		OutputStream os = new BufferedOutputStream(new FileOutputStream(_file));
+		try {
+			if (format.equals("pdf")) {
+				drawVector(_root, new PDFGraphics2D(os, size), _scale);
+			}
+			else if (format.equals("emf")) {
+				EMFGraphics2D emf = new EMFGraphics2D(os, size);
+				// Otherwise the EMF header would refer to the screen size, which isn't available headless
+				emf.setDeviceIndependent(GraphicsEnvironment.isHeadless());
+				drawVector(_root, emf, _scale);
+			}
+			else {
+				throw new IOException("Unsupported image format " + _format);
+			}
+		}
+		finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * Renders the scene drawn by {@code _painter} into PNG file {@code _file} of size
+	 * {@code _width} x {@code _height} with transparent background. The image is drawn in
+	 * horizontal bands which are encoded one after the other, so the memory consumption only
+	 * grows with the width of the image.
+	 * @param _painter - draws the scene (in scene coordinates)
+	 * @param _width - image width in pixels
+	 * @param _height - image height in pixels
+	 * @param _scale - magnification factor from scene coordinates to pixels
+	 * @param _file - the target file (will be overwritten)
+	 * @throws IOException if the file could not be written
+	 */
+	public static void exportTiledPNG(Painter _painter, int _width, int _height, double _scale, File _file)
+			throws IOException
+	{
+		int bandHeight = Math.max(1, Math.min(_height, BAND_PIXELS / Math.max(1, _width)));
+		BufferedImage band = new BufferedImage(_width, bandHeight, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt)band.getRaster().getDataBuffer()).getData();
+		OutputStream os = new BufferedOutputStream(new FileOutputStream(_file));
+		try {
+			PNGStreamWriter png = new PNGStreamWriter(os, _width, _height);
+			for (int y = 0; y < _height; y += bandHeight) {
+				int rows = Math.min(bandHeight, _height - y);
+				Arrays.fill(pixels, 0);
+				Graphics2D g2d = band.createGraphics();
+				try {
+					g2d.clipRect(0, 0, _width, rows);
+					g2d.translate(0, -y);
+					g2d.scale(_scale, _scale);
+					_painter.paint(g2d);
+				}
+				finally {
+					g2d.dispose();
+				}
+				png.writeRows(pixels, 0, rows);
+			}
+			png.finish();
+		}
+		finally {
+			os.close();
+		}
+	}
+
+	private static void drawVector(Root _root, AbstractVectorGraphicsIO _graphics, double _scale)
+	{
+		_graphics.startExport();
+		_graphics.scale(_scale, _scale);
+		Canvas canvas = new Canvas(_graphics);
+		Rect rect = _root.prepareDraw(canvas);
+		rect.left += MARGIN;
+		rect.top += MARGIN;
+		_root.draw(canvas, rect);
+		_graphics.endExport();
+	}
+
+}
@@ -41,10 +41,25 @@ package lu.fisch.structorizer.io;
  *      Kay Gürtzig         2017.11.05      Issue #452: Method wasFirstStart() added.
  *      Kay Gürtzig         2018.03.21      Issue #463 Logger introduced, two file reading sequences extracted to method readTextFile()
  *      Kay Gürtzig         2018.10.28      Flag to detect unsaved changes introduced (+ public method)
+ *      agent               2026.10.19      load() only rereads the file if it was modified meanwhile,
+ *                                          debounced background saving via requestSave(), typed getters
+ *      agent               2026.10.19      load() flushes a pending save first; file stamps too recent to
+ *                                          exclude a same-tick modification don't suppress rereading
  *
  ******************************************************************************************************
  *
  *      Comment:		
+ *      The properties are kept in memory. Method load() compares the modification time and
+ *      length of the file with those recorded on the last load or save and will only reread
+ *      the file if it has been modified externally (e.g. by another Structorizer instance), so
+ *      it may be called freely before reading settings. Since the file system may record the
+ *      modification time with a coarse resolution, a stamp taken within that resolution of
+ *      the modification time is not trusted (a same-size rewrite in the same tick would go
+ *      unnoticed), i.e. the file is reread once more on the next load().
+ *      A save pending from requestSave() is flushed before, lest it should be overwritten.
+ *      Settings changed interactively should be persisted with requestSave(), which coalesces
+ *      a burst of requests into a single write on a background thread. Method save() writes
+ *      synchronously (and supersedes a pending request).
  *
  ******************************************************************************************************///
 
@@ -57,6 +72,11 @@ import java.net.URL;
 import java.net.URLDecoder;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -190,8 +210,26 @@ public class Ini
 
 	private boolean regularExists = false;
 
+	/** Modification time of the regular file as of the last load or save (-1 = unknown) */
+	private long fileModified = -1;
+	/** Length of the regular file as of the last load or save (-1 = unknown) */
+	private long fileLength = -1;
+	/** System time when {@link #fileModified} and {@link #fileLength} were recorded */
+	private long fileStampTime = -1;
+	/** Worst-case resolution (in ms) of file modification times (FAT has 2 s) */
+	private static final long MTIME_RESOLUTION = 2000;
+	
+	/** Delay (in ms) by which {@link #requestSave()} postpones the writing of the file */
+	private static final long SAVE_DELAY = 1000;
+	/** Executor for the delayed saving (lazily created) */
+	private ScheduledExecutorService saveExecutor = null;
+	/** The pending save task if any */
+	private ScheduledFuture<?> pendingSave = null;
+	/** Serializes file accesses, which may now occur from the saving thread as well */
+	private final Object fileLock = new Object();
+
 	// START KGU#603 2018-10-28: We should be able to tell whether there are unsaved changes
-	private boolean wasChanged = false;
+	private volatile boolean wasChanged = false;
 	public boolean hasUnsavedChanges()
 	{
 		return wasChanged;
@@ -389,16 +427,73 @@ public class Ini
 		}
 	}
 
+	/**
+	 * Returns the value of property {@code _name} interpreted as boolean ("true"/"1"
+	 * and "false"/"0", case-insensitively), or {@code _default} if the property
+	 * isn't set or has some other value.
+	 * @param _name - property name
+	 * @param _default - value to be returned if the property isn't set or not boolean
+	 * @return the boolean value
+	 */
+	public boolean getBooleanProperty(String _name, boolean _default)
+	{
+		String value = p.getProperty(_name);
+		if (value != null) {
+			value = value.trim();
+			if (value.equalsIgnoreCase("true") || value.equals("1")) {
+				return true;
+			}
+			else if (value.equalsIgnoreCase("false") || value.equals("0")) {
+				return false;
+			}
+		}
+		return _default;
+	}
+
+	/**
+	 * Returns the value of property {@code _name} interpreted as integer, or
+	 * {@code _default} if the property isn't set or isn't a valid integer literal.
+	 * @param _name - property name
+	 * @param _default - value to be returned if the property isn't set or not numeric
+	 * @return the integer value
+	 */
+	public int getIntProperty(String _name, int _default)
+	{
+		String value = p.getProperty(_name);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			}
+			catch (NumberFormatException ex) {}
+		}
+		return _default;
+	}
+
 	public Set<Object> keySet()
 	{
 		return (Set<Object>)p.keySet();
 	}
 
+	/**
+	 * Brings the properties up to date with the regular INI file, i.e. rereads the
+	 * file if (and only if) it has been modified since it was last loaded or saved
+	 * by this instance. Otherwise the cached properties are already current and
+	 * nothing happens.
+	 * @see #loadRegular()
+	 */
 	public void load() throws FileNotFoundException, IOException
 	{
 		// if(regularExists) loadRegular();
 		// if(alternateExists) loadAlternate();
-		loadRegular();
+		// A pending save would otherwise overwrite the reloaded content with the old one
+		flushPendingSave();
+		File f = new File(filename);
+		if (fileModified < 0 || f.lastModified() != fileModified || f.length() != fileLength
+				// Within the same tick, the file might have been rewritten with the same size
+				|| fileStampTime - fileModified < MTIME_RESOLUTION)
+		{
+			loadRegular();
+		}
 	}
 
 	public void load(String _filename) throws FileNotFoundException,
@@ -409,12 +504,34 @@ public class Ini
 		{
 			// START KGU#210 2016-07-22: Bugfix #200
 			//p.load(new FileInputStream(_filename));
-			FileInputStream fis = new FileInputStream(_filename);
-			p.load(fis);
-			fis.close();
+			synchronized (fileLock) {
+				// Stamp before reading: a modification while reading will be detected next time
+				if (_filename.equals(filename)) {
+					recordFileStamp();
+				}
+				FileInputStream fis = new FileInputStream(_filename);
+				try {
+					p.load(fis);
+				}
+				finally {
+					fis.close();
+				}
+			}
 			// END KGU#210 2016-07-22
 			this.wasChanged = false;
 		}
+		else if (_filename.equals(filename)) {
+			recordFileStamp();
+		}
+	}
+	
+	/** Records modification time and length of the regular file for {@link #load()} */
+	private void recordFileStamp()
+	{
+		File f = new File(filename);
+		fileStampTime = System.currentTimeMillis();
+		fileModified = f.lastModified();
+		fileLength = f.length();
 	}
 
 	public void loadAlternate() throws FileNotFoundException, IOException
@@ -454,12 +571,76 @@ public class Ini
 		// END KGU#210 2016-07-22
 	}
 
+	/**
+	 * Writes the properties to the regular INI file immediately (superseding a save
+	 * that may have been requested via {@link #requestSave()}).
+	 * @see #requestSave()
+	 */
 	public void save() throws FileNotFoundException, IOException
 	{
 		// if(regularExists) saveRegular();
 		// if(alternateExists) saveAlternate();
+		synchronized (this) {
+			if (pendingSave != null) {
+				pendingSave.cancel(false);
+				pendingSave = null;
+			}
+		}
 		saveRegular();
 	}
+	
+	/**
+	 * Schedules the saving of the properties to the regular INI file on a background
+	 * thread. Further requests within a short delay are coalesced into a single write,
+	 * such that the calling (possibly the event dispatch) thread isn't blocked by file
+	 * operations. A pending save is also performed on JVM shutdown.
+	 * @see #save()
+	 */
+	public synchronized void requestSave()
+	{
+		if (pendingSave != null) {
+			pendingSave.cancel(false);
+		}
+		if (saveExecutor == null) {
+			saveExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Ini-Saver");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			Runtime.getRuntime().addShutdownHook(new Thread("Ini-Flush") {
+				@Override
+				public void run() {
+					flushPendingSave();
+				}
+			});
+		}
+		pendingSave = saveExecutor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				flushPendingSave();
+			}
+		}, SAVE_DELAY, TimeUnit.MILLISECONDS);
+	}
+	
+	/** Performs a save requested via {@link #requestSave()} if it hasn't been done yet */
+	private void flushPendingSave()
+	{
+		synchronized (this) {
+			if (pendingSave == null) {
+				return;
+			}
+			pendingSave = null;
+		}
+		try {
+			saveRegular();
+		}
+		catch (IOException ex) {
+			logger.log(Level.WARNING, "Ini", ex);
+		}
+	}
 
 	public void save(String _filename) throws FileNotFoundException,
 			IOException
@@ -467,12 +648,21 @@ public class Ini
 		// START KGU#210 2016-07-22: Bugfix #200
 //		p.store(new FileOutputStream(_filename), "last updated "
 //				+ new java.util.Date());
-		FileOutputStream fos = new FileOutputStream(_filename);
-		// START KGU#264 2016-09-28: The date was redundant (next comment is the date, anyway), so better write the version
-		//p.store(fos, "last updated " + new java.util.Date());
-		p.store(fos, "version " + Element.E_VERSION);
-		// END KGU#264 2016-09-28
-		fos.close();
+		synchronized (fileLock) {
+			FileOutputStream fos = new FileOutputStream(_filename);
+			// START KGU#264 2016-09-28: The date was redundant (next comment is the date, anyway), so better write the version
+			//p.store(fos, "last updated " + new java.util.Date());
+			try {
+				p.store(fos, "version " + Element.E_VERSION);
+			}
+			finally {
+				fos.close();
+			}
+			// END KGU#264 2016-09-28
+			if (_filename.equals(filename)) {
+				recordFileStamp();
+			}
+		}
 		// END KGU#210 2016-07-22
 		this.wasChanged = false;
 	}
@@ -0,0 +1,220 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.structorizer.io;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Incremental PNG encoder writing an image scanline by scanline
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date            Description
+ *      ------          ----            -----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      ImageIO can only encode complete images, which requires the entire raster in memory. This
+ *      encoder produces a non-interlaced 8 bit RGBA PNG (colour type 6) from rows of ARGB pixels
+ *      delivered in arbitrary portions. The rows are "Sub"-filtered and compressed into IDAT chunks
+ *      of at most IDAT_SIZE bytes, so only one row and one chunk are buffered at a time.
+ *
+ ******************************************************************************************************///
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a PNG image of known size to an {@link OutputStream} while the pixel rows
+ * are supplied successively via {@link #writeRows(int[], int, int)}.
+ * @author agent
+ */
+public class PNGStreamWriter {
+
+	private static final byte[] SIGNATURE = {(byte)137, 'P', 'N', 'G', '\r', '\n', 26, '\n'};
+	private static final int IDAT_SIZE = 1 << 16;
+	/** Row filter type "Sub" (difference to the left neighbour pixel) */
+	private static final int FILTER_SUB = 1;
+
+	private final OutputStream out;
+	private final int width;
+	private final int height;
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+	private final DeflaterOutputStream idat;
+	private final byte[] rowBytes;
+	private int rowsWritten = 0;
+
+	/**
+	 * Chunk sink collecting the compressed data into IDAT chunks
+	 */
+	private class ChunkOutputStream extends OutputStream {
+		private final byte[] buffer = new byte[IDAT_SIZE];
+		private int count = 0;
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			if (count == buffer.length) {
+				flushChunk();
+			}
+			buffer[count++] = (byte)b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			while (len > 0) {
+				if (count == buffer.length) {
+					flushChunk();
+				}
+				int n = Math.min(len, buffer.length - count);
+				System.arraycopy(b, off, buffer, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			flushChunk();
+		}
+
+		private void flushChunk() throws IOException
+		{
+			if (count > 0) {
+				writeChunk("IDAT", buffer, count);
+				count = 0;
+			}
+		}
+	}
+
+	/**
+	 * Writes the PNG signature and header to {@code _out}. The caller remains responsible
+	 * for closing {@code _out} after {@link #finish()}.
+	 * @param _out - the target stream (should be buffered)
+	 * @param _width - image width in pixels
+	 * @param _height - image height in pixels
+	 * @throws IOException on write errors
+	 */
+	public PNGStreamWriter(OutputStream _out, int _width, int _height) throws IOException
+	{
+		if (_width <= 0 || _height <= 0) {
+			throw new IllegalArgumentException("Illegal PNG size " + _width + " x " + _height);
+		}
+		out = _out;
+		width = _width;
+		height = _height;
+		rowBytes = new byte[1 + 4 * _width];
+		out.write(SIGNATURE);
+		byte[] header = new byte[13];
+		putInt(header, 0, _width);
+		putInt(header, 4, _height);
+		header[8] = 8;	// bit depth
+		header[9] = 6;	// colour type RGBA
+		// compression method, filter method, and interlace method are 0
+		writeChunk("IHDR", header, header.length);
+		idat = new DeflaterOutputStream(new ChunkOutputStream(), deflater, IDAT_SIZE);
+	}
+
+	/**
+	 * Encodes the next {@code _rows} pixel rows, held in {@code _argb} with a scanline
+	 * stride of the image width, starting at index {@code _offset}.
+	 * @param _argb - non-premultiplied ARGB pixels (as in a {@code TYPE_INT_ARGB} raster)
+	 * @param _offset - index of the first pixel of the first row
+	 * @param _rows - number of rows to be encoded
+	 * @throws IOException on write errors or if more rows than the image height are delivered
+	 */
+	public void writeRows(int[] _argb, int _offset, int _rows) throws IOException
+	{
+		if (rowsWritten + _rows > height) {
+			throw new IOException("PNG row count exceeds image height " + height);
+		}
+		for (int r = 0; r < _rows; r++) {
+			rowBytes[0] = FILTER_SUB;
+			int prev = 0;
+			int ix = _offset + r * width;
+			for (int x = 0, j = 1; x < width; x++, j += 4) {
+				int pixel = _argb[ix + x];
+				rowBytes[j]   = (byte)((pixel >> 16) - (prev >> 16));
+				rowBytes[j+1] = (byte)((pixel >> 8) - (prev >> 8));
+				rowBytes[j+2] = (byte)(pixel - prev);
+				rowBytes[j+3] = (byte)((pixel >>> 24) - (prev >>> 24));
+				prev = pixel;
+			}
+			idat.write(rowBytes);
+		}
+		rowsWritten += _rows;
+	}
+
+	/**
+	 * Flushes the compressed data and writes the trailer. Requires that all rows have
+	 * been delivered.
+	 * @throws IOException on write errors or if rows are missing
+	 */
+	public void finish() throws IOException
+	{
+		if (rowsWritten != height) {
+			throw new IOException("Only " + rowsWritten + " of " + height + " PNG rows written");
+		}
+		try {
+			idat.close();
+		}
+		finally {
+			deflater.end();
+		}
+		writeChunk("IEND", new byte[0], 0);
+		out.flush();
+	}
+
+	private void writeChunk(String _type, byte[] _data, int _length) throws IOException
+	{
+		byte[] intBytes = new byte[4];
+		putInt(intBytes, 0, _length);
+		out.write(intBytes);
+		byte[] type = _type.getBytes("US-ASCII");
+		out.write(type);
+		out.write(_data, 0, _length);
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(_data, 0, _length);
+		putInt(intBytes, 0, (int)crc.getValue());
+		out.write(intBytes);
+	}
+
+	private static void putInt(byte[] _bytes, int _pos, int _value)
+	{
+		_bytes[_pos]   = (byte)(_value >>> 24);
+		_bytes[_pos+1] = (byte)(_value >>> 16);
+		_bytes[_pos+2] = (byte)(_value >>> 8);
+		_bytes[_pos+3] = (byte)_value;
+	}
+
+}
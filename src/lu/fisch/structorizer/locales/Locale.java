@@ -26,6 +26,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.logging.Logger;
 
@@ -61,6 +62,29 @@ public class Locale {
     // END KGU#244 2016-09-06
     public final LinkedHashMap<String,LinkedHashMap<String,String>> values = new LinkedHashMap<String,LinkedHashMap<String,String>>();
     
+    /** Translations of the body, indexed by lower-case component class name (built on demand) */
+    private HashMap<String, ArrayList<Translation>> translations = null;
+    
+    /**
+     * A translation line of a locale, pre-split for the application to components
+     * (see {@link Locales#setLocale(java.awt.Component)})
+     */
+    static final class Translation {
+        /** The dot-separated pieces of the key (without condition), e.g. {"Menu", "menuFile", "text"} */
+        final String[] pieces;
+        /** The conditions ("field:value" or "method():value") or null */
+        final StringList conditions;
+        /** The translated text with "\n" sequences already converted to newlines */
+        final String text;
+        
+        private Translation(String[] pieces, StringList conditions, String text)
+        {
+            this.pieces = pieces;
+            this.conditions = conditions;
+            this.text = text;
+        }
+    }
+    
     public static void main(String[] args)
     {
         Locale locale = new Locale("en.txt");
@@ -156,6 +180,7 @@ public class Locale {
     {
         // clear all sections
         sections.clear();
+        translations = null;
         
         // go ahead and parse the input
         StringList section = null;
@@ -352,6 +377,7 @@ public class Locale {
                     )
             {
                 section.set(i, key+"="+value);
+                translations = null;
                 return true;
             }
         }
@@ -410,6 +436,60 @@ public class Locale {
         parseBody(body);
     }
     
+    /**
+     * Returns the translations of this locale indexed by the lower-case simple name of
+     * the component class they apply to. The index is built on the first request after
+     * loading or modification of the locale (possibly by a background thread, see
+     * {@link Locales#getLocale(String)}).
+     * @return map from lower-case class names to the lists of their translations
+     */
+    synchronized HashMap<String, ArrayList<Translation>> getTranslations()
+    {
+        if (translations == null) {
+            translations = indexTranslations(getBody());
+        }
+        return translations;
+    }
+    
+    /**
+     * Splits the given translation lines (according to the locale file construction rules)
+     * once and groups them by the lower-case simple name of the component class they
+     * apply to. Lines without key pieces or with empty translation are dropped.
+     * @param lines - the translation lines
+     * @return map from lower-case class names to the lists of their translations
+     */
+    static HashMap<String, ArrayList<Translation>> indexTranslations(StringList lines)
+    {
+        HashMap<String, ArrayList<Translation>> index = new HashMap<String, ArrayList<Translation>>();
+        for (int i = 0; i < lines.count(); i++) {
+            String line = lines.get(i);
+            int posEq = line.indexOf('=');
+            if (posEq < 0 || line.substring(posEq+1).trim().isEmpty()) {
+                continue;
+            }
+            String key = line.substring(0, posEq);
+            StringList conditions = null;
+            if (key.contains("[") && key.endsWith("]")) {
+                String[] elements = key.substring(0, key.length()-1).split("\\[");
+                key = elements[0];
+                conditions = StringList.explode(elements[1], ",");
+            }
+            String[] pieces = key.split("\\.");
+            if (pieces.length < 2) {
+                continue;
+            }
+            String className = pieces[0].toLowerCase();
+            ArrayList<Translation> classTranslations = index.get(className);
+            if (classTranslations == null) {
+                classTranslations = new ArrayList<Translation>();
+                index.put(className, classTranslations);
+            }
+            classTranslations.add(new Translation(pieces, conditions,
+                    line.substring(posEq+1).replace("\\n", "\n")));
+        }
+        return index;
+    }
+    
     // START KGU#231 2016-08-09: Issue #220
     public boolean hasCachedChanges()
     {
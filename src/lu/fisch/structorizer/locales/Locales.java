@@ -46,6 +46,11 @@ package lu.fisch.structorizer.locales;
  *      Kay Gürtzig     2017-10-02  Enh. #415: The title localization wasn't done for JFrame offsprings
  *      Kay Gürtzig     2018-07-02  KGU#245: Substrings "[#]" may be replaced by the actual index in an array target
  *      Kay Gürtzig     2019-01-18  Issue #346: Precaution against uninitialized arrays in setLocale()
+ *      agent           2026-10-19  Translation via pre-split per-class index (Locale.getTranslations()) with
+ *                                  cached Field/Method lookups; register() no longer re-translates all components
+ *      agent           2026-10-19  getInstance(), getLocale(), getNames() synchronized (locales may be preloaded
+ *                                  by the StartupPipeline)
+ *      agent           2026-10-19  clearReference() no longer forces a garbage collection
  *
  ******************************************************************************************************
  *
@@ -119,8 +124,14 @@ public class Locales {
     private String loadedLocaleName = null;
     private String loadedLocaleFilename = null;
     private final ArrayList<Component> components = new ArrayList<Component>();
+    /** Components registered without immediate update that haven't been translated since */
+    private final ArrayList<Component> pendingComponents = new ArrayList<Component>();
+    /** Fields resolved for translation, per component class and field name */
+    private final HashMap<Class<?>, HashMap<String, Field>> fieldCache = new HashMap<Class<?>, HashMap<String, Field>>();
+    /** Methods resolved for translation, per class and method name / number of parameters */
+    private final HashMap<Class<?>, HashMap<String, Method>> methodCache = new HashMap<Class<?>, HashMap<String, Method>>();
     
-    public static Locales getInstance()
+    public static synchronized Locales getInstance()
     {
         if(instance==null) instance=new Locales();
         return instance;
@@ -134,7 +145,6 @@ public class Locales {
     public static void clearReference()
     {
         instance=null;
-        System.gc();
     }
     
     public static void main(String[] args)
@@ -199,7 +209,7 @@ public class Locales {
         // END KGU 2016-09-09
         for (int i = 0; i < localeNames.length; i++) {
             String localeName = localeNames[i];
-            Locale locale = locales.get(localeName);
+            Locale locale = getLocale(localeName);
             String[] sectionNames = locale.getSectionNames();
             for (int s = 0; s < sectionNames.length; s++) {
                 String sectionName = sectionNames[s];
@@ -215,7 +225,7 @@ public class Locales {
      * This does not necessarily comprise all locales from LOCALES_LIST!
      * @return String list of locale names 
      */
-    public String[] getNames() {
+    public synchronized String[] getNames() {
         return locales.keySet().toArray(new String[locales.size()]);
     }
     
@@ -223,10 +233,11 @@ public class Locales {
      * Returns the locale associated with the given name of the locale (language
      * code) or the locale file. If the loacle hadn't been loaded yet then it will
      * be loaded now - this may take time and could raise error message boxes.
+     * May be called from any thread.
      * @param name - language code, pseudo locale name, or locale file name
      * @return - the locale associated with the given name
      */
-    public Locale getLocale(String name)
+    public synchronized Locale getLocale(String name)
     {
         // try to get the locale
         Locale locale = locales.get(name);
@@ -261,7 +272,7 @@ public class Locales {
     
     /**
      * Registers the given component for translation service on locale change
-     * and updates all components with the current Locale (equivalent to
+     * and translates it with the current Locale (equivalent to
      * register(component, true))
      * @param component - a translatable GUI component
      */
@@ -273,27 +284,32 @@ public class Locales {
     
     /**
      * Registers the given component for translation service on locale change.
+     * Components registered without immediate update are translated along with the
+     * next component registered with immediate update or on the next locale change,
+     * whichever comes first.
      * @param component - a translatable GUI component
-     * @param updateImmediately - true induces an immediate update of all subcomponents
+     * @param updateImmediately - true induces an immediate translation of this component
+     * (and of all components registered without update since)
      */
     public void register(Component component, boolean updateImmediately)
     // END KGU#337 2017-02-03
     {
         // register a new component
-        components.add(component);
+        if (!components.contains(component)) {
+            components.add(component);
+        }
+        if (!pendingComponents.contains(component)) {
+            pendingComponents.add(component);
+        }
 
-        //System.out.println("Actual number of components: "+components.size());
-        
-        // set it the actual language, if possible
-        //setLang(component);
-        // START KGU#337 2017-02-03: Issue #340 - possibility needed to register without update
-        //updateComponents();
+        // Translate only the components not having been translated yet
         if (updateImmediately) {
-        // update all components!
-            updateComponents();
+            Component[] pending = pendingComponents.toArray(new Component[pendingComponents.size()]);
+            pendingComponents.clear();
+            for (Component comp: pending) {
+                setLocale(comp);
+            }
         }
-        // END KGU#337 2017-02-03
-        
     }
     
     /**
@@ -304,10 +320,12 @@ public class Locales {
     {
         // unregister a component
         components.remove(component);
+        pendingComponents.remove(component);
     }
     
     private void updateComponents()
     {
+        pendingComponents.clear();
         // loop through all components
         for (int i = 0; i < components.size(); i++) {
             Component component = components.get(i);
@@ -380,7 +398,7 @@ public class Locales {
             Locale locale = getLocale(loadedLocaleName);
             if(locale!=null) {
                 // set it
-                setLocale(component, locale.getBody());
+                setLocale(component, locale.getTranslations());
             }
         }
     }
@@ -411,7 +429,7 @@ public class Locales {
         Locale locale = getLocale(localeName);
         if(locale!=null)
         {
-            Locales.this.setLocale(component, locale.getBody());
+            Locales.this.setLocale(component, locale.getTranslations());
         }
     }
     
@@ -438,7 +456,7 @@ public class Locales {
                     // START KGU#246 2016-09-13: Bugfix #241
                     //Method method = component.getClass().getMethod(fieldValue, new Class[]{});
                     //method.invoke(component, new Object[]{});
-                    Method method = component.getClass().getMethod(fieldName.substring(0,  fieldName.length()-2), new Class[]{});
+                    Method method = getMethod(component.getClass(), fieldName.substring(0,  fieldName.length()-2), new Class[]{});
                     Object methodResult = method.invoke(component, new Object[]{});
                     if (methodResult instanceof String)
                     {
@@ -462,10 +480,9 @@ public class Locales {
             {
                 Field field = null;
                 try {
-                    // first try on own fields
-                    field = component.getClass().getDeclaredField(fieldName);
-                    field.setAccessible(true);
-                } 
+                    // own fields or inherited public fields
+                    field = getField(component.getClass(), fieldName);
+                }
                 catch (Exception e) 
                 {
                     errorMessage = e.getMessage();
@@ -474,23 +491,6 @@ public class Locales {
                     logger.log(Level.WARNING, "Field access to "+ fieldName + " failed.", e);
                     // END KGU#484 2018-04-05
                 }
-                if (field == null) {
-                    // Now try on inherited PUBLIC fields
-                    try {
-                        field = component.getClass().getField(fieldName);
-                        field.setAccessible(true);
-                        // If this works then cancel the previously obtained error message
-                        errorMessage = null;
-                    } 
-                    catch (Exception e) 
-                    {
-                        errorMessage = e.getMessage();
-                        // START KGU#484 2018-04-05: Issue #463
-                        //e.printStackTrace();
-                        logger.log(Level.WARNING, "Component access failed.", e);
-                        // END KGU#484 2018-04-05
-                    }
-                }
                 if (field!=null)
                 {
                     try
@@ -532,200 +532,169 @@ public class Locales {
     // i.e. before all contained components have been put there, we might get
     // null pointers. So deal with it! ;-)
     public void setLocale(Component component, StringList lines) {
-//    	if (component instanceof LangMenuBar) {
-//    		System.out.println("setLocale("+component+") called!");
-//    		try {
-//    			throw new Exception("test");
-//    		}
-//    		catch (Exception e) {
-//    			e.printStackTrace();
-//    		}
-//    	}
-        // The parts on both sides of the equality sign (compound key and string value)
-        StringList parts;
-    	// The pieces of the split key (i.e. parts[0])
+        setLocale(component, Locale.indexTranslations(lines));
+    }
+    
+    /**
+     * Performs the translation of the given component with those of the pre-split
+     * {@code translations} that refer to the component class.
+     * @param component - a GUI component
+     * @param translations - translations indexed by lower-case class name (see
+     * {@link Locale#getTranslations()})
+     */
+    private void setLocale(Component component, HashMap<String, ArrayList<Locale.Translation>> translations) {
+        ArrayList<Locale.Translation> classTranslations = translations.get(component.getClass().getSimpleName().toLowerCase());
+        if (classTranslations == null) {
+            return;
+        }
+        // The pieces of the split key (a working copy, may be modified for arrays and maps)
         StringList pieces;
         
-        for (int i = 0; i < lines.count(); i++) {
-            parts = StringList.explodeFirstOnly(lines.get(i), "=");
-        	//System.out.println(parts.get(0));
-            pieces = StringList.explode(parts.get(0), "\\.");
+        for (Locale.Translation translation: classTranslations) {
+            //
+            // We know, that we are now in the right component.
+            //
             
-            if (pieces.get(0).equalsIgnoreCase(component.getClass().getSimpleName()) && 
-                !parts.get(1).trim().isEmpty()) 
-            {
-                //
-                // We know, that we are now in the right component.
-                //
-                
-                // default the condition to true, even if there is none
-                boolean condition = true;
+            // default the condition to true, even if there is none
+            boolean condition = true;
 
-                // check for conditions
-                String key = parts.get(0);
-                if (key.contains("[") && key.endsWith("]"))
+            // check for conditions
+            if (translation.conditions != null)
+            {
+                condition = checkConditions(component, translation.conditions);
+            }
+            pieces = new StringList(translation.pieces);
+            
+            if(condition)
                 {
-                    // cut of last "]"
-                    key=key.substring(0, key.length()-1);
-                    // split
-                    String[] elements = key.split("\\[");
-                    // put back the key
-                    parts.set(0, elements[0]);
-                    // split up the condition
-                    StringList conditions = StringList.explode(elements[1], ",");
+                // START KGU#263 2016-09-28: Generally replace any found "\n" by a real newline
+                // START #479 2017-12-15: Enh. #492 - replace element names
+                //parts.set(1, parts.get(1).replace("\\n", "\n"));
+                String text = ElementNames.resolveElementNames(translation.text);
+                // END KGU#479 2017-12-15
+                // END KGU#263 2016-09-28
 
-                    //System.out.println("Found condition "+elements[1]+" for element "+elements[0]);
-                    condition = checkConditions(component, conditions);
-                    
-                    // re-explode pieces for further processing
-                    // because parts.get(0) has changed before
-                    pieces = StringList.explode(parts.get(0), "\\.");
-                }
-                
-                if(condition)
-                    {
-                    // START KGU#263 2016-09-28: Generally replace any found "\n" by a real newline
-                    // START #479 2017-12-15: Enh. #492 - replace element names
-                    //parts.set(1, parts.get(1).replace("\\n", "\n"));
-                	parts.set(1, ElementNames.resolveElementNames(parts.get(1).replace("\\n", "\n")));
-                    // END KGU#479 2017-12-15
-                    // END KGU#263 2016-09-28
-
-                    if (pieces.get(1).toLowerCase().equals("title")) {
-                        if (component instanceof JDialog) {
-                            ((JDialog) component).setTitle(parts.get(1));
-                        }
-                        // START KGU#324 2017-10-02: Enh. #415 JFrames should also be able to get the title localized
-                        else if (component instanceof JFrame) {
-                            ((JFrame) component).setTitle(parts.get(1));
-                        }
-                        // END KGU#324 2017-10-02
-                    } 
-                    else {
-                        Field field = null;
-                        String errorMessage = null;
+                if (pieces.get(1).toLowerCase().equals("title")) {
+                    if (component instanceof JDialog) {
+                        ((JDialog) component).setTitle(text);
+                    }
+                    // START KGU#324 2017-10-02: Enh. #415 JFrames should also be able to get the title localized
+                    else if (component instanceof JFrame) {
+                        ((JFrame) component).setTitle(text);
+                    }
+                    // END KGU#324 2017-10-02
+                } 
+                else {
+                    Field field = null;
+                    String errorMessage = null;
+                    try {
+                        // Own fields - whatever access level they might have - or inherited PUBLIC fields
+                        field = getField(component.getClass(), pieces.get(1));
+                    } catch (Exception e) {
+                        errorMessage = e.getMessage();
+                    }
+                    if (errorMessage != null) {
+                        logger.log(Level.WARNING, "LANG: Error accessing element <{0}.{1}>!\n{}",
+                                new Object[]{pieces.get(0), pieces.get(1), errorMessage});
+                    } else if (field != null) {
                         try {
-                            // First try on own fields - whatever access level they might have
-                            field = component.getClass().getDeclaredField(pieces.get(1));
-                            field.setAccessible(true);
-                            // START KGU#3 2015-11-03: Addition to enable the access to inherited fields
-                        } catch (Exception e) {
-                            errorMessage = e.getMessage();
-                        }
-                        if (field == null) {
-                            // Now try on inherited PUBLIC fields, too (unfortunately, a retrieval of protected inherited fields seems to be missing)
-                            try {
-                                field = component.getClass().getField(pieces.get(1));
-                                field.setAccessible(true);
-                                // If this works then cancel the previously obtained error message
-                                errorMessage = null;
-                            } catch (Exception e) {
-                                errorMessage = e.getMessage();
-                            }
-                        }
-                        if (errorMessage != null) {
-                            logger.log(Level.WARNING, "LANG: Error accessing element <{0}.{1}>!\n{}",
-                                    new Object[]{pieces.get(0), pieces.get(1), errorMessage});
-                        } else if (field != null) {
-                            // END KGU#3 2015-11-03
-                            try {
 
-                                Class<?> fieldClass = field.getType();
-                                String piece2 = pieces.get(2).toLowerCase();
+                            Class<?> fieldClass = field.getType();
+                            String piece2 = pieces.get(2).toLowerCase();
 
-                                Object target = field.get(component);
+                            Object target = field.get(component);
 
-                                // START KGU#239 2016-08-12: Opportunity to localize an array of controls
-                                if (fieldClass.isArray() && pieces.count() > 3)
-                                {
-                                    // On startup we might be faster here than the initialization of the components, such
-                                    // that we must face nasty NullPointerExceptions if we don't prevent
-                                    if (target != null) {
-                                        int length = Array.getLength(target);
-                                        // START KGU#252 2016-09-22: Issue #248 - workaround for Java 7
-                                        //int index = Integer.parseUnsignedInt(piece2);
-                                        //if (index < length) {
-                                        // START KGU#351 2017-02-26
-                                        //int index = Integer.parseInt(piece2);
-                                        //if (index >= 0 && index < length) {
-                                        //// END KGU#252 2016-09-22
-                                        //    target = Array.get(target, index);
-                                        //    fieldClass = target.getClass();
-                                        //    pieces.remove(2);	// Index no longer needed
-                                        //    pieces.set(1, pieces.get(1) + "[" + piece2 + "]");
-                                        //    piece2 = pieces.get(2).toLowerCase();
-                                        //}
-                                        int ixStart = 0, ixEnd = 0;
-                                        if (piece2.equals("*")) {
-                                        	// All indices!
-                                        	ixEnd = length;
-                                        }
-                                        else {
-                                        	ixStart = Integer.parseInt(piece2);
-                                        	ixEnd = ixStart + 1;
-                                        }
-                                        pieces.remove(2);	// Index no longer needed
-                                        pieces.set(1, pieces.get(1) + "[" + piece2 + "]");
-                                        piece2 = pieces.get(2).toLowerCase();
-                                        if (ixStart >= 0 && ixEnd <= length) {
-                                        	String piece3 = (pieces.count()>3) ? pieces.get(3) : "0";
-                                        	for (int index = ixStart; index < ixEnd; index++) {
-                                        		Object tgt = Array.get(target, index);
-                                        		// START KGU#245 2018-07-02: New mechanism to insert the index into the text
-                                        		//this.setFieldProperty(tgt, tgt.getClass(), piece2, piece3, parts.get(1));
-                                        		this.setFieldProperty(tgt, tgt.getClass(), piece2, piece3, 
-                                        				parts.get(1).replace("[#]", Integer.toString(index)));
-                                        		// END KGU#245 2018-07-02
-                                        	}
-                                        	// Target exhausted
-                                        	target = null;
-                                        }
-                                        // END KGU#351 2017-02-26
-                                        // START KGU#252 2016-09-22: Issue #248 - workaround for Java 7
-                                        else
-                                        {
-                                        	logger.log(Level.WARNING,
-                                        			"LANG: Error while setting property <{0}> for element <{1}.{2}.{3}>!\n"
-                                        					+ "Index out of range (0...{4})!",
-                                        					new Object[]{pieces.get(3), pieces.get(0), pieces.get(1), piece2, length-1});
-                                        }
-                                        // END KGU#252 2016-09-22
+                            // START KGU#239 2016-08-12: Opportunity to localize an array of controls
+                            if (fieldClass.isArray() && pieces.count() > 3)
+                            {
+                                // On startup we might be faster here than the initialization of the components, such
+                                // that we must face nasty NullPointerExceptions if we don't prevent
+                                if (target != null) {
+                                    int length = Array.getLength(target);
+                                    // START KGU#252 2016-09-22: Issue #248 - workaround for Java 7
+                                    //int index = Integer.parseUnsignedInt(piece2);
+                                    //if (index < length) {
+                                    // START KGU#351 2017-02-26
+                                    //int index = Integer.parseInt(piece2);
+                                    //if (index >= 0 && index < length) {
+                                    //// END KGU#252 2016-09-22
+                                    //    target = Array.get(target, index);
+                                    //    fieldClass = target.getClass();
+                                    //    pieces.remove(2);	// Index no longer needed
+                                    //    pieces.set(1, pieces.get(1) + "[" + piece2 + "]");
+                                    //    piece2 = pieces.get(2).toLowerCase();
+                                    //}
+                                    int ixStart = 0, ixEnd = 0;
+                                    if (piece2.equals("*")) {
+                                    	// All indices!
+                                    	ixEnd = length;
                                     }
+                                    else {
+                                    	ixStart = Integer.parseInt(piece2);
+                                    	ixEnd = ixStart + 1;
+                                    }
+                                    pieces.remove(2);	// Index no longer needed
+                                    pieces.set(1, pieces.get(1) + "[" + piece2 + "]");
+                                    piece2 = pieces.get(2).toLowerCase();
+                                    if (ixStart >= 0 && ixEnd <= length) {
+                                    	String piece3 = (pieces.count()>3) ? pieces.get(3) : "0";
+                                    	for (int index = ixStart; index < ixEnd; index++) {
+                                    		Object tgt = Array.get(target, index);
+                                    		// START KGU#245 2018-07-02: New mechanism to insert the index into the text
+                                    		//this.setFieldProperty(tgt, tgt.getClass(), piece2, piece3, parts.get(1));
+                                    		this.setFieldProperty(tgt, tgt.getClass(), piece2, piece3, 
+                                    				text.replace("[#]", Integer.toString(index)));
+                                    		// END KGU#245 2018-07-02
+                                    	}
+                                    	// Target exhausted
+                                    	target = null;
+                                    }
+                                    // END KGU#351 2017-02-26
+                                    // START KGU#252 2016-09-22: Issue #248 - workaround for Java 7
+                                    else
+                                    {
+                                    	logger.log(Level.WARNING,
+                                    			"LANG: Error while setting property <{0}> for element <{1}.{2}.{3}>!\n"
+                                    					+ "Index out of range (0...{4})!",
+                                    					new Object[]{pieces.get(3), pieces.get(0), pieces.get(1), piece2, length-1});
+                                    }
+                                    // END KGU#252 2016-09-22
                                 }
-                                // END KGU#239 2016-08-12
-                                // START KGU#242 2016-09-04
-                                else if ((fieldClass.getName().equals("java.util.HashMap") || fieldClass.getName().equals("java.util.Hashtable")) && pieces.count() > 3)
-                                {
-                                	String piece1_2 = pieces.get(1) + "[" + piece2 + "]";
-                                	Method method = fieldClass.getMethod("get", new Class[]{Object.class});
-                                	// On startup we might be faster here than the initialization of the components, such
-                                	// that we must face nasty NullPointerExceptions if we don't prevent
-                            		if (target != null) {
-                            			try {
-                            				target = method.invoke(target, piece2);
-                            				if (target == null)
-                            				{
-                            					logger.log(Level.WARNING, "LANG: No Element <{0}.{1}> found!",
-                            							new Object[]{pieces.get(0), piece1_2});
-                            				}
-                            			}
-                            			catch (Exception e) {
-                            				// FIXME: No idea why this always goes off just on startup
-                            				logger.log(Level.WARNING, "LANG: Trouble accessing <{0}.{1}>",
-                            						new Object[]{pieces.get(0), piece1_2});
-                            			}
-                            		}
-                            		if (target != null)
-                                	{
-                                		fieldClass = target.getClass();
-                                		pieces.remove(2);	// Key no longer needed
-                                		pieces.set(1, piece1_2);
-                                		piece2 = pieces.get(2).toLowerCase();
-                                	}
-                                }
-                                // END KGU#242 2016-09-04
-                                
-                                // START KGU#351 2017-02-26: Decomposition to allow index loops
+                            }
+                            // END KGU#239 2016-08-12
+                            // START KGU#242 2016-09-04
+                            else if ((fieldClass.getName().equals("java.util.HashMap") || fieldClass.getName().equals("java.util.Hashtable")) && pieces.count() > 3)
+                            {
+                            	String piece1_2 = pieces.get(1) + "[" + piece2 + "]";
+                            	Method method = getMethod(fieldClass, "get", new Class[]{Object.class});
+                            	// On startup we might be faster here than the initialization of the components, such
+                            	// that we must face nasty NullPointerExceptions if we don't prevent
+                        		if (target != null) {
+                        			try {
+                        				target = method.invoke(target, piece2);
+                        				if (target == null)
+                        				{
+                        					logger.log(Level.WARNING, "LANG: No Element <{0}.{1}> found!",
+                        							new Object[]{pieces.get(0), piece1_2});
+                        				}
+                        			}
+                        			catch (Exception e) {
+                        				// FIXME: No idea why this always goes off just on startup
+                        				logger.log(Level.WARNING, "LANG: Trouble accessing <{0}.{1}>",
+                        						new Object[]{pieces.get(0), piece1_2});
+                        			}
+                        		}
+                        		if (target != null)
+                            	{
+                            		fieldClass = target.getClass();
+                            		pieces.remove(2);	// Key no longer needed
+                            		pieces.set(1, piece1_2);
+                            		piece2 = pieces.get(2).toLowerCase();
+                            	}
+                            }
+                            // END KGU#242 2016-09-04
+                            
+                            // START KGU#351 2017-02-26: Decomposition to allow index loops
 //                                if (piece2.equals("text")) {
 //                                    Method method = fieldClass.getMethod("setText", new Class[]{String.class});
 //                                    if(target != null)
@@ -771,31 +740,30 @@ public class Locales {
 //                                        Object item = method.invoke(target, new Object[]{Integer.valueOf(pieces.get(3))});
 //                                        if (item != null) {
 //                                            Class<?> itemClass = item.getClass();
-//                                            method = itemClass.getMethod("setText", new Class[]{String.class});
+//                                            method = getMethod(itemClass, "setText", new Class[]{String.class});
 //                                            method.invoke(item, new Object[]{parts.get(1)});
 //                                        }
 //                                    }
 //                                }
-                                String piece3 = (pieces.count() > 3) ? pieces.get(3) : "0";
-                                this.setFieldProperty(target, fieldClass, piece2, piece3, parts.get(1));
-                                // END KGU#351 2017-02-26
-                                // END KGU#156 2016-03-13
-                            } catch (Exception e) {
-                            	String reason = e.getMessage();
-                            	if (reason == null) {
-                            		reason = e.getClass().getSimpleName();
-                            		// START KGU#484 2018-04-05: Issue #463
-                            		//e.printStackTrace();
-                            		logger.log(Level.WARNING, "", e);	// FIXME: really that important?
-                            		// END KGU#484 2018-04-05
-                            	}
-                                logger.log(Level.WARNING, "LANG: Error while setting property <{0}> for element <{1}>!\n",
-                                		new Object[]{pieces.get(2), pieces.get(0), pieces.get(1), reason});
-                            }
-                        } else {
-                            logger.log(Level.WARNING, "LANG: Field not found <{0}.{1}>",
-                            		new Object[]{pieces.get(0), pieces.get(1)});
+                            String piece3 = (pieces.count() > 3) ? pieces.get(3) : "0";
+                            this.setFieldProperty(target, fieldClass, piece2, piece3, text);
+                            // END KGU#351 2017-02-26
+                            // END KGU#156 2016-03-13
+                        } catch (Exception e) {
+                        	String reason = e.getMessage();
+                        	if (reason == null) {
+                        		reason = e.getClass().getSimpleName();
+                        		// START KGU#484 2018-04-05: Issue #463
+                        		//e.printStackTrace();
+                        		logger.log(Level.WARNING, "", e);	// FIXME: really that important?
+                        		// END KGU#484 2018-04-05
+                        	}
+                            logger.log(Level.WARNING, "LANG: Error while setting property <{0}> for element <{1}>!\n",
+                            		new Object[]{pieces.get(2), pieces.get(0), pieces.get(1), reason});
                         }
+                    } else {
+                        logger.log(Level.WARNING, "LANG: Field not found <{0}.{1}>",
+                        		new Object[]{pieces.get(0), pieces.get(1)});
                     }
                 }
             }
@@ -809,23 +777,23 @@ public class Locales {
     		return;
     	}
         if (_property.equals("text")) {
-            Method method = _fieldClass.getMethod("setText", new Class[]{String.class});
+            Method method = getMethod(_fieldClass, "setText", new Class[]{String.class});
             method.invoke(_target, new Object[]{_text});
         } else if (_property.equals("tooltip")) {
-            Method method = _fieldClass.getMethod("setToolTipText", new Class[]{String.class});
+            Method method = getMethod(_fieldClass, "setToolTipText", new Class[]{String.class});
             method.invoke(_target, new Object[]{_text});
         } else if (_property.equals("border")) {
-            Method method = _fieldClass.getMethod("setBorder", new Class[]{Border.class});
+            Method method = getMethod(_fieldClass, "setBorder", new Class[]{Border.class});
             method.invoke(_target, new Object[]{new TitledBorder(_text)});
         } else if (_property.equals("tab")) {
-            Method method = _fieldClass.getMethod("setTitleAt", new Class[]{int.class, String.class});
+            Method method = getMethod(_fieldClass, "setTitleAt", new Class[]{int.class, String.class});
             method.invoke(_target, new Object[]{Integer.valueOf(_piece3), _text});
         } else if (_property.equals("header")) {
-            Method method = _fieldClass.getMethod("setHeaderTitle", new Class[]{int.class, String.class});
+            Method method = getMethod(_fieldClass, "setHeaderTitle", new Class[]{int.class, String.class});
             method.invoke(_target, new Object[]{Integer.valueOf(_piece3), _text});
         } // START KGU#184 2016-04-24: Enh. #173 - new mnemonic support (only works from Java 1.7 on)
         else if (_property.equals("mnemonic")) {
-            Method method = _fieldClass.getMethod("setMnemonic", new Class[]{int.class});
+            Method method = getMethod(_fieldClass, "setMnemonic", new Class[]{int.class});
             // START KGU 2016-12-07: Issue #304 We must check the availability of a Java 1.7 method.
             try {
                 int keyCode = KeyEvent.getExtendedKeyCodeForChar(_text.toLowerCase().charAt(0));
@@ -842,7 +810,7 @@ public class Locales {
             // The JCombobox is supposed to be equipped with enum objects providing a setText() method
             // (see lu.fisch.structorizer.elements.RuntimeDataPresentMode and
             // lu.fisch.structorizer.executor.Control for an example).
-            Method method = _fieldClass.getMethod("getItemAt", new Class[]{int.class});
+            Method method = getMethod(_fieldClass, "getItemAt", new Class[]{int.class});
             Object item = method.invoke(_target, new Object[]{Integer.valueOf(_piece3)});
             if (item != null) {
             	Class<?> itemClass = item.getClass();
@@ -855,6 +823,57 @@ public class Locales {
     }
     // END KGU#351 2017-02-26
     
+    /**
+     * Retrieves the field named {@code _name} (declared in class {@code _class} with whatever
+     * access level or inherited and public), made accessible. The result is cached.
+     * @param _class - the class of the component
+     * @param _name - the field name
+     * @return the field
+     * @throws Exception if there is no such field or it cannot be made accessible
+     */
+    private Field getField(Class<?> _class, String _name) throws Exception
+    {
+        HashMap<String, Field> fields = fieldCache.get(_class);
+        if (fields == null) {
+            fields = new HashMap<String, Field>();
+            fieldCache.put(_class, fields);
+        }
+        Field field = fields.get(_name);
+        if (field == null) {
+            try {
+                field = _class.getDeclaredField(_name);
+            }
+            catch (NoSuchFieldException ex) {
+                // Now try on inherited PUBLIC fields, too
+                field = _class.getField(_name);
+            }
+            field.setAccessible(true);
+            fields.put(_name, field);
+        }
+        return field;
+    }
+    
+    /**
+     * Retrieves the public method {@code _name} of class {@code _class} with the given
+     * parameter types. The result is cached (by name and number of parameters).
+     * @throws NoSuchMethodException if there is no such method
+     */
+    private Method getMethod(Class<?> _class, String _name, Class<?>... _paramTypes) throws NoSuchMethodException
+    {
+        HashMap<String, Method> methods = methodCache.get(_class);
+        if (methods == null) {
+            methods = new HashMap<String, Method>();
+            methodCache.put(_class, methods);
+        }
+        String key = _name + "#" + _paramTypes.length;
+        Method method = methods.get(key);
+        if (method == null) {
+            method = _class.getMethod(_name, _paramTypes);
+            methods.put(key, method);
+        }
+        return method;
+    }
+    
     /**
      * Returns the name of the current locale
      * @return language code or pseudo locale name (or default locale name)
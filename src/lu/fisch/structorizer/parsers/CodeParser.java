@@ -47,6 +47,7 @@ package lu.fisch.structorizer.parsers;
  *      Kay Gürtzig     2018.10.25      Enh. #419: Support for automatic breaking of long lines (postprocess)
  *      Kay Gürtzig     2018.10.29      Enh. #627: New field exception in order to provide stacktrace info if available
  *                                      Issue #630: New member class FilePreparationException
+ *      agent           2026.10.19      Cached keyword matcher getKeywordMatcher() for single-pass keyword search
  *
  ******************************************************************************************************
  *
@@ -61,6 +62,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -90,6 +92,7 @@ import lu.fisch.structorizer.elements.Subqueue;
 import lu.fisch.structorizer.helpers.IPluginClass;
 import lu.fisch.structorizer.io.Ini;
 import lu.fisch.utils.StringList;
+import lu.fisch.utils.TokenSequenceMatcher;
 
 
 /**
@@ -1427,7 +1430,7 @@ public abstract class CodeParser extends javax.swing.filechooser.FileFilter impl
 				ini.setProperty(propertyName, entry.getValue());
 			}
 
-			ini.save();
+			ini.requestSave();
 		}
 		catch (Exception e)
 		{
@@ -1447,6 +1450,41 @@ public abstract class CodeParser extends javax.swing.filechooser.FileFilter impl
 	}
 	// END KGU#163 2016-03-25
 
+	/** Matcher for the split keywords of {@link #matchedKeywords}, rebuilt on demand */
+	private static TokenSequenceMatcher keywordMatcher = null;
+	/** The keyword values (in the order of {@link #getAllProperties()}) {@link #keywordMatcher} was built from */
+	private static String[] matchedKeywords = null;
+
+	/**
+	 * Returns a matcher for all current non-empty parser keywords (split lexically), each
+	 * tagged with its parser preference name and having its keyword as replacement string.
+	 * The matcher observes {@link #ignoreCase} and is only rebuilt if the keywords or the
+	 * case sensitivity have changed since the last call.
+	 * @return the shared keyword matcher (must not be modified)
+	 */
+	public static synchronized TokenSequenceMatcher getKeywordMatcher()
+	{
+		String[] keywords = getAllProperties();
+		if (keywordMatcher == null || keywordMatcher.isIgnoringCase() != ignoreCase
+				|| !Arrays.equals(keywords, matchedKeywords))
+		{
+			TokenSequenceMatcher matcher = new TokenSequenceMatcher(ignoreCase);
+			int i = 0;
+			for (String key: keywordMap.keySet())
+			{
+				String keyword = keywords[i++];
+				StringList keyTokens = new StringList();
+				if (!keyword.trim().isEmpty()) {
+					keyTokens = Element.splitLexically(keyword, false);
+				}
+				matcher.addPattern(key, keyTokens, keyword);
+			}
+			keywordMatcher = matcher;
+			matchedKeywords = keywords;
+		}
+		return keywordMatcher;
+	}
+
 	// START KGU#258 2016-09-25: Enh. #253 (temporary workaround for the needed Hashmap)
 	/**
 	 * Returns a Hashmap mapping parser preference labels like "preAlt" to the
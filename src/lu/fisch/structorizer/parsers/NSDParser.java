@@ -54,6 +54,9 @@ package lu.fisch.structorizer.parsers;
  *      Kay Gürtzig     2018.03.22      Issue #463: Direct console output replaced with logging
  *      Kay Gürtzig     2018.07.17      Bugfix #562: Attribute "origin" must be set (overwritten) in any case
  *      Kay Gürtzig     2018.09.11      Refines #372: More sensible attributes for Roots from an arrz file.
+ *      agent           2026.10.19      Shared parser factories, per-thread SAXParser reuse, state reset
+ *                                      between files, batch method parseAll() for concurrent loading
+ *      agent           2026.10.19      Diagrams may be parsed directly from arrz file entries
  *
  ******************************************************************************************************
  *
@@ -76,8 +79,17 @@ import java.io.InputStream;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Stack;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import lu.fisch.utils.*;
 import lu.fisch.structorizer.elements.*;
@@ -90,6 +102,15 @@ public class NSDParser extends DefaultHandler {
 	// END KGU#484 2018-03-21
 
 	private static Schema nsdSchema = null;
+	
+	/** Shared factory for the parsers applied to NSD files */
+	private static SAXParserFactory fileParserFactory = null;
+	/** Shared factory for the validating parsers applied to NSD streams (e.g. clipboard content) */
+	private static SAXParserFactory streamParserFactory = null;
+	/** Reusable parsers for NSD files (one per thread since SAXParser isn't thread-safe) */
+	private static final ThreadLocal<SAXParser> fileParsers = new ThreadLocal<SAXParser>();
+	/** Reusable validating parsers for NSD streams (one per thread) */
+	private static final ThreadLocal<SAXParser> streamParsers = new ThreadLocal<SAXParser>();
 
 	private Root root = null;
 	
@@ -114,6 +135,28 @@ public class NSDParser extends DefaultHandler {
 	private boolean refactorKeywords = true;
 	// END KGU#362 2017-03-28
 	// END KGU#258 2016-09-25
+	/** Refactoring preference preset for a batch of files, null if to be retrieved per file */
+	private Boolean refactorOnLoading = null;
+	
+	/**
+	 * Creates a parser that will retrieve the keyword refactoring preference
+	 * from the configuration on every parsing request.
+	 */
+	public NSDParser()
+	{
+	}
+	
+	/**
+	 * Creates a parser with fixed keyword refactoring mode, as needed for loading many
+	 * files with the same settings.
+	 * @param _refactorOnLoading - whether diagrams saved with different parser keywords
+	 * are to be refactored to the current keywords
+	 * @see #isRefactoringOnLoading()
+	 */
+	public NSDParser(boolean _refactorOnLoading)
+	{
+		this.refactorOnLoading = _refactorOnLoading;
+	}
 
 	// START KGU#400 2017-06-20: Issue #404
 	public boolean validationError = false;  
@@ -829,6 +872,7 @@ public class NSDParser extends DefaultHandler {
      * @return the built diagram
      * @throws SAXException
      * @throws IOException
+     * @see #parseAll(File[], File, Exception[])
      */
 	public Root parse(File _file, File _zipFile) throws SAXException, IOException
 	// END KGU#363 2017-05-21
@@ -843,41 +887,11 @@ public class NSDParser extends DefaultHandler {
 		// END KGU#363 2018-09-11
 		// END KGU#363 2017-05-21
 
-		// clear stacks
-		stack.clear();
-		ifStack.clear();
-		qStack.clear();
-		cStack.clear();
-		pStack.clear();
+		resetState();
 				
-		// START KGU#258 2016-09-26: Enhancement #253
-		Ini ini = Ini.getInstance();
-		ini.load();
-		// START KGU#362 2017-03-28: Issue #370 - default value set to true
-		//this.refactorKeywords = ini.getProperty("impRefactorOnLoading","false").equals("true");
-		this.refactorKeywords = !ini.getProperty("impRefactorOnLoading","true").equals("false");
-		// END KGU#362 2017-03-28
-		// END KGU#258 2016-09-26
-
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		// START KGU#400 2017-06-20: Issue #404
-		if (nsdSchema == null) {
-			URL schemaLocal = this.getClass().getResource("structorizer.xsd");
-			SchemaFactory sFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-			try {
-				nsdSchema = sFactory.newSchema(schemaLocal);
-			} catch (SAXException ex) {
-				logger.log(Level.WARNING, "structorizer.xsd", ex);
-			}
-		}
-		// FIXME: This doesn't work properly -maybe it requires full tag qualification
-		//factory.setNamespaceAware(true);
-//		factory.setValidating(true);
-//		factory.setSchema(nsdSchema);
-		// END KGU#400 2017-06-20
 		try		
 		{
-			SAXParser saxParser = factory.newSAXParser();
+			SAXParser saxParser = getParser(false);
 			saxParser.parse(_file/*.toURI().toString()*/, this);
 		} 
 		catch(Exception e) 
@@ -903,68 +917,317 @@ public class NSDParser extends DefaultHandler {
 		return root;
 	}
 	
+    /**
+     * Parses the NSD file held as entry {@code _entry} in the arrz (zip) file {@code _zipFile}
+     * without extracting it and returns the composed {@link Root} (if possible), otherwise
+     * raises exceptions.
+     * @param _zipFile - the opened arrz file
+     * @param _entry - the entry of the NSD file within {@code _zipFile}
+     * @return the built diagram
+     * @throws SAXException
+     * @throws IOException
+     * @see #parseAll(ZipFile, ZipEntry[], Exception[])
+     */
+	public Root parse(ZipFile _zipFile, ZipEntry _entry) throws SAXException, IOException
+	{
+		// setup a new root
+		root = new Root();
+		root.fetchAuthorDates(_entry, new File(_zipFile.getName()));
+
+		resetState();
+
+		InputStream is = _zipFile.getInputStream(_entry);
+		try
+		{
+			SAXParser saxParser = getParser(false);
+			saxParser.parse(is, this);
+		}
+		catch(Exception e)
+		{
+			String errorMessage = "Error parsing " + _zipFile.getName() + File.separator + _entry.getName() + ":";
+			logger.log(Level.SEVERE, errorMessage, e);
+			if (e instanceof SAXException)
+			{
+				throw (SAXException)e;
+			}
+			else if (e instanceof IOException)
+			{
+				throw (IOException)e;
+			}
+		}
+		finally
+		{
+			is.close();
+		}
+		return root;
+	}
+
 	// START KGU#177 2016-04-14: Enh. 158 - we need an opportunity to parse an XML string as well
-	// (FIXME: This is just a copy-and-paste clone of Root parse(String _filename))
 	public Root parse(InputStream _is) throws SAXException, IOException
 	{
 		// setup a new root
 		root=new Root();
 		
+		resetState();
+		
+		try		
+		{
+			SAXParser saxParser = getParser(true);
+			saxParser.parse(_is, this);
+		} 
+		catch(Exception e) 
+		{
+			String errorMessage = "Error parsing NSD:";
+			logger.log(Level.SEVERE, errorMessage, e);
+			// START KGU#111 2015-12-16: Bugfix #63 re-throw the exception!
+			if (e instanceof SAXException)
+			{
+				throw (SAXException)e;
+			}
+			else if (e instanceof IOException)
+			{
+				throw (IOException)e;
+			}
+			// END KGU#111 2015-12-16
+		}
+		return root;
+	}
+	// END KGU#177 2016-04-14
+	
+	/**
+	 * Clears the stacks and all information gathered from a previously parsed file
+	 * and determines the keyword refactoring mode for the next parsing process.
+	 */
+	private void resetState()
+	{
 		// clear stacks
 		stack.clear();
 		ifStack.clear();
 		qStack.clear();
 		cStack.clear();
 		pStack.clear();
+		lastQ = null;
+		lastE = null;
+		fileVersion = "";
+		savedParserPrefs = new HashMap<String, StringList>();
+		ignoreCase = false;
 		
 		// START KGU#258 2016-09-26: Enh. #253
+		if (this.refactorOnLoading != null) {
+			this.refactorKeywords = this.refactorOnLoading;
+		}
+		else {
+			this.refactorKeywords = isRefactoringOnLoading();
+		}
+		// END KGU#258 2016-09-26
+	}
+	
+	/**
+	 * Retrieves the user preference whether diagrams are to be refactored on loading
+	 * if their saved parser keywords differ from the current ones.
+	 * @return true if loaded diagrams are to be refactored
+	 */
+	public static boolean isRefactoringOnLoading()
+	{
+		// The Ini instance holds the current settings in memory, no need to reload
 		Ini ini = Ini.getInstance();
-		ini.load();
 		// START KGU#362 2017-03-28: Issue #370 - default value set to true
 		//this.refactorKeywords = ini.getProperty("impRefactorOnLoading","false").equals("true");
-		this.refactorKeywords = !ini.getProperty("impRefactorOnLoading","true").equals("false");
+		return !ini.getProperty("impRefactorOnLoading","true").equals("false");
 		// END KGU#362 2017-03-28
-		// END KGU#258 2016-09-26
-				
-		SAXParserFactory factory = SAXParserFactory.newInstance();
+	}
+	
+	/**
+	 * Provides a SAX parser for the current thread. The parsers are created once per
+	 * thread from shared factories and are reset before reuse.
+	 * @param _validating - whether the parser is to be used for the (schema-aware)
+	 * parsing of a stream rather than a file
+	 * @return the parser
+	 */
+	private static SAXParser getParser(boolean _validating) throws ParserConfigurationException, SAXException
+	{
+		ThreadLocal<SAXParser> parsers = _validating ? streamParsers : fileParsers;
+		SAXParser parser = parsers.get();
+		if (parser == null) {
+			SAXParserFactory factory = getParserFactory(_validating);
+			synchronized (factory) {
+				parser = factory.newSAXParser();
+			}
+			parsers.set(parser);
+		}
+		else {
+			parser.reset();
+		}
+		return parser;
+	}
+	
+	/**
+	 * Returns the shared parser factory of the requested kind, creating it on demand.
+	 * @param _validating - true for the factory used with streams (schema-aware)
+	 */
+	private static synchronized SAXParserFactory getParserFactory(boolean _validating)
+	{
+		if (_validating) {
+			if (streamParserFactory == null) {
+				streamParserFactory = SAXParserFactory.newInstance();
+				// START KGU#400 2017-06-20: Issue #404
+				// FIXME: This doesn't work properly
+				streamParserFactory.setNamespaceAware(true);
+				streamParserFactory.setValidating(true);
+				streamParserFactory.setSchema(getSchema());
+				// END KGU#400 2017-06-20
+			}
+			return streamParserFactory;
+		}
+		if (fileParserFactory == null) {
+			fileParserFactory = SAXParserFactory.newInstance();
+			// START KGU#400 2017-06-20: Issue #404
+			// FIXME: This doesn't work properly -maybe it requires full tag qualification
+			//factory.setNamespaceAware(true);
+//			factory.setValidating(true);
+//			factory.setSchema(nsdSchema);
+			// END KGU#400 2017-06-20
+		}
+		return fileParserFactory;
+	}
+	
+	/**
+	 * @return the NSD schema (loaded on first request), or null if it couldn't be loaded
+	 */
+	private static synchronized Schema getSchema()
+	{
 		// START KGU#400 2017-06-20: Issue #404
 		if (nsdSchema == null) {
-			URL schemaLocal = this.getClass().getResource("structorizer.xsd");
+			URL schemaLocal = NSDParser.class.getResource("structorizer.xsd");
 			SchemaFactory sFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
 			try {
 				nsdSchema = sFactory.newSchema(schemaLocal);
-			}
-			catch (SAXException ex) {
+			} catch (SAXException ex) {
 				logger.log(Level.WARNING, "structorizer.xsd", ex);
 			}
 		}
-		// FIXME: This doesn't work properly
-		factory.setNamespaceAware(true);
-		factory.setValidating(true);
-		factory.setSchema(nsdSchema);
 		// END KGU#400 2017-06-20
-		try		
-		{
-			SAXParser saxParser = factory.newSAXParser();
-			saxParser.parse(_is, this);
-		} 
-		catch(Exception e) 
-		{
-			String errorMessage = "Error parsing NSD:";
-			logger.log(Level.SEVERE, errorMessage, e);
-			// START KGU#111 2015-12-16: Bugfix #63 re-throw the exception!
-			if (e instanceof SAXException)
-			{
-				throw (SAXException)e;
+		return nsdSchema;
+	}
+	
+	/**
+	 * Parses all the given NSD files concurrently (on a small thread pool) and returns the
+	 * resulting diagrams in the order of {@code _files}. The keyword refactoring preference
+	 * is retrieved only once for the entire batch.<br/>
+	 * For files that could not be parsed, the result array contains null and, if
+	 * {@code _errors} is given, the respective element of {@code _errors} holds the
+	 * causing exception.
+	 * @param _files - the NSD files to be parsed
+	 * @param _zipFile - the arrz file if the {@code _files} were extracted from it, null otherwise
+	 * @param _errors - an array of at least the length of {@code _files} to be filled with the
+	 * exceptions, or null
+	 * @return array of the built diagrams (or null elements), index-aligned with {@code _files}
+	 * @see #parse(File, File)
+	 */
+	public static Root[] parseAll(final File[] _files, final File _zipFile, Exception[] _errors)
+	{
+		return parseAll(_files.length, new ParseTask() {
+			@Override
+			public Root parse(NSDParser parser, int index) throws Exception {
+				return parser.parse(_files[index], _zipFile);
 			}
-			else if (e instanceof IOException)
-			{
-				throw (IOException)e;
+		}, _errors);
+	}
+
+	/**
+	 * Parses the NSD files held as the given {@code _entries} of arrz file {@code _zipFile}
+	 * concurrently (without extracting them) and returns the resulting diagrams in the order
+	 * of {@code _entries}. Null elements of {@code _entries} as well as entries that could
+	 * not be parsed lead to null elements in the result (see {@link #parseAll(File[], File, Exception[])}
+	 * for the error reporting).
+	 * @param _zipFile - the opened arrz file (may be read concurrently)
+	 * @param _entries - the NSD file entries to be parsed (may contain null elements)
+	 * @param _errors - an array of at least the length of {@code _entries} to be filled with the
+	 * exceptions, or null
+	 * @return array of the built diagrams (or null elements), index-aligned with {@code _entries}
+	 * @see #parse(ZipFile, ZipEntry)
+	 */
+	public static Root[] parseAll(final ZipFile _zipFile, final ZipEntry[] _entries, Exception[] _errors)
+	{
+		return parseAll(_entries.length, new ParseTask() {
+			@Override
+			public Root parse(NSDParser parser, int index) throws Exception {
+				return _entries[index] == null ? null : parser.parse(_zipFile, _entries[index]);
 			}
-			// END KGU#111 2015-12-16
+		}, _errors);
+	}
+
+	/** Parsing of the {@code index}-th source of a batch (see {@link NSDParser#parseAll(int, ParseTask, Exception[])}) */
+	private static interface ParseTask {
+		public Root parse(NSDParser parser, int index) throws Exception;
+	}
+
+	/**
+	 * Performs the {@code _count} parsing requests of {@code _task} on a small thread pool.
+	 * @return array of the built diagrams (or null elements) in order of the indices
+	 */
+	private static Root[] parseAll(int _count, final ParseTask _task, Exception[] _errors)
+	{
+		final boolean refactor = isRefactoringOnLoading();
+		Root[] roots = new Root[_count];
+		int nThreads = Math.min(_count, Runtime.getRuntime().availableProcessors());
+		if (nThreads <= 1) {
+			// Not worth to start a thread pool
+			NSDParser parser = new NSDParser(refactor);
+			for (int i = 0; i < _count; i++) {
+				try {
+					roots[i] = _task.parse(parser, i);
+				}
+				catch (Exception ex) {
+					if (_errors != null) {
+						_errors[i] = ex;
+					}
+				}
+			}
+			return roots;
 		}
-		return root;
+		ExecutorService pool = Executors.newFixedThreadPool(nThreads, new ThreadFactory() {
+			private int nThreads = 0;
+			@Override
+			public synchronized Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "NSDParser-" + ++nThreads);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			Vector<Future<Root>> results = new Vector<Future<Root>>(_count);
+			for (int i = 0; i < _count; i++) {
+				final int index = i;
+				results.add(pool.submit(new Callable<Root>() {
+					@Override
+					public Root call() throws Exception {
+						return _task.parse(new NSDParser(refactor), index);
+					}
+				}));
+			}
+			for (int i = 0; i < _count; i++) {
+				try {
+					roots[i] = results.get(i).get();
+				}
+				catch (ExecutionException ex) {
+					if (_errors != null) {
+						Throwable cause = ex.getCause();
+						_errors[i] = (cause instanceof Exception) ? (Exception)cause : ex;
+					}
+				}
+				catch (InterruptedException ex) {
+					if (_errors != null) {
+						_errors[i] = ex;
+					}
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return roots;
 	}
-	// END KGU#177 2016-04-14
 	
 }
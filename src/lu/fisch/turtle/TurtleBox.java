@@ -44,6 +44,9 @@ package lu.fisch.turtle;
  *      Kay Gürtzig     2018.01.16      Enh. #490: Class decomposed to allow a mere API use without realising the GUI
  *      Kay Gürtzig     2018.07.30      Enh. #576: New procedure clear() added to the API
  *      Kay Gürtzig     2018.10.12      Issue #622: Modification apparently helping to overcome drawing contention
+ *      agent           2026.10.19      Drawn segments kept in a primitive segment log and rasterized incrementally
+ *                                      into a persistent off-screen image; repaints coalesced for delay 0
+ *      agent           2026.10.19      clearSegments() always replaces the log arrays (no overwriting while read)
  *
  ******************************************************************************************************
  *
@@ -54,6 +57,14 @@ package lu.fisch.turtle;
  *			{@code turtleBox.setAnimationDelay(0, true);}
  *      The API for employing applications is retrievable via {@link TurtleBox#getFunctionMap()} and
  *      {@link TurtleBox#getProcedureMap}.
+ *      2026.10.19 (agent)
+ *      Formerly every move was stored as Line or Move object in a Vector and paint() redrew all of
+ *      them on every single repaint, which made drawings with 10^5 and more segments quadratic.
+ *      Now only visible segments are logged (as int coordinates and RGB values in growing arrays),
+ *      and the panel keeps a BufferedImage into which only the segments added since the last paint
+ *      are rasterized. The image is only rebuilt from the log if the panel size or the background
+ *      colour changed or the drawing was cleared. With animation delay 0, repaints are requested
+ *      at most every FRAME_INTERVAL milliseconds instead of after every command.
  *
  ******************************************************************************************************///
 
@@ -63,19 +74,20 @@ import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Vector;
 //import java.util.logging.Logger;
 
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 import lu.fisch.diagrcontrol.*;
-import lu.fisch.turtle.elements.Element;
-import lu.fisch.turtle.elements.Line;
-import lu.fisch.turtle.elements.Move;
 
 /**
  * TurtleBox - a Turtle controller providing an interface usable e.g. by Structorizer
@@ -181,7 +193,27 @@ public class TurtleBox implements DelayableDiagramController
     // END KGU#303 2016-12-02
     private boolean turtleHidden = false;
     private int delay = 10;
-    private Vector<Element> elements = new Vector<Element>();
+    /** Minimum interval between two repaints in ms with animation delay 0 (i.e. at most 25 frames/s) */
+    private static final int FRAME_INTERVAL = 40;
+    /** Lock for the segment log (filled by the executing thread, read by the event dispatch thread) */
+    private final Object segmentLock = new Object();
+    /** Segment end point coordinates, 4 ints (x1, y1, x2, y2) per drawn segment */
+    private int[] segmentCoords = new int[4 * 256];
+    /** Segment colours (RGB) */
+    private int[] segmentColors = new int[256];
+    /** Number of logged segments */
+    private int nSegments = 0;
+    /** Incremented on every wipe of the log, such that the raster is rebuilt */
+    private int logGeneration = 0;
+    /** Off-screen image holding the rasterized segments (without the turtle) */
+    private BufferedImage raster = null;
+    /** The number of logged segments already rasterized into {@link #raster} */
+    private int nRasterized = 0;
+    /** The log generation and background colour {@link #raster} was built for */
+    private int rasterGeneration = -1;
+    private Color rasterBackground = null;
+    /** One-shot timer coalescing repaint requests (see {@link #FRAME_INTERVAL}) */
+    private Timer repaintTimer = null;
     private JPanel panel; 
 
     /**
@@ -291,34 +323,8 @@ public class TurtleBox implements DelayableDiagramController
                 // set anti-aliasing rendering
                 ((Graphics2D)g).setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_ON);
 
-                // clear background
-                // START KGU#303 2016-12-02: Enh. #302
-                //g.setColor(Color.WHITE);
-                g.setColor(backgroundColor);
-                // END KGU#303 2016-12-02
-                g.fillRect(0,0,getWidth(),getHeight());
-                // START KGU#303 2016-12-03: Enh. #302
-                //g.setColor(Color.BLACK);
-                g.setColor(defaultPenColor);
-                // END KGU#303 2016-12-03
-
-                // draw all elements
-                // START KGU#449 2017-10-28: The use of iterators may lead to lots of
-                //java.util.ConcurrentModificationException errors slowing down all.
-                // So we better avoid the iterator and loop against a snapshot size
-                // (which is safe because the elements Vector can't shrink during execution).
-                //for (Element ele : elements)
-                //{
-                //    ele.draw(g);
-                //}
-                int nElements = elements.size();
-                // START KGU#597 2018-10-12: Issue #622 - Monitoring drawing detention underMac
-                //logger.config("Painting " + nElements + " elements...");
-                // END KGU#597 2018-10-12
-                for (int i = 0; i < nElements; i++) {
-                	elements.get(i).draw(g);
-                }
-                // END KGU#449 2017-10-28
+                // background and all segments drawn so far (only new segments get rasterized)
+                g.drawImage(updateRaster(getWidth(), getHeight()), 0, 0, null);
 
                 if (!turtleHidden)
                 {
@@ -352,6 +358,13 @@ public class TurtleBox implements DelayableDiagramController
         frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
         frame.setBounds(0,0,width,height);
         frame.getContentPane().add(panel);
+        repaintTimer = new Timer(FRAME_INTERVAL, new ActionListener() {
+        	@Override
+        	public void actionPerformed(ActionEvent evt) {
+        		panel.repaint();
+        	}
+        });
+        repaintTimer.setRepeats(false);
         //this.setVisible(true);
         setPos(new Point(panel.getWidth()/2,panel.getHeight()/2));
         home = new Point(panel.getWidth()/2,panel.getHeight()/2);
@@ -398,7 +411,7 @@ public class TurtleBox implements DelayableDiagramController
      */
     private void reinit()
     {
-        elements.clear();
+        clearSegments();
         angle = -90;
         backgroundColor = Color.WHITE;
         defaultPenColor = Color.BLACK;
@@ -419,7 +432,18 @@ public class TurtleBox implements DelayableDiagramController
         // END KGU#480 2018-01-16
         // START KGU#597 2018-10-12: Issue #622 Attempt to fix a drawing contention on some Macbook
         //logger.config(panel + " enqueuing repaint()...");
-        panel.repaint();
+        // Without delay, repaints are coalesced to a frame rate
+        if (delay == 0)
+        {
+        	// Does nothing if a repaint is already scheduled
+        	if (!repaintTimer.isRunning()) {
+        		repaintTimer.start();
+        	}
+        }
+        else
+        {
+        	panel.repaint();
+        }
         // END KGU#597 2018-10-12
         if (delay!=0)
         {
@@ -443,11 +467,7 @@ public class TurtleBox implements DelayableDiagramController
                                  pos.y+(int) Math.round(Math.sin(angle/180*Math.PI)*pixels));
         if (isPenDown)
         {
-            elements.add(new Line(pos,newPos,penColor));
-        }
-        else
-        {
-            elements.add(new Move(pos,newPos));
+            addSegment(pos, newPos, penColor);
         }
         //System.out.println("from: ("+pos.x+","+pos.y+") => to: ("+newPos.x+","+newPos.y+")");
         setPos(newPos);
@@ -466,11 +486,7 @@ public class TurtleBox implements DelayableDiagramController
         Point newPos = new Point((int)Math.round(newX), (int)Math.round(newY));
         if (isPenDown)
         {
-            elements.add(new Line(pos, newPos, penColor));
-        }
-        else
-        {
-            elements.add(new Move(pos, newPos));
+            addSegment(pos, newPos, penColor);
         }
         //System.out.println("from: ("+pos.x+","+pos.y+") => to: ("+newPos.x+","+newPos.y+")");
         setPos(newX, newY);
@@ -660,7 +676,6 @@ public class TurtleBox implements DelayableDiagramController
     public void gotoXY(Integer x, Integer y)
     {
         Point newPos = new Point(x,y);
-        elements.add(new Move(pos,newPos));
         setPos(newPos);
         delay();
    }
@@ -893,8 +908,105 @@ public class TurtleBox implements DelayableDiagramController
      */
     public void clear()
     {
-    	this.elements.clear();
+    	this.clearSegments();
     	this.delay();
     }
     // END KGU#566 2018-07-30
+
+    /**
+     * Appends a visible segment to the segment log
+     * @param from - start point
+     * @param to - end point
+     * @param color - the pen colour
+     */
+    private void addSegment(Point from, Point to, Color color)
+    {
+    	synchronized (segmentLock) {
+    		if (nSegments == segmentColors.length) {
+    			segmentColors = Arrays.copyOf(segmentColors, 2 * nSegments);
+    			segmentCoords = Arrays.copyOf(segmentCoords, 8 * nSegments);
+    		}
+    		int i = 4 * nSegments;
+    		segmentCoords[i++] = from.x;
+    		segmentCoords[i++] = from.y;
+    		segmentCoords[i++] = to.x;
+    		segmentCoords[i] = to.y;
+    		segmentColors[nSegments++] = color.getRGB();
+    	}
+    }
+
+    /** Wipes the segment log (the raster will be rebuilt on next paint) */
+    private void clearSegments()
+    {
+    	synchronized (segmentLock) {
+    		nSegments = 0;
+    		logGeneration++;
+    		// Always fresh arrays: updateRaster() may still be reading the old ones outside the lock
+    		segmentColors = new int[256];
+    		segmentCoords = new int[4 * 256];
+    	}
+    }
+
+    /**
+     * Brings the off-screen raster up to date for a panel of the given size, i.e.
+     * draws all segments logged since the last call into it. If size, background colour
+     * or the log generation has changed then the raster is built from scratch.
+     * To be called from the event dispatch thread (paint) only.
+     * @param width - current panel width
+     * @param height - current panel height
+     * @return the raster image
+     */
+    private BufferedImage updateRaster(int width, int height)
+    {
+    	int[] coords, colors;
+    	int nLogged;
+    	int generation;
+    	synchronized (segmentLock) {
+    		// The arrays are only replaced, never modified below nSegments, so copying the references suffices
+    		coords = segmentCoords;
+    		colors = segmentColors;
+    		nLogged = nSegments;
+    		generation = logGeneration;
+    	}
+    	Color bgColor = backgroundColor;
+    	width = Math.max(width, 1);
+    	height = Math.max(height, 1);
+    	boolean rebuild = raster == null || raster.getWidth() != width || raster.getHeight() != height
+    			|| generation != rasterGeneration || !bgColor.equals(rasterBackground);
+    	if (rebuild) {
+    		if (raster == null || raster.getWidth() != width || raster.getHeight() != height) {
+    			raster = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    		}
+    		rasterGeneration = generation;
+    		rasterBackground = bgColor;
+    		nRasterized = 0;
+    	}
+    	if (rebuild || nRasterized < nLogged) {
+    		Graphics2D rg = raster.createGraphics();
+    		try {
+    			if (rebuild) {
+    				rg.setColor(bgColor);
+    				rg.fillRect(0, 0, width, height);
+    			}
+    			rg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    			int lastRGB = 0;
+    			Color color = null;
+    			for (int s = nRasterized; s < nLogged; s++) {
+    				int rgb = colors[s];
+    				if (color == null || rgb != lastRGB) {
+    					color = new Color(rgb, true);
+    					lastRGB = rgb;
+    					rg.setColor(color);
+    				}
+    				int i = 4 * s;
+    				rg.drawLine(coords[i], coords[i+1], coords[i+2], coords[i+3]);
+    			}
+    		}
+    		finally {
+    			rg.dispose();
+    		}
+    		nRasterized = nLogged;
+    	}
+    	return raster;
+    }
 }
@@ -47,10 +47,21 @@ package lu.fisch.utils;
  *      Kay Gürtzig     2017.06.18      Methods explodeWithDelimiter() revised (don't mistake '_by' for a regex anymore)
  *      Kay Gürtzig     2017.10.02      New functional variant with null separator for methods concatenate(...)
  *      Kay Gürtzig     2017.10.28      Method trim() added.
+ *      agent           2026.10.19      Method setCommaText() now works with a StringBuilder
+ *      agent           2026.10.19      Storage re-based from Vector to an unsynchronized growable array,
+ *                                      bulk methods remove(int, int), splice(), insert(StringList, int) and
+ *                                      ensureCapacity(); concatenate() with pre-sized StringBuilder
  *
  ******************************************************************************************************
  *
- *      Comment:		/
+ *      Comment:
+ *      2026.10.19 (agent)
+ *      - The elements are held in a plain array (like ArrayList, but without the indirections and
+ *        without the monitor locks of the former Vector). StringList instances have never been shared
+ *        among threads without external synchronization, so nothing gets lost. Range operations move
+ *        the array tails with System.arraycopy() instead of element by element.
+ *      - All public methods keep their former semantics, including the tolerance of get() and set()
+ *        against invalid indices and the exceptions for invalid indices in delete(), insert(), remove().
  *
  ******************************************************************************************************/
 
@@ -64,11 +75,18 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
-import java.util.Vector;
+import java.util.Arrays;
 
 public class StringList {
 
-	private Vector<String> strings = new Vector<String>();
+	private static final String[] EMPTY = new String[0];
+	/** Default capacity on first growth of an empty StringList */
+	private static final int DEFAULT_CAPACITY = 8;
+
+	/** The element array, only the first {@link #size} entries are valid */
+	private String[] strings = EMPTY;
+	/** Number of elements */
+	private int size = 0;
 
 	/**
 	 * Constructs this as empty StringList
@@ -90,9 +108,8 @@ public class StringList {
 	 */
 	public StringList(String[] _strings)
 	{
-		for (String str: _strings) {
-			strings.add(str);
-		}
+		strings = Arrays.copyOf(_strings, _strings.length, String[].class);
+		size = _strings.length;
 	}
 	// END KGU 2017-06-18
 	
@@ -131,15 +148,7 @@ public class StringList {
 	 */
 	public static StringList explode(String _source, String _by)
 	{
-		String[] multi = _source.split(_by);
-		StringList sl = new StringList();
-
-		for(int i=0;i<multi.length;i++)
-		{
-			sl.add(multi[i]);
-		}
-
-		return sl;
+		return new StringList(_source.split(_by));
 	}
 
 	/**
@@ -201,10 +210,7 @@ public class StringList {
 		{
 			// FIXME KGU 2017-06-18: I suggest that all but the last string be split with second argument -1
 			String[] multi = _source.get(s).split(_by);
-			for(int i=0; i<multi.length; i++)
-			{
-				sl.add(multi[i]);
-			}
+			sl.addAll(multi, multi.length);
 		}
 
 		return sl;
@@ -241,20 +247,19 @@ public class StringList {
 		// The following is the (optimized) alternative solution copied from BString  
 		StringList sl = new StringList();
 		int lenBy = _by.length();
-		while (!_source.isEmpty())
+		int len = _source.length();
+		int start = 0;
+		int pos;
+		// (Walks along the source instead of cutting off the remainder again and again)
+		while (start < len && lenBy > 0 && (pos = _source.indexOf(_by, start)) >= 0)
 		{
-			int pos = _source.indexOf(_by);
-			if (pos >= 0)
-			{
-				sl.add(_source.substring(0,pos));
-				sl.add(_by);
-				_source=_source.substring(pos + lenBy, _source.length());
-			}
-			else
-			{
-				sl.add(_source);
-				_source = "";
-			}
+			sl.add(_source.substring(start, pos));
+			sl.add(_by);
+			start = pos + lenBy;
+		}
+		if (start < len)
+		{
+			sl.add(_source.substring(start));
 		}
 		return sl;
 	}
@@ -289,10 +294,14 @@ public class StringList {
 	 */
 	public StringList copy()
 	{
-		// FIXME (KGU) Why this complicated detour?
+		// The former detour via setCommaText(getCommaText()) is replaced by a direct array
+		// copy. It had a single side effect, which is retained here: a StringList consisting
+		// of just one blank element came back empty.
 		StringList sl = new StringList();
-		//sl.add("TEXT");
-		sl.setCommaText(this.getCommaText()+"");
+		if (size != 1 || !isBlank(strings[0]))
+		{
+			sl.addAll(strings, size);
+		}
 		return sl;
 	}
 	
@@ -310,9 +319,10 @@ public class StringList {
 		StringList sl = new StringList();
 		if (_start < 0) _start = 0;
 		if (_end > this.count()) _end = this.count();
-		for (int i = _start; i < _end; i++)
+		if (_start < _end)
 		{
-			sl.add(this.get(i) + "");
+			sl.strings = Arrays.copyOfRange(strings, _start, _end);
+			sl.size = _end - _start;
 		}
 		return sl;
 	}
@@ -323,7 +333,64 @@ public class StringList {
 	 */
 	public void add(String _string)
 	{
-		strings.add(_string);
+		if (size == strings.length) {
+			grow(size + 1);
+		}
+		strings[size++] = _string;
+	}
+
+	/**
+	 * Makes sure that at least {@code _minCapacity} elements can be held without
+	 * further reallocation. (Use it before adding a known large number of elements.)
+	 * @param _minCapacity - the required minimum capacity
+	 */
+	public void ensureCapacity(int _minCapacity)
+	{
+		if (_minCapacity > strings.length) {
+			grow(_minCapacity);
+		}
+	}
+
+	/** Enlarges the element array by half of its size but at least to {@code _minCapacity} */
+	private void grow(int _minCapacity)
+	{
+		int newCapacity = strings.length + (strings.length >> 1);
+		if (newCapacity < _minCapacity) {
+			newCapacity = Math.max(_minCapacity, DEFAULT_CAPACITY);
+		}
+		strings = Arrays.copyOf(strings, newCapacity);
+	}
+
+	/** Appends the first {@code _count} elements of {@code _array} */
+	private void addAll(String[] _array, int _count)
+	{
+		if (_count > 0)
+		{
+			ensureCapacity(size + _count);
+			System.arraycopy(_array, 0, strings, size, _count);
+			size += _count;
+		}
+	}
+
+	/**
+	 * Opens a gap of {@code _count} elements at position {@code _index}, shifting the
+	 * tail in one move; the gap is to be filled by the caller.
+	 * @throws ArrayIndexOutOfBoundsException if {@code _index} is not within 0 .. {@link #count()}
+	 */
+	private void openGap(int _index, int _count)
+	{
+		if (_index < 0 || _index > size) {
+			throw new ArrayIndexOutOfBoundsException(_index + " > " + size);
+		}
+		ensureCapacity(size + _count);
+		System.arraycopy(strings, _index, strings, _index + _count, size - _index);
+		size += _count;
+	}
+
+	/** Compares two possibly null strings for equality */
+	private static boolean equal(String _s1, String _s2)
+	{
+		return _s1 == null ? _s2 == null : _s1.equals(_s2);
 	}
 
 	/**
@@ -345,14 +412,14 @@ public class StringList {
 	
 	private boolean addOrdered(String _string, boolean _onlyIfNew)
 	{
-		for (int i=0; i < strings.size(); i++)
+		for (int i=0; i < size; i++)
 		{
-			int comp = (strings.get(i)).compareTo(_string);
+			int comp = strings[i].compareTo(_string);
 			if (comp == 0 && _onlyIfNew) {
 				return false;
 			}
 			else if (comp >= 0) {
-				strings.insertElementAt(_string, i);
+				insert(_string, i);
 				return true;
 			}
 		}
@@ -381,12 +448,12 @@ public class StringList {
 		boolean inserted = false;
 		if (!_string.equals(""))
 		{
-			for(int i=0;i<strings.size();i++)
+			for(int i=0;i<size;i++)
 			{
 				// FIXME: Shouldn't strings of the same length be ordered lexicographically?
-				if ((strings.get(i)).length()<_string.length())
+				if (strings[i].length()<_string.length())
 				{
-					strings.insertElementAt(_string,i);
+					insert(_string,i);
 					inserted = true;
 					break;
 				}
@@ -412,7 +479,7 @@ public class StringList {
 	 */
 	public boolean addIfNew(String _string)
 	{
-		if (!strings.contains(_string))
+		if (indexOf(_string) < 0)
 		{
 			add(_string);
 			return true;
@@ -451,7 +518,7 @@ public class StringList {
 	 */
 	public boolean addByLengthIfNew(String _string)
 	{
-		boolean found = strings.contains(_string);
+		boolean found = indexOf(_string) >= 0;
 		if (!found)
 		{
 			addByLength(_string);
@@ -473,10 +540,7 @@ public class StringList {
 	 */
 	public void add(StringList _stringList)
 	{
-		for(int i=0;i<_stringList.count();i++)
-		{
-			strings.add(_stringList.get(i));
-		}
+		addAll(_stringList.strings, _stringList.size);
 	}
 
 	/**
@@ -497,9 +561,10 @@ public class StringList {
 		boolean someInserted = false;
 		for(int i=0;i<_stringList.count();i++)
 		{
-			if(!strings.contains(_stringList.get(i)))
+			String str = _stringList.strings[i];
+			if(indexOf(str) < 0)
 			{
-			   strings.add(_stringList.get(i));
+			   add(str);
 			   someInserted = true;
 			}
 		}
@@ -522,7 +587,7 @@ public class StringList {
 	 */
 	public int lastIndexOf(String _string)
 	{
-		return this.strings.lastIndexOf(_string);
+		return lastIndexOf(_string, size - 1);
 	}
 
 	/**
@@ -540,7 +605,16 @@ public class StringList {
 	 */
 	public int lastIndexOf(String _string, int _backwardFrom)
 	{
-		return this.strings.lastIndexOf(_string, _backwardFrom);
+		if (_backwardFrom >= size) {
+			throw new IndexOutOfBoundsException(_backwardFrom + " >= " + size);
+		}
+		for (int i = _backwardFrom; i >= 0; i--)
+		{
+			if (equal(_string, strings[i])) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 	public int lastIndexOf(String _string, boolean _matchCase)
@@ -551,12 +625,12 @@ public class StringList {
 	public int lastIndexOf(String _string, int _backwardFrom, boolean _matchCase)
 	{
 		if (_matchCase)
-			return this.strings.lastIndexOf(_string, _backwardFrom);
+			return lastIndexOf(_string, _backwardFrom);
 
 		_string = _string.toLowerCase();
 		for (int i=_backwardFrom; i > 0; i--)
 		{
-			if ((strings.get(i)).toLowerCase().equals(_string))
+			if (strings[i].toLowerCase().equals(_string))
 			{
 				return i;
 			}
@@ -566,12 +640,21 @@ public class StringList {
 
 	public int indexOf(String _string)
 	{
-		return this.strings.indexOf(_string);
+		return indexOf(_string, 0);
 	}
 
 	public int indexOf(String _string, int _from)
 	{
-		return this.strings.indexOf(_string, _from);
+		if (_from < 0) {
+			throw new ArrayIndexOutOfBoundsException(_from);
+		}
+		for (int i = _from; i < size; i++)
+		{
+			if (equal(_string, strings[i])) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 	public int indexOf(String _string, boolean _matchCase)
@@ -582,12 +665,13 @@ public class StringList {
 	public int indexOf(String _string, int _from, boolean _matchCase)
 	{
 		if (_matchCase)
-			return this.strings.indexOf(_string, _from);
+			return indexOf(_string, _from);
 
 		_string = _string.toLowerCase();
-		for (int i=_from; i<strings.size(); i++)
+		for (int i=_from; i<size; i++)
 		{
-			if ((strings.get(i)).toLowerCase().equals(_string))
+			String str = strings[i];
+			if (str.equals(_string) || str.toLowerCase().equals(_string))
 			{
 				return i;
 			}
@@ -597,30 +681,34 @@ public class StringList {
 
 	public int indexOf(StringList _subList, int _from, boolean _matchCase)
 	{
-		int foundAt = -1;
-		int foundFirst = -1;
-		while (foundAt < 0 && (foundFirst = indexOf(_subList.get(0), _from, _matchCase)) >= 0 && foundFirst + _subList.count() <= this.count())
+		int subCount = _subList.count();
+		String[] pattern = _subList.toArray();
+		if (subCount == 0) {
+			// Mimics the former behaviour: an empty sublist was sought as ""
+			pattern = new String[]{""};
+			subCount = 1;
+		}
+		else if (!_matchCase) {
+			// Lower-case the pattern only once
+			for (int i = 0; i < subCount; i++) {
+				pattern[i] = pattern[i].toLowerCase();
+			}
+		}
+		int last = size - subCount;
+		for (int pos = _from; pos <= last; pos++)
 		{
-			for (int i = 1; foundFirst >= 0 && i < _subList.count(); i++)
+			boolean matches = true;
+			for (int i = 0; matches && i < subCount; i++)
 			{
-				String str1 = _subList.get(i);
-				String str2 = this.strings.get(foundFirst + i);
-				if (!_matchCase) {
-					str1 = str1.toLowerCase();
-					str2 = str2.toLowerCase();
-				}
-				if (!(str1.equals(str2)))
-				{
-					_from = foundFirst + 1;
-					foundFirst = -1;
-				}
+				String str = strings[pos + i];
+				matches = str.equals(pattern[i]) || !_matchCase && str.toLowerCase().equals(pattern[i]);
 			}
-			if (foundFirst >= 0)
+			if (matches)
 			{
-				foundAt = foundFirst;
+				return pos;
 			}
 		}
-		return foundAt;
+		return -1;
 	}
 
 	public boolean contains(String _string)
@@ -671,10 +759,11 @@ public class StringList {
 	public StringList reverse()
 	{
 		StringList sl = new StringList();
-
-		for(int i=0;i<strings.size();i++)
+		sl.strings = new String[size];
+		sl.size = size;
+		for(int i=0;i<size;i++)
 		{
-			sl.add(get(count()-i-1));
+			sl.strings[i] = strings[size-i-1];
 		}
 
 		return sl;
@@ -689,10 +778,9 @@ public class StringList {
 	 */
 	public void set(int _index, String _s)
 	{
-		if(_index<strings.size() && _index>=0)
+		if(_index<size && _index>=0)
 		{
-			strings.remove(_index);
-			strings.insertElementAt(_s,_index);
+			strings[_index] = _s;
 		}
 	}
 
@@ -706,9 +794,9 @@ public class StringList {
 	 */
 	public String get(int _index)
 	{
-		if(_index<strings.size() && _index>=0)
+		if(_index<size && _index>=0)
 		{
-			return strings.get(_index);
+			return strings[_index];
 		}
 		else
 		{
@@ -718,24 +806,80 @@ public class StringList {
 
 	public void delete(int _index)
 	{
-		strings.removeElementAt(_index);
+		if (_index < 0 || _index >= size) {
+			throw new ArrayIndexOutOfBoundsException(_index + " >= " + size);
+		}
+		removeRange(_index, _index + 1);
 	}
 
 	public void insert(String _string, int _index)
 	{
-		strings.insertElementAt(_string,_index);
+		openGap(_index, 1);
+		strings[_index] = _string;
 	}
 
-	public void setText(String _text)
+	/**
+	 * Inserts all elements of {@code _stringList} at position {@code _index}
+	 * (shifting the elements from {@code _index} on in a single move).
+	 * @param _stringList - the elements to be inserted
+	 * @param _index - the insertion position (0 .. {@link #count()})
+	 * @see #insert(String, int)
+	 * @see #splice(int, int, StringList)
+	 */
+	public void insert(StringList _stringList, int _index)
 	{
-		String[] lines = _text.split ("\n");
-		strings.clear();
-		for (int i=0; i < lines.length; i++)
+		String[] inserted = _stringList.strings;
+		int count = _stringList.size;
+		openGap(_index, count);
+		System.arraycopy(inserted, 0, strings, _index, count);
+	}
+
+	/**
+	 * Replaces the elements from position {@code _fromIndex} to position {@code _toIndex-1}
+	 * by the elements of {@code _replacement} (which may be empty or differ in length), with
+	 * at most one move of the remaining tail.
+	 * @param _fromIndex - the beginning index (inclusive)
+	 * @param _toIndex - the ending index (exclusive), will be reduced to {@link #count()}
+	 * @param _replacement - the elements to be put in place of the removed ones
+	 * @see #remove(int, int)
+	 * @see #insert(StringList, int)
+	 */
+	public void splice(int _fromIndex, int _toIndex, StringList _replacement)
+	{
+		if (_fromIndex < 0 || _fromIndex > size) {
+			throw new ArrayIndexOutOfBoundsException(_fromIndex);
+		}
+		_toIndex = Math.max(_fromIndex, Math.min(_toIndex, size));
+		String[] inserted = _replacement.toArray();	// _replacement might be this
+		int newSize = size - (_toIndex - _fromIndex) + inserted.length;
+		ensureCapacity(newSize);
+		System.arraycopy(strings, _toIndex, strings, _fromIndex + inserted.length, size - _toIndex);
+		System.arraycopy(inserted, 0, strings, _fromIndex, inserted.length);
+		for (int i = newSize; i < size; i++) {
+			strings[i] = null;
+		}
+		size = newSize;
+	}
+
+	/** Removes the elements from {@code _from} to {@code _to - 1} (both being valid) in a single move */
+	private void removeRange(int _from, int _to)
+	{
+		if (_to > _from)
 		{
-			strings.add(lines[i]);
+			System.arraycopy(strings, _to, strings, _from, size - _to);
+			int newSize = size - (_to - _from);
+			Arrays.fill(strings, newSize, size, null);
+			size = newSize;
 		}
 	}
 
+	public void setText(String _text)
+	{
+		String[] lines = _text.split ("\n");
+		clear();
+		addAll(lines, lines.length);
+	}
+
 	// START KGU 2015-12-21: More flexibility with reduced redundancy
 	/**
 	 * Concatenates all elements, putting the _separator string between them.<br/>
@@ -766,15 +910,27 @@ public class StringList {
 	 */
 	public String concatenate(String _separator, int _start, int _end)
 	{
+		int start = Math.min(_start, count());
+		int end = Math.min(_end, count());
+		// Pre-size the buffer such that it will (almost) never have to grow
+		int length = 0;
+		for (int i = Math.max(start, 0); i < end; i++)
+		{
+			length += strings[i].length() + 1;
+		}
+		if (_separator != null && end > start)
+		{
+			length += (end - start - 1) * (_separator.length() - 1);
+		}
 		// START KGU#425 2017-09-29
 		//String text = "";
-		StringBuffer text = new StringBuffer();
+		StringBuilder text = new StringBuilder(Math.max(length, 16));
 		boolean lastEndedLikeId = false;
 		// END KGU#425 2017-09-29
 		boolean isFirst = true;
-        for(int i = Math.min(_start, count()); i < Math.min(_end, count()); i++)
+        for(int i = start; i < end; i++)
 		{
-        	String thisString = strings.get(i);
+        	String thisString = strings[i];
 			if (isFirst)
 			{
 				//text = strings.get(i);
@@ -845,7 +1001,7 @@ public class StringList {
 	 */
 	public int count()
 	{
-		return strings.size();
+		return size;
 	}
 
 	public void setCommaText(String _input)
@@ -855,94 +1011,91 @@ public class StringList {
 		// if not CSV, make it CSV
 		if (input.length()>0)
 		{
-			String first = Character.toString(input.charAt(0));
-			if (!first.equals("\""))
+			if (input.charAt(0) != '"')
 			{
 				input = "\"" + input;
 			}
-			first = Character.toString(input.charAt(input.length()-1));
-			if (!first.equals("\""))
+			if (input.charAt(input.length()-1) != '"')
 			{
 				input += "\"";
 			}
 		}
 
-		strings.clear();
+		clear();
 
-		String tmp = new String();
+		StringBuilder tmp = new StringBuilder();
 		boolean isOpen = false;
+		int len = input.length();
 
-		for(int i=0; i<input.length(); i++)
+		for(int i=0; i<len; i++)
 		{
-			String chr = Character.toString(input.charAt(i));
-			if (chr.equals("\""))
+			char chr = input.charAt(i);
+			if (chr == '"')
 			{
-			   if (i+1<input.length())
+			   if (i+1<len)
 			   {
 				if (!isOpen)
 				{
 					isOpen = true;
 				}
+				else if (input.charAt(i+1) == '"')
+				{
+					tmp.append('"');
+					i++;
+				}
 				else
 				{
-					String next = Character.toString(input.charAt(i+1));
-					if (next.equals("\""))
-					{
-						tmp += "\"";
-						i++;
-					}
-					else
-					{
-						//if(!((strings.size()==0)&&(tmp.trim().equals(""))))
-						{
-						   strings.add(tmp);
-						}
-						tmp = new String();
-						isOpen = false;
-					}
+					add(tmp.toString());
+					tmp.setLength(0);
+					isOpen = false;
 				}
 			   }
 			   else
 			   {
-				   if (!((strings.size()==0) && (tmp.trim().isEmpty())))
+				   if (!((size==0) && isBlank(tmp)))
 				   {
-					   strings.add(tmp);
+					   add(tmp.toString());
 				   }
-				   tmp = new String();
+				   tmp.setLength(0);
 				   isOpen = false;
 			   }
 			}
-			else
+			else if (isOpen)
 			{
-			   if (isOpen)
-			   {
-				tmp += chr;
-			   }
+				tmp.append(chr);
 			}
 		}
-		if (!(tmp.trim().isEmpty()))
+		if (!isBlank(tmp))
 		{
-			strings.add(tmp);
+			add(tmp.toString());
 		}
 	}
+	
+	/** Checks whether {@code _chars} is empty or consists of whitespace only (as with {@link String#trim()}) */
+	private static boolean isBlank(CharSequence _chars)
+	{
+		for (int i = 0; i < _chars.length(); i++) {
+			if (_chars.charAt(i) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
 
 	public String getCommaText()
 	{
-		String res = new String();
+		StringBuilder res = new StringBuilder();
 
-		for (int i = 0; i<strings.size(); i++)
+		for (int i = 0; i<size; i++)
 		{
-			if (i==0)
+			if (i > 0)
 			{
-				res+= "\"" + get(i).replace("\"", "\"\"") + "\"";
-			}
-			else
-			{
-				res+= ",\"" + get(i).replace("\"", "\"\"") + "\"";
+				res.append(',');
 			}
+			res.append('"').append(strings[i].replace("\"", "\"\"")).append('"');
 		}
 
-		return res;
+		return res.toString();
 	}
 
 	public void loadFromFile(String _filename)
@@ -959,7 +1112,7 @@ public class StringList {
                 }
                 in.close();
 
-                strings.clear();
+                clear();
                 add(StringList.explode(buffer.toString(),"\n"));
             }
             catch(IOException ex){}
@@ -1097,20 +1250,19 @@ public class StringList {
      */
     public int removeAll(String _string, boolean _matchCase)
     {
-    	int nRemoved = 0;
-    	int i = 0;
-    	while (i < count())
+    	// Compacts the array in a single pass
+    	int nKept = 0;
+    	for (int i = 0; i < size; i++)
     	{
-    		if (_matchCase && strings.get(i).equals(_string) || strings.get(i).equalsIgnoreCase(_string))
-    		{
-    			strings.removeElementAt(i);
-    			nRemoved++;
-    		}
-    		else
+    		String str = strings[i];
+    		if (!(_matchCase && str.equals(_string) || str.equalsIgnoreCase(_string)))
     		{
-        		i++;    			
+    			strings[nKept++] = str;
     		}
     	}
+    	int nRemoved = size - nKept;
+    	Arrays.fill(strings, nKept, size, null);
+    	size = nKept;
     	return nRemoved;
     }
     // END KGU#375 2017-04-04
@@ -1128,13 +1280,35 @@ public class StringList {
     {
     	int nRemoved = 0;
     	int pos = -1;
+    	int subCount = _subList.count();
+    	// Collect the matches in the sequence the former element-wise deletion found
+    	// them (note that the search resumed one element behind a removed match)
+    	int[] matches = null;
     	while ((pos = this.indexOf(_subList, pos+1, _matchCase)) >= 0)
     	{
-    		for (int i = 0; i < _subList.count(); i++)
+    		if (matches == null) {
+    			matches = new int[Math.max(4, size / Math.max(subCount, 1))];
+    		}
+    		else if (nRemoved == matches.length) {
+    			matches = Arrays.copyOf(matches, nRemoved * 2);
+    		}
+    		matches[nRemoved++] = pos;
+    		pos += subCount;
+    	}
+    	// Now compact the array in a single pass
+    	if (nRemoved > 0)
+    	{
+    		int nKept = matches[0];
+    		for (int m = 0; m < nRemoved; m++)
     		{
-    			strings.removeElementAt(pos);
+    			int end = (m + 1 < nRemoved) ? matches[m+1] : size;
+    			for (int i = matches[m] + subCount; i < end; i++)
+    			{
+    				strings[nKept++] = strings[i];
+    			}
     		}
-    		nRemoved++;
+    		Arrays.fill(strings, nKept, size, null);
+    		size = nKept;
     	}
     	return nRemoved;
     }
@@ -1217,10 +1391,10 @@ public class StringList {
     	int nReplaced = 0;
     	for (int i = Math.max(0, _fromIndex); i < Math.min(_toIndex, count()); i++)
     	{
-    		if (_matchCase && strings.get(i).equals(_stringOld) ||
-    				!_matchCase && strings.get(i).equalsIgnoreCase(_stringOld))
+    		if (_matchCase && strings[i].equals(_stringOld) ||
+    				!_matchCase && strings[i].equalsIgnoreCase(_stringOld))
     		{
-    			strings.setElementAt(_stringNew, i);
+    			strings[i] = _stringNew;
     			nReplaced++;
     		}
     	}
@@ -1237,7 +1411,8 @@ public class StringList {
     // START KGU 2015-11-24
     public void clear()
     {
-    	this.strings.clear();
+    	Arrays.fill(strings, 0, size, null);
+    	size = 0;
     }
     // END KGU 2015-11-24
 
@@ -1245,12 +1420,7 @@ public class StringList {
     // START BOB 2016-08-01
     public String[] toArray()
     {
-    	String[] array = new String[count()];
-        for (int i = 0; i < count(); i++) {
-            String get = strings.get(i);
-            array[i]=get;
-        }
-        return array;
+    	return Arrays.copyOf(strings, size);
     }
     
     /**
@@ -1259,7 +1429,7 @@ public class StringList {
      */
     public void remove(int index)
     {
-        strings.remove(index);
+        delete(index);
     } 
     // END BOB 2016-08-01
     
@@ -1272,8 +1442,12 @@ public class StringList {
      */
     public void remove(int fromIndex, int toIndex)
     {
-    	for (int count = Math.min(toIndex, this.strings.size())-fromIndex; count > 0; count--) {
-    		strings.remove(fromIndex);
+    	toIndex = Math.min(toIndex, size);
+    	if (toIndex > fromIndex) {
+    		if (fromIndex < 0) {
+    			throw new ArrayIndexOutOfBoundsException(fromIndex);
+    		}
+    		removeRange(fromIndex, toIndex);
     	}
     }
     // END KGU 2017-01-31
@@ -1291,14 +1465,18 @@ public class StringList {
      */
     public StringList trim()
     {
-    	// Trim at front
-    	while (!strings.isEmpty() && strings.get(0).trim().isEmpty()) {
-    		strings.remove(0);
-    	}
     	// Trim at rear
-    	while (!strings.isEmpty() && strings.get(strings.size()-1).trim().isEmpty()) {
-    		strings.remove(strings.size()-1);
+    	int end = size;
+    	while (end > 0 && strings[end-1].trim().isEmpty()) {
+    		end--;
+    	}
+    	remove(end, size);
+    	// Trim at front
+    	int start = 0;
+    	while (start < end && strings[start].trim().isEmpty()) {
+    		start++;
     	}
+    	remove(0, start);
     	return this;
     }
     // END KGU 2017-10-29
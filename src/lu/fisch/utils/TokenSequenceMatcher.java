@@ -0,0 +1,273 @@
+/*
+    Structorizer
+    A little tool which you can use to create Nassi-Schneiderman Diagrams (NSD)
+
+    Copyright (C) 2009  Bob Fisch
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or any
+    later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package lu.fisch.utils;
+
+/******************************************************************************************************
+ *
+ *      Author:         agent
+ *
+ *      Description:    Precompiled matcher for a set of token sequences (e.g. split parser keywords).
+ *
+ ******************************************************************************************************
+ *
+ *      Revision List
+ *
+ *      Author          Date			Description
+ *      ------			----			-----------
+ *      agent           2026.10.19      First Issue
+ *
+ ******************************************************************************************************
+ *
+ *      Comment:
+ *      The patterns are stored in a trie over tokens, such that a token list can be searched
+ *      for all patterns in a single left-to-right pass instead of one StringList.indexOf() loop
+ *      (with repeated deletions) per pattern. At every position the longest enabled pattern wins
+ *      and its tokens are consumed, so occurrences never overlap. Among identical patterns the
+ *      one registered first has priority.
+ *      An instance is meant to be completely set up before it gets shared; afterwards it is
+ *      never modified and may therefore be used by several threads concurrently.
+ *
+ ******************************************************************************************************/
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Precompiled set of token sequences (patterns) with associated replacement strings,
+ * allowing to find and replace all of them within a token list in a single pass.
+ * @author agent
+ */
+public class TokenSequenceMatcher {
+
+	/** Trie node; {@code patterns} holds the indices of all patterns ending here in registration order */
+	private static final class Node {
+		HashMap<String, Node> next = null;
+		int[] patterns = null;
+	}
+
+	private final Node root = new Node();
+	private final boolean ignoreCase;
+	private final ArrayList<String> tags = new ArrayList<String>();
+	private final ArrayList<String> replacements = new ArrayList<String>();
+	private final ArrayList<Integer> lengths = new ArrayList<Integer>();
+
+	/**
+	 * Creates an empty matcher
+	 * @param _ignoreCase - whether tokens are to be compared case-independently
+	 */
+	public TokenSequenceMatcher(boolean _ignoreCase)
+	{
+		ignoreCase = _ignoreCase;
+	}
+
+	/**
+	 * @return true if tokens are compared case-independently
+	 */
+	public boolean isIgnoringCase()
+	{
+		return ignoreCase;
+	}
+
+	/**
+	 * Registers a new pattern. An empty token sequence is registered (to keep the indices
+	 * consistent) but will never match.
+	 * @param _tag - an identifying name for the pattern (e.g. the parser preference name), may be null
+	 * @param _tokens - the token sequence to be found
+	 * @param _replacement - the string to substitute for a found sequence, or null if it is just to be removed
+	 * @return the index of the pattern
+	 */
+	public int addPattern(String _tag, StringList _tokens, String _replacement)
+	{
+		int index = tags.size();
+		tags.add(_tag);
+		replacements.add(_replacement);
+		lengths.add(_tokens.count());
+		if (_tokens.count() > 0)
+		{
+			Node node = root;
+			for (int i = 0; i < _tokens.count(); i++)
+			{
+				String key = normalize(_tokens.get(i));
+				if (node.next == null) {
+					node.next = new HashMap<String, Node>();
+				}
+				Node child = node.next.get(key);
+				if (child == null) {
+					child = new Node();
+					node.next.put(key, child);
+				}
+				node = child;
+			}
+			if (node.patterns == null) {
+				node.patterns = new int[]{index};
+			}
+			else {
+				int[] patterns = new int[node.patterns.length + 1];
+				System.arraycopy(node.patterns, 0, patterns, 0, node.patterns.length);
+				patterns[node.patterns.length] = index;
+				node.patterns = patterns;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * @return the number of registered patterns
+	 */
+	public int count()
+	{
+		return tags.size();
+	}
+
+	/**
+	 * @param _index - index of a registered pattern
+	 * @return the tag the pattern was registered with
+	 */
+	public String getTag(int _index)
+	{
+		return tags.get(_index);
+	}
+
+	/**
+	 * @param _index - index of a registered pattern
+	 * @return the number of tokens of the pattern
+	 */
+	public int getLength(int _index)
+	{
+		return lengths.get(_index);
+	}
+
+	/**
+	 * Creates a mask for {@link #replaceAll(StringList, boolean[])} and {@link #removeAll(StringList, boolean[])}
+	 * enabling just the patterns registered with one of the given tags.
+	 * @param _tags - the tags of the patterns to be enabled
+	 * @return the mask
+	 */
+	public boolean[] maskFor(String... _tags)
+	{
+		boolean[] mask = new boolean[tags.size()];
+		for (String tag: _tags)
+		{
+			for (int i = 0; i < mask.length; i++)
+			{
+				if (tag.equals(tags.get(i))) {
+					mask[i] = true;
+				}
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Identifies the longest enabled pattern starting at position _pos of _tokens
+	 * @param _tokens - the token list to be inspected
+	 * @param _pos - the start position
+	 * @param _mask - enabled patterns (null for all)
+	 * @return the index of the matching pattern or -1
+	 */
+	public int matchAt(StringList _tokens, int _pos, boolean[] _mask)
+	{
+		int found = -1;
+		Node node = root;
+		int nTokens = _tokens.count();
+		for (int i = _pos; i < nTokens && node.next != null; i++)
+		{
+			node = node.next.get(normalize(_tokens.get(i)));
+			if (node == null) {
+				break;
+			}
+			if (node.patterns != null)
+			{
+				for (int p: node.patterns)
+				{
+					if (_mask == null || _mask[p]) {
+						found = p;
+						break;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Replaces all (non-overlapping) occurrences of enabled patterns in _tokens by the
+	 * respective replacement string (as single token), removes them if the replacement is null.
+	 * @param _tokens - the token list to be searched
+	 * @param _mask - enabled patterns (null for all)
+	 * @return a new token list if something was replaced, otherwise _tokens itself
+	 */
+	public StringList replaceAll(StringList _tokens, boolean[] _mask)
+	{
+		return substitute(_tokens, _mask, false);
+	}
+
+	/**
+	 * Removes all (non-overlapping) occurrences of enabled patterns from _tokens.
+	 * @param _tokens - the token list to be searched
+	 * @param _mask - enabled patterns (null for all)
+	 * @return a new token list if something was removed, otherwise _tokens itself
+	 */
+	public StringList removeAll(StringList _tokens, boolean[] _mask)
+	{
+		return substitute(_tokens, _mask, true);
+	}
+
+	private StringList substitute(StringList _tokens, boolean[] _mask, boolean _remove)
+	{
+		StringList result = null;
+		int nTokens = _tokens.count();
+		int i = 0;
+		while (i < nTokens)
+		{
+			int p = root.next == null ? -1 : matchAt(_tokens, i, _mask);
+			if (p < 0)
+			{
+				if (result != null) {
+					result.add(_tokens.get(i));
+				}
+				i++;
+			}
+			else
+			{
+				if (result == null)
+				{
+					result = new StringList();
+					for (int j = 0; j < i; j++) {
+						result.add(_tokens.get(j));
+					}
+				}
+				String replacement = replacements.get(p);
+				if (!_remove && replacement != null) {
+					result.add(replacement);
+				}
+				i += lengths.get(p);
+			}
+		}
+		return result == null ? _tokens : result;
+	}
+
+	private String normalize(String _token)
+	{
+		return ignoreCase ? _token.toLowerCase() : _token;
+	}
+
+}